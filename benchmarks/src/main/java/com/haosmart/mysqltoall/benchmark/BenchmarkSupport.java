@@ -0,0 +1,171 @@
+package com.haosmart.mysqltoall.benchmark;
+
+import cn.hutool.db.Entity;
+import cn.hutool.db.meta.Column;
+import cn.hutool.db.meta.Table;
+import com.haosmart.mysqltoall.config.DbConfig;
+import com.haosmart.mysqltoall.enumration.DbType;
+
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.sql.DatabaseMetaData;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 基准测试公共数据
+ *
+ * @author fujunhao
+ */
+public class BenchmarkSupport {
+
+    public static final String H2_DRIVER = "org.h2.Driver";
+
+    private BenchmarkSupport() {
+    }
+
+    /**
+     * 创建仅返回版本号的数据库元信息
+     *
+     * @param majorVersion 主版本号
+     * @param minorVersion 次版本号
+     * @return 数据库元信息
+     */
+    public static DatabaseMetaData metaData(int majorVersion, int minorVersion) {
+        return (DatabaseMetaData) Proxy.newProxyInstance(BenchmarkSupport.class.getClassLoader(), new Class[]{DatabaseMetaData.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getDatabaseMajorVersion":
+                    return majorVersion;
+                case "getDatabaseMinorVersion":
+                    return minorVersion;
+                default:
+                    return null;
+            }
+        });
+    }
+
+    /**
+     * 创建数据源配置
+     *
+     * @param dbType 数据库类型
+     * @return 数据源配置
+     */
+    public static DbConfig config(DbType dbType) {
+        DbConfig config = new DbConfig();
+        config.setId(dbType.getName());
+        config.setDbType(dbType);
+        config.setDbUrl("jdbc:" + dbType.getName() + "://localhost/benchmark");
+        config.setUserName("benchmark");
+        config.setPassword("benchmark");
+        config.setSchemaName("benchmark");
+        config.setEncoding(StandardCharsets.UTF_8);
+        return config;
+    }
+
+    /**
+     * 创建H2内存库数据源配置
+     *
+     * @param name   库名
+     * @param dbType 模拟的数据库类型
+     * @param mode   H2兼容模式
+     * @return 数据源配置
+     */
+    public static DbConfig h2Config(String name, DbType dbType, String mode) {
+        DbConfig config = new DbConfig();
+        config.setId(name);
+        config.setDbType(dbType);
+        config.setDriverClass(H2_DRIVER);
+        config.setDbUrl("jdbc:h2:mem:" + name + ";MODE=" + mode + ";DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        config.setUserName("sa");
+        config.setPassword("sa");
+        config.setEncoding(StandardCharsets.UTF_8);
+        return config;
+    }
+
+    /**
+     * 创建宽表，包含整数、小数、字符串、时间及JSON列
+     *
+     * @param tableName   表名
+     * @param columnCount 列数
+     * @return 表对象
+     */
+    public static Table wideTable(String tableName, int columnCount) {
+        Table table = Table.create(tableName);
+        table.setComment("benchmark table");
+        table.setColumn(column(tableName, "id", Types.BIGINT, "BIGINT", 20, 0, false));
+        table.addPk("id");
+        for (int i = 1; i < columnCount; i++) {
+            switch (i % 5) {
+                case 0:
+                    table.setColumn(column(tableName, "amount_" + i, Types.DECIMAL, "DECIMAL", 18, 2, true));
+                    break;
+                case 1:
+                    table.setColumn(column(tableName, "name_" + i, Types.VARCHAR, "VARCHAR", 255, 0, true));
+                    break;
+                case 2:
+                    table.setColumn(column(tableName, "created_" + i, Types.TIMESTAMP, "DATETIME", 19, 0, true));
+                    break;
+                case 3:
+                    table.setColumn(column(tableName, "flag_" + i, Types.BIT, "BIT", 1, 0, false));
+                    break;
+                default:
+                    table.setColumn(column(tableName, "payload_" + i, Types.LONGVARCHAR, "JSON", 1073741824, 0, true));
+                    break;
+            }
+        }
+        return table;
+    }
+
+    /**
+     * 创建与表结构对应的来源行
+     *
+     * @param table    表对象
+     * @param rowCount 行数
+     * @return 来源行
+     */
+    public static List<Entity> rows(Table table, int rowCount) {
+        List<Entity> rows = new ArrayList<>(rowCount);
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        for (int i = 0; i < rowCount; i++) {
+            Entity entity = new Entity(table.getTableName());
+            for (Column column : table.getColumns()) {
+                entity.set(column.getName(), value(column, i, now));
+            }
+            rows.add(entity);
+        }
+        return rows;
+    }
+
+    private static Object value(Column column, int row, Timestamp now) {
+        switch (column.getTypeEnum()) {
+            case BIGINT:
+                return (long) row;
+            case DECIMAL:
+                return new java.math.BigDecimal(row).movePointLeft(2);
+            case VARCHAR:
+                return row % 10 == 0 ? "" : "name-" + row;
+            case TIMESTAMP:
+                return now;
+            case BIT:
+                return row % 2 == 0;
+            default:
+                return "{\"row\":" + row + "}";
+        }
+    }
+
+    private static Column column(String tableName, String name, int type, String typeName, int size, int digit, boolean nullable) {
+        Column column = new Column();
+        column.setTableName(tableName);
+        column.setName(name);
+        column.setType(type);
+        column.setTypeName(typeName);
+        column.setSize(size);
+        column.setDigit(digit);
+        column.setNullable(nullable);
+        column.setPk("id".equals(name));
+        column.setComment(name);
+        return column;
+    }
+}
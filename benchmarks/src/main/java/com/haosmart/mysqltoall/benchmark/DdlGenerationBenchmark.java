@@ -0,0 +1,75 @@
+package com.haosmart.mysqltoall.benchmark;
+
+import cn.hutool.db.meta.Column;
+import cn.hutool.db.meta.Table;
+import com.haosmart.mysqltoall.config.DbConfig;
+import com.haosmart.mysqltoall.ddl.AbstractDdlProvider;
+import com.haosmart.mysqltoall.ddl.DdlProviderFactory;
+import com.haosmart.mysqltoall.enumration.ActionType;
+import com.haosmart.mysqltoall.enumration.DbType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DDL生成路径：{@link AbstractDdlProvider#wrapName(String)}、{@link AbstractDdlProvider#buildColumnDdl(Collection)}及完整建表脚本
+ *
+ * @author fujunhao
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DdlGenerationBenchmark {
+
+    @Param({"ORACLE", "SQLSERVER", "POSTGRESQL", "KING_BASE_V8", "VAST_BASE"})
+    public DbType targetType;
+
+    private DbConfig sourceConfig;
+
+    private DbConfig targetConfig;
+
+    private AbstractDdlProvider ddlProvider;
+
+    private Table table;
+
+    private Collection<Column> columns;
+
+    @Setup
+    public void setup() throws Exception {
+        this.sourceConfig = BenchmarkSupport.config(DbType.MYSQL);
+        this.targetConfig = BenchmarkSupport.config(this.targetType);
+        this.ddlProvider = (AbstractDdlProvider) DdlProviderFactory.build(this.targetConfig, BenchmarkSupport.metaData(19, 0));
+        this.table = BenchmarkSupport.wideTable("bench_order", 60);
+        this.columns = this.table.getColumns();
+    }
+
+    @Benchmark
+    public String wrapName() {
+        return this.ddlProvider.wrapName("tenant_config_meta.create_time");
+    }
+
+    @Benchmark
+    public String buildColumnDdl() {
+        return this.ddlProvider.buildColumnDdl(this.columns);
+    }
+
+    @Benchmark
+    public List<String> buildCreateDdl() {
+        return this.ddlProvider.buildDdl(this.sourceConfig, this.targetConfig, this.table, ActionType.CREATE);
+    }
+}
@@ -0,0 +1,85 @@
+package com.haosmart.mysqltoall.benchmark;
+
+import cn.hutool.db.Db;
+import cn.hutool.db.ds.simple.SimpleDataSource;
+import com.haosmart.mysqltoall.DdlExecutor;
+import com.haosmart.mysqltoall.ExecuteStrategy;
+import com.haosmart.mysqltoall.config.DbConfig;
+import com.haosmart.mysqltoall.enumration.DbType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 端到端同步：H2 MySQL兼容模式作为来源库，H2 PostgreSQL兼容模式作为目标库，每次调用删除重建并同步整张表
+ *
+ * @author fujunhao
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class EndToEndCopyBenchmark {
+
+    private static final String TABLE_NAME = "bench_order";
+
+    private static final String CREATE_TABLE = "create table bench_order (" +
+            "id bigint primary key, tenant_id int not null, order_no varchar(64) not null, amount decimal(18,2), " +
+            "remark varchar(255), payload varchar(1024), created datetime, flag tinyint)";
+
+    private static final String INSERT = "insert into bench_order values (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    @Param({"10000", "100000"})
+    public int rowCount;
+
+    private DbConfig sourceConfig;
+
+    private DbConfig targetConfig;
+
+    private DdlExecutor executor;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        this.sourceConfig = BenchmarkSupport.h2Config("bench_source_" + this.rowCount, DbType.MYSQL, "MySQL");
+        this.targetConfig = BenchmarkSupport.h2Config("bench_target_" + this.rowCount, DbType.POSTGRESQL, "PostgreSQL");
+        this.targetConfig.setSchemaName("public");
+        Db sourceDb = Db.use(new SimpleDataSource(this.sourceConfig.getDbUrl(), "sa", "sa", BenchmarkSupport.H2_DRIVER));
+        sourceDb.execute(CREATE_TABLE);
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        List<Object[]> params = new ArrayList<>(1000);
+        for (int i = 0; i < this.rowCount; i++) {
+            params.add(new Object[]{(long) i, i % 100, "NO" + i, new BigDecimal(i).movePointLeft(2), "remark " + i, "{\"row\":" + i + "}", now, i % 2});
+            if (params.size() == 1000) {
+                sourceDb.executeBatch(INSERT, params);
+                params.clear();
+            }
+        }
+        if (!params.isEmpty()) {
+            sourceDb.executeBatch(INSERT, params);
+        }
+        this.executor = new DdlExecutor(this.sourceConfig, this.targetConfig, new ExecuteStrategy() {
+        });
+    }
+
+    @Benchmark
+    public void syncSingleTable() throws Exception {
+        this.executor.syncSingleTable(TABLE_NAME);
+    }
+}
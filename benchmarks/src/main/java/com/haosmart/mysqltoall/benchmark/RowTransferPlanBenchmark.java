@@ -0,0 +1,89 @@
+package com.haosmart.mysqltoall.benchmark;
+
+import cn.hutool.db.Entity;
+import cn.hutool.db.meta.Table;
+import com.haosmart.mysqltoall.ddl.DdlProvider;
+import com.haosmart.mysqltoall.ddl.DdlProviderFactory;
+import com.haosmart.mysqltoall.enumration.DbType;
+import com.haosmart.mysqltoall.transfer.RowTransferPlan;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 行转换热点路径：列映射解析（原{@code DdlExecutorWorker.getFiledMapping}）、逐行转换（原{@code convert}）及Entity构造
+ *
+ * @author fujunhao
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RowTransferPlanBenchmark {
+
+    @Param({"10", "60"})
+    public int columnCount;
+
+    @Param({"ORACLE", "POSTGRESQL"})
+    public DbType targetType;
+
+    private Table fromTable;
+
+    private Table toTable;
+
+    private DdlProvider ddlProvider;
+
+    private RowTransferPlan plan;
+
+    private List<Entity> rows;
+
+    @Setup
+    public void setup() throws Exception {
+        this.fromTable = BenchmarkSupport.wideTable("bench_order", this.columnCount);
+        this.toTable = BenchmarkSupport.wideTable("BENCH_ORDER", this.columnCount);
+        this.ddlProvider = DdlProviderFactory.build(BenchmarkSupport.config(this.targetType), BenchmarkSupport.metaData(19, 0));
+        this.plan = RowTransferPlan.build(this.fromTable, this.toTable, this.ddlProvider);
+        this.rows = BenchmarkSupport.rows(this.fromTable, 1000);
+    }
+
+    @Benchmark
+    public RowTransferPlan buildPlan() {
+        return RowTransferPlan.build(this.fromTable, this.toTable, this.ddlProvider);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(1000)
+    public void convertRows(Blackhole blackhole) {
+        for (Entity row : this.rows) {
+            blackhole.consume(this.plan.convert(row));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(1000)
+    public void createEntity(Blackhole blackhole) {
+        for (Entity row : this.rows) {
+            Entity entity = new Entity(this.toTable.getTableName());
+            for (Map.Entry<String, Object> field : row.entrySet()) {
+                entity.set(field.getKey(), field.getValue());
+            }
+            blackhole.consume(entity);
+        }
+    }
+}
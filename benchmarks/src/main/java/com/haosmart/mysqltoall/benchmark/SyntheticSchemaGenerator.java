@@ -0,0 +1,204 @@
+package com.haosmart.mysqltoall.benchmark;
+
+import cn.hutool.core.text.CharSequenceUtil;
+import cn.hutool.core.util.RandomUtil;
+import cn.hutool.db.Db;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 合成数据生成器，在MySQL兼容的来源库中生成宽表、大字段表、JSON表及带联合索引的窄表，表大小按幂律倾斜分布
+ *
+ * @author fujunhao
+ */
+@Slf4j
+public class SyntheticSchemaGenerator {
+
+    /**
+     * 表形态
+     */
+    public enum Shape {
+        /**
+         * 窄表，整数列及联合索引
+         */
+        NARROW,
+        /**
+         * 宽表，60列
+         */
+        WIDE,
+        /**
+         * JSON列
+         */
+        JSON,
+        /**
+         * LONGBLOB及LONGTEXT列
+         */
+        LOB
+    }
+
+    /**
+     * 生成配置
+     */
+    @Data
+    public static class Options {
+
+        /**
+         * 每种形态的表数量
+         */
+        private int tablesPerShape = 2;
+
+        /**
+         * 最大表的行数，范围1k~100M
+         */
+        private long maxRows = 100_000L;
+
+        /**
+         * 最小表的行数
+         */
+        private long minRows = 1_000L;
+
+        /**
+         * 倾斜指数，第i张表的行数为maxRows/(i+1)^skew
+         */
+        private double skew = 1.0D;
+
+        /**
+         * 大字段平均字节数
+         */
+        private int lobBytes = 64 * 1024;
+
+        /**
+         * 插入批次大小
+         */
+        private int batchSize = 1000;
+
+        /**
+         * 参与生成的表形态
+         */
+        private List<Shape> shapes = new ArrayList<>(Arrays.asList(Shape.values()));
+    }
+
+    private static final int WIDE_COLUMN_COUNT = 60;
+
+    private final Db db;
+
+    private final Options options;
+
+    public SyntheticSchemaGenerator(Db db, Options options) {
+        this.db = db;
+        this.options = options;
+    }
+
+    /**
+     * 生成所有表
+     *
+     * @return 生成的总行数
+     */
+    public long generate() throws SQLException {
+        long total = 0;
+        int tableIndex = 0;
+        for (Shape shape : this.options.getShapes()) {
+            for (int i = 0; i < this.options.getTablesPerShape(); i++) {
+                String tableName = CharSequenceUtil.format("syn_{}_{}", shape.name().toLowerCase(), i);
+                long rows = this.rowsOf(tableIndex++);
+                this.createTable(shape, tableName);
+                this.fill(shape, tableName, rows);
+                log.info("Synthetic table {} generated, records:{}", tableName, rows);
+                total += rows;
+            }
+        }
+        return total;
+    }
+
+    private long rowsOf(int tableIndex) {
+        long rows = (long) (this.options.getMaxRows() / Math.pow(tableIndex + 1, this.options.getSkew()));
+        return Math.max(this.options.getMinRows(), rows);
+    }
+
+    private void createTable(Shape shape, String tableName) throws SQLException {
+        this.db.execute("drop table if exists " + tableName);
+        switch (shape) {
+            case NARROW:
+                this.db.execute(CharSequenceUtil.format("create table {} (id bigint primary key, tenant_id int not null, user_id int not null, " +
+                        "status tinyint not null, score int, created datetime not null) comment '窄表'", tableName));
+                this.db.execute(CharSequenceUtil.format("create index idx_{}_tenant_user on {} (tenant_id, user_id)", tableName, tableName));
+                this.db.execute(CharSequenceUtil.format("create index idx_{}_status_created on {} (status, created)", tableName, tableName));
+                break;
+            case WIDE:
+                StringBuilder columns = new StringBuilder("id bigint primary key");
+                for (int i = 1; i < WIDE_COLUMN_COUNT; i++) {
+                    columns.append(i % 3 == 0 ? CharSequenceUtil.format(", amount_{} decimal(18,2)", i) : CharSequenceUtil.format(", name_{} varchar(128)", i));
+                }
+                this.db.execute(CharSequenceUtil.format("create table {} ({}) comment '宽表'", tableName, columns));
+                break;
+            case JSON:
+                this.db.execute(CharSequenceUtil.format("create table {} (id bigint primary key, tenant_id int not null, attrs json, created datetime) comment 'JSON表'", tableName));
+                this.db.execute(CharSequenceUtil.format("create index idx_{}_tenant_created on {} (tenant_id, created)", tableName, tableName));
+                break;
+            case LOB:
+                this.db.execute(CharSequenceUtil.format("create table {} (id bigint primary key, file_name varchar(255) not null, content longblob, summary longtext) comment '附件表'", tableName));
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void fill(Shape shape, String tableName, long rows) throws SQLException {
+        String insertSql = this.insertSql(shape, tableName);
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        List<Object[]> params = new ArrayList<>(this.options.getBatchSize());
+        for (long id = 1; id <= rows; id++) {
+            params.add(this.row(shape, id, now));
+            if (params.size() >= this.options.getBatchSize()) {
+                this.db.executeBatch(insertSql, params);
+                params.clear();
+            }
+        }
+        if (!params.isEmpty()) {
+            this.db.executeBatch(insertSql, params);
+        }
+    }
+
+    private String insertSql(Shape shape, String tableName) {
+        int columnCount;
+        switch (shape) {
+            case NARROW:
+                columnCount = 6;
+                break;
+            case WIDE:
+                columnCount = WIDE_COLUMN_COUNT;
+                break;
+            default:
+                columnCount = 4;
+                break;
+        }
+        return CharSequenceUtil.format("insert into {} values ({})", tableName, CharSequenceUtil.repeatAndJoin("?", columnCount, ","));
+    }
+
+    private Object[] row(Shape shape, long id, Timestamp now) {
+        switch (shape) {
+            case NARROW:
+                return new Object[]{id, (int) (id % 1000), RandomUtil.randomInt(1_000_000), (int) (id % 4), RandomUtil.randomInt(100), now};
+            case WIDE:
+                Object[] values = new Object[WIDE_COLUMN_COUNT];
+                values[0] = id;
+                for (int i = 1; i < WIDE_COLUMN_COUNT; i++) {
+                    values[i] = i % 3 == 0 ? BigDecimal.valueOf(RandomUtil.randomInt(1_000_000), 2) : RandomUtil.randomString(RandomUtil.randomInt(8, 64));
+                }
+                return values;
+            case JSON:
+                return new Object[]{id, (int) (id % 1000), CharSequenceUtil.format("{\"id\":{},\"tags\":[\"{}\",\"{}\"],\"level\":{}}", id,
+                        RandomUtil.randomString(6), RandomUtil.randomString(6), RandomUtil.randomInt(10)), now};
+            default:
+                int size = RandomUtil.randomInt(this.options.getLobBytes() / 2, this.options.getLobBytes() * 3 / 2 + 1);
+                return new Object[]{id, "file-" + id + ".bin", RandomUtil.randomBytes(size), RandomUtil.randomString(size / 8)};
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.haosmart.mysqltoall.benchmark;
+
+import cn.hutool.core.collection.ListUtil;
+import cn.hutool.core.convert.Convert;
+import cn.hutool.core.text.CharSequenceUtil;
+import cn.hutool.db.Db;
+import cn.hutool.db.ds.simple.SimpleDataSource;
+import com.haosmart.mysqltoall.DdlExecutor;
+import com.haosmart.mysqltoall.ExecuteStrategy;
+import com.haosmart.mysqltoall.config.DbConfig;
+import com.haosmart.mysqltoall.enumration.DbType;
+import com.haosmart.mysqltoall.transfer.TransferListener;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 本地端到端吞吐基准，生成合成数据后以不同配置执行{@link DdlExecutor#syncAllTables(int)}，输出行/秒、MB/秒、批次P99耗时及堆内存峰值
+ * <p>
+ * 参数均为{@code key=value}形式：maxRows、minRows、tablesPerShape、skew、lobBytes、workers、pageSizes（逗号分隔）、adaptive
+ * <pre>
+ * java -cp benchmarks/target/benchmarks.jar com.haosmart.mysqltoall.benchmark.ThroughputBenchmarkRunner maxRows=1000000 workers=8 pageSizes=1000,5000
+ * </pre>
+ *
+ * @author fujunhao
+ */
+public class ThroughputBenchmarkRunner {
+
+    private static final double MB = 1024D * 1024D;
+
+    /**
+     * 批次统计
+     */
+    static class StatsListener implements TransferListener {
+
+        private final LongAdder rows = new LongAdder();
+
+        private final LongAdder bytes = new LongAdder();
+
+        private final ConcurrentLinkedQueue<Long> batchNanos = new ConcurrentLinkedQueue<>();
+
+        @Override
+        public void onBatch(String tableName, int rows, long bytes, long readNanos, long writeNanos) {
+            this.rows.add(rows);
+            this.bytes.add(bytes);
+            this.batchNanos.add(readNanos + writeNanos);
+        }
+
+        long percentile(double percent) {
+            List<Long> sorted = new ArrayList<>(this.batchNanos);
+            if (sorted.isEmpty()) {
+                return 0L;
+            }
+            Collections.sort(sorted);
+            return sorted.get((int) Math.min(sorted.size() - 1, Math.ceil(percent * sorted.size()) - 1));
+        }
+    }
+
+    /**
+     * 单次运行结果
+     */
+    @Data
+    @AllArgsConstructor
+    static class Result {
+        String name;
+        long rows;
+        double seconds;
+        double bytes;
+        long p99Nanos;
+        long peakHeapBytes;
+
+        @Override
+        public String toString() {
+            return CharSequenceUtil.format("{}\t{}\t{}\t{}\t{}\t{}\t{}", CharSequenceUtil.padAfter(this.name, 24, ' '), this.rows,
+                    String.format("%.2f", this.seconds), String.format("%.0f", this.rows / this.seconds),
+                    String.format("%.2f", this.bytes / MB / this.seconds), String.format("%.1f", this.p99Nanos / 1_000_000D),
+                    String.format("%.1f", this.peakHeapBytes / MB));
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> params = new HashMap<>(16);
+        for (String arg : args) {
+            List<String> pair = CharSequenceUtil.split(arg, '=', 2);
+            params.put(pair.get(0), pair.size() > 1 ? pair.get(1) : "");
+        }
+        SyntheticSchemaGenerator.Options options = new SyntheticSchemaGenerator.Options();
+        options.setMaxRows(Convert.toLong(params.get("maxRows"), options.getMaxRows()));
+        options.setMinRows(Convert.toLong(params.get("minRows"), options.getMinRows()));
+        options.setTablesPerShape(Convert.toInt(params.get("tablesPerShape"), options.getTablesPerShape()));
+        options.setSkew(Convert.toDouble(params.get("skew"), options.getSkew()));
+        options.setLobBytes(Convert.toInt(params.get("lobBytes"), options.getLobBytes()));
+        int workers = Convert.toInt(params.get("workers"), 4);
+        List<Integer> pageSizes = Convert.toList(Integer.class, CharSequenceUtil.split(params.getOrDefault("pageSizes", "1000,5000"), ','));
+        boolean adaptive = Convert.toBool(params.get("adaptive"), true);
+
+        DbConfig sourceConfig = BenchmarkSupport.h2Config("throughput_source", DbType.MYSQL, "MySQL");
+        Db sourceDb = Db.use(new SimpleDataSource(sourceConfig.getDbUrl(), sourceConfig.getUserName(), sourceConfig.getPassword(), BenchmarkSupport.H2_DRIVER));
+        long generated = new SyntheticSchemaGenerator(sourceDb, options).generate();
+        System.out.println(CharSequenceUtil.format("Generated {} rows, options: {}", generated, options));
+
+        List<Result> results = new ArrayList<>(16);
+        for (Integer pageSize : pageSizes) {
+            results.add(run("fixed-page-" + pageSize, sourceConfig, workers, pageSize, false));
+        }
+        if (adaptive) {
+            results.add(run("adaptive", sourceConfig, workers, ListUtil.sub(pageSizes, 0, 1).get(0), true));
+        }
+        System.out.println("config\trows\tseconds\trows/s\tMB/s\tp99 batch ms\tpeak heap MB");
+        results.forEach(System.out::println);
+    }
+
+    private static Result run(String name, DbConfig sourceConfig, int workers, int pageSize, boolean adaptive) throws Exception {
+        DbConfig targetConfig = BenchmarkSupport.h2Config("throughput_target_" + name.replace('-', '_'), DbType.POSTGRESQL, "PostgreSQL");
+        targetConfig.setSchemaName("public");
+        StatsListener stats = new StatsListener();
+        ExecuteStrategy strategy = new ExecuteStrategy() {
+            @Override
+            public int getDataPageSize() {
+                return pageSize;
+            }
+
+            @Override
+            public boolean isAdaptivePageSize() {
+                return adaptive;
+            }
+
+            @Override
+            public List<TransferListener> getTransferListeners() {
+                return ListUtil.toList(stats);
+            }
+        };
+        System.gc();
+        List<MemoryPoolMXBean> heapPools = new ArrayList<>(8);
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+                heapPools.add(pool);
+            }
+        }
+        long start = System.nanoTime();
+        new DdlExecutor(sourceConfig, targetConfig, strategy).syncAllTables(workers);
+        double seconds = (System.nanoTime() - start) / 1_000_000_000D;
+        long peakHeap = heapPools.stream().mapToLong(t -> t.getPeakUsage().getUsed()).sum();
+        return new Result(name, stats.rows.sum(), seconds, stats.bytes.sum(), stats.percentile(0.99D), peakHeap);
+    }
+}
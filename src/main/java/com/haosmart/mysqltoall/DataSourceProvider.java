@@ -1,19 +1,38 @@
 package com.haosmart.mysqltoall;
 
+import cn.hutool.core.map.MapUtil;
+import cn.hutool.core.text.CharSequenceUtil;
+import cn.hutool.core.util.ObjectUtil;
 import cn.hutool.db.Db;
 import cn.hutool.db.DbUtil;
+import cn.hutool.db.ds.DataSourceWrapper;
 import cn.hutool.db.ds.druid.DruidDSFactory;
 import cn.hutool.setting.Setting;
+import com.alibaba.druid.pool.DruidDataSource;
 import com.haosmart.mysqltoall.config.DbConfig;
+import com.haosmart.mysqltoall.enumration.DbType;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
 
 import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
+@Slf4j
 @Getter
 @AllArgsConstructor
 public class DataSourceProvider {
 
+    /**
+     * 未指定Worker数量时的默认最大连接数
+     */
+    private final static int DEFAULT_MAX_ACTIVE = 10;
+
+    private final static int DEFAULT_PS_CACHE_SIZE = 100;
+
     private final DbConfig config;
     private final DataSource dataSource;
     private final Db db;
@@ -26,11 +45,101 @@ public class DataSourceProvider {
 
     public static DataSourceProvider create(DbConfig config) {
         Setting setting = config.toSetting();
-        setting.set("maxActive", "10");
-        setting.set("minIdle", "10");
-        setting.set("initialSize", "5");
+        setting.set("url", buildUrl(config));
+        int maxActive = ObjectUtil.defaultIfNull(config.getMaxActive(), DEFAULT_MAX_ACTIVE);
+        setting.set("maxActive", String.valueOf(maxActive));
+        setting.set("minIdle", String.valueOf(Math.min(maxActive, ObjectUtil.defaultIfNull(config.getMinIdle(), 1))));
+        setting.set("initialSize", String.valueOf(Math.min(maxActive, ObjectUtil.defaultIfNull(config.getInitialSize(), 1))));
+        int psCacheSize = ObjectUtil.defaultIfNull(config.getPreparedStatementCacheSize(), DEFAULT_PS_CACHE_SIZE);
+        if (psCacheSize > 0) {
+            setting.set("poolPreparedStatements", "true");
+            setting.set("maxPoolPreparedStatementPerConnectionSize", String.valueOf(psCacheSize));
+        }
         try (DruidDSFactory dsFactory = new DruidDSFactory(setting)) {
             return new DataSourceProvider(dsFactory.getDataSource(), config);
         }
     }
+
+    /**
+     * 确保连接池可提供指定数量的并发连接，仅在未配置{@link DbConfig#getMaxActive()}时扩容
+     *
+     * @param connections 并发连接数
+     */
+    public void ensureCapacity(int connections) {
+        if (ObjectUtil.isNotNull(this.config.getMaxActive())) {
+            return;
+        }
+        DataSource raw = this.dataSource instanceof DataSourceWrapper ? ((DataSourceWrapper) this.dataSource).getRaw() : this.dataSource;
+        if (raw instanceof DruidDataSource && ((DruidDataSource) raw).getMaxActive() < connections) {
+            ((DruidDataSource) raw).setMaxActive(connections);
+            log.info("Connection pool {} max active resized to {}", this.config.getId(), connections);
+        }
+    }
+
+    /**
+     * 追加驱动的批量写入优化参数及自定义参数，URL中已存在的参数保持不变，参数名忽略大小写且不会重复追加
+     *
+     * @param config 数据库配置
+     * @return 连接URL
+     */
+    static String buildUrl(DbConfig config) {
+        String url = config.getDbUrl();
+        Map<String, String> properties = new LinkedHashMap<>(16);
+        //仅在URL与数据库类型的驱动一致时追加，如使用H2模拟MySQL时不追加
+        if (ObjectUtil.defaultIfNull(config.getAutoUrlProperties(), Boolean.TRUE) && ObjectUtil.isNotNull(config.getDbType())
+                && CharSequenceUtil.startWithIgnoreCase(url, "jdbc:" + config.getDbType().getName() + ":")) {
+            properties.putAll(getDefaultUrlProperties(config.getDbType()));
+        }
+        if (MapUtil.isNotEmpty(config.getUrlProperties())) {
+            //自定义参数覆盖同名（忽略大小写）的默认参数
+            config.getUrlProperties().forEach((key, value) -> {
+                properties.keySet().removeIf(t -> CharSequenceUtil.equalsIgnoreCase(t, key));
+                properties.put(key, value);
+            });
+        }
+        if (CharSequenceUtil.isBlank(url) || properties.isEmpty()) {
+            return url;
+        }
+        //SQL Server使用分号分隔参数，其余驱动使用查询字符串
+        boolean sqlServer = ObjectUtil.equals(DbType.SQLSERVER, config.getDbType());
+        String query = sqlServer ? CharSequenceUtil.subAfter(url, ';', false) : CharSequenceUtil.subAfter(url, '?', false);
+        Set<String> existKeys = CharSequenceUtil.split(query, sqlServer ? ';' : '&').stream()
+                .map(t -> CharSequenceUtil.subBefore(t, '=', false).trim().toLowerCase())
+                .collect(Collectors.toSet());
+        StringBuilder builder = new StringBuilder(url);
+        for (Map.Entry<String, String> entry : properties.entrySet()) {
+            if (existKeys.contains(entry.getKey().toLowerCase())) {
+                continue;
+            }
+            if (sqlServer) {
+                builder.append(CharSequenceUtil.endWith(builder, ';') ? "" : ";");
+            } else {
+                builder.append(CharSequenceUtil.contains(builder, '?') ? "&" : "?");
+            }
+            builder.append(entry.getKey()).append('=').append(entry.getValue());
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 驱动的批量写入优化参数，仅包含不改变读写语义的参数；如zeroDateTimeBehavior、stringtype等需通过{@link DbConfig#getUrlProperties()}配置
+     */
+    private static Map<String, String> getDefaultUrlProperties(DbType dbType) {
+        switch (dbType) {
+            case MYSQL:
+                return MapUtil.builder(new LinkedHashMap<String, String>(8))
+                        .put("rewriteBatchedStatements", "true")
+                        .put("useServerPrepStmts", "true")
+                        .put("cachePrepStmts", "true")
+                        .put("prepStmtCacheSize", "250")
+                        .put("prepStmtCacheSqlLimit", "2048")
+                        .build();
+            case POSTGRESQL:
+                return MapUtil.of("reWriteBatchedInserts", "true");
+            case SQLSERVER:
+                return MapUtil.of("useBulkCopyForBatchInsert", "true");
+            default:
+                return MapUtil.empty();
+        }
+    }
 }
@@ -1,65 +1,221 @@
 package com.haosmart.mysqltoall;
 
 import cn.hutool.core.collection.ListUtil;
+import cn.hutool.core.exceptions.ExceptionUtil;
+import cn.hutool.core.lang.loader.LazyFunLoader;
 import cn.hutool.core.text.CharSequenceUtil;
+import cn.hutool.core.thread.NamedThreadFactory;
 import cn.hutool.core.util.ObjectUtil;
+import cn.hutool.db.Db;
+import cn.hutool.db.Entity;
 import cn.hutool.db.meta.MetaUtil;
+import cn.hutool.db.meta.Table;
 import com.haosmart.mysqltoall.config.DbConfig;
+import com.haosmart.mysqltoall.config.TableRule;
+import com.haosmart.mysqltoall.ddl.DatabaseVersionProfile;
 import com.haosmart.mysqltoall.ddl.DdlProvider;
 import com.haosmart.mysqltoall.ddl.DdlProviderFactory;
+import com.haosmart.mysqltoall.ddl.DdlScriptGenerator;
+import com.haosmart.mysqltoall.entity.ForeignKey;
 import com.haosmart.mysqltoall.entity.TableMeta;
+import com.haosmart.mysqltoall.enumration.ActionType;
+import com.haosmart.mysqltoall.enumration.DbType;
+import com.haosmart.mysqltoall.file.ExportManifest;
+import com.haosmart.mysqltoall.file.FileExporter;
+import com.haosmart.mysqltoall.file.FileLoader;
+import com.haosmart.mysqltoall.metrics.ProgressReporter;
+import com.haosmart.mysqltoall.metrics.PrometheusFileExporter;
+import com.haosmart.mysqltoall.metrics.TransferEvent;
+import com.haosmart.mysqltoall.metrics.TransferEvents;
+import com.haosmart.mysqltoall.metrics.TransferMetrics;
+import com.haosmart.mysqltoall.transfer.CompositeTransferListener;
+import com.haosmart.mysqltoall.transfer.MemoryBudget;
+import com.haosmart.mysqltoall.transfer.SourceHealthMonitor;
+import com.haosmart.mysqltoall.transfer.SourceRateLimiter;
+import com.haosmart.mysqltoall.transfer.TableDependencyScheduler;
+import com.haosmart.mysqltoall.transfer.TransferListener;
+import com.haosmart.mysqltoall.utils.MetaDataUtil;
+import com.haosmart.mysqltoall.verify.FingerprintStore;
 import lombok.extern.slf4j.Slf4j;
 
+import java.io.File;
+import java.io.IOException;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 @Slf4j
 public class DdlExecutor {
 
-    private final DdlProvider provider;
+    private final LazyFunLoader<DataSourceProvider> sourceProvider;
 
-    private final DataSourceProvider sourceProvider;
+    private final LazyFunLoader<DataSourceProvider> targetProvider;
 
-    private final DataSourceProvider targetProvider;
+    /**
+     * 分片来源库，第一个分片同时作为{@link #sourceProvider}及表结构来源；单来源同步时仅包含一个
+     */
+    private final List<LazyFunLoader<DataSourceProvider>> shardProviders;
+
+    /**
+     * 各分片的标识，与{@link #shardProviders}按下标对应，未配置id时为shard-下标
+     */
+    private final List<String> shardIds;
+
+    /**
+     * 各分片的同步指标，键为分片标识
+     */
+    private final Map<String, TransferMetrics> shardMetrics = new LinkedHashMap<>(16);
+
+    private final DbConfig targetConfig;
+
+    /**
+     * 目标库元数据探测，首次同步时与来源库表清单查询并发执行
+     */
+    private volatile CompletableFuture<DdlProvider> providerFuture;
 
     private final ExecuteStrategy executeStrategy;
 
+    private final MemoryBudget memoryBudget;
+
+    private final SourceRateLimiter rateLimiter;
+
+    private final TransferListener transferListener;
+
+    private final TransferMetrics transferMetrics;
+
+    /**
+     * 表指纹存储，未启用时为{@code null}
+     */
+    private final FingerprintStore fingerprintStore;
+
+    /**
+     * 后台约束校验
+     */
+    private volatile CompletableFuture<Void> constraintValidation = CompletableFuture.completedFuture(null);
+
     private final static String QUERY_COUNT = "select count(*) from {}";
 
+    private final static int POOL_RESERVED_CONNECTIONS = 2;
 
-    public DdlExecutor(DbConfig sourceConfig, DbConfig targetConfig, ExecuteStrategy executeStrategy) throws SQLException {
-        this.sourceProvider = DataSourceProvider.create(sourceConfig);
-        this.targetProvider = DataSourceProvider.create(targetConfig);
-        this.executeStrategy = executeStrategy;
-        // Use a temporary connection to get metadata, then close it.
-        try (Connection metaConn = this.targetProvider.getDataSource().getConnection()) {
-            this.provider = DdlProviderFactory.build(targetConfig, metaConn.getMetaData());
+    private final static String QUERY_TABLE_STATUS = "select TABLE_NAME, AVG_ROW_LENGTH, UPDATE_TIME from information_schema.TABLES where TABLE_SCHEMA = database()";
+
+    private final static String CHECKSUM_TABLE = "CHECKSUM TABLE {}";
+
+    /**
+     * 关闭当前会话的information_schema统计信息缓存（MySQL 8默认缓存86400秒）
+     */
+    private final static String DISABLE_STATS_CACHE = "set session information_schema_stats_expiry = 0";
+
+
+    public DdlExecutor(DbConfig sourceConfig, DbConfig targetConfig, ExecuteStrategy executeStrategy) {
+        this(ListUtil.of(sourceConfig), targetConfig, executeStrategy);
+    }
+
+    /**
+     * 多个分片来源库合并同步到同一目标库，各分片表结构需一致，以第一个分片的表结构建表，见{@link #mergeShards(int, String...)}
+     *
+     * @param sourceConfigs   分片来源库配置
+     * @param targetConfig    目标库配置
+     * @param executeStrategy 执行策略
+     */
+    public DdlExecutor(List<DbConfig> sourceConfigs, DbConfig targetConfig, ExecuteStrategy executeStrategy) {
+        if (ObjectUtil.isEmpty(sourceConfigs)) {
+            throw new IllegalArgumentException("来源库配置不能为空");
+        }
+        if (CharSequenceUtil.isNotBlank(executeStrategy.getShardColumnName())
+                && sourceConfigs.stream().map(DbConfig::getId).filter(CharSequenceUtil::isNotBlank).distinct().count() != sourceConfigs.size()) {
+            throw new IllegalArgumentException("写入分片标识列时各分片来源库配置的id不能为空且不能重复");
         }
+        this.shardIds = new ArrayList<>(sourceConfigs.size());
+        for (int i = 0; i < sourceConfigs.size(); i++) {
+            this.shardIds.add(CharSequenceUtil.blankToDefault(sourceConfigs.get(i).getId(), "shard-" + i));
+        }
+        //分片标识用于区分各分片的同步指标及失败分片，重复时指标会合并到同一分片
+        if (this.shardIds.stream().distinct().count() != this.shardIds.size()) {
+            throw new IllegalArgumentException("各分片来源库配置的id不能重复:" + this.shardIds);
+        }
+        //连接池在首次使用时创建
+        this.shardProviders = sourceConfigs.stream()
+                .map(t -> LazyFunLoader.on(() -> DataSourceProvider.create(t)))
+                .collect(Collectors.toList());
+        this.shardIds.forEach(t -> this.shardMetrics.put(t, new TransferMetrics()));
+        DbConfig sourceConfig = sourceConfigs.get(0);
+        this.sourceProvider = this.shardProviders.get(0);
+        this.targetProvider = LazyFunLoader.on(() -> DataSourceProvider.create(targetConfig));
+        this.targetConfig = targetConfig;
+        this.executeStrategy = executeStrategy;
+        this.memoryBudget = new MemoryBudget(executeStrategy.getMemoryBudgetBytes());
+        this.rateLimiter = new SourceRateLimiter(executeStrategy.getSourceRowsPerSecond(), executeStrategy.getSourceBytesPerSecond());
+        this.transferMetrics = new TransferMetrics();
+        this.fingerprintStore = CharSequenceUtil.isBlank(executeStrategy.getFingerprintFilePath()) ? null : new FingerprintStore(executeStrategy.getFingerprintFilePath());
+        this.transferListener = this.createTransferListener(sourceConfig, targetConfig);
     }
 
-    public DdlExecutor(DbConfig sourceConfig, DbConfig targetConfig) throws SQLException {
+    public DdlExecutor(DbConfig sourceConfig, DbConfig targetConfig) {
         this(sourceConfig, targetConfig, new DefaultExecuteStrategy());
     }
 
+    /**
+     * 获取最近一次同步的后台约束校验，未开启时为已完成状态
+     *
+     * @return 约束校验
+     */
+    public CompletableFuture<Void> getConstraintValidation() {
+        return this.constraintValidation;
+    }
+
+    /**
+     * 获取同步指标
+     *
+     * @return 同步指标
+     */
+    public TransferMetrics getTransferMetrics() {
+        return this.transferMetrics;
+    }
+
+    /**
+     * 获取分片合并同步时各分片的同步指标
+     *
+     * @return 分片标识到同步指标的映射
+     */
+    public Map<String, TransferMetrics> getShardMetrics() {
+        return this.shardMetrics;
+    }
+
     public void syncSingleTable(String tableName, String condition) throws Exception {
-        List<TableMeta> tableList = this.getTableMetas(tableName);
+        this.probeTarget();
+        //按条件同步部分数据时不使用指纹
+        List<TableMeta> tableList = this.getTableMetas(CharSequenceUtil.isBlank(condition), tableName);
         if (ObjectUtil.isEmpty(tableList)) {
             return;
         }
+        DdlProvider ddlProvider = this.getDdlProvider();
 
         Connection conn = null;
+        boolean success = false;
+        this.transferListener.onRunStart(1, tableList.get(0).getRecordCount());
         try {
-            conn = this.targetProvider.getDataSource().getConnection();
+            conn = this.targetProvider.get().getDataSource().getConnection();
             conn.setAutoCommit(false);
-            DdlExecutorWorker ddlExecutorWorker = this.createWorker(conn);
+            DdlExecutorWorker ddlExecutorWorker = this.createWorker(conn, ddlProvider);
             ddlExecutorWorker.transferSingleTable(tableList.get(0), condition);
+            TransferEvent commitEvent = TransferEvents.begin(TransferEvents.Phase.COMMIT, tableName);
             conn.commit();
+            commitEvent.end(tableList.get(0).getRecordCount(), 0L);
+            success = true;
             log.warn(Thread.currentThread().getName() + " finished");
+            this.validateConstraints(ddlProvider, tableList);
         } catch (Exception e) {
             if (conn != null) {
                 conn.rollback();
@@ -69,6 +225,7 @@ public class DdlExecutor {
             if (conn != null) {
                 conn.close();
             }
+            this.transferListener.onRunFinish(success);
         }
     }
 
@@ -99,33 +256,271 @@ public class DdlExecutor {
         this.syncAllTables(15);
     }
 
+    /**
+     * 分片合并同步：以第一个分片的表结构在目标库建表一次，再并发将各分片的数据写入同一目标表。
+     * 每个分片使用独立的目标连接及事务，某个分片失败时仅回滚该分片；配置了分片标识列时可重新执行，仅替换各分片自身的数据
+     *
+     * @param workerCount 每个分片的并行数
+     * @param tableNames  表名过滤，为空时同步全部表
+     */
+    public void mergeShards(int workerCount, String... tableNames) {
+        this.probeTarget();
+        List<TableMeta> tableMetaList = this.getTableMetas(false, tableNames);
+        if (ObjectUtil.isEmpty(tableMetaList)) {
+            return;
+        }
+        DdlProvider ddlProvider;
+        try {
+            ddlProvider = this.getDdlProvider();
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+        int shardCount = this.shardProviders.size();
+        int executeWorkerCount = Math.max(1, Math.min(workerCount, tableMetaList.size()));
+        List<List<TableMeta>> shardTables = new ArrayList<>(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            DataSourceProvider provider = this.shardProviders.get(i).get();
+            provider.ensureCapacity(executeWorkerCount + POOL_RESERVED_CONNECTIONS);
+            shardTables.add(i == 0 ? tableMetaList : this.createShardTableMetas(provider, tableMetaList));
+        }
+        this.targetProvider.get().ensureCapacity(shardCount * executeWorkerCount + POOL_RESERVED_CONNECTIONS);
+        this.transferListener.onRunStart(shardTables.stream().mapToInt(List::size).sum(),
+                shardTables.stream().flatMap(List::stream).mapToLong(TableMeta::getRecordCount).sum());
+        ExecutorService executor = Executors.newFixedThreadPool(shardCount * executeWorkerCount, new NamedThreadFactory("shard-worker-", true));
+        boolean success = false;
+        try {
+            try {
+                this.prepareShardTables(ddlProvider, tableMetaList);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+            List<CompletableFuture<Void>> futures = new ArrayList<>(shardCount);
+            for (int i = 0; i < shardCount; i++) {
+                futures.add(this.mergeShard(i, shardTables.get(i), executeWorkerCount, ddlProvider, executor));
+            }
+            List<String> failedShards = new ArrayList<>(shardCount);
+            Throwable cause = null;
+            for (int i = 0; i < shardCount; i++) {
+                try {
+                    futures.get(i).join();
+                } catch (CompletionException e) {
+                    failedShards.add(this.getShardId(i));
+                    cause = ObjectUtil.defaultIfNull(cause, e.getCause());
+                }
+            }
+            //各分片独立提交，部分分片失败时已提交分片的数据同样需要校验
+            if (failedShards.size() < shardCount) {
+                this.validateConstraints(ddlProvider, tableMetaList);
+            }
+            if (ObjectUtil.isNotEmpty(failedShards)) {
+                throw new RuntimeException(CharSequenceUtil.format("Shards {} failed and rolled back", failedShards), cause);
+            }
+            success = true;
+            log.warn("All shards merged successfully, shards:{} tables:{}", shardCount, tableMetaList.size());
+        } finally {
+            executor.shutdownNow();
+            this.transferListener.onRunFinish(success);
+        }
+    }
+
+    /**
+     * 仅生成建表脚本而不执行，来源表结构只读取一次并按CPU数并行生成
+     *
+     * @param path       脚本文件路径
+     * @param profile    目标库版本信息，不为空时离线生成，无需连接目标库；为空时探测目标库元数据
+     * @param tableNames 表名过滤，为空时生成全部表
+     * @return 生成的语句数
+     */
+    public int generateDdlScript(String path, DatabaseVersionProfile profile, String... tableNames) throws SQLException, IOException {
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        if (ObjectUtil.isNull(profile)) {
+            this.probeTarget();
+        }
+        this.sourceProvider.get().ensureCapacity(parallelism + POOL_RESERVED_CONNECTIONS);
+        DdlScriptGenerator generator = new DdlScriptGenerator(this.sourceProvider.get(), parallelism);
+        List<Table> tables = generator.readTables(tableNames);
+        if (ObjectUtil.isNotNull(profile)) {
+            return generator.generate(tables, this.targetConfig, profile, path);
+        }
+        return generator.generate(tables, this.targetConfig, this.getDdlProvider(), null, path);
+    }
+
+    /**
+     * 导出到文件：仅连接来源库，将各表数据以只进游标写入导出目录下gzip压缩的数据文件，并写入包含表结构的导出清单，
+     * 之后可通过{@link #loadFromFiles(String, int)}离线导入任意目标库
+     *
+     * @param directory   导出目录
+     * @param workerCount 同时导出的表数
+     * @param tableNames  表名过滤，为空时导出全部表
+     * @return 导出清单
+     */
+    public ExportManifest exportToFiles(String directory, int workerCount, String... tableNames) throws IOException {
+        List<TableMeta> tableMetaList = this.getTableMetas(false, tableNames).stream()
+                .filter(t -> !DdlExecutorWorker.shouldIgnore(this.executeStrategy, t))
+                .sorted(Comparator.reverseOrder())
+                .collect(Collectors.toList());
+        int executeWorkerCount = Math.max(1, Math.min(workerCount, tableMetaList.size()));
+        this.sourceProvider.get().ensureCapacity(executeWorkerCount + POOL_RESERVED_CONNECTIONS);
+        this.transferListener.onRunStart(tableMetaList.size(), tableMetaList.stream().mapToLong(TableMeta::getRecordCount).sum());
+        boolean success = false;
+        try {
+            FileExporter exporter = new FileExporter(this.sourceProvider.get(), this.executeStrategy, this.rateLimiter, this.transferListener);
+            ExportManifest manifest = exporter.export(tableMetaList, new File(directory), executeWorkerCount);
+            success = true;
+            log.warn("All tables exported successfully, tables:{} directory:{}", manifest.getTables().size(), directory);
+            return manifest;
+        } catch (CompletionException e) {
+            throw ExceptionUtil.wrapRuntime(e.getCause());
+        } finally {
+            this.transferListener.onRunFinish(success);
+        }
+    }
+
+    /**
+     * 从文件离线导入：仅连接目标库，按导出清单中的表结构以目标方言建表，再读取数据文件批量写入，全部表共用一个事务
+     *
+     * @param directory   导出目录
+     * @param workerCount 同时导入的表数
+     */
+    public void loadFromFiles(String directory, int workerCount) {
+        File dir = new File(directory);
+        ExportManifest manifest = ExportManifest.read(dir);
+        List<ExportManifest.TableEntry> entries = manifest.getTables().stream()
+                .filter(t -> !DdlExecutorWorker.shouldIgnore(this.executeStrategy, new TableMeta(t.getRecordCount(), t.getTableName())))
+                .collect(Collectors.toList());
+        if (ObjectUtil.isEmpty(entries)) {
+            return;
+        }
+        DdlProvider ddlProvider;
+        try {
+            ddlProvider = this.getDdlProvider();
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+        //导出清单代替来源库，建表时仅使用其中的库类型
+        DbConfig fileConfig = new DbConfig();
+        fileConfig.setId("file");
+        fileConfig.setDbType(DbType.valueOf(manifest.getSourceDbType()));
+        fileConfig.setSchemaName(manifest.getSourceSchemaName());
+        DataSourceProvider fileProvider = new DataSourceProvider(fileConfig, null, null);
+        int executeWorkerCount = Math.max(1, Math.min(workerCount, entries.size()));
+        this.targetProvider.get().ensureCapacity(executeWorkerCount + POOL_RESERVED_CONNECTIONS);
+        this.transferListener.onRunStart(entries.size(), entries.stream().mapToLong(ExportManifest.TableEntry::getRecordCount).sum());
+        ExecutorService executor = Executors.newFixedThreadPool(executeWorkerCount, new NamedThreadFactory("load-worker-", true));
+        Connection conn = null;
+        boolean success = false;
+        try {
+            conn = this.targetProvider.get().getDataSource().getConnection();
+            conn.setAutoCommit(false);
+            DdlExecutorWorker worker = new DdlExecutorWorker(fileProvider, this.targetProvider.get(), ddlProvider, this.executeStrategy, conn,
+                    this.memoryBudget, this.rateLimiter, this.transferListener);
+            FileLoader loader = new FileLoader(conn, ddlProvider, this.executeStrategy, this.transferListener, manifest.getFormat());
+            List<CompletableFuture<Void>> futures = entries.stream()
+                    .map(t -> CompletableFuture.runAsync(() -> this.loadTable(worker, loader, ddlProvider, dir, t), executor))
+                    .collect(Collectors.toList());
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get();
+            TransferEvent commitEvent = TransferEvents.begin(TransferEvents.Phase.COMMIT, null);
+            conn.commit();
+            commitEvent.end(this.transferMetrics.getRowsTransferred(), this.transferMetrics.getBytesTransferred());
+            success = true;
+            log.warn("All tables loaded successfully, transaction committed, tables:{}", entries.size());
+        } catch (Exception e) {
+            log.error("Error during loading from files, rolling back transaction.", e);
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    log.error("Error during transaction rollback.", ex);
+                }
+            }
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            throw new RuntimeException(e);
+        } finally {
+            executor.shutdownNow();
+            if (conn != null) {
+                try {
+                    conn.close();
+                } catch (SQLException e) {
+                    log.error("Error closing connection.", e);
+                }
+            }
+            this.transferListener.onRunFinish(success);
+        }
+    }
+
+    /**
+     * 导入单张表：按清单中的表结构准备目标表，再加载数据文件
+     */
+    private void loadTable(DdlExecutorWorker worker, FileLoader loader, DdlProvider ddlProvider, File directory, ExportManifest.TableEntry entry) {
+        String tableName = entry.getTableName();
+        this.transferListener.onTableStart(tableName, entry.getRecordCount());
+        try {
+            Table fromTable = entry.toTable();
+            Table toTable = worker.prepareTargetTable(tableName, fromTable, true);
+            if (this.executeStrategy.isIncludeData()) {
+                loader.load(directory, entry, fromTable, toTable);
+            }
+            this.transferListener.onTableFinish(tableName, true);
+        } catch (Exception e) {
+            this.transferListener.onTableFinish(tableName, false);
+            if (!ddlProvider.handleThrowable(e, tableName)) {
+                log.error("Table {} load failed: {}", tableName, e.getMessage());
+            }
+            if (!this.executeStrategy.continueWhenError()) {
+                throw new CompletionException(e);
+            }
+        }
+    }
+
     private void executedByWorker(List<List<TableMeta>> tableList) {
         if (ObjectUtil.isEmpty(tableList)) {
             return;
         }
+        //每个Worker占用一个来源连接，另预留元数据、计数及校验查询所需的连接
+        this.sourceProvider.get().ensureCapacity(tableList.size() + POOL_RESERVED_CONNECTIONS);
+        this.targetProvider.get().ensureCapacity(tableList.size() + POOL_RESERVED_CONNECTIONS);
         Connection conn = null;
+        boolean success = false;
+        DdlProvider ddlProvider;
         try {
-            conn = this.targetProvider.getDataSource().getConnection();
+            ddlProvider = this.getDdlProvider();
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+        this.transferListener.onRunStart(tableList.stream().mapToInt(List::size).sum(),
+                tableList.stream().flatMap(List::stream).mapToLong(TableMeta::getRecordCount).sum());
+        try {
+            conn = this.targetProvider.get().getDataSource().getConnection();
             conn.setAutoCommit(false);
             final Connection finalConn = conn;
 
-            List<CompletableFuture<Void>> futures = new ArrayList<>(16);
-            for (List<TableMeta> fragment : tableList) {
-                CompletableFuture<Void> future = CompletableFuture.runAsync(() -> {
-                    try {
-                        DdlExecutorWorker ddlExecutorWorker = this.createWorker(finalConn);
-                        ddlExecutorWorker.transferTableList(fragment);
-                        log.warn(Thread.currentThread().getName() + " finished");
-                    } catch (Throwable e) {
-                        throw new RuntimeException(e);
-                    }
-                });
-                futures.add(future);
-            }
+            if (this.executeStrategy.isForeignKeyEnabled()) {
+                this.executedByDependency(finalConn, ddlProvider, tableList);
+            } else {
+                List<CompletableFuture<Void>> futures = new ArrayList<>(16);
+                for (List<TableMeta> fragment : tableList) {
+                    CompletableFuture<Void> future = CompletableFuture.runAsync(() -> {
+                        try {
+                            DdlExecutorWorker ddlExecutorWorker = this.createWorker(finalConn, ddlProvider);
+                            ddlExecutorWorker.transferTableList(fragment);
+                            log.warn(Thread.currentThread().getName() + " finished");
+                        } catch (Throwable e) {
+                            throw new RuntimeException(e);
+                        }
+                    });
+                    futures.add(future);
+                }
 
-            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get();
+                CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get();
+            }
+            TransferEvent commitEvent = TransferEvents.begin(TransferEvents.Phase.COMMIT, null);
             conn.commit();
+            commitEvent.end(this.transferMetrics.getRowsTransferred(), this.transferMetrics.getBytesTransferred());
+            success = true;
             log.warn("All workers finished successfully, transaction committed.");
+            this.validateConstraints(ddlProvider, tableList.stream().flatMap(List::stream).collect(Collectors.toList()));
 
         } catch (Exception e) {
             log.error("Error during concurrent execution, rolling back transaction.", e);
@@ -145,31 +540,350 @@ public class DdlExecutor {
                     log.error("Error closing connection.", e);
                 }
             }
+            this.transferListener.onRunFinish(success);
+        }
+    }
+
+
+    /**
+     * 按外键依赖调度同步：先删除目标库中相关的外键，再按依赖顺序并行同步各表，最后统一创建来源库中的外键
+     *
+     * @param conn        共享事务连接
+     * @param ddlProvider 目标库DDL生成器
+     * @param tableList   负载均衡后的表清单，分组数即并行数
+     */
+    private void executedByDependency(Connection conn, DdlProvider ddlProvider, List<List<TableMeta>> tableList) throws Exception {
+        List<TableMeta> tables = tableList.stream().flatMap(List::stream).collect(Collectors.toList());
+        List<String> tableNames = tables.stream().map(TableMeta::getTableName).collect(Collectors.toList());
+        List<ForeignKey> foreignKeys = MetaDataUtil.getForeignKeys(this.sourceProvider.get().getDataSource(), null, tableNames);
+        List<ForeignKey> targetForeignKeys = MetaDataUtil.getForeignKeys(this.targetProvider.get().getDataSource(), this.targetConfig.getSchemaName(), tableNames);
+        //被引用的表删除重建前需先删除引用它的外键
+        this.executeForeignKeyDdl(conn, ddlProvider, targetForeignKeys, ActionType.DELETE);
+
+        TableDependencyScheduler scheduler = new TableDependencyScheduler(tables, foreignKeys);
+        log.info("Foreign keys:{}, dependency levels:{}, workers:{}", foreignKeys.size(), scheduler.getLevels().size(), tableList.size());
+        try {
+            scheduler.execute(tableList.size(), (tableMeta, index, total) -> this.createWorker(conn, ddlProvider).transferTable(tableMeta, index, total));
+        } catch (Exception e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
+        }
+        this.executeForeignKeyDdl(conn, ddlProvider, foreignKeys, ActionType.CREATE);
+    }
+
+    /**
+     * 按表执行外键DDL；目标表在事务提交前对其他连接不可见，因此在共享事务连接上按表合并执行
+     *
+     * @param conn        共享事务连接
+     * @param ddlProvider 目标库DDL生成器
+     * @param foreignKeys 外键列表
+     * @param actionType  脚本动作类型
+     */
+    private void executeForeignKeyDdl(Connection conn, DdlProvider ddlProvider, List<ForeignKey> foreignKeys, ActionType actionType) throws SQLException {
+        Map<String, List<ForeignKey>> foreignKeyMap = foreignKeys.stream()
+                .collect(Collectors.groupingBy(ForeignKey::getTableName, LinkedHashMap::new, Collectors.toList()));
+        Db db = Db.use(conn);
+        for (Map.Entry<String, List<ForeignKey>> entry : foreignKeyMap.entrySet()) {
+            String tableName = entry.getKey();
+            List<String> ddlList = entry.getValue().stream()
+                    .flatMap(t -> ddlProvider.buildForeignKeyDdl(this.targetConfig, t, actionType).stream())
+                    .collect(Collectors.toList());
+            List<String> sqlList = this.executeStrategy.isBundleDdl() ? ddlProvider.bundleDdl(ddlList) : ddlList;
+            long start = System.nanoTime();
+            TransferEvent event = TransferEvents.ddl(actionType, tableName);
+            try {
+                log.info("{} FOREIGN KEY {}, constraints:{}", actionType, tableName, entry.getValue().size());
+                db.executeBatch(sqlList);
+            } catch (SQLException e) {
+                if (!ddlProvider.handleThrowable(e, tableName)) {
+                    log.error("{} foreign keys of table {} failed: {}", actionType, tableName, e.getMessage());
+                    if (!this.executeStrategy.continueWhenError()) {
+                        throw e;
+                    }
+                }
+            } finally {
+                event.end(ddlList.size(), 0L);
+                this.transferListener.onDdl(tableName, actionType, System.nanoTime() - start);
+            }
         }
     }
 
+    /**
+     * 事务提交后使用独立连接在后台校验以不校验方式启用的约束，校验失败说明已有数据违反约束，仅记录日志；
+     * 未同时开启{@link ExecuteStrategy#isDisableConstraintsDuringLoad()}及{@link ExecuteStrategy#isValidateConstraintsInBackground()}时不执行
+     *
+     * @param ddlProvider 目标库DDL生成器
+     * @param tables      本次同步的表
+     */
+    private void validateConstraints(DdlProvider ddlProvider, List<TableMeta> tables) {
+        if (!this.executeStrategy.isDisableConstraintsDuringLoad() || !this.executeStrategy.isValidateConstraintsInBackground()) {
+            return;
+        }
+        ExecutorService executor = Executors.newSingleThreadExecutor(new NamedThreadFactory("constraint-validator-", false));
+        this.constraintValidation = CompletableFuture.runAsync(() -> {
+            try (Connection conn = this.targetProvider.get().getDataSource().getConnection()) {
+                Db db = Db.use(conn);
+                for (TableMeta tableMeta : tables) {
+                    List<String> ddlList = ddlProvider.buildValidateConstraintDdl(this.targetConfig, Table.create(tableMeta.getTableName()));
+                    if (ObjectUtil.isEmpty(ddlList)) {
+                        continue;
+                    }
+                    long start = System.nanoTime();
+                    try {
+                        db.executeBatch(ddlList);
+                        log.info("Table {} constraints validated, cost:{}ms", tableMeta.getTableName(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                    } catch (SQLException e) {
+                        log.error("Table {} constraints validation failed: {}", tableMeta.getTableName(), e.getMessage());
+                    }
+                }
+            } catch (SQLException e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+        this.constraintValidation.whenComplete((r, e) -> executor.shutdown());
+    }
 
-    private DdlExecutorWorker createWorker(Connection connection) {
-        return new DdlExecutorWorker(this.sourceProvider, this.targetProvider, this.provider, this.executeStrategy, connection);
+    /**
+     * 按第一个分片的表结构准备目标表，DDL只执行一次，提交后各分片再并发写入
+     *
+     * @param ddlProvider 目标库DDL生成器
+     * @param tables      第一个分片的表清单
+     */
+    private void prepareShardTables(DdlProvider ddlProvider, List<TableMeta> tables) throws Exception {
+        try (Connection conn = this.targetProvider.get().getDataSource().getConnection()) {
+            conn.setAutoCommit(false);
+            DdlExecutorWorker worker = this.createWorker(conn, ddlProvider);
+            try {
+                for (TableMeta tableMeta : tables) {
+                    try {
+                        worker.prepareShardTable(tableMeta);
+                    } catch (Exception e) {
+                        if (!ddlProvider.handleThrowable(e, tableMeta.getTableName())) {
+                            log.error("Prepare table {} for shard merge failed: {}", tableMeta.getTableName(), e.getMessage());
+                        }
+                        if (!this.executeStrategy.continueWhenError()) {
+                            throw e;
+                        }
+                    }
+                }
+                conn.commit();
+            } catch (Exception e) {
+                conn.rollback();
+                throw e;
+            }
+        }
     }
 
-    private List<TableMeta> getTableMetas(String... tableNames) {
-        List<String> tableList = MetaUtil.getTables(this.sourceProvider.getDataSource());
-        if (ObjectUtil.isEmpty(tableList)) {
-            return ListUtil.empty();
+    /**
+     * 启动单个分片的同步，分片内的表按并行数分组，共享该分片的目标事务连接，全部完成后提交或回滚
+     *
+     * @param shardIndex  分片下标
+     * @param tables      分片的表清单
+     * @param workerCount 分片内的并行数
+     * @param ddlProvider 目标库DDL生成器
+     * @param executor    执行线程池
+     * @return 分片同步结果
+     */
+    private CompletableFuture<Void> mergeShard(int shardIndex, List<TableMeta> tables, int workerCount, DdlProvider ddlProvider, ExecutorService executor) {
+        String shardId = this.getShardId(shardIndex);
+        TransferMetrics metrics = this.shardMetrics.get(shardId);
+        metrics.onRunStart(tables.size(), tables.stream().mapToLong(TableMeta::getRecordCount).sum());
+        if (ObjectUtil.isEmpty(tables)) {
+            metrics.onRunFinish(true);
+            return CompletableFuture.completedFuture(null);
         }
-        if (ObjectUtil.isNotEmpty(tableNames)) {
-            tableList = tableList.stream().filter(t -> CharSequenceUtil.containsAny(t, tableNames)).collect(Collectors.toList());
+        DataSourceProvider provider = this.shardProviders.get(shardIndex).get();
+        TransferListener listener = new CompositeTransferListener(ListUtil.of(this.transferListener, metrics));
+        //各分片为独立的来源库，分别限流
+        SourceRateLimiter rateLimiter = shardIndex == 0 ? this.rateLimiter
+                : new SourceRateLimiter(this.executeStrategy.getSourceRowsPerSecond(), this.executeStrategy.getSourceBytesPerSecond());
+        Connection conn;
+        try {
+            conn = this.targetProvider.get().getDataSource().getConnection();
+            conn.setAutoCommit(false);
+        } catch (SQLException e) {
+            metrics.onRunFinish(false);
+            CompletableFuture<Void> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+        List<CompletableFuture<Void>> futures = new ArrayList<>(workerCount);
+        for (List<TableMeta> fragment : this.splitTables(new ArrayList<>(tables), workerCount)) {
+            futures.add(CompletableFuture.runAsync(() -> {
+                try {
+                    new DdlExecutorWorker(provider, this.targetProvider.get(), ddlProvider, this.executeStrategy, conn, this.memoryBudget, rateLimiter, listener, true)
+                            .transferTableList(fragment);
+                } catch (Throwable e) {
+                    throw new CompletionException(e);
+                }
+            }, executor));
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                .whenComplete((r, e) -> this.finishShard(shardId, conn, ObjectUtil.isNull(e)));
+    }
+
+    /**
+     * 提交或回滚分片事务并输出分片进度
+     */
+    private void finishShard(String shardId, Connection conn, boolean success) {
+        TransferMetrics metrics = this.shardMetrics.get(shardId);
+        boolean committed = false;
+        try {
+            if (success) {
+                conn.commit();
+                committed = true;
+                log.warn("Shard {} merged, tables:{} records:{}", shardId, metrics.getFinishedTables(), metrics.getRowsTransferred());
+            } else {
+                conn.rollback();
+                log.error("Shard {} failed, transaction rolled back", shardId);
+            }
+        } catch (SQLException e) {
+            log.error("Shard {} commit failed", shardId, e);
+            throw new CompletionException(e);
+        } finally {
+            metrics.onRunFinish(committed);
+            try {
+                conn.close();
+            } catch (SQLException e) {
+                log.error("Error closing connection.", e);
+            }
+        }
+    }
+
+    /**
+     * 获取分片标识
+     */
+    private String getShardId(int shardIndex) {
+        return this.shardIds.get(shardIndex);
+    }
+
+    /**
+     * 按第一个分片的表清单读取其余分片的记录数，分片中不存在的表跳过
+     *
+     * @param provider        分片数据源
+     * @param referenceTables 第一个分片的表清单
+     * @return 分片的表清单
+     */
+    private List<TableMeta> createShardTableMetas(DataSourceProvider provider, List<TableMeta> referenceTables) {
+        Map<String, Entity> tableStatusMap = this.getTableStatusMap(provider);
+        List<TableMeta> tableMetas = new ArrayList<>(referenceTables.size());
+        for (TableMeta reference : referenceTables) {
+            TableMeta tableMeta = this.createTableMeta(provider, reference.getTableName());
+            if (ObjectUtil.isNull(tableMeta)) {
+                log.warn("Table {} not found in shard {}, skipped", reference.getTableName(), provider.getConfig().getId());
+                continue;
+            }
+            Entity tableStatus = tableStatusMap.get(reference.getTableName().toLowerCase());
+            tableMeta.setAvgRowLength(ObjectUtil.isNull(tableStatus) ? 0L : ObjectUtil.defaultIfNull(tableStatus.getLong("AVG_ROW_LENGTH"), 0L));
+            tableMetas.add(tableMeta);
+        }
+        return tableMetas;
+    }
+
+    /**
+     * 组合执行策略中的监听器及同步指标
+     */
+    private TransferListener createTransferListener(DbConfig sourceConfig, DbConfig targetConfig) {
+        List<TransferListener> listeners = new ArrayList<>(this.executeStrategy.getTransferListeners());
+        listeners.add(this.transferMetrics);
+        if (this.executeStrategy.isJmxMetricsEnabled()) {
+            this.transferMetrics.register(CharSequenceUtil.format("{}-{}", CharSequenceUtil.blankToDefault(sourceConfig.getId(), "source"),
+                    CharSequenceUtil.blankToDefault(targetConfig.getId(), "target")));
+        }
+        if (CharSequenceUtil.isNotBlank(this.executeStrategy.getPrometheusFilePath())) {
+            listeners.add(new PrometheusFileExporter(this.transferMetrics, this.executeStrategy.getPrometheusFilePath(), this.executeStrategy.getMetricsIntervalSeconds()));
+        }
+        if (this.rateLimiter.isLimited() && (this.executeStrategy.getSourceMaxThreadsRunning() > 0 || this.executeStrategy.getSourceMaxReplicaLagSeconds() > 0)) {
+            listeners.add(new SourceHealthMonitor(() -> this.sourceProvider.get().getDb(), this.executeStrategy, this.rateLimiter));
+        }
+        if (ObjectUtil.isNotNull(this.fingerprintStore)) {
+            listeners.add(this.fingerprintStore);
+        }
+        if (this.executeStrategy.getProgressIntervalSeconds() > 0) {
+            listeners.add(new ProgressReporter(this.executeStrategy.getProgressFilePath(), this.executeStrategy.getProgressIntervalSeconds()));
+        }
+        return new CompositeTransferListener(listeners);
+    }
+
+    private DdlExecutorWorker createWorker(Connection connection, DdlProvider ddlProvider) {
+        return new DdlExecutorWorker(this.sourceProvider.get(), this.targetProvider.get(), ddlProvider, this.executeStrategy, connection, this.memoryBudget, this.rateLimiter, this.transferListener);
+    }
+
+    /**
+     * 异步探测目标库元数据，成功后仅执行一次；探测失败时不缓存结果，下次调用重新探测
+     *
+     * @return 目标库DDL生成器
+     */
+    private CompletableFuture<DdlProvider> probeTarget() {
+        if (this.providerFuture == null || this.providerFuture.isCompletedExceptionally()) {
+            synchronized (this) {
+                if (this.providerFuture == null || this.providerFuture.isCompletedExceptionally()) {
+                    this.providerFuture = CompletableFuture.supplyAsync(() -> {
+                        // Use a temporary connection to get metadata, then close it.
+                        try (Connection metaConn = this.targetProvider.get().getDataSource().getConnection()) {
+                            return DdlProviderFactory.build(this.targetConfig, metaConn.getMetaData());
+                        } catch (SQLException e) {
+                            throw new CompletionException(e);
+                        }
+                    });
+                }
+            }
+        }
+        return this.providerFuture;
+    }
+
+    /**
+     * 等待目标库元数据探测完成，探测失败时抛出原始的{@link SQLException}；
+     * 未声明受检异常的同步入口（如{@link #syncAllTables(int)}、{@link #mergeShards(int, String...)}）将其包装为{@link RuntimeException}，原始异常为其cause
+     *
+     * @return 目标库DDL生成器
+     */
+    private DdlProvider getDdlProvider() throws SQLException {
+        try {
+            return this.probeTarget().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof SQLException) {
+                throw (SQLException) e.getCause();
+            }
+            throw ExceptionUtil.wrapRuntime(e.getCause());
+        }
+    }
+
+    private List<TableMeta> getTableMetas(boolean useFingerprint, String... tableNames) {
+        long start = System.nanoTime();
+        try {
+            List<String> tableList = MetaUtil.getTables(this.sourceProvider.get().getDataSource());
+            if (ObjectUtil.isEmpty(tableList)) {
+                return ListUtil.empty();
+            }
+            if (ObjectUtil.isNotEmpty(tableNames)) {
+                tableList = tableList.stream().filter(t -> CharSequenceUtil.containsAny(t, tableNames)).collect(Collectors.toList());
+            }
+            return this.createTableMetaList(tableList, useFingerprint && ObjectUtil.isNotNull(this.fingerprintStore));
+        } finally {
+            this.transferListener.onMetadata(null, System.nanoTime() - start);
         }
-        return this.createTableMetaList(tableList);
     }
 
 
     private List<List<TableMeta>> loadBalanceTables(int executeWorkerCount, String... tableNames) {
-        List<TableMeta> tableMetaList = this.getTableMetas(tableNames);
+        this.probeTarget();
+        List<TableMeta> tableMetaList = this.getTableMetas(true, tableNames);
         if (ObjectUtil.isEmpty(tableMetaList)) {
             return ListUtil.empty();
         }
+        return this.splitTables(tableMetaList, executeWorkerCount);
+    }
+
+    /**
+     * 按记录数倒序轮流分配到各组
+     *
+     * @param tableMetaList      表清单
+     * @param executeWorkerCount 分组数
+     * @return 分组后的表清单
+     */
+    private List<List<TableMeta>> splitTables(List<TableMeta> tableMetaList, int executeWorkerCount) {
         //倒序
         tableMetaList.sort(Comparator.reverseOrder());
 
@@ -197,24 +911,101 @@ public class DdlExecutor {
     }
 
 
-    private List<TableMeta> createTableMetaList(List<String> tableList) {
+    private List<TableMeta> createTableMetaList(List<String> tableList, boolean useFingerprint) {
 
+        Map<String, Entity> tableStatusMap = this.getTableStatusMap(this.sourceProvider.get(), useFingerprint && !this.executeStrategy.isFingerprintChecksumTable());
         List<TableMeta> tableMetas = new ArrayList<>(16);
         for (String tableName : tableList) {
-            TableMeta tableMeta = this.createTableMeta(tableName);
+            TableMeta tableMeta = this.createTableMeta(this.sourceProvider.get(), tableName);
             if (ObjectUtil.isNull(tableMeta)) {
                 continue;
             }
+            Entity tableStatus = tableStatusMap.get(tableName.toLowerCase());
+            tableMeta.setAvgRowLength(ObjectUtil.isNull(tableStatus) ? 0L : ObjectUtil.defaultIfNull(tableStatus.getLong("AVG_ROW_LENGTH"), 0L));
+            if (useFingerprint && this.isUnchanged(tableMeta, tableStatus)) {
+                log.warn("Table {} unchanged since last successful transfer, skipped", tableName);
+                continue;
+            }
             tableMetas.add(tableMeta);
         }
         return tableMetas;
     }
 
-    private TableMeta createTableMeta(String tableName) {
+    /**
+     * 获取来源库information_schema中的表状态，用于估算批次内存及计算表指纹
+     *
+     * @param provider 来源数据源
+     * @return 表名（小写）到表状态的映射
+     */
+    private Map<String, Entity> getTableStatusMap(DataSourceProvider provider) {
+        return this.getTableStatusMap(provider, false);
+    }
+
+    /**
+     * 获取来源库information_schema中的表状态，用于估算批次内存及计算表指纹
+     *
+     * @param provider   来源数据源
+     * @param freshStats 是否读取最新的表统计信息，MySQL 8默认缓存UPDATE_TIME等统计信息，以UPDATE_TIME计算指纹时需在同一会话中关闭缓存
+     * @return 表名（小写）到表状态的映射
+     */
+    private Map<String, Entity> getTableStatusMap(DataSourceProvider provider, boolean freshStats) {
+        Map<String, Entity> result = new HashMap<>(16);
+        try (Connection conn = provider.getDataSource().getConnection()) {
+            Db db = Db.use(conn);
+            if (freshStats) {
+                try {
+                    db.execute(DISABLE_STATS_CACHE);
+                } catch (SQLException e) {
+                    //MySQL 8之前的版本没有该变量，统计信息也不缓存
+                    log.debug("Disable information_schema stats cache failed: {}", e.getMessage());
+                }
+            }
+            for (Entity entity : db.query(QUERY_TABLE_STATUS)) {
+                result.put(entity.getStr("TABLE_NAME").toLowerCase(), entity);
+            }
+        } catch (Exception e) {
+            log.warn("Query table status failed: {}", e.getMessage());
+        }
+        return result;
+    }
+
+    /**
+     * 计算表指纹并与上次成功同步时比较，无法获取内容版本时视为已变化
+     *
+     * @param tableMeta   表对象
+     * @param tableStatus information_schema中的表状态
+     * @return 是否未变化
+     */
+    private boolean isUnchanged(TableMeta tableMeta, Entity tableStatus) {
+        String tableName = tableMeta.getTableName();
+        try {
+            Object contentVersion;
+            if (this.executeStrategy.isFingerprintChecksumTable()) {
+                Entity checksum = this.sourceProvider.get().getDb().queryOne(CharSequenceUtil.format(CHECKSUM_TABLE, tableName));
+                contentVersion = ObjectUtil.isNull(checksum) ? null : checksum.get("Checksum");
+            } else {
+                contentVersion = ObjectUtil.isNull(tableStatus) ? null : tableStatus.get("UPDATE_TIME");
+            }
+            if (ObjectUtil.isNull(contentVersion)) {
+                return false;
+            }
+            Table table = MetaUtil.getTableMeta(this.sourceProvider.get().getDataSource(), tableName);
+            //同步规则影响目标表结构及数据，列值转换器无法比较内容，仅记录配置了转换器的列名
+            TableRule tableRule = this.executeStrategy.findTableRule(tableName);
+            String context = CharSequenceUtil.join("|", this.targetConfig.getDbType(), this.targetConfig.getDbUrl(), this.targetConfig.getSchemaName(),
+                    this.executeStrategy.isIncludeData(), tableRule, ObjectUtil.isNull(tableRule) ? null : tableRule.getColumnConverters().keySet());
+            return this.fingerprintStore.checkUnchanged(tableName, FingerprintStore.fingerprint(table, tableMeta.getRecordCount(), contentVersion, context));
+        } catch (Exception e) {
+            log.warn("Table {} fingerprint failed: {}", tableName, e.getMessage());
+            return false;
+        }
+    }
+
+    private TableMeta createTableMeta(DataSourceProvider provider, String tableName) {
 
         String countSql = CharSequenceUtil.format(QUERY_COUNT, tableName);
         try {
-            Number count = this.sourceProvider.getDb().queryNumber(countSql);
+            Number count = provider.getDb().queryNumber(countSql);
             long recordCount = ObjectUtil.isNotNull(count) ? count.longValue() : 0;
             if (this.executeStrategy.getMaxRecordCount() == -1 || recordCount < this.executeStrategy.getMaxRecordCount()) {
                 return new TableMeta(recordCount, tableName);
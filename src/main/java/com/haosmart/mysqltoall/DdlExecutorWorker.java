@@ -2,24 +2,46 @@ package com.haosmart.mysqltoall;
 
 import cn.hutool.core.lang.Assert;
 import cn.hutool.core.text.CharSequenceUtil;
+import cn.hutool.core.thread.NamedThreadFactory;
 import cn.hutool.core.util.ObjectUtil;
-import cn.hutool.core.util.PageUtil;
 import cn.hutool.core.util.ReUtil;
 import cn.hutool.db.*;
 import cn.hutool.db.meta.Column;
+import cn.hutool.db.meta.ColumnIndexInfo;
+import cn.hutool.db.meta.IndexInfo;
 import cn.hutool.db.meta.MetaUtil;
 import cn.hutool.db.meta.Table;
 import cn.hutool.log.level.Level;
+import com.haosmart.mysqltoall.config.TableRule;
 import com.haosmart.mysqltoall.ddl.DdlProvider;
+import com.haosmart.mysqltoall.entity.KeyRange;
 import com.haosmart.mysqltoall.entity.TableMeta;
 import com.haosmart.mysqltoall.enumration.ActionType;
+import com.haosmart.mysqltoall.metrics.TransferEvent;
+import com.haosmart.mysqltoall.metrics.TransferEvents;
+import com.haosmart.mysqltoall.transfer.AdaptiveBatchSizer;
+import com.haosmart.mysqltoall.transfer.BisectingBatchWriter;
+import com.haosmart.mysqltoall.transfer.LobStreamTransfer;
+import com.haosmart.mysqltoall.transfer.MemoryBudget;
+import com.haosmart.mysqltoall.transfer.RowCodec;
+import com.haosmart.mysqltoall.transfer.RowTransferPlan;
+import com.haosmart.mysqltoall.transfer.SourceRateLimiter;
+import com.haosmart.mysqltoall.transfer.SpillBuffer;
+import com.haosmart.mysqltoall.transfer.TransferListener;
+import com.haosmart.mysqltoall.utils.MetaDataUtil;
+import com.haosmart.mysqltoall.verify.RangeChecksumVerifier;
 import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
 
 import javax.sql.DataSource;
+import java.io.File;
+import java.io.IOException;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.sql.Types;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -35,9 +57,24 @@ public class DdlExecutorWorker {
 
     private final Connection connection;
 
-    private final static String QUERY_WITH_CONDITION = "select * from {} where {}";
+    private final MemoryBudget memoryBudget;
 
-    private final static String QUERY_ALL = "select * from {}";
+    private final SourceRateLimiter rateLimiter;
+
+    private final TransferListener transferListener;
+
+    /**
+     * 是否为分片合并同步，目标表已在建表阶段准备好，仅写入当前分片的数据
+     */
+    private final boolean shardMerge;
+
+    private final static String QUERY_WITH_CONDITION = "select {} from {} where {}";
+
+    private final static String QUERY_ALL = "select {} from {}";
+
+    private final static String SELECT_ALL = "*";
+
+    private final static String QUERY_LIMIT = " limit ? offset ?";
 
     private final static String QUERY_COUNT = "select count(*) from {}";
 
@@ -45,12 +82,37 @@ public class DdlExecutorWorker {
 
     private final static String DELETE_ALL = "delete from {}";
 
-    public DdlExecutorWorker(DataSourceProvider sourceProvider, DataSourceProvider targetProvider, DdlProvider ddlProvider, ExecuteStrategy executeStrategy, Connection connection) {
+    private final static String DELETE_SHARD = "delete from {} where {} = ?";
+
+    private final static int SHARD_COLUMN_SIZE = 64;
+
+    private final static String RANGE_CONDITION = "{} >= ? and {} <= ?";
+
+    private final static String CONDITION_AND = "{} and ({})";
+
+    private final static String QUERY_ORDER_BY = " order by {}";
+
+    private final static String DELETE_RANGE = "delete from {} where {} >= ? and {} <= ?";
+
+    /**
+     * 溢写同步时未知平均行长度的估算值
+     */
+    private final static long SPILL_ROW_BYTES = 256L;
+
+    public DdlExecutorWorker(DataSourceProvider sourceProvider, DataSourceProvider targetProvider, DdlProvider ddlProvider, ExecuteStrategy executeStrategy, Connection connection, MemoryBudget memoryBudget, SourceRateLimiter rateLimiter, TransferListener transferListener) {
+        this(sourceProvider, targetProvider, ddlProvider, executeStrategy, connection, memoryBudget, rateLimiter, transferListener, false);
+    }
+
+    public DdlExecutorWorker(DataSourceProvider sourceProvider, DataSourceProvider targetProvider, DdlProvider ddlProvider, ExecuteStrategy executeStrategy, Connection connection, MemoryBudget memoryBudget, SourceRateLimiter rateLimiter, TransferListener transferListener, boolean shardMerge) {
+        this.shardMerge = shardMerge;
         this.sourceProvider = sourceProvider;
         this.targetProvider = targetProvider;
         this.ddlProvider = ddlProvider;
         this.executeStrategy = executeStrategy;
         this.connection = connection;
+        this.memoryBudget = memoryBudget;
+        this.rateLimiter = rateLimiter;
+        this.transferListener = transferListener;
         if (this.executeStrategy.debugMode()) {
             DbUtil.setShowSqlGlobal(true, true, true, Level.DEBUG);
         }
@@ -66,26 +128,40 @@ public class DdlExecutorWorker {
         if (ObjectUtil.isNotEmpty(tableList)) {
             int i = 1;
             for (TableMeta tableMeta : tableList) {
-                if (!this.shouldIgnore(tableMeta)) {
-                    try {
-                        this.transferSingleTable(tableMeta, null);
-                        log.warn("Table[{}] ({}/{}) transfer succeed", tableMeta.getTableName(), i, tableList.size());
-                    } catch (Throwable e) {
-                        if (!this.ddlProvider.handleThrowable(e, tableMeta.getTableName())) {
-                            log.error("Error in sync data [table:{} error:{}] ", tableMeta.getTableName(), e.getMessage());
-                        }
-                        if (!this.executeStrategy.continueWhenError()) {
-                            throw e;
-                        }
-                    }
+                if (this.transferTable(tableMeta, i, tableList.size())) {
                     i++;
-                } else {
-                    log.warn("According to the execute strategy, table[{}] has been skipped", tableMeta.getTableName());
                 }
             }
         }
     }
 
+    /**
+     * 按执行策略同步单张表，失败时按{@link ExecuteStrategy#continueWhenError()}决定是否抛出异常
+     *
+     * @param tableMeta 表对象
+     * @param index     表序号，用于日志
+     * @param total     表总数，用于日志
+     * @return 是否执行，被忽略的表返回{@code false}
+     */
+    public boolean transferTable(TableMeta tableMeta, int index, int total) throws Throwable {
+        if (this.shouldIgnore(tableMeta)) {
+            log.warn("According to the execute strategy, table[{}] has been skipped", tableMeta.getTableName());
+            return false;
+        }
+        try {
+            this.transferSingleTable(tableMeta, null);
+            log.warn("Table[{}] ({}/{}) transfer succeed", tableMeta.getTableName(), index, total);
+        } catch (Throwable e) {
+            if (!this.ddlProvider.handleThrowable(e, tableMeta.getTableName())) {
+                log.error("Error in sync data [table:{} error:{}] ", tableMeta.getTableName(), e.getMessage());
+            }
+            if (!this.executeStrategy.continueWhenError()) {
+                throw e;
+            }
+        }
+        return true;
+    }
+
     /**
      * 同步单张表
      *
@@ -96,17 +172,52 @@ public class DdlExecutorWorker {
         if (ObjectUtil.isNull(tableMeta)) {
             return;
         }
+        this.transferListener.onTableStart(tableMeta.getTableName(), tableMeta.getRecordCount());
+        boolean success = false;
+        try {
+            this.transferTable(tableMeta, condition);
+            success = true;
+        } finally {
+            this.transferListener.onTableFinish(tableMeta.getTableName(), success);
+        }
+    }
+
+    private void transferTable(TableMeta tableMeta, String condition) throws Exception {
         Table fromTable = this.getTable(this.sourceProvider.getDataSource(), tableMeta.getTableName());
         if (!this.isTableExists(fromTable)) {
             log.error("Table:{} not found", tableMeta.getTableName());
             return;
         }
+        //按单表同步规则裁剪列并合并过滤条件，裁剪后的列不会建到目标表
+        TableRule tableRule = this.executeStrategy.findTableRule(tableMeta.getTableName());
+        if (ObjectUtil.isNotNull(tableRule)) {
+            fromTable = tableRule.project(fromTable);
+            condition = tableRule.mergeCondition(condition);
+        }
+        if (this.shardMerge) {
+            this.transferShardData(tableMeta, fromTable, condition, tableRule);
+            return;
+        }
         Table toTable = this.getTable(this.targetProvider.getDataSource(), tableMeta.getTableName());
         if ((!this.isTableExists(toTable))
                 || ObjectUtil.equals(ExecuteStrategy.BuildType.DELETE_AND_REBUILD, this.executeStrategy.getBuildType())) {
-            toTable = this.recreateTable(fromTable, toTable);
+            toTable = this.recreateTable(tableMeta.getTableName(), fromTable, toTable);
+            if (this.executeStrategy.isIncludeData()) {
+                this.insertData(tableMeta, fromTable, toTable, condition, tableRule);
+            }
+        } else if (ObjectUtil.equals(ExecuteStrategy.BuildType.RESYNC_MISMATCHED_RANGE, this.executeStrategy.getBuildType())) {
             if (this.executeStrategy.isIncludeData()) {
-                this.insertData(tableMeta, fromTable, toTable, condition);
+                this.resyncMismatchedRanges(tableMeta, fromTable, toTable, toTable, condition, tableRule);
+            }
+        } else if (ObjectUtil.equals(ExecuteStrategy.BuildType.ALTER_WHEN_CHANGED, this.executeStrategy.getBuildType())) {
+            Table alteredTable = this.alterTable(tableMeta.getTableName(), fromTable, toTable);
+            if (this.executeStrategy.isIncludeData()) {
+                //变更结构后不重建表：无法按区间校验时保留已有数据，新增的列不参与校验，避免所有区间都不一致而全表重新复制
+                if (ObjectUtil.isNull(RangeChecksumVerifier.getRangeKey(fromTable))) {
+                    log.warn("Table:{} has no single numeric primary key, existing data kept after altering", tableMeta.getTableName());
+                } else {
+                    this.resyncMismatchedRanges(tableMeta, fromTable, toTable, alteredTable, condition, tableRule);
+                }
             }
         } else {
             log.warn("Table:{} already existed", tableMeta.getTableName());
@@ -114,6 +225,130 @@ public class DdlExecutorWorker {
     }
 
 
+    /**
+     * 分片合并同步前按第一个分片的表结构准备目标表，仅执行一次；未配置分片标识列时清空已有数据，各分片写入时不再删除
+     *
+     * @param tableMeta 表对象
+     */
+    public void prepareShardTable(TableMeta tableMeta) throws Exception {
+        if (this.shouldIgnore(tableMeta)) {
+            return;
+        }
+        Table fromTable = this.getTable(this.sourceProvider.getDataSource(), tableMeta.getTableName());
+        if (!this.isTableExists(fromTable)) {
+            log.error("Table:{} not found", tableMeta.getTableName());
+            return;
+        }
+        TableRule tableRule = this.executeStrategy.findTableRule(tableMeta.getTableName());
+        if (ObjectUtil.isNotNull(tableRule)) {
+            fromTable = tableRule.project(fromTable);
+        }
+        this.prepareTargetTable(tableMeta.getTableName(), this.addShardColumn(fromTable), CharSequenceUtil.isBlank(this.executeStrategy.getShardColumnName()));
+    }
+
+    /**
+     * 按执行策略准备目标表结构：不存在或删除重建时重新建表，{@link ExecuteStrategy.BuildType#ALTER_WHEN_CHANGED}时变更结构，其余情况保留已有表
+     *
+     * @param tableName 来源表名，用于同步指标
+     * @param fromTable 来源表对象（已按规则裁剪）
+     * @param clearData 保留已有表时是否清空数据，仅在同步数据时生效
+     * @return 目标表对象
+     */
+    public Table prepareTargetTable(String tableName, Table fromTable, boolean clearData) throws Exception {
+        Table toTable = this.getTable(this.targetProvider.getDataSource(), fromTable.getTableName());
+        if ((!this.isTableExists(toTable))
+                || ObjectUtil.equals(ExecuteStrategy.BuildType.DELETE_AND_REBUILD, this.executeStrategy.getBuildType())) {
+            return this.recreateTable(tableName, fromTable, toTable);
+        }
+        if (ObjectUtil.equals(ExecuteStrategy.BuildType.ALTER_WHEN_CHANGED, this.executeStrategy.getBuildType())) {
+            toTable = this.alterTable(tableName, fromTable, toTable);
+        }
+        if (clearData && this.executeStrategy.isIncludeData()) {
+            Db.use(this.connection).execute(CharSequenceUtil.format(DELETE_ALL, toTable.getTableName()));
+            log.info("All Data were deleted from {}", toTable.getTableName());
+        }
+        return toTable;
+    }
+
+    /**
+     * 将当前分片的数据写入已准备好的目标表，配置了分片标识列时由来源查询带出分片标识
+     *
+     * @param tableMeta 当前分片的表对象
+     * @param fromTable 来源表对象（已按规则裁剪）
+     * @param condition 数据过滤条件
+     * @param tableRule 单表同步规则，可为{@code null}
+     */
+    private void transferShardData(TableMeta tableMeta, Table fromTable, String condition, TableRule tableRule) throws Exception {
+        Table toTable = this.getTable(this.targetProvider.getDataSource(), tableMeta.getTableName());
+        Assert.isTrue(this.isTableExists(toTable), "Target table:{} not prepared", tableMeta.getTableName());
+        if (!this.executeStrategy.isIncludeData()) {
+            return;
+        }
+        String shardColumn = this.executeStrategy.getShardColumnName();
+        if (CharSequenceUtil.isNotBlank(shardColumn)) {
+            fromTable = this.addShardColumn(fromTable);
+            String shardLiteral = "'" + this.getShardId().replace("'", "''") + "'";
+            tableRule = ObjectUtil.isNull(tableRule) ? new TableRule().withColumnExpression(shardColumn, shardLiteral)
+                    : tableRule.withColumnExpression(shardColumn, shardLiteral);
+        }
+        this.insertData(tableMeta, fromTable, toTable, condition, tableRule);
+    }
+
+    /**
+     * 追加分片标识列，并将其加入主键及唯一索引，未配置分片标识列时返回原对象
+     *
+     * @param table 来源表对象
+     * @return 追加分片标识列后的表对象
+     */
+    private Table addShardColumn(Table table) {
+        String shardColumn = this.executeStrategy.getShardColumnName();
+        if (CharSequenceUtil.isBlank(shardColumn) || ObjectUtil.isNotNull(table.getColumn(shardColumn))) {
+            return table;
+        }
+        Table result = Table.create(table.getTableName())
+                .setSchema(table.getSchema())
+                .setCatalog(table.getCatalog())
+                .setComment(table.getComment());
+        table.getColumns().forEach(result::setColumn);
+        Column column = new Column();
+        column.setTableName(table.getTableName());
+        column.setName(shardColumn);
+        column.setType(Types.VARCHAR);
+        column.setTypeName("VARCHAR");
+        column.setSize(SHARD_COLUMN_SIZE);
+        column.setNullable(false);
+        column.setComment("分片标识");
+        result.setColumn(column);
+        if (ObjectUtil.isNotEmpty(table.getPkNames())) {
+            Set<String> pkNames = new LinkedHashSet<>(table.getPkNames());
+            pkNames.add(shardColumn);
+            result.setPkNames(pkNames);
+        }
+        List<IndexInfo> indexInfoList = new ArrayList<>(16);
+        if (ObjectUtil.isNotEmpty(table.getIndexInfoList())) {
+            for (IndexInfo indexInfo : table.getIndexInfoList()) {
+                if (indexInfo.isNonUnique()) {
+                    indexInfoList.add(indexInfo);
+                    continue;
+                }
+                IndexInfo uniqueIndex = new IndexInfo(false, indexInfo.getIndexName(), indexInfo.getTableName(), indexInfo.getSchema(), indexInfo.getCatalog());
+                List<ColumnIndexInfo> columnIndexInfoList = new ArrayList<>(indexInfo.getColumnIndexInfoList());
+                columnIndexInfoList.add(new ColumnIndexInfo(shardColumn, "A"));
+                uniqueIndex.setColumnIndexInfoList(columnIndexInfoList);
+                indexInfoList.add(uniqueIndex);
+            }
+        }
+        result.setIndexInfoList(indexInfoList);
+        return result;
+    }
+
+    /**
+     * 获取当前分片的标识
+     */
+    private String getShardId() {
+        return this.sourceProvider.getConfig().getId();
+    }
+
     /**
      * 判断表是否存在
      *
@@ -124,12 +359,34 @@ public class DdlExecutorWorker {
         return ObjectUtil.isNotNull(table) && ObjectUtil.isNotEmpty(table.getColumns());
     }
 
-    private boolean shouldIgnore(@NonNull TableMeta tableMeta) {
-        if (tableMeta.getRecordCount() > -1L && tableMeta.getRecordCount() > this.executeStrategy.getMaxRecordCount()) {
+    /**
+     * 获取来源查询的列清单，未配置同步规则时查询全部列
+     *
+     * @param fromTable 来源表对象
+     * @param tableRule 单表同步规则，可为{@code null}
+     * @return 列清单
+     */
+    private String getSelectList(Table fromTable, TableRule tableRule) {
+        return ObjectUtil.isNull(tableRule) ? SELECT_ALL : tableRule.getSelectList(fromTable);
+    }
+
+    boolean shouldIgnore(@NonNull TableMeta tableMeta) {
+        return shouldIgnore(this.executeStrategy, tableMeta);
+    }
+
+    /**
+     * 按执行策略中的最大记录数及忽略表名判断是否跳过
+     *
+     * @param executeStrategy 执行策略
+     * @param tableMeta       表对象
+     * @return 是否跳过
+     */
+    static boolean shouldIgnore(@NonNull ExecuteStrategy executeStrategy, @NonNull TableMeta tableMeta) {
+        if (executeStrategy.getMaxRecordCount() > -1L && tableMeta.getRecordCount() > executeStrategy.getMaxRecordCount()) {
             return true;
         }
-        if (ObjectUtil.isNotEmpty(this.executeStrategy.getIgnoredTableNames())) {
-            for (String tableNameRegex : this.executeStrategy.getIgnoredTableNames()) {
+        if (ObjectUtil.isNotEmpty(executeStrategy.getIgnoredTableNames())) {
+            for (String tableNameRegex : executeStrategy.getIgnoredTableNames()) {
                 if (ReUtil.isMatch(tableNameRegex, tableMeta.getTableName())) {
                     return true;
                 }
@@ -142,15 +399,16 @@ public class DdlExecutorWorker {
     /**
      * 重新创建表结构及索引
      *
+     * @param tableName 来源表名，用于同步指标
      * @param fromTable 来源表
      * @param toTable   目标表
      */
-    private Table recreateTable(Table fromTable, Table toTable) throws Exception {
+    private Table recreateTable(String tableName, Table fromTable, Table toTable) throws Exception {
         Db db = Db.use(this.connection);
         if (this.isTableExists(toTable)) {
-            this.deleteTable(db, toTable);
+            this.deleteTable(db, tableName, toTable);
         }
-        this.createTable(db, fromTable);
+        this.createTable(db, tableName, fromTable);
         Table table = this.getTable(this.targetProvider.getDataSource(), fromTable.getTableName());
         Assert.isTrue(this.isTableExists(table), "Recreate Table:{} failed", fromTable.getTableName());
         log.info("CREATE TABLE {}", table.getTableName());
@@ -158,23 +416,63 @@ public class DdlExecutorWorker {
     }
 
 
+    /**
+     * 按来源表结构变更目标表，结构一致时不执行任何语句
+     *
+     * @param tableName 来源表名，用于同步指标
+     * @param fromTable 来源表
+     * @param toTable   目标表
+     * @return 变更后的目标表
+     */
+    private Table alterTable(String tableName, Table fromTable, Table toTable) throws Exception {
+        List<String> alterTableSqlList = this.ddlProvider.buildAlterDdl(this.sourceProvider.getConfig(), this.targetProvider.getConfig(), fromTable, toTable,
+                this.executeStrategy.isDropRedundantColumns());
+        if (ObjectUtil.isEmpty(alterTableSqlList)) {
+            log.info("Table {} structure unchanged", toTable.getTableName());
+            return toTable;
+        }
+        long start = System.nanoTime();
+        TransferEvent event = TransferEvents.ddl(ActionType.ALTER, tableName);
+        try {
+            log.info("ALTER TABLE {}, statements:{}", toTable.getTableName(), alterTableSqlList.size());
+            Db.use(this.connection).executeBatch(this.bundleDdl(alterTableSqlList));
+        } catch (Exception e) {
+            if (!this.ddlProvider.handleThrowable(e, toTable.getTableName())) {
+                throw e;
+            }
+        } finally {
+            event.end(alterTableSqlList.size(), 0L);
+            this.transferListener.onDdl(tableName, ActionType.ALTER, System.nanoTime() - start);
+        }
+        Table table = this.getTable(this.targetProvider.getDataSource(), fromTable.getTableName());
+        Assert.isTrue(this.isTableExists(table), "Alter Table:{} failed", fromTable.getTableName());
+        return table;
+    }
+
+
     /**
      * 删除表结构及索引
      *
-     * @param db      数据库对象
-     * @param toTable 目标表对象
+     * @param db        数据库对象
+     * @param tableName 来源表名，用于同步指标
+     * @param toTable   目标表对象
      */
-    private void deleteTable(Db db, Table toTable) throws Exception {
+    private void deleteTable(Db db, String tableName, Table toTable) throws Exception {
         List<String> deleteTableSqlList = ddlProvider.buildDdl(this.sourceProvider.getConfig(), this.targetProvider.getConfig(), toTable, ActionType.DELETE);
         if (ObjectUtil.isNotEmpty(deleteTableSqlList)) {
+            long start = System.nanoTime();
+            TransferEvent event = TransferEvents.ddl(ActionType.DELETE, tableName);
             try {
                 log.info("DROP TABLE {}", toTable.getTableName());
-                db.executeBatch(deleteTableSqlList);
+                db.executeBatch(this.bundleDdl(deleteTableSqlList));
             } catch (Exception e) {
                 //索引不存在
                 if (!this.ddlProvider.handleThrowable(e, toTable.getTableName())) {
                     throw e;
                 }
+            } finally {
+                event.end(deleteTableSqlList.size(), 0L);
+                this.transferListener.onDdl(tableName, ActionType.DELETE, System.nanoTime() - start);
             }
         }
     }
@@ -184,23 +482,34 @@ public class DdlExecutorWorker {
      * 创建表结构及索引
      *
      * @param db        数据库对象
+     * @param tableName 来源表名，用于同步指标
      * @param fromTable 来源表对象
      */
-    private void createTable(Db db, Table fromTable) throws Exception {
+    private void createTable(Db db, String tableName, Table fromTable) throws Exception {
         List<String> createTableSqlList = ddlProvider.buildDdl(this.sourceProvider.getConfig(), this.targetProvider.getConfig(), fromTable, ActionType.CREATE);
         if (ObjectUtil.isNotEmpty(createTableSqlList)) {
+            long start = System.nanoTime();
+            TransferEvent event = TransferEvents.ddl(ActionType.CREATE, tableName);
             try {
-                db.executeBatch(createTableSqlList);
+                db.executeBatch(this.bundleDdl(createTableSqlList));
             } catch (Exception e) {
                 //索引已存在
                 if (!this.ddlProvider.handleThrowable(e, fromTable.getTableName())) {
                     throw e;
                 }
+            } finally {
+                event.end(createTableSqlList.size(), 0L);
+                this.transferListener.onDdl(tableName, ActionType.CREATE, System.nanoTime() - start);
             }
         }
     }
 
 
+    private List<String> bundleDdl(List<String> ddlList) {
+        return this.executeStrategy.isBundleDdl() ? this.ddlProvider.bundleDdl(ddlList) : ddlList;
+    }
+
+
     /**
      * 获取表信息
      *
@@ -212,6 +521,7 @@ public class DdlExecutorWorker {
             return null;
         }
         Table table = null;
+        long start = System.nanoTime();
         try {
             table = MetaUtil.getTableMeta(dataSource, tableName);
             if (!this.isTableExists(table)) {
@@ -219,6 +529,8 @@ public class DdlExecutorWorker {
             }
         } catch (Exception ignored) {
 
+        } finally {
+            this.transferListener.onMetadata(tableName, System.nanoTime() - start);
         }
         return table;
     }
@@ -243,39 +555,189 @@ public class DdlExecutorWorker {
      * 使用分页插入数据
      *
      * @param db          数据库对象
+     * @param tableMeta   来源表对象
      * @param fromTable   来源表对象
      * @param toTable     目标表对象
      * @param recordCount 数据记录数
      * @param condition   数据过滤条件
+     * @param tableRule   单表同步规则，可为{@code null}
      */
-    private void insertDataWithPage(Db db, Table fromTable, Table toTable, long recordCount, String condition) throws SQLException {
-        String querySql = CharSequenceUtil.isBlank(condition) ? CharSequenceUtil.format(QUERY_ALL, fromTable.getTableName()) :
-                CharSequenceUtil.format(QUERY_WITH_CONDITION, fromTable.getTableName(), condition);
-        Map<String, String> map = this.getFiledMapping(fromTable, toTable);
-        //delete all
-        db.execute(CharSequenceUtil.format(DELETE_ALL, toTable.getTableName()));
-        log.info("All Data were deleted from {}", toTable.getTableName());
-        int pageCount = PageUtil.totalPage(recordCount, this.executeStrategy.getDataPageSize());
-        for (int i = 0; i < pageCount; i++) {
-            PageResult<Entity> pageResult = this.sourceProvider.getDb().page(querySql, new Page(i, this.executeStrategy.getDataPageSize()));
-            if (ObjectUtil.isNotEmpty(pageResult)) {
-                List<Entity> toList = pageResult.stream().map(t -> this.convert(t, map)).collect(Collectors.toList());
-                db.insert(toList);
-                log.info("Table {} data transfer batch processing with page:{}/{} Page size:{}", toTable.getTableName(), i + 1, pageCount, this.executeStrategy.getDataPageSize());
+    private void insertDataWithPage(Db db, TableMeta tableMeta, Table fromTable, Table toTable, long recordCount, String condition, TableRule tableRule)
+            throws SQLException, InterruptedException, IOException {
+        String selectList = this.getSelectList(fromTable, tableRule);
+        String querySql = CharSequenceUtil.isBlank(condition) ? CharSequenceUtil.format(QUERY_ALL, selectList, fromTable.getTableName()) :
+                CharSequenceUtil.format(QUERY_WITH_CONDITION, selectList, fromTable.getTableName(), condition);
+        RowTransferPlan plan = RowTransferPlan.build(fromTable, toTable, this.ddlProvider, tableRule);
+        String tableName = tableMeta.getTableName();
+        this.deleteTargetData(db, toTable, plan);
+        if (LobStreamTransfer.hasLobColumn(fromTable)) {
+            long reserved = this.memoryBudget.acquire(this.executeStrategy.getLobBatchBytes());
+            try {
+                long total = new LobStreamTransfer(this.sourceProvider, this.connection, this.ddlProvider, this.executeStrategy, this.rateLimiter, this.transferListener).transfer(tableName, querySql, plan);
+                log.info("Table {} lob data transfer finished, total records:{}", toTable.getTableName(), total);
+            } finally {
+                this.memoryBudget.release(reserved);
             }
+            return;
+        }
+        if (CharSequenceUtil.isNotBlank(this.executeStrategy.getSpillDirectory())) {
+            this.insertDataWithSpill(db, tableMeta, toTable, recordCount, querySql + QUERY_LIMIT, plan);
+            return;
+        }
+        BisectingBatchWriter writer = new BisectingBatchWriter(this.connection, this.ddlProvider, this.executeStrategy, tableName, this.transferListener);
+        AdaptiveBatchSizer sizer = new AdaptiveBatchSizer(this.executeStrategy, AdaptiveBatchSizer.estimateRowBytes(fromTable, tableMeta.getAvgRowLength()), this.memoryBudget);
+        String pageSql = querySql + QUERY_LIMIT;
+        long sourceRowBytes = tableMeta.getAvgRowLength() > 0 ? tableMeta.getAvgRowLength() : sizer.getRowBytes();
+        long offset = 0;
+        while (offset < recordCount) {
+            int pageSize = sizer.nextBatchSize();
+            long reserved = this.memoryBudget.acquire(sizer.estimateBatchBytes(pageSize));
+            try {
+                this.rateLimiter.acquire(pageSize, pageSize * sourceRowBytes);
+                long readStart = System.nanoTime();
+                TransferEvent readEvent = TransferEvents.begin(TransferEvents.Phase.READ, tableName);
+                List<Entity> fromList = this.sourceProvider.getDb().query(pageSql, pageSize, offset);
+                if (ObjectUtil.isEmpty(fromList)) {
+                    break;
+                }
+                long batchBytes = sizer.estimateBatchBytes(fromList.size());
+                readEvent.end(fromList.size(), batchBytes);
+                long writeStart = System.nanoTime();
+                TransferEvent convertEvent = TransferEvents.begin(TransferEvents.Phase.CONVERT, tableName);
+                List<Entity> toList = fromList.stream().map(plan::convert).collect(Collectors.toList());
+                convertEvent.end(toList.size(), batchBytes);
+                TransferEvent writeEvent = TransferEvents.begin(TransferEvents.Phase.WRITE, tableName);
+                writer.write(db, toList);
+                writeEvent.end(toList.size(), batchBytes);
+                long writeNanos = System.nanoTime() - writeStart;
+                sizer.record(pageSize, fromList.size(), writeNanos);
+                this.transferListener.onBatch(tableName, fromList.size(), batchBytes, writeStart - readStart, writeNanos);
+                offset += fromList.size();
+                log.info("Table {} data transfer batch processing with records:{}/{} Page size:{}", toTable.getTableName(), offset, recordCount, pageSize);
+            } finally {
+                this.memoryBudget.release(reserved);
+            }
+        }
+        if (writer.getRejectedCount() > 0) {
+            log.warn("Table {} data transfer finished, total records:{} rejected:{}", toTable.getTableName(), recordCount, writer.getRejectedCount());
+            return;
         }
         log.info("Table {} data transfer finished, total records:{}", toTable.getTableName(), recordCount);
     }
 
 
+    /**
+     * 读取与写入分离的分页同步：单独的线程按固定页大小读取来源数据并写入溢写缓冲，当前线程取出批次转换后写入目标表，
+     * 目标写入较慢时批次溢写到磁盘，来源读取无需等待目标写入
+     *
+     * @param db          数据库对象
+     * @param tableMeta   来源表对象
+     * @param toTable     目标表对象
+     * @param recordCount 数据记录数
+     * @param pageSql     分页查询语句
+     * @param plan        行转换计划
+     */
+    private void insertDataWithSpill(Db db, TableMeta tableMeta, Table toTable, long recordCount, String pageSql, RowTransferPlan plan)
+            throws SQLException, InterruptedException, IOException {
+        String tableName = tableMeta.getTableName();
+        BisectingBatchWriter writer = new BisectingBatchWriter(this.connection, this.ddlProvider, this.executeStrategy, tableName, this.transferListener);
+        int pageSize = Math.max(1, this.executeStrategy.getDataPageSize());
+        long rowBytes = tableMeta.getAvgRowLength() > 0 ? tableMeta.getAvgRowLength() : SPILL_ROW_BYTES;
+        ExecutorService reader = Executors.newSingleThreadExecutor(new NamedThreadFactory("spill-reader-", true));
+        try (SpillBuffer buffer = new SpillBuffer(new RowCodec(plan.getFromColumns()), new File(this.executeStrategy.getSpillDirectory()), tableName,
+                this.executeStrategy.getSpillMemoryBytes(), this.memoryBudget)) {
+            reader.execute(() -> this.readPages(buffer, pageSql, tableName, recordCount, pageSize, rowBytes));
+            long total = 0;
+            long readStart = System.nanoTime();
+            List<Entity> fromList;
+            while ((fromList = buffer.take()) != null) {
+                long batchBytes = fromList.size() * rowBytes;
+                long writeStart = System.nanoTime();
+                TransferEvent convertEvent = TransferEvents.begin(TransferEvents.Phase.CONVERT, tableName);
+                List<Entity> toList = fromList.stream().map(plan::convert).collect(Collectors.toList());
+                convertEvent.end(toList.size(), batchBytes);
+                TransferEvent writeEvent = TransferEvents.begin(TransferEvents.Phase.WRITE, tableName);
+                writer.write(db, toList);
+                writeEvent.end(toList.size(), batchBytes);
+                this.transferListener.onBatch(tableName, fromList.size(), batchBytes, writeStart - readStart, System.nanoTime() - writeStart);
+                total += fromList.size();
+                log.info("Table {} data transfer batch processing with records:{}/{} spilled batches:{}", tableName, total, recordCount, buffer.getSpilledBatches());
+                readStart = System.nanoTime();
+            }
+            log.info("Table {} data transfer finished, total records:{} rejected:{} spilled batches:{} bytes:{}", tableName, total,
+                    writer.getRejectedCount(), buffer.getSpilledBatches(), buffer.getSpilledBytes());
+        } finally {
+            reader.shutdownNow();
+        }
+    }
+
+    /**
+     * 分页读取来源数据写入溢写缓冲，写入端停止后不再读取。
+     * 读取时占用的内存只覆盖来源行，写入缓冲时已编码为副本，来源行随即可回收；缓冲中的批次由{@link SpillBuffer}另行从内存预算中占用，取出后释放
+     */
+    private void readPages(SpillBuffer buffer, String pageSql, String tableName, long recordCount, int pageSize, long rowBytes) {
+        try {
+            long offset = 0;
+            while (offset < recordCount) {
+                long reserved = this.memoryBudget.acquire(pageSize * rowBytes);
+                try {
+                    this.rateLimiter.acquire(pageSize, pageSize * rowBytes);
+                    TransferEvent readEvent = TransferEvents.begin(TransferEvents.Phase.READ, tableName);
+                    List<Entity> fromList = this.sourceProvider.getDb().query(pageSql, pageSize, offset);
+                    if (ObjectUtil.isEmpty(fromList)) {
+                        break;
+                    }
+                    readEvent.end(fromList.size(), fromList.size() * rowBytes);
+                    if (!buffer.put(fromList)) {
+                        return;
+                    }
+                    offset += fromList.size();
+                } finally {
+                    this.memoryBudget.release(reserved);
+                }
+            }
+            log.info("Table {} source read finished, records:{}", tableName, offset);
+            buffer.finish();
+        } catch (Throwable e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            buffer.fail(e);
+        }
+    }
+
+
+    /**
+     * 写入前删除目标表数据：分片合并同步时仅删除当前分片的数据，未配置分片标识列时已在建表阶段清空
+     *
+     * @param db      数据库对象
+     * @param toTable 目标表对象
+     * @param plan    行转换计划
+     */
+    private void deleteTargetData(Db db, Table toTable, RowTransferPlan plan) throws SQLException {
+        if (!this.shardMerge) {
+            db.execute(CharSequenceUtil.format(DELETE_ALL, toTable.getTableName()));
+            log.info("All Data were deleted from {}", toTable.getTableName());
+            return;
+        }
+        String shardColumn = this.executeStrategy.getShardColumnName();
+        if (CharSequenceUtil.isBlank(shardColumn)) {
+            return;
+        }
+        int count = db.execute(CharSequenceUtil.format(DELETE_SHARD, toTable.getTableName(), plan.getToName(shardColumn)), this.getShardId());
+        log.info("{} records of shard {} were deleted from {}", count, this.getShardId(), toTable.getTableName());
+    }
+
+
     /**
      * 删除数据并使用分页插入数据
      *
      * @param tableMeta 来源表对象
      * @param toTable   目标表对象
      * @param condition 数据过滤条件
+     * @param tableRule 单表同步规则，可为{@code null}
      */
-    private void insertData(TableMeta tableMeta, Table fromTable, Table toTable, String condition) throws SQLException {
+    private void insertData(TableMeta tableMeta, Table fromTable, Table toTable, String condition, TableRule tableRule) throws SQLException, InterruptedException, IOException {
         Db db = Db.use(this.connection);
         long recordCount;
         if (CharSequenceUtil.isNotBlank(condition)) {
@@ -283,28 +745,158 @@ public class DdlExecutorWorker {
         } else {
             recordCount = tableMeta.getRecordCount();
         }
-        this.insertDataWithPage(db, fromTable, toTable, recordCount, condition);
+        boolean disabled = this.disableConstraints(db, tableMeta.getTableName(), toTable);
+        boolean success = false;
+        try {
+            this.insertDataWithPage(db, tableMeta, fromTable, toTable, recordCount, condition, tableRule);
+            success = true;
+        } finally {
+            if (disabled) {
+                this.enableConstraints(db, tableMeta.getTableName(), toTable, success);
+            }
+        }
     }
 
 
-    private Map<String, String> getFiledMapping(@NonNull Table fromnTable, @NonNull Table toTable) {
-        Map<String, String> filedMapping = new HashMap<>(16);
-        filedMapping.put("toTableName", toTable.getTableName());
-        Collection<Column> fromFieldList = fromnTable.getColumns();
-        Collection<Column> toFieldList = toTable.getColumns();
-        for (Column fromField : fromFieldList) {
-            toFieldList.stream()
-                    .filter(t -> CharSequenceUtil.equalsIgnoreCase(t.getName(), fromField.getName()))
-                    .findFirst()
-                    .ifPresent(t -> filedMapping.put(fromField.getName().toLowerCase(), this.ddlProvider.wrapName(t.getName())));
+    /**
+     * 按执行策略禁用目标表触发器及非主键约束
+     *
+     * @param db        数据库对象
+     * @param tableName 来源表名，用于同步指标
+     * @param toTable   目标表对象
+     * @return 是否已禁用
+     */
+    private boolean disableConstraints(Db db, String tableName, Table toTable) throws SQLException {
+        if (!this.executeStrategy.isDisableConstraintsDuringLoad()) {
+            return false;
         }
-        return filedMapping;
+        List<String> ddlList = this.ddlProvider.buildDisableConstraintDdl(this.targetProvider.getConfig(), toTable);
+        this.executeConstraintDdl(db, tableName, toTable, ddlList);
+        return ObjectUtil.isNotEmpty(ddlList);
     }
 
-    private Entity convert(Entity fromEntity, Map<String, String> map) {
-        Entity entity = new Entity();
-        entity.setTableName(map.get("toTableName"));
-        fromEntity.getFieldNames().forEach(t -> entity.set(map.get(t.toLowerCase()), fromEntity.get(t)));
-        return entity;
+    /**
+     * 重新启用目标表触发器及约束，后台校验时不校验已有数据
+     *
+     * @param db        数据库对象
+     * @param tableName 来源表名，用于同步指标
+     * @param toTable   目标表对象
+     * @param rethrow   失败时是否抛出异常，写入已失败时仅记录日志，避免掩盖原始异常
+     */
+    private void enableConstraints(Db db, String tableName, Table toTable, boolean rethrow) throws SQLException {
+        List<String> ddlList = this.ddlProvider.buildEnableConstraintDdl(this.targetProvider.getConfig(), toTable,
+                !this.executeStrategy.isValidateConstraintsInBackground());
+        try {
+            this.executeConstraintDdl(db, tableName, toTable, ddlList);
+        } catch (SQLException e) {
+            if (rethrow) {
+                throw e;
+            }
+            log.error("Table {} enable constraints failed: {}", toTable.getTableName(), e.getMessage());
+        }
+    }
+
+    private void executeConstraintDdl(Db db, String tableName, Table toTable, List<String> ddlList) throws SQLException {
+        if (ObjectUtil.isEmpty(ddlList)) {
+            return;
+        }
+        long start = System.nanoTime();
+        TransferEvent event = TransferEvents.ddl(ActionType.ALTER, tableName);
+        try {
+            db.executeBatch(ddlList);
+        } catch (SQLException e) {
+            if (!this.ddlProvider.handleThrowable(e, toTable.getTableName())) {
+                throw e;
+            }
+        } finally {
+            event.end(ddlList.size(), 0L);
+            this.transferListener.onDdl(tableName, ActionType.ALTER, System.nanoTime() - start);
+        }
+    }
+
+
+    /**
+     * 按主键区间校验数据，仅删除并重新插入校验值不一致的区间
+     *
+     * @param tableMeta    来源表对象
+     * @param fromTable    来源表对象
+     * @param compareTable 参与校验的目标表结构，仅校验来源表与其共有的列；变更结构后为变更前的目标表对象
+     * @param toTable      目标表对象
+     * @param condition    数据过滤条件（已合并规则中的过滤条件），校验及重新插入时均在来源端生效
+     * @param tableRule    单表同步规则，可为{@code null}
+     */
+    private void resyncMismatchedRanges(TableMeta tableMeta, Table fromTable, Table compareTable, Table toTable, String condition, TableRule tableRule) throws Exception {
+        Column rangeKey = RangeChecksumVerifier.getRangeKey(fromTable);
+        if (ObjectUtil.isNull(rangeKey)) {
+            log.warn("Table:{} has no single numeric primary key, rebuild the whole table", tableMeta.getTableName());
+            toTable = this.recreateTable(tableMeta.getTableName(), fromTable, toTable);
+            this.insertData(tableMeta, fromTable, toTable, condition, tableRule);
+            return;
+        }
+        RangeChecksumVerifier verifier = new RangeChecksumVerifier(this.sourceProvider, this.targetProvider, this.ddlProvider);
+        List<KeyRange> rangeList = verifier.findMismatchedRanges(fromTable, compareTable, tableMeta.getRecordCount(), this.executeStrategy.getDataPageSize(),
+                tableRule, condition);
+        if (ObjectUtil.isEmpty(rangeList)) {
+            log.info("Table {} is consistent, nothing to resync", toTable.getTableName());
+            return;
+        }
+        Db db = Db.use(this.connection);
+        RowTransferPlan plan = RowTransferPlan.build(fromTable, toTable, this.ddlProvider, tableRule);
+        String toKeyName = plan.getToName(rangeKey.getName());
+        BisectingBatchWriter writer = new BisectingBatchWriter(this.connection, this.ddlProvider, this.executeStrategy, tableMeta.getTableName(), this.transferListener);
+        String fromKeyName = MetaDataUtil.wrapSourceName(rangeKey.getName());
+        String rangeCondition = CharSequenceUtil.format(RANGE_CONDITION, fromKeyName, fromKeyName);
+        String querySql = CharSequenceUtil.format(QUERY_WITH_CONDITION, this.getSelectList(fromTable, tableRule), fromTable.getTableName(),
+                CharSequenceUtil.isBlank(condition) ? rangeCondition : CharSequenceUtil.format(CONDITION_AND, rangeCondition, condition))
+                + CharSequenceUtil.format(QUERY_ORDER_BY, fromKeyName) + QUERY_LIMIT;
+        long sourceRowBytes = tableMeta.getAvgRowLength() > 0 ? tableMeta.getAvgRowLength() : AdaptiveBatchSizer.estimateRowBytes(fromTable, 0L);
+        boolean disabled = this.disableConstraints(db, tableMeta.getTableName(), toTable);
+        boolean success = false;
+        try {
+            this.resyncRanges(db, tableMeta.getTableName(), rangeList, querySql, plan, writer, toTable, toKeyName, sourceRowBytes);
+            success = true;
+        } finally {
+            if (disabled) {
+                this.enableConstraints(db, tableMeta.getTableName(), toTable, success);
+            }
+        }
+        log.info("Table {} resync finished, {} ranges repaired", toTable.getTableName(), rangeList.size());
+    }
+
+    /**
+     * 逐个区间删除目标数据后按主键顺序分页重新插入，区间内记录数超过分页大小时不会一次读入内存
+     */
+    private void resyncRanges(Db db, String tableName, List<KeyRange> rangeList, String pageSql, RowTransferPlan plan, BisectingBatchWriter writer, Table toTable,
+                              String toKeyName, long sourceRowBytes) throws SQLException, InterruptedException {
+        int pageSize = Math.max(1, this.executeStrategy.getDataPageSize());
+        for (KeyRange range : rangeList) {
+            db.execute(CharSequenceUtil.format(DELETE_RANGE, toTable.getTableName(), toKeyName, toKeyName), range.getLower(), range.getUpper());
+            long offset = 0;
+            while (true) {
+                long reserved = this.memoryBudget.acquire(pageSize * sourceRowBytes);
+                try {
+                    this.rateLimiter.acquire(pageSize, pageSize * sourceRowBytes);
+                    long readStart = System.nanoTime();
+                    TransferEvent readEvent = TransferEvents.begin(TransferEvents.Phase.READ, tableName);
+                    List<Entity> fromList = this.sourceProvider.getDb().query(pageSql, range.getLower(), range.getUpper(), pageSize, offset);
+                    readEvent.end(fromList.size(), 0L);
+                    if (ObjectUtil.isEmpty(fromList)) {
+                        break;
+                    }
+                    long writeStart = System.nanoTime();
+                    TransferEvent writeEvent = TransferEvents.begin(TransferEvents.Phase.WRITE, tableName);
+                    writer.write(db, fromList.stream().map(plan::convert).collect(Collectors.toList()));
+                    writeEvent.end(fromList.size(), 0L);
+                    this.transferListener.onBatch(tableName, fromList.size(), 0L, writeStart - readStart, System.nanoTime() - writeStart);
+                    offset += fromList.size();
+                    if (fromList.size() < pageSize) {
+                        break;
+                    }
+                } finally {
+                    this.memoryBudget.release(reserved);
+                }
+            }
+            log.info("Table {} range [{}, {}] resynced, records:{}", toTable.getTableName(), range.getLower(), range.getUpper(), offset);
+        }
     }
 }
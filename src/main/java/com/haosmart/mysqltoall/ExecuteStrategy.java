@@ -2,8 +2,14 @@ package com.haosmart.mysqltoall;
 
 
 import cn.hutool.core.collection.ListUtil;
+import cn.hutool.core.map.MapUtil;
+import cn.hutool.core.util.ReUtil;
+import com.haosmart.mysqltoall.config.TableRule;
+import com.haosmart.mysqltoall.file.ChunkFormat;
+import com.haosmart.mysqltoall.transfer.TransferListener;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * 执行策略
@@ -23,7 +29,15 @@ public interface ExecuteStrategy {
         /**
          * 存在时跳过创建
          */
-        SKIP_WHEN_EXIST
+        SKIP_WHEN_EXIST,
+        /**
+         * 存在时按主键区间校验数据，仅重新同步校验值不一致的区间；不存在时创建
+         */
+        RESYNC_MISMATCHED_RANGE,
+        /**
+         * 存在时比较表结构，仅执行新增、修改列及增删索引等必要的变更，不重建表；同步数据时按主键区间修复变更前已有列不一致的数据，没有单列数值主键时保留已有数据；不存在时创建
+         */
+        ALTER_WHEN_CHANGED
     }
 
 
@@ -45,6 +59,15 @@ public interface ExecuteStrategy {
         return -1L;
     }
 
+    /**
+     * 按{@link BuildType#ALTER_WHEN_CHANGED}变更表结构时，是否删除目标表中来源表不存在的列，默认为{@code false}
+     *
+     * @return 是否删除多余的列
+     */
+    default boolean isDropRedundantColumns() {
+        return false;
+    }
+
     /**
      * 是否同步表数据，默认为{@code True}
      *
@@ -81,6 +104,15 @@ public interface ExecuteStrategy {
         return false;
     }
 
+    /**
+     * 是否合并同一张表的DDL以减少往返次数（Oracle合并为匿名块，SQL Server合并为单个批处理），默认为{@code true}
+     *
+     * @return 是否合并DDL
+     */
+    default boolean isBundleDdl() {
+        return true;
+    }
+
     /**
      * 获取同步数据的分页大小，默认为{@code 5000}
      *
@@ -90,4 +122,316 @@ public interface ExecuteStrategy {
         return 5000;
     }
 
+    /**
+     * 获取批量写入因非数据错误（如死锁、锁超时）失败后的最大重试次数，重试仍失败时抛出异常；数据错误不重试。默认为{@code 0}
+     *
+     * @return 最大重试次数
+     */
+    default int getMaxRetryCount() {
+        return 0;
+    }
+
+    /**
+     * 获取单表可接受的最大拒绝记录数，批次因数据错误（约束冲突、数据超长等）失败时二分定位问题行，拒绝数超过后该表同步失败；
+     * -1表示不限制。默认为{@code 0}，即不定位问题行，出错时该表同步失败
+     *
+     * @return 最大拒绝记录数
+     */
+    default int getMaxRejectedRows() {
+        return 0;
+    }
+
+    /**
+     * 获取死信文件目录，被拒绝的记录及错误信息按表写入该目录下的{@code 表名.jsonl}（多目标同步时为{@code 目标库id-表名.jsonl}），默认为{@code null}，即不写入死信文件
+     *
+     * @return 死信文件目录
+     */
+    default String getDeadLetterPath() {
+        return null;
+    }
+
+    /**
+     * 获取含大字段的表单个批次的最大字节数，批次行数根据已读取记录的平均大小自适应调整，默认为{@code 32MB}
+     *
+     * @return 单个批次的最大字节数
+     */
+    default long getLobBatchBytes() {
+        return 32L * 1024 * 1024;
+    }
+
+    /**
+     * 是否根据单行大小、内存预算及写入耗时自适应调整分页大小，{@link #getDataPageSize()}作为初始值，默认为{@code True}
+     *
+     * @return 是否自适应调整分页大小
+     */
+    default boolean isAdaptivePageSize() {
+        return true;
+    }
+
+    /**
+     * 获取自适应分页的最小分页大小，默认为{@code 100}
+     *
+     * @return 最小分页大小
+     */
+    default int getMinDataPageSize() {
+        return 100;
+    }
+
+    /**
+     * 获取自适应分页的最大分页大小，默认为{@code 50000}
+     *
+     * @return 最大分页大小
+     */
+    default int getMaxDataPageSize() {
+        return 50000;
+    }
+
+    /**
+     * 获取单个批次写入的目标耗时（毫秒），默认为{@code 2000}
+     *
+     * @return 目标耗时
+     */
+    default long getTargetBatchMillis() {
+        return 2000L;
+    }
+
+    /**
+     * 获取所有Worker共享的数据缓冲内存预算（字节），默认为最大堆内存的一半
+     *
+     * @return 内存预算
+     */
+    default long getMemoryBudgetBytes() {
+        return Runtime.getRuntime().maxMemory() / 2;
+    }
+
+    /**
+     * 获取同步过程监听器，用于统计吞吐、批次耗时等，默认为空
+     *
+     * @return 监听器列表
+     */
+    default List<TransferListener> getTransferListeners() {
+        return ListUtil.empty();
+    }
+
+    /**
+     * 是否将同步指标注册为JMX MBean（{@code com.haosmart.mysqltoall:type=TransferMetrics}），默认为{@code false}
+     *
+     * @return 是否注册JMX MBean
+     */
+    default boolean isJmxMetricsEnabled() {
+        return false;
+    }
+
+    /**
+     * 获取Prometheus文本格式指标文件路径，为空时不输出，默认为{@code null}
+     *
+     * @return 指标文件路径
+     */
+    default String getPrometheusFilePath() {
+        return null;
+    }
+
+    /**
+     * 获取指标文件的输出间隔（秒），默认为{@code 15}
+     *
+     * @return 输出间隔
+     */
+    default long getMetricsIntervalSeconds() {
+        return 15L;
+    }
+
+    /**
+     * 获取进度日志的输出间隔（秒），小于等于0时不输出进度，默认为{@code 60}
+     *
+     * @return 输出间隔
+     */
+    default long getProgressIntervalSeconds() {
+        return 60L;
+    }
+
+    /**
+     * 获取JSON格式进度状态文件路径，包含整体进度、各Worker当前表、行/秒及预计剩余时间，为空时不输出，默认为{@code null}
+     *
+     * @return 状态文件路径
+     */
+    default String getProgressFilePath() {
+        return null;
+    }
+
+    /**
+     * 获取表指纹状态文件路径，记录上次成功同步时来源表的结构及内容指纹，再次同步时跳过未变化的表；为空时不启用，默认为{@code null}
+     *
+     * @return 指纹状态文件路径
+     */
+    default String getFingerprintFilePath() {
+        return null;
+    }
+
+    /**
+     * 是否使用{@code CHECKSUM TABLE}计算表内容指纹（需全表扫描），否则使用information_schema中的{@code UPDATE_TIME}，
+     * 无法获取UPDATE_TIME的表（如MySQL 5.7以下的InnoDB表）不会被跳过。默认为{@code false}
+     *
+     * @return 是否使用CHECKSUM TABLE
+     */
+    default boolean isFingerprintChecksumTable() {
+        return false;
+    }
+
+    /**
+     * 是否同步外键约束：按外键依赖调度表的同步顺序，互不依赖的表并行执行，全部表同步完成后统一创建外键；
+     * 同步前会删除目标库中与本次同步表相关的外键，仅对多表同步生效。默认为{@code false}
+     *
+     * @return 是否同步外键
+     */
+    default boolean isForeignKeyEnabled() {
+        return false;
+    }
+
+    /**
+     * 写入数据前是否禁用目标表触发器及非主键约束，写入结束后重新启用，用于提升有约束目标表的写入速度；
+     * 目前支持Oracle、SQL Server（触发器、外键及检查约束）和PostgreSQL（用户触发器）。
+     * 写入期间的数据不触发触发器，重新启用时会同时启用写入前已被禁用的约束。默认为{@code false}
+     *
+     * @return 是否禁用触发器及约束
+     */
+    default boolean isDisableConstraintsDuringLoad() {
+        return false;
+    }
+
+    /**
+     * 重新启用约束时是否跳过已有数据的校验（Oracle {@code ENABLE NOVALIDATE}、SQL Server {@code WITH NOCHECK}），
+     * 改为在事务提交后由后台线程补充校验，可通过{@link DdlExecutor#getConstraintValidation()}等待完成；
+     * 仅在{@link #isDisableConstraintsDuringLoad()}开启时生效。默认为{@code false}
+     *
+     * @return 是否后台校验约束
+     */
+    default boolean isValidateConstraintsInBackground() {
+        return false;
+    }
+
+    /**
+     * 获取单表同步规则，键为表名正则表达式，按顺序匹配第一个；默认为空
+     *
+     * @return 单表同步规则
+     */
+    default Map<String, TableRule> getTableRules() {
+        return MapUtil.empty();
+    }
+
+    /**
+     * 查找表对应的同步规则
+     *
+     * @param tableName 表名
+     * @return 同步规则，未配置时返回{@code null}
+     */
+    default TableRule findTableRule(String tableName) {
+        for (Map.Entry<String, TableRule> entry : this.getTableRules().entrySet()) {
+            if (ReUtil.isMatch(entry.getKey(), tableName)) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 获取分片合并同步时写入的分片标识列名，列值为分片来源配置的{@link com.haosmart.mysqltoall.config.DbConfig#getId()}，
+     * 该列追加到目标表主键及唯一索引中，各分片主键可以重复；为空时不写入分片标识，默认为{@code null}
+     *
+     * @return 分片标识列名
+     */
+    default String getShardColumnName() {
+        return null;
+    }
+
+    /**
+     * 获取扇出同步时每个目标的缓冲批次数，某个目标的待写入批次达到该值后来源读取才会等待，默认为{@code 4}
+     *
+     * @return 缓冲批次数
+     */
+    default int getFanOutQueueBatches() {
+        return 4;
+    }
+
+    /**
+     * 获取导出到文件时单个数据文件的最大行数，超过后切换到新文件，默认为{@code 1000000}
+     *
+     * @return 单个数据文件的最大行数
+     */
+    default long getExportChunkRows() {
+        return 1000000L;
+    }
+
+    /**
+     * 获取导出到文件时的数据文件格式，默认为{@link ChunkFormat#CSV}，{@link ChunkFormat#BINARY}为紧凑二进制行，导入时无需文本解析
+     *
+     * @return 数据文件格式
+     */
+    default ChunkFormat getExportFormat() {
+        return ChunkFormat.CSV;
+    }
+
+    /**
+     * 获取溢写目录，配置后来源读取与目标写入分离：读取的批次先缓冲在内存中，超过{@link #getSpillMemoryBytes()}后溢写到该目录，
+     * 目标写入慢于来源读取时来源读取不再等待；为空时不溢写，默认为{@code null}
+     *
+     * @return 溢写目录
+     */
+    default String getSpillDirectory() {
+        return null;
+    }
+
+    /**
+     * 获取溢写前每张表（扇出同步时每个目标）在内存中缓冲的最大编码字节数，默认为{@code 64MB}
+     *
+     * @return 最大缓冲字节数
+     */
+    default long getSpillMemoryBytes() {
+        return 64L * 1024 * 1024;
+    }
+
+    /**
+     * 获取所有Worker合计每秒最多从来源库读取的行数，小于等于0表示不限制，默认为{@code -1}
+     *
+     * @return 每秒最大读取行数
+     */
+    default long getSourceRowsPerSecond() {
+        return -1L;
+    }
+
+    /**
+     * 获取所有Worker合计每秒最多从来源库读取的字节数（按平均行长度估算），小于等于0表示不限制，默认为{@code -1}
+     *
+     * @return 每秒最大读取字节数
+     */
+    default long getSourceBytesPerSecond() {
+        return -1L;
+    }
+
+    /**
+     * 获取来源库{@code Threads_running}阈值，超过时降低读取速率，仅在配置读取速率上限时生效；小于等于0表示不检查，默认为{@code -1}
+     *
+     * @return Threads_running阈值
+     */
+    default long getSourceMaxThreadsRunning() {
+        return -1L;
+    }
+
+    /**
+     * 获取来源库（副本）复制延迟阈值（秒），超过时降低读取速率，仅在配置读取速率上限时生效；小于等于0表示不检查，默认为{@code -1}
+     *
+     * @return 复制延迟阈值
+     */
+    default long getSourceMaxReplicaLagSeconds() {
+        return -1L;
+    }
+
+    /**
+     * 获取来源库负载检查间隔（秒），默认为{@code 10}
+     *
+     * @return 检查间隔
+     */
+    default long getSourceHealthCheckSeconds() {
+        return 10L;
+    }
+
 }
@@ -0,0 +1,393 @@
+package com.haosmart.mysqltoall;
+
+import cn.hutool.core.collection.ListUtil;
+import cn.hutool.core.text.CharSequenceUtil;
+import cn.hutool.core.thread.NamedThreadFactory;
+import cn.hutool.core.util.ObjectUtil;
+import cn.hutool.db.Entity;
+import cn.hutool.db.meta.MetaUtil;
+import cn.hutool.db.meta.Table;
+import com.haosmart.mysqltoall.config.DbConfig;
+import com.haosmart.mysqltoall.config.TableRule;
+import com.haosmart.mysqltoall.ddl.DdlProvider;
+import com.haosmart.mysqltoall.ddl.DdlProviderFactory;
+import com.haosmart.mysqltoall.entity.TableMeta;
+import com.haosmart.mysqltoall.metrics.TransferEvent;
+import com.haosmart.mysqltoall.metrics.TransferEvents;
+import com.haosmart.mysqltoall.metrics.TransferMetrics;
+import com.haosmart.mysqltoall.transfer.BatchReservation;
+import com.haosmart.mysqltoall.transfer.CompositeTransferListener;
+import com.haosmart.mysqltoall.transfer.FanOutWriter;
+import com.haosmart.mysqltoall.transfer.MemoryBudget;
+import com.haosmart.mysqltoall.transfer.RowTransferPlan;
+import com.haosmart.mysqltoall.transfer.SourceRateLimiter;
+import com.haosmart.mysqltoall.transfer.TransferListener;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+/**
+ * 扇出同步：来源表只读取一次，同时写入多个不同方言的目标库。每个目标使用独立的连接池、DDL生成器及事务，
+ * 来源批次经各目标的有界队列分发，慢目标仅在缓冲批次写满后才会阻塞读取；某个目标失败时回滚该目标，其余目标继续同步并提交
+ *
+ * @author fujunhao
+ */
+@Slf4j
+public class FanOutExecutor {
+
+    private final static String QUERY_PAGE = "select {} from {}{} limit ? offset ?";
+
+    private final static String QUERY_COUNT = "select count(*) from {}{}";
+
+    private final static String WHERE = " where ";
+
+    private final static String SELECT_ALL = "*";
+
+    private final static int POOL_RESERVED_CONNECTIONS = 2;
+
+    private final DataSourceProvider sourceProvider;
+
+    private final List<Target> targets;
+
+    private final ExecuteStrategy executeStrategy;
+
+    private final MemoryBudget memoryBudget;
+
+    private final SourceRateLimiter rateLimiter;
+
+    /**
+     * 单个目标库
+     */
+    private static class Target {
+
+        private final String id;
+
+        private final DataSourceProvider provider;
+
+        private final TransferMetrics metrics = new TransferMetrics();
+
+        private TransferListener listener;
+
+        private DdlProvider ddlProvider;
+
+        private Connection connection;
+
+        private DdlExecutorWorker worker;
+
+        private volatile Throwable failure;
+
+        private Target(String id, DataSourceProvider provider) {
+            this.id = id;
+            this.provider = provider;
+        }
+    }
+
+    /**
+     * 各目标的同步指标，键为目标标识
+     */
+    @Getter
+    private final Map<String, TransferMetrics> targetMetrics = new LinkedHashMap<>(16);
+
+    public FanOutExecutor(DbConfig sourceConfig, List<DbConfig> targetConfigs, ExecuteStrategy executeStrategy) {
+        if (ObjectUtil.isEmpty(targetConfigs)) {
+            throw new IllegalArgumentException("目标库配置不能为空");
+        }
+        this.sourceProvider = DataSourceProvider.create(sourceConfig);
+        this.executeStrategy = executeStrategy;
+        this.memoryBudget = new MemoryBudget(executeStrategy.getMemoryBudgetBytes());
+        this.rateLimiter = new SourceRateLimiter(executeStrategy.getSourceRowsPerSecond(), executeStrategy.getSourceBytesPerSecond());
+        this.targets = new ArrayList<>(targetConfigs.size());
+        for (int i = 0; i < targetConfigs.size(); i++) {
+            DbConfig targetConfig = targetConfigs.get(i);
+            Target target = new Target(CharSequenceUtil.blankToDefault(targetConfig.getId(), "target-" + i), DataSourceProvider.create(targetConfig));
+            List<TransferListener> listeners = new ArrayList<>(executeStrategy.getTransferListeners());
+            listeners.add(target.metrics);
+            target.listener = new CompositeTransferListener(listeners);
+            this.targets.add(target);
+            this.targetMetrics.put(target.id, target.metrics);
+        }
+    }
+
+    /**
+     * 同步多张表，每张表的来源数据只读取一次并写入全部目标库
+     *
+     * @param workerCount 同时同步的表数
+     * @param tableNames  表名过滤，为空时同步全部表
+     */
+    public void syncTables(int workerCount, String... tableNames) {
+        List<TableMeta> tableMetaList = this.getTableMetas(tableNames);
+        if (ObjectUtil.isEmpty(tableMetaList)) {
+            return;
+        }
+        int executeWorkerCount = Math.max(1, Math.min(workerCount, tableMetaList.size()));
+        this.sourceProvider.ensureCapacity(executeWorkerCount + POOL_RESERVED_CONNECTIONS);
+        long recordCount = tableMetaList.stream().mapToLong(TableMeta::getRecordCount).sum();
+        try {
+            for (Target target : this.targets) {
+                target.provider.ensureCapacity(executeWorkerCount + POOL_RESERVED_CONNECTIONS);
+                this.openTarget(target);
+                target.listener.onRunStart(tableMetaList.size(), recordCount);
+            }
+        } catch (SQLException e) {
+            this.targets.forEach(t -> this.closeTarget(t, false));
+            throw new RuntimeException(e);
+        }
+        ExecutorService readers = Executors.newFixedThreadPool(executeWorkerCount, new NamedThreadFactory("fan-out-reader-", true));
+        ExecutorService writers = Executors.newCachedThreadPool(new NamedThreadFactory("fan-out-writer-", true));
+        try {
+            List<CompletableFuture<Void>> futures = tableMetaList.stream()
+                    .map(t -> CompletableFuture.runAsync(() -> this.transferTable(t, writers), readers))
+                    .collect(Collectors.toList());
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        } catch (CompletionException e) {
+            //读取失败时所有目标均不完整
+            log.error("Fan-out source read failed, rolling back all targets.", e.getCause());
+            this.targets.forEach(t -> t.failure = ObjectUtil.defaultIfNull(t.failure, e.getCause()));
+        } finally {
+            readers.shutdownNow();
+            writers.shutdownNow();
+        }
+        List<String> failedTargets = new ArrayList<>(this.targets.size());
+        for (Target target : this.targets) {
+            if (!this.closeTarget(target, target.failure == null)) {
+                failedTargets.add(target.id);
+            }
+        }
+        if (ObjectUtil.isNotEmpty(failedTargets)) {
+            throw new RuntimeException(CharSequenceUtil.format("Targets {} failed and rolled back", failedTargets),
+                    this.targets.stream().map(t -> t.failure).filter(ObjectUtil::isNotNull).findFirst().orElse(null));
+        }
+        log.warn("All targets finished successfully, targets:{} tables:{}", this.targets.size(), tableMetaList.size());
+    }
+
+    /**
+     * 同步单张表：为每个目标准备表结构及写入器，再分页读取来源数据并分发给各写入器
+     *
+     * @param tableMeta 表对象
+     * @param writers   写入线程池
+     */
+    private void transferTable(TableMeta tableMeta, ExecutorService writers) {
+        String tableName = tableMeta.getTableName();
+        Table fromTable = this.readTable(tableName);
+        if (ObjectUtil.isNull(fromTable)) {
+            log.error("Table:{} not found", tableName);
+            return;
+        }
+        TableRule tableRule = this.executeStrategy.findTableRule(tableName);
+        String condition = null;
+        if (ObjectUtil.isNotNull(tableRule)) {
+            fromTable = tableRule.project(fromTable);
+            condition = tableRule.getFilter();
+        }
+        Map<Target, FanOutWriter> writerMap = new LinkedHashMap<>(16);
+        List<Target> activeTargets = this.targets.stream()
+                .filter(t -> t.failure == null && !t.worker.shouldIgnore(tableMeta))
+                .collect(Collectors.toList());
+        for (Target target : activeTargets) {
+            target.listener.onTableStart(tableName, tableMeta.getRecordCount());
+            try {
+                Table toTable = target.worker.prepareTargetTable(tableName, fromTable, true);
+                if (this.executeStrategy.isIncludeData()) {
+                    RowTransferPlan plan = RowTransferPlan.build(fromTable, toTable, target.ddlProvider, tableRule);
+                    FanOutWriter writer = new FanOutWriter(target.id, tableName, target.connection, target.ddlProvider, this.executeStrategy, plan,
+                            this.memoryBudget, target.listener);
+                    writers.execute(writer);
+                    writerMap.put(target, writer);
+                } else {
+                    target.listener.onTableFinish(tableName, true);
+                }
+            } catch (Exception e) {
+                this.handleFailure(target, tableName, e);
+            }
+        }
+        if (ObjectUtil.isEmpty(writerMap)) {
+            return;
+        }
+        try {
+            this.readAndDispatch(tableMeta, fromTable, tableRule, condition, writerMap.values());
+            for (FanOutWriter writer : writerMap.values()) {
+                writer.finish();
+            }
+        } catch (Exception e) {
+            writerMap.keySet().forEach(t -> t.listener.onTableFinish(tableName, false));
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            throw new CompletionException(e);
+        }
+        for (Map.Entry<Target, FanOutWriter> entry : writerMap.entrySet()) {
+            this.awaitWriter(entry.getKey(), entry.getValue(), tableName);
+        }
+    }
+
+    /**
+     * 分页读取来源数据并分发给全部写入器，写入器均已失败时停止读取；批次的内存占用由最后一个写入完成的写入器释放
+     */
+    private void readAndDispatch(TableMeta tableMeta, Table fromTable, TableRule tableRule, String condition, Collection<FanOutWriter> writers) throws SQLException, InterruptedException {
+        String where = CharSequenceUtil.isBlank(condition) ? "" : WHERE + condition;
+        long recordCount = tableMeta.getRecordCount();
+        if (CharSequenceUtil.isNotBlank(condition)) {
+            Number count = this.sourceProvider.getDb().queryNumber(CharSequenceUtil.format(QUERY_COUNT, fromTable.getTableName(), where));
+            recordCount = ObjectUtil.isNull(count) ? 0L : count.longValue();
+        }
+        String selectList = ObjectUtil.isNull(tableRule) ? SELECT_ALL : tableRule.getSelectList(fromTable);
+        String pageSql = CharSequenceUtil.format(QUERY_PAGE, selectList, fromTable.getTableName(), where);
+        int pageSize = Math.max(1, this.executeStrategy.getDataPageSize());
+        long rowBytes = tableMeta.getAvgRowLength() > 0 ? tableMeta.getAvgRowLength() : 256L;
+        long offset = 0;
+        while (offset < recordCount) {
+            long reserved = this.memoryBudget.acquire(pageSize * rowBytes);
+            List<Entity> fromList = null;
+            try {
+                this.rateLimiter.acquire(pageSize, pageSize * rowBytes);
+                TransferEvent readEvent = TransferEvents.begin(TransferEvents.Phase.READ, tableMeta.getTableName());
+                fromList = this.sourceProvider.getDb().query(pageSql, pageSize, offset);
+                readEvent.end(ObjectUtil.isEmpty(fromList) ? 0 : fromList.size(), 0L);
+            } finally {
+                if (ObjectUtil.isEmpty(fromList)) {
+                    this.memoryBudget.release(reserved);
+                }
+            }
+            if (ObjectUtil.isEmpty(fromList)) {
+                break;
+            }
+            BatchReservation reservation = new BatchReservation(this.memoryBudget, reserved, writers.size());
+            boolean accepted = false;
+            for (FanOutWriter writer : writers) {
+                accepted |= writer.offer(fromList, reservation);
+            }
+            if (!accepted) {
+                log.warn("Table {} fan-out stopped, all targets failed", fromTable.getTableName());
+                return;
+            }
+            offset += fromList.size();
+            log.info("Table {} fan-out batch processing with records:{}/{}", fromTable.getTableName(), offset, recordCount);
+        }
+    }
+
+    /**
+     * 等待写入器完成并记录结果
+     */
+    private void awaitWriter(Target target, FanOutWriter writer, String tableName) {
+        Throwable failure;
+        try {
+            failure = writer.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure = e;
+        }
+        if (ObjectUtil.isNotNull(failure)) {
+            this.handleFailure(target, tableName, failure);
+            return;
+        }
+        target.listener.onTableFinish(tableName, true);
+        if (writer.getRejectedCount() > 0) {
+            log.warn("Target {} table {} transfer finished, total records:{} rejected:{}", target.id, tableName, writer.getTotal(), writer.getRejectedCount());
+        } else {
+            log.warn("Target {} table {} transfer succeed, total records:{}", target.id, tableName, writer.getTotal());
+        }
+    }
+
+    private void handleFailure(Target target, String tableName, Throwable e) {
+        if (!target.ddlProvider.handleThrowable(e, tableName)) {
+            log.error("Target {} table {} failed: {}", target.id, tableName, e.getMessage());
+        }
+        target.listener.onTableFinish(tableName, false);
+        if (!this.executeStrategy.continueWhenError()) {
+            target.failure = ObjectUtil.defaultIfNull(target.failure, e);
+        }
+    }
+
+    private void openTarget(Target target) throws SQLException {
+        target.failure = null;
+        target.connection = target.provider.getDataSource().getConnection();
+        target.connection.setAutoCommit(false);
+        target.ddlProvider = DdlProviderFactory.build(target.provider.getConfig(), target.connection.getMetaData());
+        target.worker = new DdlExecutorWorker(this.sourceProvider, target.provider, target.ddlProvider, this.executeStrategy, target.connection,
+                this.memoryBudget, this.rateLimiter, target.listener);
+    }
+
+    /**
+     * 提交或回滚目标事务
+     *
+     * @return 是否已提交
+     */
+    private boolean closeTarget(Target target, boolean commit) {
+        if (ObjectUtil.isNull(target.connection)) {
+            return false;
+        }
+        boolean committed = false;
+        try {
+            if (commit) {
+                TransferEvent commitEvent = TransferEvents.begin(TransferEvents.Phase.COMMIT, null);
+                target.connection.commit();
+                commitEvent.end(target.metrics.getRowsTransferred(), 0L);
+                committed = true;
+                log.warn("Target {} committed, tables:{} records:{}", target.id, target.metrics.getFinishedTables(), target.metrics.getRowsTransferred());
+            } else {
+                target.connection.rollback();
+                log.error("Target {} failed, transaction rolled back", target.id);
+            }
+        } catch (SQLException e) {
+            log.error("Target {} commit failed", target.id, e);
+            target.failure = ObjectUtil.defaultIfNull(target.failure, e);
+        } finally {
+            target.listener.onRunFinish(committed);
+            try {
+                target.connection.close();
+            } catch (SQLException e) {
+                log.error("Error closing connection.", e);
+            }
+            target.connection = null;
+        }
+        return committed;
+    }
+
+    private List<TableMeta> getTableMetas(String... tableNames) {
+        List<String> tableList = MetaUtil.getTables(this.sourceProvider.getDataSource());
+        if (ObjectUtil.isEmpty(tableList)) {
+            return ListUtil.empty();
+        }
+        if (ObjectUtil.isNotEmpty(tableNames)) {
+            tableList = tableList.stream().filter(t -> CharSequenceUtil.containsAny(t, tableNames)).collect(Collectors.toList());
+        }
+        List<TableMeta> tableMetas = new ArrayList<>(tableList.size());
+        for (String tableName : tableList) {
+            try {
+                Number count = this.sourceProvider.getDb().queryNumber(CharSequenceUtil.format(QUERY_COUNT, tableName, ""));
+                tableMetas.add(new TableMeta(ObjectUtil.isNull(count) ? 0L : count.longValue(), tableName));
+            } catch (SQLException e) {
+                log.warn("Count table {} failed: {}", tableName, e.getMessage());
+            }
+        }
+        //大表优先
+        tableMetas.sort(Comparator.reverseOrder());
+        return tableMetas;
+    }
+
+    private Table readTable(String tableName) {
+        try {
+            Table table = MetaUtil.getTableMeta(this.sourceProvider.getDataSource(), tableName);
+            if (ObjectUtil.isEmpty(table.getColumns())) {
+                table = MetaUtil.getTableMeta(this.sourceProvider.getDataSource(), tableName.toUpperCase());
+            }
+            return ObjectUtil.isEmpty(table.getColumns()) ? null : table;
+        } catch (Exception e) {
+            log.warn("Read table {} metadata failed: {}", tableName, e.getMessage());
+            return null;
+        }
+    }
+}
@@ -1,12 +1,14 @@
 package com.haosmart.mysqltoall.config;
 
 import cn.hutool.core.lang.Assert;
+import cn.hutool.core.text.CharSequenceUtil;
 import cn.hutool.core.util.ObjectUtil;
 import cn.hutool.setting.Setting;
 import com.haosmart.mysqltoall.enumration.DbType;
 import lombok.Data;
 
 import java.nio.charset.Charset;
+import java.util.Map;
 
 
 /**
@@ -33,6 +35,41 @@ public class DbConfig {
 
     private String tbSpaceDdl;
 
+    /**
+     * 驱动类，为空时根据{@link #dbType}获取
+     */
+    private String driverClass;
+
+    /**
+     * 连接池最大连接数，为空时根据Worker数量自动调整
+     */
+    private Integer maxActive;
+
+    /**
+     * 连接池最小空闲连接数，为空时为{@code 1}
+     */
+    private Integer minIdle;
+
+    /**
+     * 连接池初始连接数，为空时为{@code 1}
+     */
+    private Integer initialSize;
+
+    /**
+     * 每个连接缓存的PreparedStatement数量，{@code 0}表示不缓存，为空时为{@code 100}
+     */
+    private Integer preparedStatementCacheSize;
+
+    /**
+     * 是否自动追加驱动的批量写入优化参数（如MySQL的rewriteBatchedStatements），为空时为{@code true}
+     */
+    private Boolean autoUrlProperties;
+
+    /**
+     * 追加到连接URL的参数，优先于自动追加的参数，URL中已存在的参数不会被覆盖
+     */
+    private Map<String, String> urlProperties;
+
     public void setId(String id) {
         Assert.notBlank(id, "id不能为空");
         this.id = id;
@@ -56,7 +93,7 @@ public class DbConfig {
 
     public Setting toSetting() {
         return new Setting()
-                .set("driver", ObjectUtil.isNotNull(this.dbType) ? this.dbType.getDriverClass(): null)
+                .set("driver", CharSequenceUtil.isNotBlank(this.driverClass) ? this.driverClass : ObjectUtil.isNotNull(this.dbType) ? this.dbType.getDriverClass() : null)
                 .set("url", dbUrl)
                 .set("user", userName)
                 .set("pass", password);
@@ -0,0 +1,180 @@
+package com.haosmart.mysqltoall.config;
+
+import cn.hutool.core.text.CharSequenceUtil;
+import cn.hutool.core.util.ObjectUtil;
+import cn.hutool.db.meta.Column;
+import cn.hutool.db.meta.IndexInfo;
+import cn.hutool.db.meta.Table;
+import com.haosmart.mysqltoall.transfer.ValueConverter;
+import com.haosmart.mysqltoall.utils.MetaDataUtil;
+import lombok.Data;
+import lombok.NonNull;
+import lombok.ToString;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * 单表同步规则：列裁剪、行过滤及列转换，列裁剪和行过滤下推到来源查询，未同步的列不会建到目标表，也不会被读取
+ *
+ * @author fujunhao
+ */
+@Data
+public class TableRule {
+
+    private final static String AND = "({}) and ({})";
+
+    private final static String COLUMN_ALIAS = "{} as {}";
+
+    /**
+     * 同步的列，为空时同步全部列
+     */
+    private List<String> includeColumns = new ArrayList<>();
+
+    /**
+     * 不同步的列，优先于{@link #includeColumns}
+     */
+    private List<String> excludeColumns = new ArrayList<>();
+
+    /**
+     * 来源数据过滤条件，在来源库执行的where子句（不含where关键字）
+     */
+    private String filter;
+
+    /**
+     * 列名到来源SQL表达式的映射，在来源库计算，如{@code CONCAT(LEFT(phone, 3), '****')}，结果类型需与原列兼容
+     */
+    private Map<String, String> columnExpressions = new LinkedHashMap<>();
+
+    /**
+     * 列名到列值转换器的映射，在目标方言转换之前执行
+     */
+    @ToString.Exclude
+    private Map<String, ValueConverter> columnConverters = new LinkedHashMap<>();
+
+    /**
+     * 列是否同步
+     *
+     * @param columnName 列名
+     * @return 是否同步
+     */
+    public boolean isColumnIncluded(String columnName) {
+        if (this.excludeColumns.stream().anyMatch(t -> CharSequenceUtil.equalsIgnoreCase(t, columnName))) {
+            return false;
+        }
+        return ObjectUtil.isEmpty(this.includeColumns) || this.includeColumns.stream().anyMatch(t -> CharSequenceUtil.equalsIgnoreCase(t, columnName));
+    }
+
+    /**
+     * 裁剪来源表对象，移除不同步的列以及包含这些列的主键和索引
+     *
+     * @param table 来源表对象
+     * @return 裁剪后的表对象，无需裁剪时返回原对象
+     */
+    public Table project(@NonNull Table table) {
+        if (table.getColumns().stream().allMatch(t -> this.isColumnIncluded(t.getName()))) {
+            return table;
+        }
+        Table result = Table.create(table.getTableName())
+                .setSchema(table.getSchema())
+                .setCatalog(table.getCatalog())
+                .setComment(table.getComment());
+        table.getColumns().stream().filter(t -> this.isColumnIncluded(t.getName())).forEach(result::setColumn);
+        if (ObjectUtil.isNotEmpty(table.getPkNames()) && table.getPkNames().stream().allMatch(this::isColumnIncluded)) {
+            result.setPkNames(new LinkedHashSet<>(table.getPkNames()));
+        }
+        if (ObjectUtil.isNotEmpty(table.getIndexInfoList())) {
+            result.setIndexInfoList(table.getIndexInfoList().stream()
+                    .filter(t -> t.getColumnIndexInfoList().stream().allMatch(c -> this.isColumnIncluded(c.getColumnName())))
+                    .collect(Collectors.toList()));
+        } else {
+            result.setIndexInfoList(new ArrayList<IndexInfo>());
+        }
+        return result;
+    }
+
+    /**
+     * 生成来源查询的列清单，列名加反引号，配置了表达式的列以原列名作为别名
+     *
+     * @param table 裁剪后的来源表对象
+     * @return 列清单
+     */
+    public String getSelectList(@NonNull Table table) {
+        return table.getColumns().stream().map(t -> this.getSelectColumn(t.getName())).collect(Collectors.joining(","));
+    }
+
+    /**
+     * 生成来源查询中的单列
+     *
+     * @param columnName 列名
+     * @return 加反引号的列名或带别名的表达式
+     */
+    public String getSelectColumn(String columnName) {
+        String expression = this.findValue(this.columnExpressions, columnName);
+        String wrappedName = MetaDataUtil.wrapSourceName(columnName);
+        return CharSequenceUtil.isBlank(expression) ? wrappedName : CharSequenceUtil.format(COLUMN_ALIAS, expression, wrappedName);
+    }
+
+    /**
+     * 获取列值转换器
+     *
+     * @param columnName 列名
+     * @return 列值转换器，未配置时返回{@code null}
+     */
+    public ValueConverter getColumnConverter(String columnName) {
+        return this.findValue(this.columnConverters, columnName);
+    }
+
+    /**
+     * 合并过滤条件
+     *
+     * @param condition 调用方指定的过滤条件
+     * @return 合并后的过滤条件，均未配置时返回{@code null}
+     */
+    public String mergeCondition(String condition) {
+        if (CharSequenceUtil.isBlank(this.filter)) {
+            return condition;
+        }
+        if (CharSequenceUtil.isBlank(condition)) {
+            return this.filter;
+        }
+        return CharSequenceUtil.format(AND, condition, this.filter);
+    }
+
+    /**
+     * 复制规则并追加列表达式，不修改当前规则
+     *
+     * @param columnName 列名
+     * @param expression 来源SQL表达式
+     * @return 新规则
+     */
+    public TableRule withColumnExpression(String columnName, String expression) {
+        TableRule rule = new TableRule();
+        rule.setIncludeColumns(new ArrayList<>(this.includeColumns));
+        rule.setExcludeColumns(new ArrayList<>(this.excludeColumns));
+        rule.setFilter(this.filter);
+        rule.setColumnExpressions(new LinkedHashMap<>(this.columnExpressions));
+        rule.setColumnConverters(new LinkedHashMap<>(this.columnConverters));
+        rule.getColumnExpressions().put(columnName, expression);
+        return rule;
+    }
+
+    private <T> T findValue(Map<String, T> map, String columnName) {
+        if (ObjectUtil.isEmpty(map)) {
+            return null;
+        }
+        T value = map.get(columnName);
+        if (ObjectUtil.isNull(value)) {
+            value = map.entrySet().stream()
+                    .filter(t -> CharSequenceUtil.equalsIgnoreCase(t.getKey(), columnName))
+                    .map(Map.Entry::getValue)
+                    .findFirst()
+                    .orElse(null);
+        }
+        return value;
+    }
+}
@@ -2,6 +2,7 @@ package com.haosmart.mysqltoall.ddl;
 
 import cn.hutool.core.collection.CollectionUtil;
 import cn.hutool.core.collection.ListUtil;
+import cn.hutool.core.map.MapUtil;
 import cn.hutool.core.lang.Assert;
 import cn.hutool.core.lang.Pair;
 import cn.hutool.core.lang.Validator;
@@ -10,11 +11,15 @@ import cn.hutool.core.util.ObjectUtil;
 import cn.hutool.core.util.ReUtil;
 import cn.hutool.db.meta.Column;
 import cn.hutool.db.meta.IndexInfo;
+import cn.hutool.db.meta.JdbcType;
 import cn.hutool.db.meta.Table;
 import com.haosmart.mysqltoall.config.DbConfig;
+import com.haosmart.mysqltoall.entity.ForeignKey;
 import com.haosmart.mysqltoall.enumration.ActionType;
 import com.haosmart.mysqltoall.enumration.CaseType;
 import com.haosmart.mysqltoall.enumration.CommentType;
+import com.haosmart.mysqltoall.enumration.DbType;
+import com.haosmart.mysqltoall.transfer.ValueConverter;
 import lombok.Getter;
 import lombok.NonNull;
 
@@ -22,7 +27,12 @@ import java.sql.DatabaseMetaData;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
 
 /**
@@ -60,6 +70,60 @@ public abstract class AbstractDdlProvider implements DdlProvider {
 
     private static final String[] FUNCTIONS = {"CURRENT_TIMESTAMP"};
 
+    private static final String ADD_COLUMN_TEMPLATE = "ALTER TABLE {} ADD {}";
+
+    private static final String DROP_COLUMN_TEMPLATE = "ALTER TABLE {} DROP COLUMN {}";
+
+    private static final String ALTER_COLUMN_TYPE_TEMPLATE = "ALTER TABLE {} ALTER COLUMN {} TYPE {}";
+
+    private static final String ALTER_COLUMN_NULLABLE_TEMPLATE = "ALTER TABLE {} ALTER COLUMN {} {} NOT NULL";
+
+    private static final String ALTER_COLUMN_DEFAULT_TEMPLATE = "ALTER TABLE {} ALTER COLUMN {} SET DEFAULT {}";
+
+    private static final String DROP_COLUMN_DEFAULT_TEMPLATE = "ALTER TABLE {} ALTER COLUMN {} DROP DEFAULT";
+
+    private static final String ADD_FOREIGN_KEY_TEMPLATE = "ALTER TABLE {} ADD CONSTRAINT {} FOREIGN KEY ({}) REFERENCES {} ({}){}";
+
+    private static final String DROP_CONSTRAINT_TEMPLATE = "ALTER TABLE {} DROP CONSTRAINT {}";
+
+    /**
+     * 默认值中的类型转换（如PostgreSQL的{@code 'a'::character varying}）
+     */
+    private static final String DEFAULT_VALUE_CAST = "::[\\w\\s]+";
+
+    /**
+     * PostgreSQL系数据库元数据返回的类型别名
+     */
+    protected static final Map<String, String> POSTGRESQL_TYPE_ALIASES = MapUtil.<String, String>builder()
+            .put("INT2", "SMALLINT").put("INT4", "INTEGER").put("INT", "INTEGER").put("INT8", "BIGINT")
+            .put("NUMERIC", "DECIMAL").put("FLOAT4", "REAL").put("FLOAT8", "DOUBLEPRECISION").put("BOOL", "BOOLEAN")
+            .put("BPCHAR", "CHAR").put("CHARACTERVARYING", "VARCHAR").put("CHARACTER", "CHAR")
+            .put("TIMESTAMPWITHOUTTIMEZONE", "TIMESTAMP").put("TIMESTAMPTZ", "TIMESTAMPWITHTIMEZONE")
+            .build();
+
+    private static final List<String> INTEGER_TYPES = ListUtil.toList("TINYINT", "SMALLINT", "INTEGER", "BIGINT");
+
+    /**
+     * 布尔值转换为数值1/0
+     */
+    protected static final ValueConverter BOOLEAN_TO_NUMBER = value ->
+            value instanceof Boolean ? (((Boolean) value) ? 1 : 0) : value;
+
+    /**
+     * 删除字符串中的NUL字符（PostgreSQL系不接受）
+     */
+    protected static final ValueConverter REMOVE_NUL_CHAR = value ->
+            value instanceof String && ((String) value).indexOf('\0') > -1 ? ((String) value).replace("\0", "") : value;
+
+    /**
+     * 不接受字符串中NUL字符的目标库
+     */
+    private static final Set<DbType> NUL_CHAR_REJECTED = EnumSet.of(DbType.POSTGRESQL, DbType.KING_BASE_V8, DbType.VAST_BASE);
+
+    private static final String DATA_EXCEPTION_CLASS = "22";
+
+    private static final String INTEGRITY_VIOLATION_CLASS = "23";
+
 
     public AbstractDdlProvider(DbConfig config, DatabaseMetaData databaseMetaData, CaseType caseType) {
         this.config = config;
@@ -90,6 +154,307 @@ public abstract class AbstractDdlProvider implements DdlProvider {
     }
 
 
+    /**
+     * 比较来源表与目标表结构生成变更脚本：先删除目标表多余的索引，再新增、修改（及按需删除）列，最后创建缺少的索引；
+     * 索引按列组合匹配，主键索引及{@link #ignoredIndex(IndexInfo)}忽略的索引不参与比较
+     *
+     * @param sourceConfig 源数据源配置
+     * @param targetConfig 目标数据源配置
+     * @param fromTable    来源表对象
+     * @param toTable      目标表对象
+     * @param dropColumns  是否删除目标表中来源表不存在的列
+     * @return 变更脚本列表，结构一致时为空
+     */
+    @Override
+    public List<String> buildAlterDdl(DbConfig sourceConfig, DbConfig targetConfig, @NonNull Table fromTable, @NonNull Table toTable, boolean dropColumns) {
+        List<String> ddlList = new ArrayList<>(16);
+        //目标表的主键索引名由数据库生成，两侧主键列的索引均不参与比较
+        List<List<String>> pkColumnsList = ListUtil.toList(this.getPkColumns(fromTable), this.getPkColumns(toTable));
+        List<IndexInfo> fromIndexList = this.getComparableIndexList(fromTable, pkColumnsList);
+        List<IndexInfo> toIndexList = this.getComparableIndexList(toTable, pkColumnsList);
+        for (IndexInfo toIndex : toIndexList) {
+            if (fromIndexList.stream().noneMatch(t -> this.isSameIndex(t, toIndex))) {
+                ddlList.add(this.buildIndexSql(targetConfig, toTable, toIndex, ActionType.DELETE));
+            }
+        }
+        for (Column fromColumn : fromTable.getColumns()) {
+            Column toColumn = this.findColumn(toTable, fromColumn.getName());
+            if (ObjectUtil.isNull(toColumn)) {
+                CollectionUtil.addAll(ddlList, this.buildAddColumnDdl(targetConfig, fromTable, fromColumn));
+            } else if (this.isColumnChanged(fromColumn, toColumn)) {
+                CollectionUtil.addAll(ddlList, this.buildModifyColumnDdl(targetConfig, fromTable, fromColumn, toColumn));
+            }
+        }
+        if (dropColumns) {
+            for (Column toColumn : toTable.getColumns()) {
+                if (ObjectUtil.isNull(this.findColumn(fromTable, toColumn.getName()))) {
+                    CollectionUtil.addAll(ddlList, this.buildDropColumnDdl(targetConfig, fromTable, toColumn));
+                }
+            }
+        }
+        for (IndexInfo fromIndex : fromIndexList) {
+            if (toIndexList.stream().noneMatch(t -> this.isSameIndex(fromIndex, t))) {
+                ddlList.add(this.buildIndexSql(targetConfig, fromTable, fromIndex, ActionType.CREATE));
+            }
+        }
+        return ddlList.stream().filter(CharSequenceUtil::isNotBlank).collect(Collectors.toList());
+    }
+
+    /**
+     * 列是否需要修改，按目标方言映射后的类型、可空性及默认值比较
+     *
+     * @param fromColumn 来源列
+     * @param toColumn   目标列
+     * @return 是否需要修改
+     */
+    public boolean isColumnChanged(@NonNull Column fromColumn, @NonNull Column toColumn) {
+        return this.isColumnTypeChanged(fromColumn, toColumn)
+                || fromColumn.isNullable() != toColumn.isNullable()
+                || this.isColumnDefaultChanged(fromColumn, toColumn);
+    }
+
+    /**
+     * 列类型是否变化：来源列经{@link #handleColumnType(Column)}映射为目标类型，目标列按{@link #getActualColumnType(Column)}由自身元数据还原，
+     * 两侧经{@link #normalizeColumnType(String)}统一写法后比较；映射后的类型未声明长度或精度时仅比较类型名
+     *
+     * @param fromColumn 来源列
+     * @param toColumn   目标列
+     * @return 类型是否变化
+     */
+    public boolean isColumnTypeChanged(@NonNull Column fromColumn, @NonNull Column toColumn) {
+        String fromType = this.normalizeColumnType(this.handleColumnType(fromColumn));
+        String toType = this.normalizeColumnType(this.getActualColumnType(toColumn));
+        if (!CharSequenceUtil.contains(fromType, '(')) {
+            toType = CharSequenceUtil.subBefore(toType, "(", false);
+        }
+        return !ObjectUtil.equals(fromType, toType);
+    }
+
+    /**
+     * 按目标列自身的元数据（类型名、长度、精度）还原类型DDL，不经过类型映射
+     *
+     * @param column 目标列
+     * @return 类型DDL
+     */
+    protected String getActualColumnType(@NonNull Column column) {
+        String typeName = CharSequenceUtil.trim(column.getTypeName());
+        if (CharSequenceUtil.contains(typeName, '(')) {
+            return typeName;
+        }
+        JdbcType jdbcType = column.getTypeEnum();
+        if (ObjectUtil.isNull(jdbcType)) {
+            return typeName;
+        }
+        Integer digit = column.getDigit();
+        switch (jdbcType) {
+            case CHAR:
+            case VARCHAR:
+            case NCHAR:
+            case NVARCHAR:
+            case BINARY:
+            case VARBINARY:
+            case FLOAT:
+                //不限长度的类型（如text、bytea）元数据返回最大整数
+                return column.getSize() > 0 && column.getSize() < Integer.MAX_VALUE ? typeName + "(" + column.getSize() + ")" : typeName;
+            case DECIMAL:
+            case NUMERIC:
+                return column.getSize() > 0 ? typeName + "(" + column.getSize() + "," + ObjectUtil.defaultIfNull(digit, 0) + ")" : typeName;
+            case TIME:
+            case TIMESTAMP:
+            case TIME_WITH_TIMEZONE:
+            case TIMESTAMP_WITH_TIMEZONE:
+            case DATETIMEOFFSET:
+                return ObjectUtil.isNotNull(digit) && digit > 0 ? typeName + "(" + digit + ")" : typeName;
+            default:
+                return typeName;
+        }
+    }
+
+    /**
+     * 统一类型写法用于比较：忽略空白及大小写，按{@link #getColumnTypeAliases()}替换别名，整数类型忽略显示宽度
+     *
+     * @param columnType 类型DDL
+     * @return 统一后的类型
+     */
+    public String normalizeColumnType(String columnType) {
+        if (CharSequenceUtil.isBlank(columnType)) {
+            return "";
+        }
+        String type = this.removeBlank(columnType).toUpperCase();
+        String baseType = CharSequenceUtil.subBefore(type, "(", false);
+        String suffix = CharSequenceUtil.removePrefix(type, baseType);
+        baseType = this.getColumnTypeAliases().getOrDefault(baseType, baseType);
+        return INTEGER_TYPES.contains(baseType) ? baseType : baseType + suffix;
+    }
+
+    /**
+     * 获取目标库元数据返回的类型别名（去除空白后大写），默认为空
+     *
+     * @return 别名到标准类型名的映射
+     */
+    protected Map<String, String> getColumnTypeAliases() {
+        return MapUtil.empty();
+    }
+
+    /**
+     * 列默认值是否变化，忽略引号、括号、类型转换及大小写
+     *
+     * @param fromColumn 来源列
+     * @param toColumn   目标列
+     * @return 默认值是否变化
+     */
+    public boolean isColumnDefaultChanged(@NonNull Column fromColumn, @NonNull Column toColumn) {
+        return !CharSequenceUtil.equalsIgnoreCase(this.normalizeDefaultValue(this.getColumnDefaultValue(fromColumn)), this.normalizeDefaultValue(toColumn.getColumnDef()));
+    }
+
+    /**
+     * 创建新增列DDL，外部注释的方言同时生成列注释
+     *
+     * @param targetConfig 目标数据源配置
+     * @param table        来源表对象
+     * @param column       来源列
+     * @return 脚本列表
+     */
+    public List<String> buildAddColumnDdl(DbConfig targetConfig, Table table, Column column) {
+        List<String> ddlList = ListUtil.toList(CharSequenceUtil.format(ADD_COLUMN_TEMPLATE, this.getTableName(targetConfig, table), this.buildColumnDdl(column)));
+        if (ObjectUtil.equals(CommentType.EXTERNAL, this.getCommentType())) {
+            String comment = this.buildColumnComment(column);
+            if (CharSequenceUtil.isNotBlank(comment)) {
+                ddlList.add(comment);
+            }
+        }
+        return ddlList;
+    }
+
+    /**
+     * 创建修改列DDL，默认按PostgreSQL语法分别修改类型、可空性及默认值
+     *
+     * @param targetConfig 目标数据源配置
+     * @param table        来源表对象
+     * @param fromColumn   来源列
+     * @param toColumn     目标列
+     * @return 脚本列表
+     */
+    public List<String> buildModifyColumnDdl(DbConfig targetConfig, Table table, Column fromColumn, Column toColumn) {
+        String tableName = this.getTableName(targetConfig, table);
+        String columnName = this.wrapName(fromColumn.getName());
+        List<String> ddlList = new ArrayList<>(3);
+        if (this.isColumnTypeChanged(fromColumn, toColumn)) {
+            ddlList.add(CharSequenceUtil.format(ALTER_COLUMN_TYPE_TEMPLATE, tableName, columnName, this.handleColumnType(fromColumn)));
+        }
+        if (fromColumn.isNullable() != toColumn.isNullable()) {
+            ddlList.add(CharSequenceUtil.format(ALTER_COLUMN_NULLABLE_TEMPLATE, tableName, columnName, fromColumn.isNullable() ? "DROP" : "SET"));
+        }
+        if (this.isColumnDefaultChanged(fromColumn, toColumn)) {
+            String defaultValue = this.getColumnDefaultValue(fromColumn);
+            ddlList.add(CharSequenceUtil.isBlank(defaultValue) ? CharSequenceUtil.format(DROP_COLUMN_DEFAULT_TEMPLATE, tableName, columnName)
+                    : CharSequenceUtil.format(ALTER_COLUMN_DEFAULT_TEMPLATE, tableName, columnName, defaultValue));
+        }
+        return ddlList;
+    }
+
+    /**
+     * 创建删除列DDL
+     *
+     * @param targetConfig 目标数据源配置
+     * @param table        来源表对象
+     * @param column       目标列
+     * @return 脚本列表
+     */
+    public List<String> buildDropColumnDdl(DbConfig targetConfig, Table table, Column column) {
+        return ListUtil.toList(CharSequenceUtil.format(DROP_COLUMN_TEMPLATE, this.getTableName(targetConfig, table), this.wrapName(column.getName())));
+    }
+
+    /**
+     * 创建外键约束DDL，仅保留各目标库均支持的{@code ON DELETE CASCADE}及{@code ON DELETE SET NULL}规则
+     *
+     * @param targetConfig 目标数据源配置
+     * @param foreignKey   外键对象
+     * @param actionType   脚本动作类型
+     * @return 脚本列表
+     */
+    @Override
+    public List<String> buildForeignKeyDdl(DbConfig targetConfig, @NonNull ForeignKey foreignKey, @NonNull ActionType actionType) {
+        String tableName = this.getTableName(targetConfig, Table.create(foreignKey.getTableName()));
+        switch (actionType) {
+            case CREATE:
+                return ListUtil.toList(CharSequenceUtil.format(ADD_FOREIGN_KEY_TEMPLATE, tableName, this.getForeignKeyName(targetConfig, foreignKey),
+                        foreignKey.getColumns().stream().map(this::wrapName).collect(Collectors.joining(SEPARATOR)),
+                        this.getTableName(targetConfig, Table.create(foreignKey.getReferencedTableName())),
+                        foreignKey.getReferencedColumns().stream().map(this::wrapName).collect(Collectors.joining(SEPARATOR)),
+                        this.getForeignKeyRule(foreignKey)));
+            case DELETE:
+                return ListUtil.toList(CharSequenceUtil.format(DROP_CONSTRAINT_TEMPLATE, tableName, this.wrapName(foreignKey.getName())));
+            default:
+                return ListUtil.empty();
+        }
+    }
+
+    /**
+     * 获取创建时使用的外键约束名
+     *
+     * @param targetConfig 目标数据源配置
+     * @param foreignKey   外键对象
+     * @return 约束名
+     */
+    public String getForeignKeyName(DbConfig targetConfig, ForeignKey foreignKey) {
+        return this.wrapName(foreignKey.getName());
+    }
+
+    /**
+     * 获取外键删除规则
+     *
+     * @param foreignKey 外键对象
+     * @return 规则子句，无需指定时为空字符串
+     */
+    protected String getForeignKeyRule(ForeignKey foreignKey) {
+        switch (foreignKey.getDeleteRule()) {
+            case DatabaseMetaData.importedKeyCascade:
+                return " ON DELETE CASCADE";
+            case DatabaseMetaData.importedKeySetNull:
+                return " ON DELETE SET NULL";
+            default:
+                return "";
+        }
+    }
+
+    /**
+     * 创建禁用触发器及非主键约束的脚本，默认不支持
+     *
+     * @param targetConfig 目标数据源配置
+     * @param table        目标表对象
+     * @return 脚本列表
+     */
+    @Override
+    public List<String> buildDisableConstraintDdl(DbConfig targetConfig, Table table) {
+        return ListUtil.empty();
+    }
+
+    /**
+     * 创建重新启用触发器及约束的脚本，默认不支持
+     *
+     * @param targetConfig 目标数据源配置
+     * @param table        目标表对象
+     * @param validate     是否校验已有数据
+     * @return 脚本列表
+     */
+    @Override
+    public List<String> buildEnableConstraintDdl(DbConfig targetConfig, Table table, boolean validate) {
+        return ListUtil.empty();
+    }
+
+    /**
+     * 创建校验未校验约束的脚本，默认不支持
+     *
+     * @param targetConfig 目标数据源配置
+     * @param table        目标表对象
+     * @return 脚本列表
+     */
+    @Override
+    public List<String> buildValidateConstraintDdl(DbConfig targetConfig, Table table) {
+        return ListUtil.empty();
+    }
+
     /**
      * 包装字段
      *
@@ -124,6 +489,96 @@ public abstract class AbstractDdlProvider implements DdlProvider {
         }
     }
 
+    /**
+     * 获取列值转换器，每张表同步前按列解析一次
+     *
+     * @param fromColumn 来源列
+     * @param toColumn   目标列
+     * @return 列值转换器，无需转换时返回{@code null}
+     */
+    @Override
+    public ValueConverter getValueConverter(Column fromColumn, Column toColumn) {
+        return ValueConverter.chain(this.buildValueConverters(fromColumn, toColumn));
+    }
+
+    /**
+     * 创建列值转换器链，在写入前修正目标库不接受的值
+     *
+     * @param fromColumn 来源列
+     * @param toColumn   目标列
+     * @return 列值转换器链
+     */
+    public List<ValueConverter> buildValueConverters(@NonNull Column fromColumn, @NonNull Column toColumn) {
+        List<ValueConverter> converters = new ArrayList<>(4);
+        //厂商自定义类型编码（如oracle BINARY_DOUBLE）没有对应的JdbcType
+        JdbcType fromType = ObjectUtil.defaultIfNull(fromColumn.getTypeEnum(), JdbcType.OTHER);
+        switch (fromType) {
+            case BIT:
+            case BOOLEAN:
+            case TINYINT:
+                if (this.isNumericType(toColumn)) {
+                    converters.add(BOOLEAN_TO_NUMBER);
+                }
+                break;
+            default:
+                break;
+        }
+        if (NUL_CHAR_REJECTED.contains(this.getConfig().getDbType()) && this.isCharacterType(toColumn)) {
+            converters.add(REMOVE_NUL_CHAR);
+        }
+        return converters;
+    }
+
+    /**
+     * 是否为数值类型
+     *
+     * @param column 列对象
+     * @return 是否为数值类型
+     */
+    protected boolean isNumericType(@NonNull Column column) {
+        JdbcType jdbcType = column.getTypeEnum();
+        if (ObjectUtil.isNull(jdbcType)) {
+            return false;
+        }
+        switch (jdbcType) {
+            case TINYINT:
+            case SMALLINT:
+            case INTEGER:
+            case BIGINT:
+            case DECIMAL:
+            case NUMERIC:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * 是否为字符类型
+     *
+     * @param column 列对象
+     * @return 是否为字符类型
+     */
+    protected boolean isCharacterType(@NonNull Column column) {
+        JdbcType jdbcType = column.getTypeEnum();
+        if (ObjectUtil.isNull(jdbcType)) {
+            return false;
+        }
+        switch (jdbcType) {
+            case CHAR:
+            case VARCHAR:
+            case NCHAR:
+            case NVARCHAR:
+            case LONGVARCHAR:
+            case LONGNVARCHAR:
+            case CLOB:
+            case NCLOB:
+                return true;
+            default:
+                return false;
+        }
+    }
+
     /**
      * 获取索引模版DDL
      *
@@ -352,6 +807,17 @@ public abstract class AbstractDdlProvider implements DdlProvider {
         return ListUtil.empty();
     }
 
+    /**
+     * 合并DDL语句，默认不合并
+     *
+     * @param ddlList ddl脚本列表
+     * @return 合并后的脚本列表
+     */
+    @Override
+    public List<String> bundleDdl(List<String> ddlList) {
+        return ddlList;
+    }
+
     /**
      * 处理SQL异常
      *
@@ -364,6 +830,62 @@ public abstract class AbstractDdlProvider implements DdlProvider {
         return false;
     }
 
+    /**
+     * 是否为行数据导致的写入错误：SQLState为22（数据异常）、23（违反完整性约束）类，或为方言的数据错误码
+     *
+     * @param e SQL异常
+     * @return 是否为数据错误
+     */
+    @Override
+    public boolean isDataError(SQLException e) {
+        String sqlState = CharSequenceUtil.nullToEmpty(e.getSQLState());
+        return CharSequenceUtil.startWithAny(sqlState, DATA_EXCEPTION_CLASS, INTEGRITY_VIOLATION_CLASS) || this.getDataErrorCodes().contains(e.getErrorCode());
+    }
+
+    /**
+     * 获取SQLState不属于22、23类的数据错误码
+     *
+     * @return 厂商错误码
+     */
+    protected Set<Integer> getDataErrorCodes() {
+        return Collections.emptySet();
+    }
+
+    /**
+     * 按长度分组拼接DDL语句；单条语句加上前后缀后仍超过最大长度时不再包装，按原语句单独执行
+     *
+     * @param ddlList   ddl脚本列表
+     * @param maxLength 每组最大长度
+     * @param prefix    每组前缀
+     * @param suffix    每组后缀
+     * @param formatter 单条语句格式化
+     * @return 拼接后的脚本列表
+     */
+    protected List<String> joinDdl(List<String> ddlList, int maxLength, String prefix, String suffix, UnaryOperator<String> formatter) {
+        if (ObjectUtil.isEmpty(ddlList) || ddlList.size() == 1) {
+            return ddlList;
+        }
+        List<String> result = new ArrayList<>(4);
+        StringBuilder builder = new StringBuilder(prefix);
+        for (String ddl : ddlList) {
+            String statement = formatter.apply(ddl);
+            boolean oversized = prefix.length() + statement.length() + suffix.length() > maxLength;
+            if (builder.length() > prefix.length() && (oversized || builder.length() + statement.length() + suffix.length() > maxLength)) {
+                result.add(builder.append(suffix).toString());
+                builder = new StringBuilder(prefix);
+            }
+            if (oversized) {
+                result.add(ddl);
+                continue;
+            }
+            builder.append(statement);
+        }
+        if (builder.length() > prefix.length()) {
+            result.add(builder.append(suffix).toString());
+        }
+        return result;
+    }
+
     /**
      * 使用schema名称包装name
      *
@@ -378,6 +900,52 @@ public abstract class AbstractDdlProvider implements DdlProvider {
     }
 
 
+    /**
+     * 获取参与结构比较的索引，排除主键索引及忽略的索引
+     */
+    private List<IndexInfo> getComparableIndexList(Table table, List<List<String>> pkColumnsList) {
+        if (ObjectUtil.isEmpty(table.getIndexInfoList())) {
+            return ListUtil.empty();
+        }
+        return table.getIndexInfoList().stream()
+                .filter(t -> ObjectUtil.isNotEmpty(t.getColumnIndexInfoList()) && !this.ignoredIndex(t))
+                .filter(t -> !pkColumnsList.contains(this.getIndexColumns(t).stream().sorted().collect(Collectors.toList())))
+                .collect(Collectors.toList());
+    }
+
+    private List<String> getPkColumns(Table table) {
+        if (ObjectUtil.isEmpty(table.getPkNames())) {
+            return ListUtil.empty();
+        }
+        return table.getPkNames().stream().map(t -> this.removeBlank(t).toLowerCase()).sorted().collect(Collectors.toList());
+    }
+
+    private boolean isSameIndex(IndexInfo fromIndex, IndexInfo toIndex) {
+        return this.getIndexColumns(fromIndex).equals(this.getIndexColumns(toIndex));
+    }
+
+    private List<String> getIndexColumns(IndexInfo indexInfo) {
+        return indexInfo.getColumnIndexInfoList().stream()
+                .map(t -> this.removeBlank(t.getColumnName()).toLowerCase())
+                .collect(Collectors.toList());
+    }
+
+    private Column findColumn(Table table, String columnName) {
+        return table.getColumns().stream()
+                .filter(t -> CharSequenceUtil.equalsIgnoreCase(this.removeBlank(t.getName()), this.removeBlank(columnName)))
+                .findFirst()
+                .orElse(null);
+    }
+
+    private String normalizeDefaultValue(String defaultValue) {
+        if (CharSequenceUtil.isBlank(defaultValue)) {
+            return "";
+        }
+        String value = ReUtil.replaceAll(defaultValue.trim(), DEFAULT_VALUE_CAST, "");
+        value = CharSequenceUtil.removeAll(value, '\'', '(', ')', ' ').toLowerCase();
+        return "null".equals(value) ? "" : value;
+    }
+
     private List<String> buildDdlWithCreateAction(DbConfig sourceConfig, DbConfig targetConfig, @NonNull Table ddlTable) {
         List<String> ddlList = ListUtil.toList(this.buildStructureDdl(sourceConfig, targetConfig, ddlTable, ActionType.CREATE));
         List<String> indexDdlList = this.buildIndexDdl(targetConfig, ddlTable, ActionType.CREATE);
@@ -0,0 +1,135 @@
+package com.haosmart.mysqltoall.ddl;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.io.IoUtil;
+import cn.hutool.core.util.ClassUtil;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.util.Properties;
+
+/**
+ * 目标库版本信息，可从在线库采集后保存为文件，离线生成DDL时代替真实连接的{@link DatabaseMetaData}
+ *
+ * @author fujunhao
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DatabaseVersionProfile {
+
+    private final static String PRODUCT_NAME = "productName";
+
+    private final static String PRODUCT_VERSION = "productVersion";
+
+    private final static String MAJOR_VERSION = "majorVersion";
+
+    private final static String MINOR_VERSION = "minorVersion";
+
+    private String productName;
+
+    private String productVersion;
+
+    private int majorVersion;
+
+    private int minorVersion;
+
+    /**
+     * 按主次版本号创建
+     *
+     * @param majorVersion 主版本号
+     * @param minorVersion 次版本号
+     * @return 版本信息
+     */
+    public static DatabaseVersionProfile of(int majorVersion, int minorVersion) {
+        return new DatabaseVersionProfile(null, majorVersion + "." + minorVersion, majorVersion, minorVersion);
+    }
+
+    /**
+     * 从在线库的元数据采集
+     *
+     * @param metaData 数据库元数据
+     * @return 版本信息
+     */
+    public static DatabaseVersionProfile capture(DatabaseMetaData metaData) throws SQLException {
+        return new DatabaseVersionProfile(metaData.getDatabaseProductName(), metaData.getDatabaseProductVersion(),
+                metaData.getDatabaseMajorVersion(), metaData.getDatabaseMinorVersion());
+    }
+
+    /**
+     * 从属性文件读取
+     *
+     * @param path 文件路径
+     * @return 版本信息
+     */
+    public static DatabaseVersionProfile load(String path) {
+        Properties properties = new Properties();
+        try (Reader reader = FileUtil.getReader(path, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        } catch (Exception e) {
+            throw new IllegalArgumentException("读取版本信息文件失败:" + path, e);
+        }
+        return new DatabaseVersionProfile(properties.getProperty(PRODUCT_NAME), properties.getProperty(PRODUCT_VERSION),
+                Integer.parseInt(properties.getProperty(MAJOR_VERSION, "0")), Integer.parseInt(properties.getProperty(MINOR_VERSION, "0")));
+    }
+
+    /**
+     * 保存为属性文件
+     *
+     * @param path 文件路径
+     */
+    public void store(String path) {
+        Properties properties = new Properties();
+        if (this.productName != null) {
+            properties.setProperty(PRODUCT_NAME, this.productName);
+        }
+        if (this.productVersion != null) {
+            properties.setProperty(PRODUCT_VERSION, this.productVersion);
+        }
+        properties.setProperty(MAJOR_VERSION, String.valueOf(this.majorVersion));
+        properties.setProperty(MINOR_VERSION, String.valueOf(this.minorVersion));
+        Writer writer = FileUtil.getWriter(path, StandardCharsets.UTF_8, false);
+        try {
+            properties.store(writer, null);
+        } catch (Exception e) {
+            throw new IllegalArgumentException("保存版本信息文件失败:" + path, e);
+        } finally {
+            IoUtil.close(writer);
+        }
+    }
+
+    /**
+     * 创建仅提供版本信息的元数据，其余方法返回{@code null}或基本类型默认值
+     *
+     * @return 数据库元数据
+     */
+    public DatabaseMetaData toMetaData() {
+        return (DatabaseMetaData) Proxy.newProxyInstance(DatabaseMetaData.class.getClassLoader(), new Class[]{DatabaseMetaData.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getDatabaseProductName":
+                    return this.productName;
+                case "getDatabaseProductVersion":
+                    return this.productVersion;
+                case "getDatabaseMajorVersion":
+                    return this.majorVersion;
+                case "getDatabaseMinorVersion":
+                    return this.minorVersion;
+                case "toString":
+                    return this.toString();
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                default:
+                    return ClassUtil.getDefaultValue(method.getReturnType());
+            }
+        });
+    }
+}
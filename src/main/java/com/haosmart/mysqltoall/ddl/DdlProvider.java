@@ -1,9 +1,13 @@
 package com.haosmart.mysqltoall.ddl;
 
+import cn.hutool.db.meta.Column;
 import cn.hutool.db.meta.Table;
 import com.haosmart.mysqltoall.config.DbConfig;
+import com.haosmart.mysqltoall.entity.ForeignKey;
 import com.haosmart.mysqltoall.enumration.ActionType;
+import com.haosmart.mysqltoall.transfer.ValueConverter;
 
+import java.sql.SQLException;
 import java.util.List;
 
 
@@ -26,6 +30,64 @@ public interface DdlProvider {
      */
     List<String> buildDdl(DbConfig sourceConfig, DbConfig targetConfig, Table ddlTable, ActionType actionType);
 
+    /**
+     * 比较来源表与目标表结构，生成使目标表与来源表一致所需的变更脚本
+     *
+     * @param sourceConfig 源数据源配置
+     * @param targetConfig 目标数据源配置
+     * @param fromTable    来源表对象
+     * @param toTable      目标表对象
+     * @param dropColumns  是否删除目标表中来源表不存在的列
+     * @return 变更脚本列表，结构一致时为空
+     */
+    List<String> buildAlterDdl(DbConfig sourceConfig, DbConfig targetConfig, Table fromTable, Table toTable, boolean dropColumns);
+
+    /**
+     * 创建外键约束脚本
+     *
+     * @param targetConfig 目标数据源配置
+     * @param foreignKey   外键对象
+     * @param actionType   脚本动作类型，仅支持创建及删除
+     * @return 脚本列表
+     */
+    List<String> buildForeignKeyDdl(DbConfig targetConfig, ForeignKey foreignKey, ActionType actionType);
+
+    /**
+     * 创建批量写入前禁用目标表触发器及非主键约束的脚本
+     *
+     * @param targetConfig 目标数据源配置
+     * @param table        目标表对象
+     * @return 脚本列表，方言不支持时为空
+     */
+    List<String> buildDisableConstraintDdl(DbConfig targetConfig, Table table);
+
+    /**
+     * 创建批量写入后重新启用目标表触发器及约束的脚本
+     *
+     * @param targetConfig 目标数据源配置
+     * @param table        目标表对象
+     * @param validate     是否校验已有数据，否则仅对之后写入的数据生效
+     * @return 脚本列表，方言不支持时为空
+     */
+    List<String> buildEnableConstraintDdl(DbConfig targetConfig, Table table, boolean validate);
+
+    /**
+     * 创建校验未校验约束的脚本，用于不校验启用后的补充校验
+     *
+     * @param targetConfig 目标数据源配置
+     * @param table        目标表对象
+     * @return 脚本列表，方言不支持时为空
+     */
+    List<String> buildValidateConstraintDdl(DbConfig targetConfig, Table table);
+
+    /**
+     * 合并同一张表的DDL语句以减少执行时的往返次数，单条语句失败时的容错行为应与逐条执行一致
+     *
+     * @param ddlList ddl脚本列表
+     * @return 合并后的脚本列表
+     */
+    List<String> bundleDdl(List<String> ddlList);
+
     /**
      * 包装字段
      *
@@ -35,6 +97,16 @@ public interface DdlProvider {
     String wrapName(String name);
 
 
+    /**
+     * 获取列值转换器，每张表同步前按列解析一次
+     *
+     * @param fromColumn 来源列
+     * @param toColumn   目标列
+     * @return 列值转换器，无需转换时返回{@code null}
+     */
+    ValueConverter getValueConverter(Column fromColumn, Column toColumn);
+
+
 
     /**
      * 处理SQL异常
@@ -44,4 +116,12 @@ public interface DdlProvider {
      * @return 是否已处理
      */
     boolean handleThrowable(Throwable e, String tableName);
+
+    /**
+     * 是否为行数据导致的写入错误（约束冲突、数据超长、类型转换失败等），此类错误可通过二分定位问题行；连接、语法等错误返回{@code false}
+     *
+     * @param e SQL异常
+     * @return 是否为数据错误
+     */
+    boolean isDataError(SQLException e);
 }
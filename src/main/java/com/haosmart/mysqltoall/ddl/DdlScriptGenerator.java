@@ -0,0 +1,168 @@
+package com.haosmart.mysqltoall.ddl;
+
+import cn.hutool.core.collection.ListUtil;
+import cn.hutool.core.exceptions.ExceptionUtil;
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.text.CharSequenceUtil;
+import cn.hutool.core.thread.NamedThreadFactory;
+import cn.hutool.core.util.ObjectUtil;
+import cn.hutool.db.meta.MetaUtil;
+import cn.hutool.db.meta.Table;
+import com.haosmart.mysqltoall.DataSourceProvider;
+import com.haosmart.mysqltoall.config.DbConfig;
+import com.haosmart.mysqltoall.enumration.ActionType;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+/**
+ * 离线DDL脚本生成器，来源表结构只读取一次，按目标方言并行生成建表语句，并按表顺序写入脚本文件，无需连接目标库
+ *
+ * @author fujunhao
+ */
+@Slf4j
+public class DdlScriptGenerator {
+
+    private final static String HEADER = "-- mysqlToAll DDL script, target:{} version:{} tables:{}";
+
+    private final static String TABLE_HEADER = "-- Table: {}";
+
+    private final static String STATEMENT_DELIMITER = ";";
+
+    private final DataSourceProvider sourceProvider;
+
+    private final int parallelism;
+
+    public DdlScriptGenerator(DataSourceProvider sourceProvider, int parallelism) {
+        this.sourceProvider = sourceProvider;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * 并行读取来源表结构，结果与来源库表清单顺序一致
+     *
+     * @param tableNames 表名过滤，为空时读取全部表
+     * @return 表对象列表
+     */
+    public List<Table> readTables(String... tableNames) {
+        List<String> tableList = MetaUtil.getTables(this.sourceProvider.getDataSource());
+        if (ObjectUtil.isEmpty(tableList)) {
+            return ListUtil.empty();
+        }
+        if (ObjectUtil.isNotEmpty(tableNames)) {
+            tableList = tableList.stream().filter(t -> CharSequenceUtil.containsAny(t, tableNames)).collect(Collectors.toList());
+        }
+        ExecutorService executor = this.newExecutor("ddl-script-meta-");
+        try {
+            List<CompletableFuture<Table>> futures = tableList.stream()
+                    .map(t -> CompletableFuture.supplyAsync(() -> this.readTable(t), executor))
+                    .collect(Collectors.toList());
+            return futures.stream().map(CompletableFuture::join).filter(Objects::nonNull).collect(Collectors.toList());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 按版本信息构建目标方言并生成脚本
+     *
+     * @param tables       来源表对象列表
+     * @param targetConfig 目标数据源配置，仅使用方言、模式名等配置，不会建立连接
+     * @param profile      目标库版本信息
+     * @param path         脚本文件路径
+     * @return 生成的语句数
+     */
+    public int generate(List<Table> tables, @NonNull DbConfig targetConfig, @NonNull DatabaseVersionProfile profile, String path) throws SQLException, IOException {
+        DdlProvider ddlProvider = DdlProviderFactory.build(targetConfig, profile.toMetaData());
+        return this.generate(tables, targetConfig, ddlProvider, profile.getProductVersion(), path);
+    }
+
+    /**
+     * 并行生成建表语句，按表顺序写入脚本文件；先写临时文件再替换，生成失败时不会留下不完整的脚本
+     *
+     * @param tables       来源表对象列表
+     * @param targetConfig 目标数据源配置
+     * @param ddlProvider  目标方言DDL生成器
+     * @param version      目标库版本，仅用于脚本头部说明
+     * @param path         脚本文件路径
+     * @return 生成的语句数
+     */
+    public int generate(List<Table> tables, @NonNull DbConfig targetConfig, @NonNull DdlProvider ddlProvider, String version, String path) throws IOException {
+        DbConfig sourceConfig = this.sourceProvider.getConfig();
+        File file = FileUtil.file(path);
+        File temp = FileUtil.file(file.getAbsoluteFile().getParentFile(), file.getName() + ".tmp");
+        FileUtil.mkParentDirs(file);
+        int statementCount = 0;
+        ExecutorService executor = this.newExecutor("ddl-script-");
+        try (BufferedWriter writer = Files.newBufferedWriter(temp.toPath(), StandardCharsets.UTF_8)) {
+            List<CompletableFuture<List<String>>> futures = new ArrayList<>(tables.size());
+            for (Table table : tables) {
+                futures.add(CompletableFuture.supplyAsync(() -> ddlProvider.buildDdl(sourceConfig, targetConfig, table, ActionType.CREATE), executor));
+            }
+            writer.write(CharSequenceUtil.format(HEADER, targetConfig.getDbType(), CharSequenceUtil.nullToDefault(version, "unknown"), tables.size()));
+            writer.newLine();
+            //按表顺序等待，先完成的表在内存中等待写入
+            for (int i = 0; i < tables.size(); i++) {
+                List<String> ddlList = this.join(futures.get(i), tables.get(i).getTableName());
+                writer.newLine();
+                writer.write(CharSequenceUtil.format(TABLE_HEADER, tables.get(i).getTableName()));
+                writer.newLine();
+                for (String ddl : ddlList) {
+                    writer.write(ddl);
+                    writer.write(STATEMENT_DELIMITER);
+                    writer.newLine();
+                    statementCount++;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            FileUtil.del(temp);
+            throw e;
+        } finally {
+            executor.shutdownNow();
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        log.info("DDL script {} generated, target:{} tables:{} statements:{}", file, targetConfig.getDbType(), tables.size(), statementCount);
+        return statementCount;
+    }
+
+    private Table readTable(String tableName) {
+        try {
+            Table table = MetaUtil.getTableMeta(this.sourceProvider.getDataSource(), tableName);
+            if (ObjectUtil.isEmpty(table.getColumns())) {
+                table = MetaUtil.getTableMeta(this.sourceProvider.getDataSource(), tableName.toUpperCase());
+            }
+            return ObjectUtil.isEmpty(table.getColumns()) ? null : table;
+        } catch (Exception e) {
+            log.warn("Read table {} metadata failed: {}", tableName, e.getMessage());
+            return null;
+        }
+    }
+
+    private List<String> join(CompletableFuture<List<String>> future, String tableName) {
+        try {
+            return ObjectUtil.defaultIfNull(future.join(), ListUtil.empty());
+        } catch (CompletionException e) {
+            log.error("Table {} DDL build failed", tableName, e.getCause());
+            throw ExceptionUtil.wrapRuntime(e.getCause());
+        }
+    }
+
+    private ExecutorService newExecutor(String prefix) {
+        return Executors.newFixedThreadPool(this.parallelism, new NamedThreadFactory(prefix, true));
+    }
+}
@@ -4,6 +4,7 @@ import cn.hutool.core.collection.CollectionUtil;
 import cn.hutool.core.collection.ListUtil;
 import cn.hutool.core.lang.Pair;
 import cn.hutool.core.lang.Validator;
+import cn.hutool.core.map.MapUtil;
 import cn.hutool.core.text.CharSequenceUtil;
 import cn.hutool.core.util.ObjectUtil;
 import cn.hutool.core.util.RandomUtil;
@@ -14,9 +15,11 @@ import cn.hutool.db.meta.JdbcType;
 import cn.hutool.db.meta.Table;
 import com.haosmart.mysqltoall.config.DbConfig;
 import com.haosmart.mysqltoall.ddl.AbstractDdlProvider;
+import com.haosmart.mysqltoall.entity.ForeignKey;
 import com.haosmart.mysqltoall.enumration.ActionType;
 import com.haosmart.mysqltoall.enumration.CaseType;
 import com.haosmart.mysqltoall.enumration.CommentType;
+import com.haosmart.mysqltoall.transfer.ValueConverter;
 import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
 
@@ -25,6 +28,8 @@ import java.nio.charset.StandardCharsets;
 import java.sql.DatabaseMetaData;
 import java.sql.SQLException;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -50,8 +55,61 @@ public class OracleDdlProvider extends AbstractDdlProvider {
 
     private static final int MAX_NAME_LENGTH_STAND = 30;
 
+    private static final ValueConverter EMPTY_STRING_TO_BLANK = value -> "".equals(value) ? " " : value;
+
     private static final int MAX_NAME_LENGTH_EXTEND = 32767;
 
+    private static final String DDL_BLOCK_BEGIN = "BEGIN\n";
+
+    private static final String DDL_BLOCK_END = "END;";
+
+    private static final String DISABLE_TRIGGER = "ALTER TABLE {} DISABLE ALL TRIGGERS";
+
+    private static final String ENABLE_TRIGGER = "ALTER TABLE {} ENABLE ALL TRIGGERS";
+
+    /**
+     * 逐个修改表上的外键及具名检查约束，系统命名的检查约束（NOT NULL）不受影响
+     */
+    private static final String MODIFY_CONSTRAINT_BLOCK = "BEGIN FOR c IN (SELECT CONSTRAINT_NAME FROM ALL_CONSTRAINTS WHERE OWNER = {} AND TABLE_NAME = '{}' " +
+            "AND (CONSTRAINT_TYPE = 'R' OR (CONSTRAINT_TYPE = 'C' AND GENERATED = 'USER NAME')) AND {}) " +
+            "LOOP EXECUTE IMMEDIATE 'ALTER TABLE {} {} CONSTRAINT \"' || c.CONSTRAINT_NAME || '\"{}'; END LOOP; END;";
+
+    private static final String DDL_BLOCK_STATEMENT = "BEGIN EXECUTE IMMEDIATE '{}'; EXCEPTION WHEN OTHERS THEN IF SQLCODE NOT IN ({}) THEN RAISE; END IF; END;\n";
+
+    /**
+     * 合并执行时忽略的错误码，与{@link #handleThrowable(Throwable, String)}保持一致：ORA-01418 索引不存在
+     */
+    private static final String IGNORED_DDL_ERROR_CODES = "-1418";
+
+    private static final int DDL_BLOCK_MAX_LENGTH = 32000;
+
+    /**
+     * SQLState不属于22、23类的数据错误：ORA-01400/01407 非空列写入null、ORA-01438 数值超出精度、ORA-01722 无效数字、
+     * ORA-12899 字符超长、ORA-01840/01841/01843/01847/01858/01861 日期无效
+     */
+    private static final Set<Integer> DATA_ERROR_CODES = CollectionUtil.newHashSet(1400, 1407, 1438, 1722, 12899, 1840, 1841, 1843, 1847, 1858, 1861);
+
+    private static final String MODIFY_COLUMN_FORMATTER = "ALTER TABLE {} MODIFY ({})";
+
+    /**
+     * 类型DDL中附带的检查约束（JSON列）
+     */
+    private static final String TYPE_CHECK_CONSTRAINT = "(?i)\\s+CHECK\\s*\\(.*$";
+
+    /**
+     * 元数据返回的类型别名（去除空白后大写），DECIMAL、NUMERIC均存储为NUMBER
+     */
+    private static final Map<String, String> TYPE_ALIASES = MapUtil.<String, String>builder()
+            .put("DECIMAL", "NUMBER").put("NUMERIC", "NUMBER")
+            .build();
+
+    /**
+     * INTEGER存储为NUMBER(38,0)
+     */
+    private static final String INTEGER_TYPE = "INTEGER";
+
+    private static final String INTEGER_STORED_TYPE = "NUMBER(38,0)";
+
 
     private final boolean isExtendedMode;
 
@@ -126,6 +184,63 @@ public class OracleDdlProvider extends AbstractDdlProvider {
         return this.wrapNameWithSchema(ddlTable.getTableName());
     }
 
+    /**
+     * 禁用触发器及外键、具名检查约束
+     *
+     * @param targetConfig 目标数据源配置
+     * @param table        目标表对象
+     * @return 脚本列表
+     */
+    @Override
+    public List<String> buildDisableConstraintDdl(DbConfig targetConfig, Table table) {
+        return ListUtil.toList(CharSequenceUtil.format(DISABLE_TRIGGER, this.getTableName(targetConfig, table)),
+                this.buildModifyConstraintBlock(targetConfig, table, "STATUS = 'ENABLED'", "DISABLE", ""));
+    }
+
+    /**
+     * 重新启用触发器及已禁用的约束，不校验时使用{@code ENABLE NOVALIDATE}
+     *
+     * @param targetConfig 目标数据源配置
+     * @param table        目标表对象
+     * @param validate     是否校验已有数据
+     * @return 脚本列表
+     */
+    @Override
+    public List<String> buildEnableConstraintDdl(DbConfig targetConfig, Table table, boolean validate) {
+        return ListUtil.toList(this.buildModifyConstraintBlock(targetConfig, table, "STATUS = 'DISABLED'", validate ? "ENABLE VALIDATE" : "ENABLE NOVALIDATE", ""),
+                CharSequenceUtil.format(ENABLE_TRIGGER, this.getTableName(targetConfig, table)));
+    }
+
+    /**
+     * 校验已启用但未校验的约束
+     *
+     * @param targetConfig 目标数据源配置
+     * @param table        目标表对象
+     * @return 脚本列表
+     */
+    @Override
+    public List<String> buildValidateConstraintDdl(DbConfig targetConfig, Table table) {
+        return ListUtil.toList(this.buildModifyConstraintBlock(targetConfig, table, "STATUS = 'ENABLED' AND VALIDATED = 'NOT VALIDATED'", "MODIFY", " VALIDATE"));
+    }
+
+    /**
+     * 获取外键约束名，超过名称长度限制时截断并追加随机后缀
+     *
+     * @param targetConfig 目标数据源配置
+     * @param foreignKey   外键对象
+     * @return 约束名
+     */
+    @Override
+    public String getForeignKeyName(DbConfig targetConfig, ForeignKey foreignKey) {
+        String name = this.removeBlank(foreignKey.getName());
+        if (name.length() > this.getMaxStringLength()) {
+            String newName = name.substring(0, this.getMaxStringLength() - 3) + "_" + RandomUtil.randomString(2);
+            log.warn("Table[{}] foreign key[{}] name length was greater than {}, the name was replaced with {}", foreignKey.getTableName(), name, this.getMaxStringLength(), newName);
+            name = newName;
+        }
+        return this.wrapName(name);
+    }
+
     /**
      * 获取索引名
      *
@@ -242,6 +357,64 @@ public class OracleDdlProvider extends AbstractDdlProvider {
         return stringList;
     }
 
+    /**
+     * 创建修改列DDL，oracle修改为相同的可空性会报错（ORA-01442/ORA-01451），仅包含发生变化的部分
+     *
+     * @param targetConfig 目标数据源配置
+     * @param table        来源表对象
+     * @param fromColumn   来源列
+     * @param toColumn     目标列
+     * @return 脚本列表
+     */
+    @Override
+    public List<String> buildModifyColumnDdl(DbConfig targetConfig, Table table, Column fromColumn, Column toColumn) {
+        List<String> parts = ListUtil.toList(this.wrapName(fromColumn.getName()));
+        if (this.isColumnTypeChanged(fromColumn, toColumn)) {
+            parts.add(this.handleColumnType(fromColumn));
+        }
+        if (this.isColumnDefaultChanged(fromColumn, toColumn)) {
+            parts.add("DEFAULT " + CharSequenceUtil.blankToDefault(this.getColumnDefaultValue(fromColumn), "NULL"));
+        }
+        if (fromColumn.isNullable() != toColumn.isNullable()) {
+            parts.add(fromColumn.isNullable() ? "NULL" : "NOT NULL");
+        }
+        return ListUtil.toList(CharSequenceUtil.format(MODIFY_COLUMN_FORMATTER, this.getTableName(targetConfig, table), String.join(" ", parts)));
+    }
+
+    /**
+     * 统一类型写法用于比较，去除JSON列附带的检查约束，INTEGER按实际存储的NUMBER(38,0)比较
+     *
+     * @param columnType 类型DDL
+     * @return 统一后的类型
+     */
+    @Override
+    public String normalizeColumnType(String columnType) {
+        String type = super.normalizeColumnType(ReUtil.delFirst(TYPE_CHECK_CONSTRAINT, CharSequenceUtil.nullToEmpty(columnType)));
+        return INTEGER_TYPE.equals(type) ? INTEGER_STORED_TYPE : type;
+    }
+
+    @Override
+    protected Map<String, String> getColumnTypeAliases() {
+        return TYPE_ALIASES;
+    }
+
+    /**
+     * 将同一张表的DDL合并为匿名块，每条语句通过EXECUTE IMMEDIATE执行并单独捕获异常，可忽略的错误不会中断后续语句
+     *
+     * @param ddlList ddl脚本列表
+     * @return 合并后的脚本列表
+     */
+    @Override
+    public List<String> bundleDdl(List<String> ddlList) {
+        return this.joinDdl(ddlList, DDL_BLOCK_MAX_LENGTH, DDL_BLOCK_BEGIN, DDL_BLOCK_END,
+                t -> CharSequenceUtil.format(DDL_BLOCK_STATEMENT, t.replace("'", "''"), IGNORED_DDL_ERROR_CODES));
+    }
+
+    @Override
+    protected Set<Integer> getDataErrorCodes() {
+        return DATA_ERROR_CODES;
+    }
+
     /**
      * 处理SQL异常
      *
@@ -261,6 +434,23 @@ public class OracleDdlProvider extends AbstractDdlProvider {
     }
 
 
+    /**
+     * 创建列值转换器链，oracle将空字符串视为null，非空列写入空字符串时替换为空格
+     *
+     * @param fromColumn 来源列
+     * @param toColumn   目标列
+     * @return 列值转换器链
+     */
+    @Override
+    public List<ValueConverter> buildValueConverters(@NonNull Column fromColumn, @NonNull Column toColumn) {
+        List<ValueConverter> converters = super.buildValueConverters(fromColumn, toColumn);
+        if (!toColumn.isNullable() && this.isCharacterType(toColumn)) {
+            converters.add(EMPTY_STRING_TO_BLANK);
+        }
+        return converters;
+    }
+
+
     private List<String> createSearchJsonIndex(@NonNull Table table) {
         if (ObjectUtil.isEmpty(table.getColumns())) {
             return ListUtil.empty();
@@ -279,6 +469,13 @@ public class OracleDdlProvider extends AbstractDdlProvider {
                 .collect(Collectors.toList());
     }
 
+    private String buildModifyConstraintBlock(DbConfig targetConfig, Table table, String condition, String action, String suffix) {
+        String owner = CharSequenceUtil.isNotBlank(this.getConfig().getSchemaName())
+                ? "'" + CharSequenceUtil.unWrap(this.wrapName(this.getConfig().getSchemaName()), '"') + "'" : "USER";
+        String tableName = CharSequenceUtil.unWrap(this.wrapName(table.getTableName()), '"');
+        return CharSequenceUtil.format(MODIFY_CONSTRAINT_BLOCK, owner, tableName, condition, this.getTableName(targetConfig, table), action, suffix);
+    }
+
     private String createPrimaryKey(Table table) {
         if (ObjectUtil.isEmpty(table.getPkNames())) {
             return "";
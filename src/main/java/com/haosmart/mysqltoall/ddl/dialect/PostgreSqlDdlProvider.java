@@ -1,5 +1,6 @@
 package com.haosmart.mysqltoall.ddl.dialect;
 
+import cn.hutool.core.collection.ListUtil;
 import cn.hutool.core.text.CharSequenceUtil;
 import cn.hutool.db.meta.Column;
 import cn.hutool.db.meta.Table;
@@ -7,14 +8,24 @@ import com.haosmart.mysqltoall.config.DbConfig;
 import com.haosmart.mysqltoall.ddl.AbstractDdlProvider;
 import com.haosmart.mysqltoall.enumration.CaseType;
 import com.haosmart.mysqltoall.enumration.CommentType;
+import com.haosmart.mysqltoall.transfer.ValueConverter;
 import lombok.NonNull;
+import org.postgresql.util.PGobject;
 import org.postgresql.util.PSQLException;
 
 import java.sql.DatabaseMetaData;
 import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
 
 public class PostgreSqlDdlProvider extends AbstractDdlProvider {
 
+    private static final String DISABLE_USER_TRIGGER = "ALTER TABLE {} DISABLE TRIGGER USER";
+
+    private static final String ENABLE_USER_TRIGGER = "ALTER TABLE {} ENABLE TRIGGER USER";
+
+    private static final String[] JSON_TYPES = {"json", "jsonb"};
+
     public PostgreSqlDdlProvider(DbConfig config, DatabaseMetaData databaseMetaData) throws SQLException {
         super(config, databaseMetaData, CaseType.LOWER);
     }
@@ -85,4 +96,62 @@ public class PostgreSqlDdlProvider extends AbstractDdlProvider {
         }
         return super.handleThrowable(e, tableName);
     }
+
+    /**
+     * 禁用用户触发器；PostgreSQL不支持禁用约束，外键内部触发器需超级用户权限才能禁用，均保持不变
+     *
+     * @param targetConfig 目标数据源配置
+     * @param table        目标表对象
+     * @return 脚本列表
+     */
+    @Override
+    public List<String> buildDisableConstraintDdl(DbConfig targetConfig, Table table) {
+        return ListUtil.toList(CharSequenceUtil.format(DISABLE_USER_TRIGGER, this.getTableName(targetConfig, table)));
+    }
+
+    /**
+     * 重新启用用户触发器
+     *
+     * @param targetConfig 目标数据源配置
+     * @param table        目标表对象
+     * @param validate     是否校验已有数据，PostgreSQL不涉及
+     * @return 脚本列表
+     */
+    @Override
+    public List<String> buildEnableConstraintDdl(DbConfig targetConfig, Table table, boolean validate) {
+        return ListUtil.toList(CharSequenceUtil.format(ENABLE_USER_TRIGGER, this.getTableName(targetConfig, table)));
+    }
+
+    @Override
+    protected Map<String, String> getColumnTypeAliases() {
+        return POSTGRESQL_TYPE_ALIASES;
+    }
+
+    /**
+     * 创建列值转换器链，JSON列的文本以{@link PGobject}写入，字符串参数默认按varchar绑定，无法直接写入JSON列
+     *
+     * @param fromColumn 来源列
+     * @param toColumn   目标列
+     * @return 列值转换器链
+     */
+    @Override
+    public List<ValueConverter> buildValueConverters(@NonNull Column fromColumn, @NonNull Column toColumn) {
+        List<ValueConverter> converters = super.buildValueConverters(fromColumn, toColumn);
+        if (CharSequenceUtil.equalsAnyIgnoreCase(toColumn.getTypeName(), JSON_TYPES)) {
+            String type = toColumn.getTypeName().toLowerCase();
+            converters.add(value -> value instanceof String ? toJsonObject(type, (String) value) : value);
+        }
+        return converters;
+    }
+
+    private static PGobject toJsonObject(String type, String value) {
+        PGobject object = new PGobject();
+        object.setType(type);
+        try {
+            object.setValue(value);
+        } catch (SQLException e) {
+            throw new IllegalArgumentException(e);
+        }
+        return object;
+    }
 }
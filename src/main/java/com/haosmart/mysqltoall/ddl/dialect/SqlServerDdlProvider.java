@@ -1,6 +1,9 @@
 package com.haosmart.mysqltoall.ddl.dialect;
 
+import cn.hutool.core.collection.CollectionUtil;
+import cn.hutool.core.collection.ListUtil;
 import cn.hutool.core.lang.Validator;
+import cn.hutool.core.map.MapUtil;
 import cn.hutool.core.text.CharSequenceUtil;
 import cn.hutool.core.util.ObjectUtil;
 import cn.hutool.core.util.RandomUtil;
@@ -20,12 +23,15 @@ import lombok.extern.slf4j.Slf4j;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.sql.DatabaseMetaData;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Slf4j
 public class SqlServerDdlProvider extends AbstractDdlProvider {
 
-    private static final String CHECK_IS_JSON = "NVARCHAR(4000) CONSTRAINT {} CHECK (ISJSON([{}]) = 1)";
+    private static final String CHECK_IS_JSON = "NVARCHAR(MAX) CONSTRAINT {} CHECK (ISJSON([{}]) = 1)";
 
     private static final String TABLE_COMMENT_FORMATTER = "EXEC SP_ADDEXTENDEDPROPERTY 'MS_Description', {}, 'SCHEMA', '{}', 'TABLE', '{}'";
 
@@ -37,6 +43,45 @@ public class SqlServerDdlProvider extends AbstractDdlProvider {
 
     private static final int MAX_NAME_LENGTH_STAND = 128;
 
+    /**
+     * 批处理中的单条语句：T-SQL先编译整个批处理，语句通过EXEC动态执行以推迟到运行时编译；出错时THROW中止批处理，不继续执行后续语句
+     */
+    private static final String BATCH_STATEMENT = "BEGIN TRY EXEC(N'{}') END TRY BEGIN CATCH THROW; END CATCH;\n";
+
+    private static final String ALTER_COLUMN_FORMATTER = "ALTER TABLE {} ALTER COLUMN {} {} {}";
+
+    private static final int BATCH_MAX_LENGTH = 64 * 1024;
+
+    /**
+     * 批量复制写入时SQLState不属于22、23类的数据错误：515 非空列写入null、547 违反约束、2601/2627 唯一键冲突、
+     * 2628/8152 字符超长、241/242 日期转换失败、245 类型转换失败、8115 算术溢出
+     */
+    private static final Set<Integer> DATA_ERROR_CODES = CollectionUtil.newHashSet(515, 547, 2601, 2627, 2628, 8152, 241, 242, 245, 8115);
+
+    /**
+     * 类型DDL中附带的命名约束（JSON列）或元数据类型名中的自增标识
+     */
+    private static final String TYPE_SUFFIX = "(?i)\\s+(CONSTRAINT|IDENTITY)\\b.*$";
+
+    /**
+     * 元数据返回的类型（去除空白后大写）到建表类型的映射：FLOAT(24)存储为REAL，NVARCHAR(MAX)的长度为1073741823
+     */
+    private static final Map<String, String> TYPE_ALIASES = MapUtil.<String, String>builder()
+            .put("REAL", "FLOAT(24)").put("FLOAT", "FLOAT(53)").put("NVARCHAR(1073741823)", "NVARCHAR(MAX)")
+            .build();
+
+    private static final String DISABLE_TRIGGER = "DISABLE TRIGGER ALL ON {}";
+
+    private static final String ENABLE_TRIGGER = "ENABLE TRIGGER ALL ON {}";
+
+    private static final String NOCHECK_CONSTRAINT = "ALTER TABLE {} NOCHECK CONSTRAINT ALL";
+
+    private static final String CHECK_CONSTRAINT = "ALTER TABLE {} WITH {} CHECK CONSTRAINT ALL";
+
+    private static final String VALIDATE_CONSTRAINT = "IF EXISTS (SELECT 1 FROM sys.foreign_keys WHERE parent_object_id = OBJECT_ID('{}') AND is_not_trusted = 1) " +
+            "OR EXISTS (SELECT 1 FROM sys.check_constraints WHERE parent_object_id = OBJECT_ID('{}') AND is_not_trusted = 1) " +
+            "ALTER TABLE {} WITH CHECK CHECK CONSTRAINT ALL";
+
     public SqlServerDdlProvider(DbConfig config, DatabaseMetaData databaseMetaData, CaseType caseType) {
         super(config, databaseMetaData, caseType);
     }
@@ -86,6 +131,95 @@ public class SqlServerDdlProvider extends AbstractDdlProvider {
     }
 
 
+    /**
+     * 创建修改列DDL，类型与可空性需在同一语句中声明；默认值为命名约束，不在此修改
+     *
+     * @param targetConfig 目标数据源配置
+     * @param table        来源表对象
+     * @param fromColumn   来源列
+     * @param toColumn     目标列
+     * @return 脚本列表
+     */
+    @Override
+    public List<String> buildModifyColumnDdl(DbConfig targetConfig, Table table, Column fromColumn, Column toColumn) {
+        if (!this.isColumnTypeChanged(fromColumn, toColumn) && fromColumn.isNullable() == toColumn.isNullable()) {
+            log.warn("Table[{}] column[{}] default value changed, please alter the default constraint manually", table.getTableName(), fromColumn.getName());
+            return ListUtil.empty();
+        }
+        return ListUtil.toList(CharSequenceUtil.format(ALTER_COLUMN_FORMATTER, this.getTableName(targetConfig, table), this.wrapName(fromColumn.getName()),
+                this.handleColumnType(fromColumn), fromColumn.isNullable() ? "NULL" : "NOT NULL"));
+    }
+
+    /**
+     * 统一类型写法用于比较，去除JSON列附带的命名约束及自增标识，元数据返回的类型按建表写法比较
+     *
+     * @param columnType 类型DDL
+     * @return 统一后的类型
+     */
+    @Override
+    public String normalizeColumnType(String columnType) {
+        String type = super.normalizeColumnType(ReUtil.delFirst(TYPE_SUFFIX, CharSequenceUtil.nullToEmpty(columnType)));
+        return TYPE_ALIASES.getOrDefault(type, type);
+    }
+
+    /**
+     * 将同一张表的DDL合并为一个批处理（不使用GO分隔），每条语句通过EXEC单独编译执行，
+     * 任一语句出错时中止批处理并抛出原始错误（{@link #handleThrowable(Throwable, String)}不忽略任何错误），已执行的语句不回滚
+     *
+     * @param ddlList ddl脚本列表
+     * @return 合并后的脚本列表
+     */
+    @Override
+    public List<String> bundleDdl(List<String> ddlList) {
+        return this.joinDdl(ddlList, BATCH_MAX_LENGTH, "", "", t -> CharSequenceUtil.format(BATCH_STATEMENT, t.replace("'", "''")));
+    }
+
+    @Override
+    protected Set<Integer> getDataErrorCodes() {
+        return DATA_ERROR_CODES;
+    }
+
+
+    /**
+     * 禁用触发器及外键、检查约束，主键及唯一约束不受影响
+     *
+     * @param targetConfig 目标数据源配置
+     * @param table        目标表对象
+     * @return 脚本列表
+     */
+    @Override
+    public List<String> buildDisableConstraintDdl(DbConfig targetConfig, Table table) {
+        String tableName = this.getTableName(targetConfig, table);
+        return ListUtil.toList(CharSequenceUtil.format(DISABLE_TRIGGER, tableName), CharSequenceUtil.format(NOCHECK_CONSTRAINT, tableName));
+    }
+
+    /**
+     * 重新启用触发器及约束，不校验时约束被标记为不受信任（is_not_trusted）
+     *
+     * @param targetConfig 目标数据源配置
+     * @param table        目标表对象
+     * @param validate     是否校验已有数据
+     * @return 脚本列表
+     */
+    @Override
+    public List<String> buildEnableConstraintDdl(DbConfig targetConfig, Table table, boolean validate) {
+        String tableName = this.getTableName(targetConfig, table);
+        return ListUtil.toList(CharSequenceUtil.format(CHECK_CONSTRAINT, tableName, validate ? "CHECK" : "NOCHECK"), CharSequenceUtil.format(ENABLE_TRIGGER, tableName));
+    }
+
+    /**
+     * 存在不受信任的约束时重新校验
+     *
+     * @param targetConfig 目标数据源配置
+     * @param table        目标表对象
+     * @return 脚本列表
+     */
+    @Override
+    public List<String> buildValidateConstraintDdl(DbConfig targetConfig, Table table) {
+        String tableName = this.getTableName(targetConfig, table);
+        return ListUtil.toList(CharSequenceUtil.format(VALIDATE_CONSTRAINT, tableName, tableName, tableName));
+    }
+
     /**
      * 获取表名
      *
@@ -18,6 +18,7 @@ import lombok.extern.slf4j.Slf4j;
 
 import java.sql.DatabaseMetaData;
 import java.util.Collection;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 
@@ -213,4 +214,14 @@ public class VastBaseG100DdlProvider extends AbstractDdlProvider {
     private int getMaxStringLength() {
         return MAX_NAME_LENGTH_STAND;
     }
+
+    /**
+     * 获取类型别名，与PostgreSQL一致
+     *
+     * @return 别名到标准类型名的映射
+     */
+    @Override
+    protected Map<String, String> getColumnTypeAliases() {
+        return POSTGRESQL_TYPE_ALIASES;
+    }
 }
@@ -0,0 +1,55 @@
+package com.haosmart.mysqltoall.entity;
+
+import lombok.Data;
+
+import java.sql.DatabaseMetaData;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 外键约束
+ *
+ * @author fujunhao
+ */
+@Data
+public class ForeignKey {
+
+    /**
+     * 约束名
+     */
+    String name;
+
+    /**
+     * 外键所在的表
+     */
+    String tableName;
+
+    /**
+     * 外键列，按约束中的顺序
+     */
+    List<String> columns = new ArrayList<>(2);
+
+    /**
+     * 被引用的表
+     */
+    String referencedTableName;
+
+    /**
+     * 被引用的列，与外键列一一对应
+     */
+    List<String> referencedColumns = new ArrayList<>(2);
+
+    /**
+     * 删除规则，取值同{@link DatabaseMetaData#importedKeyCascade}等常量
+     */
+    int deleteRule = DatabaseMetaData.importedKeyNoAction;
+
+    /**
+     * 是否为自引用外键
+     *
+     * @return 是否自引用
+     */
+    public boolean isSelfReference() {
+        return this.tableName != null && this.tableName.equalsIgnoreCase(this.referencedTableName);
+    }
+}
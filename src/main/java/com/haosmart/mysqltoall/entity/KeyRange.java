@@ -0,0 +1,24 @@
+package com.haosmart.mysqltoall.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * 主键区间，闭区间[lower, upper]
+ *
+ * @author fujunhao
+ */
+@AllArgsConstructor
+@Data
+public class KeyRange {
+
+    /**
+     * 区间下界（包含）
+     */
+    long lower;
+
+    /**
+     * 区间上界（包含）
+     */
+    long upper;
+}
@@ -21,6 +21,15 @@ public class TableMeta implements Comparable<TableMeta> {
      */
     String tableName;
 
+    /**
+     * 来源库统计的平均行长度，未知时为{@code 0}
+     */
+    long avgRowLength;
+
+    public TableMeta(long recordCount, String tableName) {
+        this(recordCount, tableName, 0L);
+    }
+
 
     /**
      * Compares this object with the specified object for order.  Returns a
@@ -13,5 +13,10 @@ public enum ActionType {
     /**
      * 删除
      */
-    DELETE;
+    DELETE,
+
+    /**
+     * 变更
+     */
+    ALTER;
 }
@@ -0,0 +1,58 @@
+package com.haosmart.mysqltoall.file;
+
+import com.haosmart.mysqltoall.transfer.RowCodec;
+import lombok.NonNull;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * gzip压缩的二进制数据文件读取器，以内存映射方式读取文件，格式见{@link BinaryChunkWriter}
+ *
+ * @author fujunhao
+ */
+public class BinaryChunkReader implements ChunkReader {
+
+    private final static int BUFFER_SIZE = 64 * 1024;
+
+    private final InputStream in;
+
+    private final RowCodec codec;
+
+    private byte[] row = new byte[1024];
+
+    public BinaryChunkReader(Path path, @NonNull RowCodec codec) throws IOException {
+        this.in = new BufferedInputStream(new GZIPInputStream(ByteBufferInputStream.open(path), BUFFER_SIZE), BUFFER_SIZE);
+        this.codec = codec;
+    }
+
+    @Override
+    public Object[] read() throws IOException {
+        int length = RowCodec.readVarInt(this.in);
+        if (length < 0) {
+            return null;
+        }
+        if (length > this.row.length) {
+            this.row = new byte[Math.max(length, this.row.length * 2)];
+        }
+        int offset = 0;
+        while (offset < length) {
+            int count = this.in.read(this.row, offset, length - offset);
+            if (count < 0) {
+                throw new EOFException("Unexpected end of file in row");
+            }
+            offset += count;
+        }
+        return this.codec.decode(ByteBuffer.wrap(this.row, 0, length));
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.in.close();
+    }
+}
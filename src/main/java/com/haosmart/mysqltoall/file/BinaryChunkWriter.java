@@ -0,0 +1,60 @@
+package com.haosmart.mysqltoall.file;
+
+import com.haosmart.mysqltoall.transfer.RowCodec;
+import lombok.NonNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * gzip压缩的二进制数据文件写入器，每行为变长整数表示的长度加{@link RowCodec}编码的行
+ *
+ * @author fujunhao
+ */
+public class BinaryChunkWriter implements ChunkWriter {
+
+    private final static int BUFFER_SIZE = 64 * 1024;
+
+    private final DataOutputStream out;
+
+    private final RowCodec codec;
+
+    private final ByteArrayOutputStream row = new ByteArrayOutputStream(1024);
+
+    private final DataOutputStream rowOut = new DataOutputStream(this.row);
+
+    private long rows;
+
+    public BinaryChunkWriter(Path path, @NonNull RowCodec codec) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        this.out = new DataOutputStream(new GZIPOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE));
+        this.codec = codec;
+    }
+
+    @Override
+    public long write(Object[] values) throws IOException, SQLException {
+        this.row.reset();
+        this.codec.encode(values, this.rowOut);
+        RowCodec.writeVarInt(this.row.size(), this.out);
+        this.row.writeTo(this.out);
+        this.rows++;
+        return this.row.size();
+    }
+
+    @Override
+    public long getRows() {
+        return this.rows;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.out.close();
+    }
+}
@@ -0,0 +1,75 @@
+package com.haosmart.mysqltoall.file;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 基于{@link ByteBuffer}的输入流，用于以内存映射方式读取数据文件，避免逐块系统调用及堆内复制
+ *
+ * @author fujunhao
+ */
+public class ByteBufferInputStream extends InputStream {
+
+    /**
+     * 单次映射的最大字节数，超过时改用文件通道流式读取
+     */
+    private final static long MAX_MAPPED_BYTES = Integer.MAX_VALUE;
+
+    private final ByteBuffer buffer;
+
+    public ByteBufferInputStream(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    /**
+     * 打开文件，不超过{@link #MAX_MAPPED_BYTES}时使用内存映射，否则使用文件通道
+     *
+     * @param path 文件路径
+     * @return 输入流
+     */
+    public static InputStream open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() <= MAX_MAPPED_BYTES) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                return new ByteBufferInputStream(buffer);
+            }
+        }
+        return Channels.newInputStream(FileChannel.open(path, StandardOpenOption.READ));
+    }
+
+    @Override
+    public int read() {
+        return this.buffer.hasRemaining() ? this.buffer.get() & 0xFF : -1;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) {
+        if (length == 0) {
+            return 0;
+        }
+        if (!this.buffer.hasRemaining()) {
+            return -1;
+        }
+        int count = Math.min(length, this.buffer.remaining());
+        this.buffer.get(bytes, offset, count);
+        return count;
+    }
+
+    @Override
+    public long skip(long n) {
+        int count = (int) Math.max(0L, Math.min(n, this.buffer.remaining()));
+        this.buffer.position(this.buffer.position() + count);
+        return count;
+    }
+
+    @Override
+    public int available() {
+        return this.buffer.remaining();
+    }
+}
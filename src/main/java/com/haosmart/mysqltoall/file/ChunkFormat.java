@@ -0,0 +1,62 @@
+package com.haosmart.mysqltoall.file;
+
+import cn.hutool.db.meta.Column;
+import com.haosmart.mysqltoall.transfer.RowCodec;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * 数据文件格式，均为gzip压缩
+ *
+ * @author fujunhao
+ */
+public enum ChunkFormat {
+
+    /**
+     * CSV文本，可读性好，见{@link CsvChunkWriter}
+     */
+    CSV(".csv.gz"),
+
+    /**
+     * 紧凑二进制行，导入时无需文本解析，见{@link RowCodec}
+     */
+    BINARY(".bin.gz");
+
+    private final String suffix;
+
+    ChunkFormat(String suffix) {
+        this.suffix = suffix;
+    }
+
+    /**
+     * 获取文件扩展名
+     *
+     * @return 扩展名
+     */
+    public String getSuffix() {
+        return this.suffix;
+    }
+
+    /**
+     * 创建写入器
+     *
+     * @param path    文件路径
+     * @param columns 列，与写入的列值顺序一致
+     * @return 写入器
+     */
+    public ChunkWriter openWriter(Path path, Column[] columns) throws IOException {
+        return this == BINARY ? new BinaryChunkWriter(path, new RowCodec(columns)) : new CsvChunkWriter(path);
+    }
+
+    /**
+     * 创建读取器
+     *
+     * @param path    文件路径
+     * @param columns 列，与文件中的列值顺序一致
+     * @return 读取器
+     */
+    public ChunkReader openReader(Path path, Column[] columns) throws IOException {
+        return this == BINARY ? new BinaryChunkReader(path, new RowCodec(columns)) : new CsvChunkReader(path, columns);
+    }
+}
@@ -0,0 +1,19 @@
+package com.haosmart.mysqltoall.file;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * 数据文件读取器
+ *
+ * @author fujunhao
+ */
+public interface ChunkReader extends Closeable {
+
+    /**
+     * 读取一行
+     *
+     * @return 列值，文件结束时返回{@code null}
+     */
+    Object[] read() throws IOException;
+}
@@ -0,0 +1,28 @@
+package com.haosmart.mysqltoall.file;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.SQLException;
+
+/**
+ * 数据文件写入器
+ *
+ * @author fujunhao
+ */
+public interface ChunkWriter extends Closeable {
+
+    /**
+     * 写入一行
+     *
+     * @param values 列值，与清单中的列顺序一致
+     * @return 该行未压缩的字节数
+     */
+    long write(Object[] values) throws IOException, SQLException;
+
+    /**
+     * 获取已写入的行数
+     *
+     * @return 行数
+     */
+    long getRows();
+}
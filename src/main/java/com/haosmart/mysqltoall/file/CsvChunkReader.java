@@ -0,0 +1,160 @@
+package com.haosmart.mysqltoall.file;
+
+import cn.hutool.db.meta.Column;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * gzip压缩的CSV数据文件读取器，以内存映射方式读取文件，并按清单中的列类型还原列值，格式见{@link CsvChunkWriter}
+ *
+ * @author fujunhao
+ */
+public class CsvChunkReader implements ChunkReader {
+
+    private final static int BUFFER_SIZE = 64 * 1024;
+
+    private final static int DATE_LENGTH = 10;
+
+    private final BufferedReader reader;
+
+    private final Column[] columns;
+
+    private final StringBuilder field = new StringBuilder(256);
+
+    public CsvChunkReader(Path path, Column[] columns) throws IOException {
+        this.reader = new BufferedReader(new InputStreamReader(new GZIPInputStream(ByteBufferInputStream.open(path), BUFFER_SIZE),
+                StandardCharsets.UTF_8), BUFFER_SIZE);
+        this.columns = columns;
+    }
+
+    @Override
+    public Object[] read() throws IOException {
+        int c = this.reader.read();
+        if (c == -1) {
+            return null;
+        }
+        Object[] values = new Object[this.columns.length];
+        int index = 0;
+        while (true) {
+            this.field.setLength(0);
+            boolean quoted = false;
+            if (c == CsvChunkWriter.QUOTE) {
+                quoted = true;
+                while (true) {
+                    c = this.reader.read();
+                    if (c == -1) {
+                        throw new IOException("Unexpected end of file in quoted field");
+                    }
+                    if (c == CsvChunkWriter.QUOTE) {
+                        c = this.reader.read();
+                        if (c != CsvChunkWriter.QUOTE) {
+                            break;
+                        }
+                    }
+                    this.field.append((char) c);
+                }
+            } else {
+                while (c != CsvChunkWriter.SEPARATOR && c != '\n' && c != -1) {
+                    this.field.append((char) c);
+                    c = this.reader.read();
+                }
+            }
+            if (index >= values.length) {
+                throw new IOException("Too many fields, expected " + values.length);
+            }
+            String text = this.field.toString();
+            values[index] = !quoted && CsvChunkWriter.NULL.equals(text) ? null : parse(text, this.columns[index]);
+            index++;
+            if (c != CsvChunkWriter.SEPARATOR) {
+                break;
+            }
+            c = this.reader.read();
+        }
+        if (index != values.length) {
+            throw new IOException("Field count mismatched, expected " + values.length + " but " + index);
+        }
+        return values;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.reader.close();
+    }
+
+    /**
+     * 按列类型还原列值
+     *
+     * @param text   文本
+     * @param column 列对象
+     * @return 列值
+     */
+    static Object parse(String text, Column column) {
+        switch (column.getTypeEnum()) {
+            case TINYINT:
+            case SMALLINT:
+            case INTEGER:
+            case BIGINT:
+                try {
+                    return Long.parseLong(text);
+                } catch (NumberFormatException e) {
+                    return new BigDecimal(text);
+                }
+            case DECIMAL:
+            case NUMERIC:
+                return new BigDecimal(text);
+            case REAL:
+            case FLOAT:
+            case DOUBLE:
+                return Double.parseDouble(text);
+            case BIT:
+            case BOOLEAN:
+                if ("true".equalsIgnoreCase(text) || "1".equals(text)) {
+                    return Boolean.TRUE;
+                }
+                if ("false".equalsIgnoreCase(text) || "0".equals(text)) {
+                    return Boolean.FALSE;
+                }
+                return Base64.getDecoder().decode(text);
+            case DATE:
+                return text.length() == DATE_LENGTH ? java.sql.Date.valueOf(text) : Timestamp.valueOf(text);
+            case TIME:
+                return parseTime(text);
+            case TIMESTAMP:
+            case TIMESTAMP_WITH_TIMEZONE:
+                return Timestamp.valueOf(text);
+            case BINARY:
+            case VARBINARY:
+            case LONGVARBINARY:
+            case BLOB:
+                return Base64.getDecoder().decode(text);
+            default:
+                return text;
+        }
+    }
+
+    /**
+     * 还原时间，保留毫秒；超出一天范围等无法解析的值（如MySQL的{@code 838:59:59}）保留为文本
+     */
+    private static Object parseTime(String text) {
+        LocalTime localTime;
+        try {
+            localTime = LocalTime.parse(text);
+        } catch (DateTimeParseException e) {
+            return text;
+        }
+        Time time = Time.valueOf(localTime);
+        time.setTime(time.getTime() + localTime.getNano() / 1000000);
+        return time;
+    }
+}
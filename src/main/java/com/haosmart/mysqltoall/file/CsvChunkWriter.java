@@ -0,0 +1,147 @@
+package com.haosmart.mysqltoall.file;
+
+import cn.hutool.db.sql.SqlUtil;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Base64;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * gzip压缩的CSV数据文件写入器：逗号分隔，含分隔符、引号或换行的值加双引号，null写为不加引号的{@code \N}，
+ * 二进制值写为Base64，日期时间统一为JDBC转义格式，时间写为{@code HH:mm:ss[.fraction]}以保留小数秒
+ *
+ * @author fujunhao
+ */
+public class CsvChunkWriter implements ChunkWriter {
+
+    final static String NULL = "\\N";
+
+    final static char SEPARATOR = ',';
+
+    final static char QUOTE = '"';
+
+    private final static int BUFFER_SIZE = 64 * 1024;
+
+    private final Writer writer;
+
+    private long rows;
+
+    public CsvChunkWriter(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        this.writer = new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE),
+                StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+
+    @Override
+    public long write(Object[] values) throws IOException, SQLException {
+        long length = 0;
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                this.writer.write(SEPARATOR);
+            }
+            String text = format(values[i]);
+            if (text == null) {
+                this.writer.write(NULL);
+                length += NULL.length();
+            } else if (needQuote(text)) {
+                this.writer.write(QUOTE);
+                this.writer.write(text.replace("\"", "\"\""));
+                this.writer.write(QUOTE);
+                length += text.length() + 2;
+            } else {
+                this.writer.write(text);
+                length += text.length();
+            }
+        }
+        this.writer.write('\n');
+        this.rows++;
+        return length + values.length;
+    }
+
+    @Override
+    public long getRows() {
+        return this.rows;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.writer.close();
+    }
+
+    private static boolean needQuote(String text) {
+        if (text.isEmpty() || NULL.equals(text)) {
+            return true;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == SEPARATOR || c == QUOTE || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 将列值转换为文本
+     *
+     * @param value 列值
+     * @return 文本，null值返回{@code null}
+     */
+    static String format(Object value) throws SQLException {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof byte[]) {
+            return Base64.getEncoder().encodeToString((byte[]) value);
+        }
+        if (value instanceof Blob) {
+            Blob blob = (Blob) value;
+            return Base64.getEncoder().encodeToString(blob.getBytes(1, (int) blob.length()));
+        }
+        if (value instanceof Clob) {
+            return SqlUtil.clobToStr((Clob) value);
+        }
+        if (value instanceof BigDecimal) {
+            return ((BigDecimal) value).toPlainString();
+        }
+        if (value instanceof Time) {
+            //Time.toString()不含毫秒
+            Time time = (Time) value;
+            return time.toLocalTime().withNano((int) Math.floorMod(time.getTime(), 1000L) * 1000000).format(DateTimeFormatter.ISO_LOCAL_TIME);
+        }
+        if (value instanceof Timestamp || value instanceof java.sql.Date) {
+            return value.toString();
+        }
+        if (value instanceof java.util.Date) {
+            return new Timestamp(((java.util.Date) value).getTime()).toString();
+        }
+        if (value instanceof LocalDateTime) {
+            return Timestamp.valueOf((LocalDateTime) value).toString();
+        }
+        if (value instanceof LocalDate) {
+            return java.sql.Date.valueOf((LocalDate) value).toString();
+        }
+        if (value instanceof LocalTime) {
+            return ((LocalTime) value).format(DateTimeFormatter.ISO_LOCAL_TIME);
+        }
+        return value.toString();
+    }
+}
@@ -0,0 +1,234 @@
+package com.haosmart.mysqltoall.file;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.util.ObjectUtil;
+import cn.hutool.db.meta.Column;
+import cn.hutool.db.meta.ColumnIndexInfo;
+import cn.hutool.db.meta.IndexInfo;
+import cn.hutool.db.meta.Table;
+import cn.hutool.json.JSONUtil;
+import lombok.Data;
+import lombok.NonNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 导出清单，记录导出时来源表的结构（由hutool {@link Table}元数据转换）及各表的数据文件，导入时据此在目标库建表并加载数据
+ *
+ * @author fujunhao
+ */
+@Data
+public class ExportManifest {
+
+    /**
+     * 清单文件名
+     */
+    public final static String FILE_NAME = "manifest.json";
+
+    private final static int VERSION = 1;
+
+    private int version = VERSION;
+
+    /**
+     * 数据文件格式，旧版清单中不存在时为{@link ChunkFormat#CSV}
+     */
+    private ChunkFormat format = ChunkFormat.CSV;
+
+    /**
+     * 来源库类型
+     */
+    private String sourceDbType;
+
+    /**
+     * 来源库模式名
+     */
+    private String sourceSchemaName;
+
+    /**
+     * 导出时间
+     */
+    private String exportTime;
+
+    private List<TableEntry> tables = new ArrayList<>();
+
+    /**
+     * 单张表
+     */
+    @Data
+    public static class TableEntry {
+
+        private String tableName;
+
+        private String comment;
+
+        /**
+         * 导出的记录数
+         */
+        private long recordCount;
+
+        private List<String> pkNames = new ArrayList<>();
+
+        private List<ColumnEntry> columns = new ArrayList<>();
+
+        private List<IndexEntry> indexes = new ArrayList<>();
+
+        /**
+         * 数据文件名，按写入顺序排列
+         */
+        private List<String> chunks = new ArrayList<>();
+
+        /**
+         * 由来源表对象创建
+         *
+         * @param table 来源表对象
+         * @return 清单中的表
+         */
+        public static TableEntry of(@NonNull Table table) {
+            TableEntry entry = new TableEntry();
+            entry.setTableName(table.getTableName());
+            entry.setComment(table.getComment());
+            if (ObjectUtil.isNotEmpty(table.getPkNames())) {
+                entry.setPkNames(new ArrayList<>(table.getPkNames()));
+            }
+            entry.setColumns(table.getColumns().stream().map(ColumnEntry::of).collect(Collectors.toList()));
+            if (ObjectUtil.isNotEmpty(table.getIndexInfoList())) {
+                entry.setIndexes(table.getIndexInfoList().stream().map(IndexEntry::of).collect(Collectors.toList()));
+            }
+            return entry;
+        }
+
+        /**
+         * 还原为表对象，用于在目标库建表
+         *
+         * @return 表对象
+         */
+        public Table toTable() {
+            Table table = Table.create(this.tableName).setComment(this.comment);
+            this.columns.forEach(t -> table.setColumn(t.toColumn(this.tableName)));
+            table.setPkNames(new LinkedHashSet<>(this.pkNames));
+            table.setIndexInfoList(this.indexes.stream().map(t -> t.toIndexInfo(this.tableName)).collect(Collectors.toList()));
+            return table;
+        }
+    }
+
+    /**
+     * 单列
+     */
+    @Data
+    public static class ColumnEntry {
+
+        private String name;
+
+        private int type;
+
+        private String typeName;
+
+        private long size;
+
+        private Integer digit;
+
+        private boolean nullable;
+
+        private String columnDef;
+
+        private boolean autoIncrement;
+
+        private boolean pk;
+
+        private String comment;
+
+        public static ColumnEntry of(@NonNull Column column) {
+            ColumnEntry entry = new ColumnEntry();
+            entry.setName(column.getName());
+            entry.setType(column.getType());
+            entry.setTypeName(column.getTypeName());
+            entry.setSize(column.getSize());
+            entry.setDigit(column.getDigit());
+            entry.setNullable(column.isNullable());
+            entry.setColumnDef(column.getColumnDef());
+            entry.setAutoIncrement(column.isAutoIncrement());
+            entry.setPk(column.isPk());
+            entry.setComment(column.getComment());
+            return entry;
+        }
+
+        public Column toColumn(String tableName) {
+            Column column = new Column()
+                    .setTableName(tableName)
+                    .setName(this.name)
+                    .setType(this.type)
+                    .setTypeName(this.typeName)
+                    .setSize((int) Math.min(Integer.MAX_VALUE, this.size))
+                    .setNullable(this.nullable)
+                    .setColumnDef(this.columnDef)
+                    .setAutoIncrement(this.autoIncrement)
+                    .setPk(this.pk)
+                    .setComment(this.comment);
+            if (ObjectUtil.isNotNull(this.digit)) {
+                column.setDigit(this.digit);
+            }
+            return column;
+        }
+    }
+
+    /**
+     * 单个索引
+     */
+    @Data
+    public static class IndexEntry {
+
+        private String indexName;
+
+        private boolean nonUnique;
+
+        private List<String> columns = new ArrayList<>();
+
+        public static IndexEntry of(@NonNull IndexInfo indexInfo) {
+            IndexEntry entry = new IndexEntry();
+            entry.setIndexName(indexInfo.getIndexName());
+            entry.setNonUnique(indexInfo.isNonUnique());
+            entry.setColumns(indexInfo.getColumnIndexInfoList().stream().map(ColumnIndexInfo::getColumnName).collect(Collectors.toList()));
+            return entry;
+        }
+
+        public IndexInfo toIndexInfo(String tableName) {
+            IndexInfo indexInfo = new IndexInfo(this.nonUnique, this.indexName, tableName, null, null);
+            indexInfo.setColumnIndexInfoList(this.columns.stream().map(t -> new ColumnIndexInfo(t, "A")).collect(Collectors.toList()));
+            return indexInfo;
+        }
+    }
+
+    /**
+     * 从导出目录读取清单
+     *
+     * @param directory 导出目录
+     * @return 导出清单
+     */
+    public static ExportManifest read(File directory) {
+        File file = FileUtil.file(directory, FILE_NAME);
+        if (!file.exists()) {
+            throw new IllegalArgumentException("导出清单不存在:" + file.getAbsolutePath());
+        }
+        return JSONUtil.toBean(FileUtil.readString(file, StandardCharsets.UTF_8), ExportManifest.class);
+    }
+
+    /**
+     * 写入导出目录，先写临时文件再替换，清单存在即表示导出完整
+     *
+     * @param directory 导出目录
+     */
+    public void write(File directory) throws IOException {
+        File file = FileUtil.file(directory, FILE_NAME);
+        File temp = FileUtil.file(directory, FILE_NAME + ".tmp");
+        FileUtil.writeString(JSONUtil.toJsonPrettyStr(this), temp, StandardCharsets.UTF_8);
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,230 @@
+package com.haosmart.mysqltoall.file;
+
+import cn.hutool.core.text.CharSequenceUtil;
+import cn.hutool.core.thread.NamedThreadFactory;
+import cn.hutool.core.util.ObjectUtil;
+import cn.hutool.db.meta.Column;
+import cn.hutool.db.meta.MetaUtil;
+import cn.hutool.db.meta.Table;
+import com.haosmart.mysqltoall.DataSourceProvider;
+import com.haosmart.mysqltoall.ExecuteStrategy;
+import com.haosmart.mysqltoall.config.TableRule;
+import com.haosmart.mysqltoall.entity.TableMeta;
+import com.haosmart.mysqltoall.metrics.TransferEvent;
+import com.haosmart.mysqltoall.metrics.TransferEvents;
+import com.haosmart.mysqltoall.transfer.LobStreamTransfer;
+import com.haosmart.mysqltoall.transfer.SourceRateLimiter;
+import com.haosmart.mysqltoall.transfer.TransferListener;
+import com.haosmart.mysqltoall.transfer.ValueConverter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+/**
+ * 数据导出器：逐表以只进游标读取来源数据，按{@link ExecuteStrategy#getExportFormat()}写入gzip压缩的数据文件并按行数切分，全部表导出后写入导出清单
+ *
+ * @author fujunhao
+ */
+@Slf4j
+public class FileExporter {
+
+    private final static String QUERY_ALL = "select {} from {}";
+
+    private final static String QUERY_WITH_CONDITION = "select {} from {} where {}";
+
+    private final static String SELECT_ALL = "*";
+
+    /**
+     * 数据文件名：表名.序号加格式扩展名
+     */
+    private final static String CHUNK_NAME = "{}.{}{}";
+
+    private final DataSourceProvider sourceProvider;
+
+    private final ExecuteStrategy executeStrategy;
+
+    private final SourceRateLimiter rateLimiter;
+
+    private final TransferListener transferListener;
+
+    public FileExporter(@NonNull DataSourceProvider sourceProvider, @NonNull ExecuteStrategy executeStrategy, @NonNull SourceRateLimiter rateLimiter, @NonNull TransferListener transferListener) {
+        this.sourceProvider = sourceProvider;
+        this.executeStrategy = executeStrategy;
+        this.rateLimiter = rateLimiter;
+        this.transferListener = transferListener;
+    }
+
+    /**
+     * 并行导出多张表，任一表失败时不写入清单
+     *
+     * @param tableMetaList 表清单
+     * @param directory     导出目录
+     * @param parallelism   并行数
+     * @return 导出清单
+     */
+    public ExportManifest export(@NonNull List<TableMeta> tableMetaList, @NonNull File directory, int parallelism) throws IOException {
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("无法创建导出目录:" + directory.getAbsolutePath());
+        }
+        //先删除旧清单，导出中断时目录不会被视为完整
+        File manifestFile = new File(directory, ExportManifest.FILE_NAME);
+        if (manifestFile.exists() && !manifestFile.delete()) {
+            throw new IOException("无法删除旧的导出清单:" + manifestFile.getAbsolutePath());
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(parallelism, tableMetaList.size())),
+                new NamedThreadFactory("export-worker-", true));
+        List<ExportManifest.TableEntry> entries;
+        try {
+            List<CompletableFuture<ExportManifest.TableEntry>> futures = tableMetaList.stream()
+                    .map(t -> CompletableFuture.supplyAsync(() -> this.exportTable(t, directory), executor))
+                    .collect(Collectors.toList());
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+            entries = futures.stream().map(CompletableFuture::join).filter(ObjectUtil::isNotNull).collect(Collectors.toList());
+        } finally {
+            executor.shutdownNow();
+        }
+        ExportManifest manifest = new ExportManifest();
+        manifest.setFormat(this.executeStrategy.getExportFormat());
+        manifest.setSourceDbType(this.sourceProvider.getConfig().getDbType().name());
+        manifest.setSourceSchemaName(this.sourceProvider.getConfig().getSchemaName());
+        manifest.setExportTime(LocalDateTime.now().toString());
+        manifest.setTables(entries);
+        manifest.write(directory);
+        return manifest;
+    }
+
+    /**
+     * 导出单张表
+     *
+     * @param tableMeta 表对象
+     * @param directory 导出目录
+     * @return 清单中的表，来源表不存在时返回{@code null}
+     */
+    private ExportManifest.TableEntry exportTable(TableMeta tableMeta, File directory) {
+        String tableName = tableMeta.getTableName();
+        Table fromTable = this.readTable(tableName);
+        if (ObjectUtil.isNull(fromTable)) {
+            log.error("Table:{} not found", tableName);
+            return null;
+        }
+        TableRule tableRule = this.executeStrategy.findTableRule(tableName);
+        String selectList = SELECT_ALL;
+        String querySql = CharSequenceUtil.format(QUERY_ALL, selectList, fromTable.getTableName());
+        if (ObjectUtil.isNotNull(tableRule)) {
+            fromTable = tableRule.project(fromTable);
+            selectList = tableRule.getSelectList(fromTable);
+            querySql = CharSequenceUtil.isBlank(tableRule.getFilter())
+                    ? CharSequenceUtil.format(QUERY_ALL, selectList, fromTable.getTableName())
+                    : CharSequenceUtil.format(QUERY_WITH_CONDITION, selectList, fromTable.getTableName(), tableRule.getFilter());
+        }
+        this.transferListener.onTableStart(tableName, tableMeta.getRecordCount());
+        try {
+            ExportManifest.TableEntry entry = ExportManifest.TableEntry.of(fromTable);
+            Column[] columns = fromTable.getColumns().toArray(new Column[0]);
+            ValueConverter[] converters = new ValueConverter[columns.length];
+            if (ObjectUtil.isNotNull(tableRule)) {
+                for (int i = 0; i < columns.length; i++) {
+                    converters[i] = tableRule.getColumnConverter(columns[i].getName());
+                }
+            }
+            long total = this.writeChunks(querySql, fromTable.getTableName(), columns, converters, directory, entry.getChunks());
+            entry.setRecordCount(total);
+            this.transferListener.onTableFinish(tableName, true);
+            log.warn("Table {} export succeed, total records:{} chunks:{}", tableName, total, entry.getChunks().size());
+            return entry;
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            log.error("Table {} export failed: {}", tableName, e.getMessage());
+            this.transferListener.onTableFinish(tableName, false);
+            throw new CompletionException(e);
+        }
+    }
+
+    /**
+     * 以只进游标读取来源数据，执行同步规则中的列值转换器后写入数据文件，每满{@link ExecuteStrategy#getExportChunkRows()}行切换到新文件
+     *
+     * @return 导出的记录数
+     */
+    private long writeChunks(String querySql, String tableName, Column[] columns, ValueConverter[] converters, File directory, List<String> chunks)
+            throws SQLException, IOException, InterruptedException {
+        int pageSize = Math.max(1, this.executeStrategy.getDataPageSize());
+        long chunkRows = Math.max(1L, this.executeStrategy.getExportChunkRows());
+        long total = 0;
+        ChunkFormat format = this.executeStrategy.getExportFormat();
+        ChunkWriter writer = null;
+        try (Connection sourceConn = this.sourceProvider.getDataSource().getConnection();
+             PreparedStatement query = sourceConn.prepareStatement(querySql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            query.setFetchSize(LobStreamTransfer.getStreamingFetchSize(this.sourceProvider.getConfig()));
+            Object[] values = new Object[columns.length];
+            int pageRows = 0;
+            long pageBytes = 0;
+            long pageStart = System.nanoTime();
+            TransferEvent readEvent = TransferEvents.begin(TransferEvents.Phase.READ, tableName);
+            try (ResultSet rs = query.executeQuery()) {
+                while (rs.next()) {
+                    if (ObjectUtil.isNull(writer) || writer.getRows() >= chunkRows) {
+                        if (ObjectUtil.isNotNull(writer)) {
+                            writer.close();
+                        }
+                        String chunkName = CharSequenceUtil.format(CHUNK_NAME, tableName, String.format("%05d", chunks.size()), format.getSuffix());
+                        writer = format.openWriter(new File(directory, chunkName).toPath(), columns);
+                        chunks.add(chunkName);
+                    }
+                    for (int i = 0; i < columns.length; i++) {
+                        Object value = rs.getObject(columns[i].getName());
+                        values[i] = ObjectUtil.isNull(converters[i]) ? value : converters[i].convert(value);
+                    }
+                    pageBytes += writer.write(values);
+                    pageRows++;
+                    total++;
+                    if (pageRows >= pageSize) {
+                        readEvent.end(pageRows, pageBytes);
+                        this.transferListener.onBatch(tableName, pageRows, pageBytes, System.nanoTime() - pageStart, 0L);
+                        this.rateLimiter.acquire(pageRows, pageBytes);
+                        pageRows = 0;
+                        pageBytes = 0;
+                        pageStart = System.nanoTime();
+                        readEvent = TransferEvents.begin(TransferEvents.Phase.READ, tableName);
+                    }
+                }
+            }
+            readEvent.end(pageRows, pageBytes);
+            if (pageRows > 0) {
+                this.transferListener.onBatch(tableName, pageRows, pageBytes, System.nanoTime() - pageStart, 0L);
+            }
+        } finally {
+            if (ObjectUtil.isNotNull(writer)) {
+                writer.close();
+            }
+        }
+        return total;
+    }
+
+    private Table readTable(String tableName) {
+        try {
+            Table table = MetaUtil.getTableMeta(this.sourceProvider.getDataSource(), tableName);
+            if (ObjectUtil.isEmpty(table.getColumns())) {
+                table = MetaUtil.getTableMeta(this.sourceProvider.getDataSource(), tableName.toUpperCase());
+            }
+            return ObjectUtil.isEmpty(table.getColumns()) ? null : table;
+        } catch (Exception e) {
+            log.warn("Read table {} metadata failed: {}", tableName, e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.haosmart.mysqltoall.file;
+
+import cn.hutool.db.Db;
+import cn.hutool.db.Entity;
+import cn.hutool.db.meta.Column;
+import cn.hutool.db.meta.Table;
+import com.haosmart.mysqltoall.ExecuteStrategy;
+import com.haosmart.mysqltoall.ddl.DdlProvider;
+import com.haosmart.mysqltoall.metrics.TransferEvent;
+import com.haosmart.mysqltoall.metrics.TransferEvents;
+import com.haosmart.mysqltoall.transfer.BisectingBatchWriter;
+import com.haosmart.mysqltoall.transfer.RowTransferPlan;
+import com.haosmart.mysqltoall.transfer.TransferListener;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 数据导入器：按导出清单以内存映射方式读取数据文件，转换为目标方言后批量写入目标表
+ *
+ * @author fujunhao
+ */
+@Slf4j
+public class FileLoader {
+
+    private final Connection connection;
+
+    private final DdlProvider ddlProvider;
+
+    private final ExecuteStrategy executeStrategy;
+
+    private final TransferListener transferListener;
+
+    private final ChunkFormat format;
+
+    public FileLoader(@NonNull Connection connection, @NonNull DdlProvider ddlProvider, @NonNull ExecuteStrategy executeStrategy, @NonNull TransferListener transferListener,
+                      @NonNull ChunkFormat format) {
+        this.connection = connection;
+        this.ddlProvider = ddlProvider;
+        this.executeStrategy = executeStrategy;
+        this.transferListener = transferListener;
+        this.format = format;
+    }
+
+    /**
+     * 导入单张表的全部数据文件
+     *
+     * @param directory 导出目录
+     * @param entry     清单中的表
+     * @param fromTable 由清单还原的来源表对象
+     * @param toTable   目标表对象
+     * @return 导入的记录数
+     */
+    public long load(@NonNull File directory, @NonNull ExportManifest.TableEntry entry, @NonNull Table fromTable, @NonNull Table toTable) throws IOException, SQLException {
+        RowTransferPlan plan = RowTransferPlan.build(fromTable, toTable, this.ddlProvider);
+        BisectingBatchWriter writer = new BisectingBatchWriter(this.connection, this.ddlProvider, this.executeStrategy, entry.getTableName(), this.transferListener);
+        Db db = Db.use(this.connection);
+        Column[] columns = fromTable.getColumns().toArray(new Column[0]);
+        int pageSize = Math.max(1, this.executeStrategy.getDataPageSize());
+        String tableName = entry.getTableName();
+        long total = 0;
+        for (String chunk : entry.getChunks()) {
+            try (ChunkReader reader = this.format.openReader(new File(directory, chunk).toPath(), columns)) {
+                List<Entity> toList = new ArrayList<>(pageSize);
+                long readStart = System.nanoTime();
+                TransferEvent readEvent = TransferEvents.begin(TransferEvents.Phase.READ, tableName);
+                Object[] values;
+                while ((values = reader.read()) != null) {
+                    Entity fromEntity = new Entity();
+                    for (int i = 0; i < columns.length; i++) {
+                        fromEntity.set(columns[i].getName(), values[i]);
+                    }
+                    toList.add(plan.convert(fromEntity));
+                    if (toList.size() >= pageSize) {
+                        readEvent.end(toList.size(), 0L);
+                        this.write(db, writer, tableName, toList, System.nanoTime() - readStart);
+                        total += toList.size();
+                        toList = new ArrayList<>(pageSize);
+                        readStart = System.nanoTime();
+                        readEvent = TransferEvents.begin(TransferEvents.Phase.READ, tableName);
+                    }
+                }
+                readEvent.end(toList.size(), 0L);
+                if (!toList.isEmpty()) {
+                    this.write(db, writer, tableName, toList, System.nanoTime() - readStart);
+                    total += toList.size();
+                }
+            }
+            log.info("Table {} chunk {} loaded, records:{}/{}", tableName, chunk, total, entry.getRecordCount());
+        }
+        if (writer.getRejectedCount() > 0) {
+            log.warn("Table {} load finished, total records:{} rejected:{}", tableName, total, writer.getRejectedCount());
+        } else {
+            log.warn("Table {} load succeed, total records:{}", tableName, total);
+        }
+        return total;
+    }
+
+    private void write(Db db, BisectingBatchWriter writer, String tableName, List<Entity> toList, long readNanos) throws SQLException {
+        long writeStart = System.nanoTime();
+        TransferEvent writeEvent = TransferEvents.begin(TransferEvents.Phase.WRITE, tableName);
+        writer.write(db, toList);
+        writeEvent.end(toList.size(), 0L);
+        this.transferListener.onBatch(tableName, toList.size(), 0L, readNanos, System.nanoTime() - writeStart);
+    }
+}
@@ -0,0 +1,108 @@
+package com.haosmart.mysqltoall.metrics;
+
+import com.haosmart.mysqltoall.enumration.ActionType;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR事件定义，仅在{@link TransferEvents}确认JFR可用后加载，可在JMC中按mysqlToAll分类查看
+ *
+ * @author fujunhao
+ */
+final class JfrTransferEvents {
+
+    private JfrTransferEvents() {
+    }
+
+    static TransferEvent begin(TransferEvents.Phase phase, String tableName) {
+        AbstractTransferEvent event;
+        switch (phase) {
+            case READ:
+                event = new BatchReadEvent();
+                break;
+            case CONVERT:
+                event = new BatchConvertEvent();
+                break;
+            case WRITE:
+                event = new BatchWriteEvent();
+                break;
+            default:
+                event = new CommitEvent();
+                break;
+        }
+        return event.start(tableName);
+    }
+
+    static TransferEvent ddl(ActionType actionType, String tableName) {
+        DdlEvent event = new DdlEvent();
+        event.action = actionType.name();
+        return event.start(tableName);
+    }
+
+    @Category({"mysqlToAll", "Transfer"})
+    @StackTrace(false)
+    abstract static class AbstractTransferEvent extends Event implements TransferEvent {
+
+        @Label("Table Name")
+        String tableName;
+
+        @Label("Rows")
+        long rows;
+
+        @Label("Bytes")
+        @DataAmount
+        long bytes;
+
+        TransferEvent start(String tableName) {
+            if (!this.isEnabled()) {
+                return NOOP;
+            }
+            this.tableName = tableName;
+            this.begin();
+            return this;
+        }
+
+        @Override
+        public void end(long rows, long bytes) {
+            this.end();
+            if (this.shouldCommit()) {
+                this.rows = rows;
+                this.bytes = bytes;
+                this.commit();
+            }
+        }
+    }
+
+    @Name("com.haosmart.mysqltoall.BatchRead")
+    @Label("Batch Read")
+    static class BatchReadEvent extends AbstractTransferEvent {
+    }
+
+    @Name("com.haosmart.mysqltoall.BatchConvert")
+    @Label("Batch Convert")
+    static class BatchConvertEvent extends AbstractTransferEvent {
+    }
+
+    @Name("com.haosmart.mysqltoall.BatchWrite")
+    @Label("Batch Write")
+    static class BatchWriteEvent extends AbstractTransferEvent {
+    }
+
+    @Name("com.haosmart.mysqltoall.Commit")
+    @Label("Commit")
+    static class CommitEvent extends AbstractTransferEvent {
+    }
+
+    @Name("com.haosmart.mysqltoall.Ddl")
+    @Label("DDL")
+    @Category({"mysqlToAll", "DDL"})
+    static class DdlEvent extends AbstractTransferEvent {
+
+        @Label("Action")
+        String action;
+    }
+}
@@ -0,0 +1,226 @@
+package com.haosmart.mysqltoall.metrics;
+
+import cn.hutool.core.date.DateUtil;
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.text.CharSequenceUtil;
+import cn.hutool.core.thread.NamedThreadFactory;
+import cn.hutool.json.JSONArray;
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+import com.haosmart.mysqltoall.transfer.TransferListener;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Date;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 同步进度报告，根据表记录数及近期吞吐（指数加权平均）预测剩余时间，定期输出日志并写入JSON状态文件，
+ * 状态文件包含整体进度、各Worker当前同步的表、行/秒及预计完成时间
+ *
+ * @author fujunhao
+ */
+@Slf4j
+public class ProgressReporter implements TransferListener {
+
+    /**
+     * 近期吞吐的平滑系数
+     */
+    private final static double ALPHA = 0.3D;
+
+    /**
+     * 单表进度
+     */
+    private static class TableProgress {
+
+        private final String tableName;
+
+        private final long recordCount;
+
+        private final LongAdder rows = new LongAdder();
+
+        TableProgress(String tableName, long recordCount) {
+            this.tableName = tableName;
+            this.recordCount = recordCount;
+        }
+    }
+
+    private final File file;
+
+    private final long intervalSeconds;
+
+    /**
+     * Worker线程名到当前表的映射
+     */
+    private final Map<String, TableProgress> workers = new ConcurrentHashMap<>(16);
+
+    private final AtomicInteger totalTables = new AtomicInteger();
+
+    private final AtomicInteger finishedTables = new AtomicInteger();
+
+    private final AtomicInteger failedTables = new AtomicInteger();
+
+    private final LongAdder totalRecords = new LongAdder();
+
+    /**
+     * 已完成的记录数，表结束时不足预计记录数的部分一并计入
+     */
+    private final LongAdder completedRecords = new LongAdder();
+
+    private final LongAdder transferredRecords = new LongAdder();
+
+    private final LongAdder transferredBytes = new LongAdder();
+
+    private ScheduledExecutorService scheduler;
+
+    private volatile String status = "PENDING";
+
+    private volatile long startMillis;
+
+    private long lastNanos;
+
+    private long lastRecords;
+
+    private double rowsPerSecond = -1D;
+
+    public ProgressReporter(String path, long intervalSeconds) {
+        this.file = CharSequenceUtil.isBlank(path) ? null : FileUtil.file(path);
+        this.intervalSeconds = Math.max(1L, intervalSeconds);
+    }
+
+    @Override
+    public synchronized void onRunStart(int tableCount, long recordCount) {
+        this.totalTables.addAndGet(tableCount);
+        this.totalRecords.add(recordCount);
+        this.status = "RUNNING";
+        if (this.scheduler == null) {
+            this.startMillis = System.currentTimeMillis();
+            this.lastNanos = System.nanoTime();
+            this.lastRecords = this.completedRecords.sum();
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("progress-reporter-", true));
+            this.scheduler.scheduleWithFixedDelay(this::report, this.intervalSeconds, this.intervalSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    @Override
+    public synchronized void onRunFinish(boolean success) {
+        if (this.scheduler != null) {
+            this.scheduler.shutdownNow();
+            this.scheduler = null;
+        }
+        this.status = success ? "SUCCEEDED" : "FAILED";
+        this.report();
+    }
+
+    @Override
+    public void onTableStart(String tableName, long recordCount) {
+        this.workers.put(Thread.currentThread().getName(), new TableProgress(tableName, recordCount));
+    }
+
+    @Override
+    public void onBatch(String tableName, int rows, long bytes, long readNanos, long writeNanos) {
+        //调用方均以来源表名回调，忽略大小写以兼容目标库转换标识符大小写的情况，避免同一批次既计入表进度又在表结束时补足
+        TableProgress progress = this.workers.get(Thread.currentThread().getName());
+        if (progress != null && CharSequenceUtil.equalsIgnoreCase(progress.tableName, tableName)) {
+            progress.rows.add(rows);
+        }
+        this.completedRecords.add(rows);
+        this.transferredRecords.add(rows);
+        this.transferredBytes.add(bytes);
+    }
+
+    @Override
+    public void onTableFinish(String tableName, boolean success) {
+        TableProgress progress = this.workers.remove(Thread.currentThread().getName());
+        if (progress != null) {
+            //过滤条件、拒绝记录或同步失败导致的不足部分视为已完成，避免剩余时间无法收敛
+            this.completedRecords.add(Math.max(0L, progress.recordCount - progress.rows.sum()));
+        }
+        this.finishedTables.incrementAndGet();
+        if (!success) {
+            this.failedTables.incrementAndGet();
+        }
+    }
+
+    /**
+     * 输出进度日志并写入状态文件
+     */
+    public synchronized void report() {
+        try {
+            JSONObject snapshot = this.snapshot();
+            log.warn("Progress {}% tables:{}/{} records:{}/{} rows/s:{} eta:{}", snapshot.get("percent"), snapshot.get("finishedTables"), snapshot.get("totalTables"),
+                    snapshot.get("transferredRecords"), snapshot.get("totalRecords"), snapshot.get("rowsPerSecond"), snapshot.getStr("eta", "-"));
+            if (this.file != null) {
+                File temp = FileUtil.file(this.file.getAbsoluteFile().getParentFile(), this.file.getName() + ".tmp");
+                FileUtil.writeString(snapshot.toStringPretty(), temp, StandardCharsets.UTF_8);
+                Files.move(temp.toPath(), this.file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+        } catch (Exception e) {
+            log.warn("Report progress failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 生成当前进度快照
+     *
+     * @return 进度快照
+     */
+    public synchronized JSONObject snapshot() {
+        long now = System.nanoTime();
+        long completed = this.completedRecords.sum();
+        long transferred = this.transferredRecords.sum();
+        long transferredBytes = this.transferredBytes.sum();
+        long total = Math.max(this.totalRecords.sum(), completed);
+        double seconds = (now - this.lastNanos) / 1_000_000_000D;
+        if (seconds > 0D) {
+            double current = (completed - this.lastRecords) / seconds;
+            this.rowsPerSecond = this.rowsPerSecond < 0D ? current : ALPHA * current + (1 - ALPHA) * this.rowsPerSecond;
+            this.lastNanos = now;
+            this.lastRecords = completed;
+        }
+        long elapsedMillis = this.startMillis == 0L ? 0L : System.currentTimeMillis() - this.startMillis;
+        double percent = total == 0L ? ("SUCCEEDED".equals(this.status) ? 100D : 0D) : completed * 100D / total;
+        JSONObject snapshot = JSONUtil.createObj()
+                .set("status", this.status)
+                .set("updateTime", DateUtil.formatDateTime(new Date()))
+                .set("elapsedSeconds", elapsedMillis / 1000)
+                .set("totalTables", this.totalTables.get())
+                .set("finishedTables", this.finishedTables.get())
+                .set("failedTables", this.failedTables.get())
+                .set("totalRecords", total)
+                .set("transferredRecords", transferred)
+                .set("transferredBytes", transferredBytes)
+                .set("percent", Math.round(percent * 100) / 100D)
+                .set("rowsPerSecond", Math.max(0L, Math.round(this.rowsPerSecond)))
+                .set("bytesPerSecond", elapsedMillis == 0L ? 0L : transferredBytes * 1000 / elapsedMillis);
+        if ("RUNNING".equals(this.status) && this.rowsPerSecond > 0D) {
+            long etaSeconds = (long) ((total - completed) / this.rowsPerSecond);
+            snapshot.set("etaSeconds", etaSeconds)
+                    .set("eta", DateUtil.secondToTime((int) Math.min(Integer.MAX_VALUE, etaSeconds)))
+                    .set("estimatedFinishTime", DateUtil.formatDateTime(new Date(System.currentTimeMillis() + etaSeconds * 1000)));
+        }
+        JSONArray workers = JSONUtil.createArray();
+        for (Map.Entry<String, TableProgress> entry : new TreeMap<>(this.workers).entrySet()) {
+            TableProgress progress = entry.getValue();
+            long rows = progress.rows.sum();
+            workers.add(JSONUtil.createObj()
+                    .set("worker", entry.getKey())
+                    .set("table", progress.tableName)
+                    .set("tableRecords", progress.recordCount)
+                    .set("tableTransferred", rows)
+                    .set("tablePercent", progress.recordCount <= 0L ? 0D : Math.round(rows * 10000D / progress.recordCount) / 100D));
+        }
+        snapshot.set("workers", workers);
+        return snapshot;
+    }
+}
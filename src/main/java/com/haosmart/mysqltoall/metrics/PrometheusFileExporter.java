@@ -0,0 +1,136 @@
+package com.haosmart.mysqltoall.metrics;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.text.CharSequenceUtil;
+import cn.hutool.core.thread.NamedThreadFactory;
+import com.haosmart.mysqltoall.transfer.TransferListener;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+
+/**
+ * 将同步指标按Prometheus文本格式定期写入文件，可配合node_exporter的textfile收集器使用；先写临时文件再替换，避免读取到不完整的内容
+ *
+ * @author fujunhao
+ */
+@Slf4j
+public class PrometheusFileExporter implements TransferListener {
+
+    private final static String PREFIX = "mysqltoall_";
+
+    private final TransferMetrics metrics;
+
+    private final File file;
+
+    private final long intervalSeconds;
+
+    private ScheduledExecutorService scheduler;
+
+    public PrometheusFileExporter(TransferMetrics metrics, String path, long intervalSeconds) {
+        this.metrics = metrics;
+        this.file = FileUtil.file(path);
+        this.intervalSeconds = Math.max(1L, intervalSeconds);
+    }
+
+    @Override
+    public synchronized void onRunStart(int tableCount, long recordCount) {
+        if (this.scheduler == null) {
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("metrics-exporter-", true));
+            this.scheduler.scheduleWithFixedDelay(this::write, 0, this.intervalSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    @Override
+    public synchronized void onRunFinish(boolean success) {
+        if (this.scheduler != null) {
+            this.scheduler.shutdownNow();
+            this.scheduler = null;
+        }
+        this.write();
+    }
+
+    /**
+     * 写入指标文件
+     */
+    public synchronized void write() {
+        try {
+            File temp = FileUtil.file(this.file.getAbsoluteFile().getParentFile(), this.file.getName() + ".tmp");
+            FileUtil.writeString(this.format(), temp, StandardCharsets.UTF_8);
+            Files.move(temp.toPath(), this.file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (Exception e) {
+            log.warn("Write metrics file {} failed: {}", this.file, e.getMessage());
+        }
+    }
+
+    /**
+     * 按Prometheus文本格式输出指标
+     *
+     * @return 指标文本
+     */
+    public String format() {
+        StringBuilder builder = new StringBuilder(4096);
+        gauge(builder, "tables_total", "Tables to transfer", this.metrics.getTotalTables());
+        gauge(builder, "tables_pending", "Tables waiting for a worker", this.metrics.getPendingTables());
+        gauge(builder, "tables_active", "Tables being transferred", this.metrics.getActiveTables());
+        gauge(builder, "tables_finished", "Tables finished", this.metrics.getFinishedTables());
+        gauge(builder, "tables_failed", "Tables failed", this.metrics.getFailedTables());
+        gauge(builder, "records_expected", "Records expected to transfer", this.metrics.getTotalRecords());
+        gauge(builder, "rows_per_second", "Average rows per second", this.metrics.getRowsPerSecond());
+        gauge(builder, "bytes_per_second", "Average bytes per second", this.metrics.getBytesPerSecond());
+        gauge(builder, "read_ratio", "Share of batch time spent reading the source", this.metrics.getReadRatio());
+
+        Map<String, TransferMetrics.TableMetrics> tables = this.metrics.getTables();
+        counter(builder, "rows_total", "Rows written to the target", this.metrics.getRowsTransferred(), tables, t -> t.getRows().sum());
+        counter(builder, "bytes_total", "Estimated bytes written to the target", this.metrics.getBytesTransferred(), tables, t -> t.getBytes().sum());
+        counter(builder, "batches_total", "Batches written to the target", this.metrics.getBatchCount(), tables, t -> t.getBatches().sum());
+        counter(builder, "read_seconds_total", "Time spent reading the source", this.metrics.getReadMillis() / 1000D, tables, t -> t.getReadNanos().sum());
+        counter(builder, "write_seconds_total", "Time spent writing the target", this.metrics.getWriteMillis() / 1000D, tables, t -> t.getWriteNanos().sum());
+        counter(builder, "ddl_seconds_total", "Time spent executing DDL", this.metrics.getDdlMillis() / 1000D, tables, t -> t.getDdlNanos().sum());
+        counter(builder, "metadata_seconds_total", "Time spent reading metadata", this.metrics.getMetadataMillis() / 1000D, tables, t -> t.getMetadataNanos().sum());
+        counter(builder, "retries_total", "Batch retries", this.metrics.getRetryCount(), tables, t -> t.getRetries().sum());
+        counter(builder, "rejected_rows_total", "Rows written to the dead letter file", this.metrics.getRejectedRows(), tables, t -> t.getRejected().sum());
+        return builder.toString();
+    }
+
+    private static void gauge(StringBuilder builder, String name, String help, Number value) {
+        header(builder, name, help, "gauge");
+        builder.append(PREFIX).append(name).append(' ').append(value).append('\n');
+    }
+
+    /**
+     * 输出汇总值及按表的明细，以{@code _seconds_total}结尾的明细值为纳秒，输出时换算为秒
+     */
+    private static void counter(StringBuilder builder, String name, String help, Number total, Map<String, TransferMetrics.TableMetrics> tables,
+                                ToLongFunction<TransferMetrics.TableMetrics> tableValue) {
+        header(builder, name, help, "counter");
+        builder.append(PREFIX).append(name).append(' ').append(total).append('\n');
+        if (tables.isEmpty()) {
+            return;
+        }
+        boolean seconds = name.endsWith("_seconds_total");
+        String tableName = "table_" + name;
+        header(builder, tableName, help + " per table", "counter");
+        for (Map.Entry<String, TransferMetrics.TableMetrics> entry : tables.entrySet()) {
+            long value = tableValue.applyAsLong(entry.getValue());
+            builder.append(PREFIX).append(tableName).append("{table=\"").append(escape(entry.getKey())).append("\"} ")
+                    .append(seconds ? String.valueOf(value / 1_000_000_000D) : String.valueOf(value)).append('\n');
+        }
+    }
+
+    private static void header(StringBuilder builder, String name, String help, String type) {
+        builder.append("# HELP ").append(PREFIX).append(name).append(' ').append(help).append('\n');
+        builder.append("# TYPE ").append(PREFIX).append(name).append(' ').append(type).append('\n');
+    }
+
+    private static String escape(String value) {
+        return CharSequenceUtil.replace(CharSequenceUtil.replace(value, "\\", "\\\\"), "\"", "\\\"");
+    }
+}
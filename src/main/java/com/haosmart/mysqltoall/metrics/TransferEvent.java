@@ -0,0 +1,23 @@
+package com.haosmart.mysqltoall.metrics;
+
+/**
+ * 同步阶段事件，创建时开始计时，{@link #end(long, long)}时结束并提交
+ *
+ * @author fujunhao
+ */
+public interface TransferEvent {
+
+    /**
+     * 不记录的空事件
+     */
+    TransferEvent NOOP = (rows, bytes) -> {
+    };
+
+    /**
+     * 结束并提交事件
+     *
+     * @param rows  处理的记录数，DDL阶段为语句数
+     * @param bytes 处理的字节数（估算）
+     */
+    void end(long rows, long bytes);
+}
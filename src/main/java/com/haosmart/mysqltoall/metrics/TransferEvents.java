@@ -0,0 +1,72 @@
+package com.haosmart.mysqltoall.metrics;
+
+import com.haosmart.mysqltoall.enumration.ActionType;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * JDK Flight Recorder事件入口，运行环境不支持JFR（低于8u262的JDK 8）时返回空事件；JFR未录制时事件开销可忽略
+ *
+ * @author fujunhao
+ */
+@Slf4j
+public final class TransferEvents {
+
+    /**
+     * 同步阶段
+     */
+    public enum Phase {
+        /**
+         * 来源读取
+         */
+        READ,
+        /**
+         * 行转换
+         */
+        CONVERT,
+        /**
+         * 目标写入
+         */
+        WRITE,
+        /**
+         * 事务提交
+         */
+        COMMIT
+    }
+
+    private final static boolean AVAILABLE = isAvailable();
+
+    private TransferEvents() {
+    }
+
+    /**
+     * 开始同步阶段事件
+     *
+     * @param phase     同步阶段
+     * @param tableName 表名
+     * @return 事件
+     */
+    public static TransferEvent begin(Phase phase, String tableName) {
+        return AVAILABLE ? JfrTransferEvents.begin(phase, tableName) : TransferEvent.NOOP;
+    }
+
+    /**
+     * 开始DDL事件
+     *
+     * @param actionType 操作类型
+     * @param tableName  表名
+     * @return 事件
+     */
+    public static TransferEvent ddl(ActionType actionType, String tableName) {
+        return AVAILABLE ? JfrTransferEvents.ddl(actionType, tableName) : TransferEvent.NOOP;
+    }
+
+    private static boolean isAvailable() {
+        try {
+            Class.forName("jdk.jfr.Event");
+            return true;
+        } catch (Throwable e) {
+            log.debug("JDK Flight Recorder is not available, transfer events disabled");
+            return false;
+        }
+    }
+}
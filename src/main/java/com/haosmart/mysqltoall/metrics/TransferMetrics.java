@@ -0,0 +1,314 @@
+package com.haosmart.mysqltoall.metrics;
+
+import cn.hutool.core.text.CharSequenceUtil;
+import com.haosmart.mysqltoall.enumration.ActionType;
+import com.haosmart.mysqltoall.transfer.TransferListener;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 同步指标，作为监听器汇总整体及单表的吞吐、读写耗时、DDL及元数据耗时、重试及拒绝记录，可注册为JMX MBean；
+ * 指标在执行器生命周期内累计，多次同步时速率按首次同步开始计算
+ *
+ * @author fujunhao
+ */
+@Slf4j
+public class TransferMetrics implements TransferListener, TransferMetricsMBean {
+
+    private final static String OBJECT_NAME = "com.haosmart.mysqltoall:type=TransferMetrics,name={}";
+
+    /**
+     * 单表指标
+     */
+    @Getter
+    public static class TableMetrics {
+
+        private final long recordCount;
+
+        private final LongAdder rows = new LongAdder();
+
+        private final LongAdder bytes = new LongAdder();
+
+        private final LongAdder batches = new LongAdder();
+
+        private final LongAdder readNanos = new LongAdder();
+
+        private final LongAdder writeNanos = new LongAdder();
+
+        private final LongAdder ddlNanos = new LongAdder();
+
+        private final LongAdder metadataNanos = new LongAdder();
+
+        private final LongAdder retries = new LongAdder();
+
+        private final LongAdder rejected = new LongAdder();
+
+        TableMetrics(long recordCount) {
+            this.recordCount = recordCount;
+        }
+    }
+
+    private final Map<String, TableMetrics> tables = new ConcurrentHashMap<>(16);
+
+    private final Map<String, Boolean> activeTables = new ConcurrentHashMap<>(16);
+
+    private final AtomicInteger totalTables = new AtomicInteger();
+
+    private final AtomicInteger startedTables = new AtomicInteger();
+
+    private final AtomicInteger finishedTables = new AtomicInteger();
+
+    private final AtomicInteger failedTables = new AtomicInteger();
+
+    private final LongAdder totalRecords = new LongAdder();
+
+    private final LongAdder rows = new LongAdder();
+
+    private final LongAdder bytes = new LongAdder();
+
+    private final LongAdder batches = new LongAdder();
+
+    private final LongAdder readNanos = new LongAdder();
+
+    private final LongAdder writeNanos = new LongAdder();
+
+    private final LongAdder ddlNanos = new LongAdder();
+
+    private final LongAdder metadataNanos = new LongAdder();
+
+    private final LongAdder retries = new LongAdder();
+
+    private final LongAdder rejected = new LongAdder();
+
+    private volatile long startNanos = -1L;
+
+    private volatile long finishNanos = -1L;
+
+    /**
+     * 注册为JMX MBean，同名MBean已存在时替换
+     *
+     * @param name MBean名称
+     */
+    public void register(String name) {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ObjectName objectName = new ObjectName(CharSequenceUtil.format(OBJECT_NAME, ObjectName.quote(name)));
+            try {
+                server.registerMBean(this, objectName);
+            } catch (InstanceAlreadyExistsException e) {
+                server.unregisterMBean(objectName);
+                server.registerMBean(this, objectName);
+            }
+        } catch (Exception e) {
+            log.warn("Register transfer metrics MBean {} failed: {}", name, e.getMessage());
+        }
+    }
+
+    /**
+     * 获取单表指标
+     *
+     * @return 表名到单表指标的映射
+     */
+    public Map<String, TableMetrics> getTables() {
+        return this.tables;
+    }
+
+    @Override
+    public void onRunStart(int tableCount, long recordCount) {
+        this.totalTables.addAndGet(tableCount);
+        this.totalRecords.add(recordCount);
+        if (this.startNanos == -1L) {
+            this.startNanos = System.nanoTime();
+        }
+        this.finishNanos = -1L;
+    }
+
+    @Override
+    public void onRunFinish(boolean success) {
+        this.finishNanos = System.nanoTime();
+    }
+
+    @Override
+    public void onTableStart(String tableName, long recordCount) {
+        this.startedTables.incrementAndGet();
+        this.activeTables.put(tableName, Boolean.TRUE);
+        this.tables.computeIfAbsent(tableName, t -> new TableMetrics(recordCount));
+    }
+
+    @Override
+    public void onBatch(String tableName, int rows, long bytes, long readNanos, long writeNanos) {
+        this.rows.add(rows);
+        this.bytes.add(bytes);
+        this.batches.increment();
+        this.readNanos.add(readNanos);
+        this.writeNanos.add(writeNanos);
+        TableMetrics table = this.table(tableName);
+        table.rows.add(rows);
+        table.bytes.add(bytes);
+        table.batches.increment();
+        table.readNanos.add(readNanos);
+        table.writeNanos.add(writeNanos);
+    }
+
+    @Override
+    public void onTableFinish(String tableName, boolean success) {
+        this.activeTables.remove(tableName);
+        this.finishedTables.incrementAndGet();
+        if (!success) {
+            this.failedTables.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void onDdl(String tableName, ActionType actionType, long nanos) {
+        this.ddlNanos.add(nanos);
+        this.table(tableName).ddlNanos.add(nanos);
+    }
+
+    @Override
+    public void onMetadata(String tableName, long nanos) {
+        this.metadataNanos.add(nanos);
+        if (CharSequenceUtil.isNotBlank(tableName)) {
+            this.table(tableName).metadataNanos.add(nanos);
+        }
+    }
+
+    @Override
+    public void onRetry(String tableName, Throwable cause) {
+        this.retries.increment();
+        this.table(tableName).retries.increment();
+    }
+
+    @Override
+    public void onReject(String tableName, int rows) {
+        this.rejected.add(rows);
+        this.table(tableName).rejected.add(rows);
+    }
+
+    private TableMetrics table(String tableName) {
+        return this.tables.computeIfAbsent(tableName, t -> new TableMetrics(-1L));
+    }
+
+    @Override
+    public int getTotalTables() {
+        return this.totalTables.get();
+    }
+
+    @Override
+    public int getPendingTables() {
+        return Math.max(0, this.totalTables.get() - this.startedTables.get());
+    }
+
+    @Override
+    public int getActiveTables() {
+        return this.activeTables.size();
+    }
+
+    @Override
+    public int getFinishedTables() {
+        return this.finishedTables.get();
+    }
+
+    @Override
+    public int getFailedTables() {
+        return this.failedTables.get();
+    }
+
+    @Override
+    public String[] getActiveTableNames() {
+        return this.activeTables.keySet().toArray(new String[0]);
+    }
+
+    @Override
+    public long getTotalRecords() {
+        return this.totalRecords.sum();
+    }
+
+    @Override
+    public long getRowsTransferred() {
+        return this.rows.sum();
+    }
+
+    @Override
+    public long getBytesTransferred() {
+        return this.bytes.sum();
+    }
+
+    @Override
+    public long getBatchCount() {
+        return this.batches.sum();
+    }
+
+    @Override
+    public double getRowsPerSecond() {
+        return this.perSecond(this.rows.sum());
+    }
+
+    @Override
+    public double getBytesPerSecond() {
+        return this.perSecond(this.bytes.sum());
+    }
+
+    @Override
+    public long getReadMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(this.readNanos.sum());
+    }
+
+    @Override
+    public long getWriteMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(this.writeNanos.sum());
+    }
+
+    @Override
+    public double getReadRatio() {
+        long read = this.readNanos.sum();
+        long total = read + this.writeNanos.sum();
+        return total == 0 ? 0D : (double) read / total;
+    }
+
+    @Override
+    public long getDdlMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(this.ddlNanos.sum());
+    }
+
+    @Override
+    public long getMetadataMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(this.metadataNanos.sum());
+    }
+
+    @Override
+    public long getRetryCount() {
+        return this.retries.sum();
+    }
+
+    @Override
+    public long getRejectedRows() {
+        return this.rejected.sum();
+    }
+
+    /**
+     * @return 同步已运行的秒数
+     */
+    public double getElapsedSeconds() {
+        if (this.startNanos == -1L) {
+            return 0D;
+        }
+        long end = this.finishNanos > -1L ? this.finishNanos : System.nanoTime();
+        return (end - this.startNanos) / 1_000_000_000D;
+    }
+
+    private double perSecond(long value) {
+        double seconds = this.getElapsedSeconds();
+        return seconds <= 0D ? 0D : value / seconds;
+    }
+}
@@ -0,0 +1,104 @@
+package com.haosmart.mysqltoall.metrics;
+
+/**
+ * 同步指标JMX接口
+ *
+ * @author fujunhao
+ */
+public interface TransferMetricsMBean {
+
+    /**
+     * @return 本次同步的表数量
+     */
+    int getTotalTables();
+
+    /**
+     * @return 等待同步的表数量（队列深度）
+     */
+    int getPendingTables();
+
+    /**
+     * @return 正在同步的表数量
+     */
+    int getActiveTables();
+
+    /**
+     * @return 已完成的表数量
+     */
+    int getFinishedTables();
+
+    /**
+     * @return 同步失败的表数量
+     */
+    int getFailedTables();
+
+    /**
+     * @return 正在同步的表名
+     */
+    String[] getActiveTableNames();
+
+    /**
+     * @return 本次同步的预计记录数
+     */
+    long getTotalRecords();
+
+    /**
+     * @return 已同步的记录数
+     */
+    long getRowsTransferred();
+
+    /**
+     * @return 已同步的字节数（估算）
+     */
+    long getBytesTransferred();
+
+    /**
+     * @return 已写入的批次数
+     */
+    long getBatchCount();
+
+    /**
+     * @return 同步开始以来的平均行/秒
+     */
+    double getRowsPerSecond();
+
+    /**
+     * @return 同步开始以来的平均字节/秒
+     */
+    double getBytesPerSecond();
+
+    /**
+     * @return 来源读取累计耗时（毫秒）
+     */
+    long getReadMillis();
+
+    /**
+     * @return 目标写入累计耗时（毫秒）
+     */
+    long getWriteMillis();
+
+    /**
+     * @return 读取耗时占读写总耗时的比例，接近1表示来源为瓶颈，接近0表示目标为瓶颈
+     */
+    double getReadRatio();
+
+    /**
+     * @return DDL累计耗时（毫秒）
+     */
+    long getDdlMillis();
+
+    /**
+     * @return 元数据查询累计耗时（毫秒）
+     */
+    long getMetadataMillis();
+
+    /**
+     * @return 批次重试次数
+     */
+    long getRetryCount();
+
+    /**
+     * @return 拒绝的记录数
+     */
+    long getRejectedRows();
+}
@@ -0,0 +1,143 @@
+package com.haosmart.mysqltoall.transfer;
+
+import cn.hutool.core.util.ObjectUtil;
+import cn.hutool.db.meta.Column;
+import cn.hutool.db.meta.Table;
+import com.haosmart.mysqltoall.ExecuteStrategy;
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * 自适应批次大小控制器，根据单行估算字节数、全局内存预算及实际写入耗时调整每批次的行数
+ *
+ * @author fujunhao
+ */
+public class AdaptiveBatchSizer {
+
+    /**
+     * Entity中每列的额外堆内存开销（Map节点、键、装箱对象）
+     */
+    private static final int COLUMN_OVERHEAD_BYTES = 64;
+
+    /**
+     * 单个批次最多占用全局内存预算的比例的倒数，避免一个Worker占满预算
+     */
+    private static final int BUDGET_SHARE = 4;
+
+    private static final double MAX_GROWTH = 2.0D;
+
+    private static final double MAX_SHRINK = 0.5D;
+
+    private final ExecuteStrategy executeStrategy;
+
+    /**
+     * 单行估算堆内存字节数
+     */
+    @Getter
+    private final long rowBytes;
+
+    private final MemoryBudget memoryBudget;
+
+    private int batchSize;
+
+    public AdaptiveBatchSizer(ExecuteStrategy executeStrategy, long rowBytes, MemoryBudget memoryBudget) {
+        this.executeStrategy = executeStrategy;
+        this.rowBytes = Math.max(1L, rowBytes);
+        this.memoryBudget = memoryBudget;
+        this.batchSize = this.clamp(executeStrategy.getDataPageSize());
+    }
+
+    /**
+     * 估算单行在堆内存中占用的字节数
+     *
+     * @param table        来源表对象
+     * @param avgRowLength 来源库统计的平均行长度，未知时为{@code 0}
+     * @return 单行估算字节数
+     */
+    public static long estimateRowBytes(@NonNull Table table, long avgRowLength) {
+        long columnBytes = 0;
+        int columnCount = 0;
+        if (ObjectUtil.isNotEmpty(table.getColumns())) {
+            for (Column column : table.getColumns()) {
+                columnBytes += estimateColumnBytes(column);
+                columnCount++;
+            }
+        }
+        //字符在堆中按UTF-16存储，统计值按两倍计算
+        long dataBytes = avgRowLength > 0 ? avgRowLength * 2 : columnBytes;
+        return dataBytes + (long) columnCount * COLUMN_OVERHEAD_BYTES;
+    }
+
+    private static long estimateColumnBytes(Column column) {
+        switch (column.getTypeEnum()) {
+            case BIT:
+            case BOOLEAN:
+            case TINYINT:
+            case SMALLINT:
+            case INTEGER:
+            case BIGINT:
+            case REAL:
+            case FLOAT:
+            case DOUBLE:
+                return 8;
+            case DECIMAL:
+            case NUMERIC:
+                return 32;
+            case DATE:
+            case TIME:
+            case TIMESTAMP:
+                return 24;
+            case CHAR:
+            case VARCHAR:
+            case NCHAR:
+            case NVARCHAR:
+                //按定义长度估算
+                return Math.max(16L, column.getSize());
+            default:
+                return 1024;
+        }
+    }
+
+    /**
+     * 获取下一批次的行数
+     *
+     * @return 批次行数
+     */
+    public int nextBatchSize() {
+        if (!this.executeStrategy.isAdaptivePageSize()) {
+            return this.executeStrategy.getDataPageSize();
+        }
+        long budgetRows = this.memoryBudget.getTotalBytes() / BUDGET_SHARE / this.rowBytes;
+        return (int) Math.max(1L, Math.min(this.batchSize, budgetRows));
+    }
+
+    /**
+     * 获取批次占用的估算字节数
+     *
+     * @param batchSize 批次行数
+     * @return 估算字节数
+     */
+    public long estimateBatchBytes(int batchSize) {
+        return batchSize * this.rowBytes;
+    }
+
+    /**
+     * 记录批次写入耗时，按目标耗时以本批次请求的行数为基准调整下一批次的行数；不足请求行数的末批次不参与调整
+     *
+     * @param requestedRows {@link #nextBatchSize()}返回的请求行数，可能已被内存预算限制
+     * @param rows          实际行数
+     * @param elapsedNano   写入耗时（纳秒）
+     */
+    public void record(int requestedRows, int rows, long elapsedNano) {
+        if (!this.executeStrategy.isAdaptivePageSize() || rows < requestedRows || elapsedNano <= 0) {
+            return;
+        }
+        double ratio = this.executeStrategy.getTargetBatchMillis() * 1_000_000D / elapsedNano;
+        ratio = Math.max(MAX_SHRINK, Math.min(MAX_GROWTH, ratio));
+        this.batchSize = this.clamp((int) (requestedRows * ratio));
+    }
+
+    private int clamp(int size) {
+        return Math.max(this.executeStrategy.getMinDataPageSize(), Math.min(this.executeStrategy.getMaxDataPageSize(), size));
+    }
+}
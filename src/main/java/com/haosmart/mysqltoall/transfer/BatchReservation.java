@@ -0,0 +1,39 @@
+package com.haosmart.mysqltoall.transfer;
+
+import lombok.NonNull;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 多个写入端共享的批次内存占用，按写入端数计数，最后一个写入端释放后才归还{@link MemoryBudget}
+ *
+ * @author fujunhao
+ */
+public class BatchReservation {
+
+    private final MemoryBudget memoryBudget;
+
+    private final long bytes;
+
+    private final AtomicInteger references;
+
+    /**
+     * @param memoryBudget 内存预算
+     * @param bytes        {@link MemoryBudget#acquire(long)}返回的字节数
+     * @param references   共享该批次的写入端数
+     */
+    public BatchReservation(@NonNull MemoryBudget memoryBudget, long bytes, int references) {
+        this.memoryBudget = memoryBudget;
+        this.bytes = bytes;
+        this.references = new AtomicInteger(references);
+    }
+
+    /**
+     * 当前写入端不再使用该批次，每个写入端只能调用一次
+     */
+    public void release() {
+        if (this.references.decrementAndGet() == 0) {
+            this.memoryBudget.release(this.bytes);
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.haosmart.mysqltoall.transfer;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.text.CharSequenceUtil;
+import cn.hutool.core.util.ObjectUtil;
+import cn.hutool.db.Db;
+import cn.hutool.db.Entity;
+import cn.hutool.db.sql.SqlUtil;
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+import com.haosmart.mysqltoall.ExecuteStrategy;
+import com.haosmart.mysqltoall.ddl.DdlProvider;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 批量写入器，批次因数据错误失败时二分定位问题行，问题行写入死信文件，其余行继续按批写入；其他错误有限次重试后抛出
+ *
+ * @author fujunhao
+ */
+@Slf4j
+public class BisectingBatchWriter {
+
+    private final Connection connection;
+
+    private final DdlProvider ddlProvider;
+
+    private final ExecuteStrategy executeStrategy;
+
+    private final String tableName;
+
+    /**
+     * 死信文件名（不含扩展名），多目标同步时以目标库id为前缀
+     */
+    private final String deadLetterName;
+
+    private final TransferListener transferListener;
+
+    /**
+     * 批次写入动作
+     */
+    @FunctionalInterface
+    public interface BatchInsert {
+
+        /**
+         * 写入一批数据
+         *
+         * @param rows 待写入的数据
+         */
+        void insert(List<Entity> rows) throws SQLException;
+    }
+
+    /**
+     * 已拒绝的记录数
+     */
+    @Getter
+    private int rejectedCount;
+
+    /**
+     * 已重试的次数
+     */
+    @Getter
+    private int retryCount;
+
+    public BisectingBatchWriter(Connection connection, DdlProvider ddlProvider, ExecuteStrategy executeStrategy, String tableName, TransferListener transferListener) {
+        this(null, connection, ddlProvider, executeStrategy, tableName, transferListener);
+    }
+
+    /**
+     * @param targetId 目标库id，多个目标库写入同一死信目录时用于区分死信文件，可为{@code null}
+     */
+    public BisectingBatchWriter(String targetId, Connection connection, DdlProvider ddlProvider, ExecuteStrategy executeStrategy, String tableName,
+                                TransferListener transferListener) {
+        this.connection = connection;
+        this.ddlProvider = ddlProvider;
+        this.executeStrategy = executeStrategy;
+        this.tableName = tableName;
+        this.deadLetterName = CharSequenceUtil.isBlank(targetId) ? tableName : targetId + "-" + tableName;
+        this.transferListener = transferListener;
+    }
+
+    /**
+     * 写入一批数据
+     *
+     * @param db   数据库对象
+     * @param rows 待写入的数据
+     */
+    public void write(Db db, List<Entity> rows) throws SQLException {
+        this.write(rows, db::insert);
+    }
+
+    /**
+     * 使用指定的写入动作写入一批数据，重试及二分定位时按子批次重复调用；
+     * 数据错误在允许拒绝记录时二分定位问题行，否则直接抛出，其他错误重试{@link ExecuteStrategy#getMaxRetryCount()}次后抛出
+     *
+     * @param rows   待写入的数据
+     * @param insert 写入动作
+     */
+    public void write(List<Entity> rows, BatchInsert insert) throws SQLException {
+        if (ObjectUtil.isEmpty(rows)) {
+            return;
+        }
+        for (int i = 0; ; i++) {
+            try {
+                this.insertWithSavepoint(rows, insert);
+                return;
+            } catch (SQLException e) {
+                if (this.isDataError(e)) {
+                    if (this.executeStrategy.getMaxRejectedRows() == 0) {
+                        throw e;
+                    }
+                    this.bisect(rows, insert, e);
+                    return;
+                }
+                if (i >= this.executeStrategy.getMaxRetryCount()) {
+                    throw e;
+                }
+                this.retryCount++;
+                this.transferListener.onRetry(this.tableName, e);
+                log.warn("Table {} batch insert failed, retry {}/{}: {}", this.tableName, i + 1, this.executeStrategy.getMaxRetryCount(), e.getMessage());
+            }
+        }
+    }
+
+    private void bisect(List<Entity> rows, BatchInsert insert, SQLException cause) throws SQLException {
+        if (rows.size() == 1) {
+            this.reject(rows.get(0), cause);
+            return;
+        }
+        int middle = rows.size() / 2;
+        this.writeOrBisect(rows.subList(0, middle), insert);
+        this.writeOrBisect(rows.subList(middle, rows.size()), insert);
+    }
+
+    private void writeOrBisect(List<Entity> rows, BatchInsert insert) throws SQLException {
+        try {
+            this.insertWithSavepoint(rows, insert);
+        } catch (SQLException e) {
+            if (!this.isDataError(e)) {
+                throw e;
+            }
+            this.bisect(rows, insert, e);
+        }
+    }
+
+    /**
+     * 是否为行数据导致的错误，批量写入的异常可能包装了驱动的原始异常
+     */
+    private boolean isDataError(SQLException e) {
+        Throwable cause = e;
+        while (cause instanceof SQLException) {
+            if (this.ddlProvider.isDataError((SQLException) cause)) {
+                return true;
+            }
+            SQLException next = ((SQLException) cause).getNextException();
+            cause = ObjectUtil.isNotNull(next) ? next : cause.getCause();
+        }
+        return false;
+    }
+
+    /**
+     * 在保存点内写入，失败时仅回滚本批次，不影响共享事务中的其他数据
+     */
+    private void insertWithSavepoint(List<Entity> rows, BatchInsert insert) throws SQLException {
+        SavepointExecutor.execute(this.connection, () -> insert.insert(rows));
+    }
+
+    private void reject(Entity row, SQLException cause) throws SQLException {
+        this.rejectedCount++;
+        this.transferListener.onReject(this.tableName, 1);
+        if (this.rejectedCount == 1 && !this.ddlProvider.handleThrowable(cause, this.tableName)) {
+            log.error("Table {} row rejected: {}", this.tableName, cause.getMessage());
+        }
+        if (CharSequenceUtil.isNotBlank(this.executeStrategy.getDeadLetterPath())) {
+            File file = FileUtil.file(this.executeStrategy.getDeadLetterPath(), this.deadLetterName + ".jsonl");
+            JSONObject line = JSONUtil.createObj()
+                    .set("table", this.tableName)
+                    .set("error", cause.getMessage())
+                    .set("row", this.toDeadLetterRow(row));
+            FileUtil.appendUtf8String(line.toString() + System.lineSeparator(), file);
+        }
+        if (this.executeStrategy.getMaxRejectedRows() > -1 && this.rejectedCount > this.executeStrategy.getMaxRejectedRows()) {
+            throw new SQLException(CharSequenceUtil.format("Table {} rejected rows exceed max:{}", this.tableName, this.executeStrategy.getMaxRejectedRows()), cause);
+        }
+    }
+
+    /**
+     * 大字段以{@link Blob}、{@link Clob}形式写入时，转换为字节数组及字符串后写入死信文件
+     */
+    private Entity toDeadLetterRow(Entity row) throws SQLException {
+        if (row.values().stream().noneMatch(t -> t instanceof Blob || t instanceof Clob)) {
+            return row;
+        }
+        Entity copy = new Entity(row.getTableName());
+        for (Map.Entry<String, Object> field : row.entrySet()) {
+            Object value = field.getValue();
+            if (value instanceof Blob) {
+                value = ((Blob) value).getBytes(1, (int) ((Blob) value).length());
+            } else if (value instanceof Clob) {
+                value = SqlUtil.clobToStr((Clob) value);
+            }
+            copy.set(field.getKey(), value);
+        }
+        return copy;
+    }
+}
@@ -0,0 +1,78 @@
+package com.haosmart.mysqltoall.transfer;
+
+import cn.hutool.core.collection.ListUtil;
+import com.haosmart.mysqltoall.enumration.ActionType;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 组合监听器，依次通知所有监听器，单个监听器异常不影响同步
+ *
+ * @author fujunhao
+ */
+@Slf4j
+public class CompositeTransferListener implements TransferListener {
+
+    private final List<TransferListener> listeners;
+
+    public CompositeTransferListener(List<TransferListener> listeners) {
+        this.listeners = ListUtil.toList(listeners);
+    }
+
+    @Override
+    public void onRunStart(int tableCount, long recordCount) {
+        this.fire(t -> t.onRunStart(tableCount, recordCount));
+    }
+
+    @Override
+    public void onRunFinish(boolean success) {
+        this.fire(t -> t.onRunFinish(success));
+    }
+
+    @Override
+    public void onTableStart(String tableName, long recordCount) {
+        this.fire(t -> t.onTableStart(tableName, recordCount));
+    }
+
+    @Override
+    public void onBatch(String tableName, int rows, long bytes, long readNanos, long writeNanos) {
+        this.fire(t -> t.onBatch(tableName, rows, bytes, readNanos, writeNanos));
+    }
+
+    @Override
+    public void onTableFinish(String tableName, boolean success) {
+        this.fire(t -> t.onTableFinish(tableName, success));
+    }
+
+    @Override
+    public void onDdl(String tableName, ActionType actionType, long nanos) {
+        this.fire(t -> t.onDdl(tableName, actionType, nanos));
+    }
+
+    @Override
+    public void onMetadata(String tableName, long nanos) {
+        this.fire(t -> t.onMetadata(tableName, nanos));
+    }
+
+    @Override
+    public void onRetry(String tableName, Throwable cause) {
+        this.fire(t -> t.onRetry(tableName, cause));
+    }
+
+    @Override
+    public void onReject(String tableName, int rows) {
+        this.fire(t -> t.onReject(tableName, rows));
+    }
+
+    private void fire(Consumer<TransferListener> action) {
+        for (TransferListener listener : this.listeners) {
+            try {
+                action.accept(listener);
+            } catch (Exception e) {
+                log.warn("Transfer listener {} error: {}", listener.getClass().getSimpleName(), e.getMessage());
+            }
+        }
+    }
+}
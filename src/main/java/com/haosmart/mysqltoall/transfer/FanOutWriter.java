@@ -0,0 +1,250 @@
+package com.haosmart.mysqltoall.transfer;
+
+import cn.hutool.core.text.CharSequenceUtil;
+import cn.hutool.db.Db;
+import cn.hutool.db.Entity;
+import com.haosmart.mysqltoall.ExecuteStrategy;
+import com.haosmart.mysqltoall.ddl.DdlProvider;
+import com.haosmart.mysqltoall.metrics.TransferEvent;
+import com.haosmart.mysqltoall.metrics.TransferEvents;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 扇出同步中单个目标的写入器，从有界队列中取出来源批次，按目标方言转换后写入；
+ * 队列满时仅阻塞读取端，配置了溢写目录时改用{@link SpillBuffer}，超出的批次溢写到磁盘而不阻塞读取端；写入失败后不再接收批次，不影响其他目标。
+ * 批次的内存占用在写入完成（或编码进溢写缓冲、被丢弃）后才释放
+ *
+ * @author fujunhao
+ */
+@Slf4j
+public class FanOutWriter implements Runnable {
+
+    /**
+     * 结束标记
+     */
+    private final static Pending END = new Pending(new ArrayList<>(0), null);
+
+    private final static long OFFER_TIMEOUT_MILLIS = 100L;
+
+    private final String targetId;
+
+    private final String tableName;
+
+    private final Connection connection;
+
+    private final RowTransferPlan plan;
+
+    private final BisectingBatchWriter writer;
+
+    private final TransferListener transferListener;
+
+    private final BlockingQueue<Pending> queue;
+
+    /**
+     * 溢写缓冲，未配置溢写目录时为{@code null}
+     */
+    private final SpillBuffer spillBuffer;
+
+    private final CountDownLatch done = new CountDownLatch(1);
+
+    /**
+     * 队列中的批次及其内存占用
+     */
+    private static class Pending {
+
+        private final List<Entity> rows;
+
+        private final BatchReservation reservation;
+
+        private Pending(List<Entity> rows, BatchReservation reservation) {
+            this.rows = rows;
+            this.reservation = reservation;
+        }
+
+        private void release() {
+            if (this.reservation != null) {
+                this.reservation.release();
+            }
+        }
+    }
+
+    /**
+     * 写入失败原因，成功时为{@code null}
+     */
+    @Getter
+    private volatile Throwable failure;
+
+    /**
+     * 已写入的记录数
+     */
+    @Getter
+    private volatile long total;
+
+    public FanOutWriter(String targetId, String tableName, Connection connection, DdlProvider ddlProvider, ExecuteStrategy executeStrategy, @NonNull RowTransferPlan plan,
+                        MemoryBudget memoryBudget, TransferListener transferListener) {
+        this.targetId = targetId;
+        this.tableName = tableName;
+        this.connection = connection;
+        this.plan = plan;
+        this.transferListener = transferListener;
+        this.writer = new BisectingBatchWriter(targetId, connection, ddlProvider, executeStrategy, tableName, transferListener);
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, executeStrategy.getFanOutQueueBatches()));
+        this.spillBuffer = CharSequenceUtil.isBlank(executeStrategy.getSpillDirectory()) ? null
+                : new SpillBuffer(new RowCodec(plan.getFromColumns()), new File(executeStrategy.getSpillDirectory()),
+                targetId + "-" + plan.getToTableName(), executeStrategy.getSpillMemoryBytes(), memoryBudget);
+    }
+
+    /**
+     * 提交一批来源数据，队列满时等待，写入已失败时直接返回；无论是否接收，该批次的内存占用都由当前写入器释放一次
+     *
+     * @param rows        来源数据，各目标共享，不会被修改
+     * @param reservation 批次的内存占用
+     * @return 是否已接收
+     */
+    public boolean offer(List<Entity> rows, @NonNull BatchReservation reservation) throws InterruptedException {
+        if (this.spillBuffer != null) {
+            //溢写缓冲保存的是编码后的副本，写入后即不再引用来源数据
+            try {
+                return this.failure == null && this.spill(rows);
+            } finally {
+                reservation.release();
+            }
+        }
+        return this.enqueue(new Pending(rows, reservation));
+    }
+
+    /**
+     * 来源数据已全部提交
+     */
+    public void finish() throws InterruptedException {
+        if (this.spillBuffer != null) {
+            this.spillBuffer.finish();
+            return;
+        }
+        this.enqueue(END);
+    }
+
+    private boolean enqueue(Pending pending) throws InterruptedException {
+        try {
+            while (this.failure == null) {
+                if (this.queue.offer(pending, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                    //写入端在入队前已失败并清空了队列时，由提交方释放
+                    if (this.failure != null) {
+                        this.releaseQueued();
+                    }
+                    return true;
+                }
+            }
+        } catch (InterruptedException e) {
+            pending.release();
+            throw e;
+        }
+        pending.release();
+        return false;
+    }
+
+    /**
+     * 丢弃队列中未写入的批次并释放内存占用
+     */
+    private void releaseQueued() {
+        Pending pending;
+        while ((pending = this.queue.poll()) != null) {
+            pending.release();
+        }
+    }
+
+    /**
+     * 写入溢写缓冲，溢写失败时仅当前目标失败
+     */
+    private boolean spill(List<Entity> rows) {
+        try {
+            return this.spillBuffer.put(rows);
+        } catch (IOException | SQLException e) {
+            log.error("Target {} table {} spill failed: {}", this.targetId, this.plan.getToTableName(), e.getMessage());
+            this.failure = e;
+            this.spillBuffer.close();
+            return false;
+        }
+    }
+
+    /**
+     * 等待队列中的批次全部写入
+     *
+     * @return 写入失败原因，成功时为{@code null}
+     */
+    public Throwable await() throws InterruptedException {
+        this.done.await();
+        return this.failure;
+    }
+
+    /**
+     * 是否已失败
+     *
+     * @return 是否已失败
+     */
+    public boolean isFailed() {
+        return this.failure != null;
+    }
+
+    /**
+     * 获取已拒绝的记录数
+     *
+     * @return 已拒绝的记录数
+     */
+    public int getRejectedCount() {
+        return this.writer.getRejectedCount();
+    }
+
+    @Override
+    public void run() {
+        Db db = Db.use(this.connection);
+        try {
+            while (true) {
+                Pending pending = this.spillBuffer != null ? new Pending(this.spillBuffer.take(), null) : this.queue.take();
+                if (pending.rows == null || pending == END) {
+                    break;
+                }
+                try {
+                    this.write(db, pending.rows);
+                } finally {
+                    pending.release();
+                }
+            }
+        } catch (Throwable e) {
+            log.error("Target {} table {} fan-out write failed: {}", this.targetId, this.tableName, e.getMessage());
+            this.failure = e;
+            this.releaseQueued();
+        } finally {
+            if (this.spillBuffer != null) {
+                this.spillBuffer.close();
+            }
+            this.done.countDown();
+        }
+    }
+
+    private void write(Db db, List<Entity> fromList) throws SQLException {
+        long writeStart = System.nanoTime();
+        TransferEvent convertEvent = TransferEvents.begin(TransferEvents.Phase.CONVERT, this.tableName);
+        List<Entity> toList = fromList.stream().map(this.plan::convert).collect(Collectors.toList());
+        convertEvent.end(toList.size(), 0L);
+        TransferEvent writeEvent = TransferEvents.begin(TransferEvents.Phase.WRITE, this.tableName);
+        this.writer.write(db, toList);
+        writeEvent.end(toList.size(), 0L);
+        this.total += toList.size();
+        this.transferListener.onBatch(this.tableName, toList.size(), 0L, 0L, System.nanoTime() - writeStart);
+    }
+}
@@ -0,0 +1,243 @@
+package com.haosmart.mysqltoall.transfer;
+
+import cn.hutool.core.text.CharSequenceUtil;
+import cn.hutool.core.util.ObjectUtil;
+import cn.hutool.db.Entity;
+import cn.hutool.db.meta.Column;
+import cn.hutool.db.meta.Table;
+import com.haosmart.mysqltoall.DataSourceProvider;
+import com.haosmart.mysqltoall.ExecuteStrategy;
+import com.haosmart.mysqltoall.config.DbConfig;
+import com.haosmart.mysqltoall.ddl.DdlProvider;
+import com.haosmart.mysqltoall.enumration.DbType;
+import com.haosmart.mysqltoall.metrics.TransferEvent;
+import com.haosmart.mysqltoall.metrics.TransferEvents;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 大字段流式同步，来源端使用只进游标逐行读取，目标端使用带长度的流绑定参数，按字节预算而非固定页大小提交批次，内存占用不超过一个批次的字节预算。
+ * MySQL驱动逐行读取时每行的大字段已在驱动内存中，此处不再额外复制
+ *
+ * @author fujunhao
+ */
+@Slf4j
+public class LobStreamTransfer {
+
+    private final static String INSERT = "insert into {} ({}) values ({})";
+
+    private final static String MYSQL_URL_PREFIX = "jdbc:mysql:";
+
+    private final DataSourceProvider sourceProvider;
+
+    private final Connection connection;
+
+    private final DdlProvider ddlProvider;
+
+    private final ExecuteStrategy executeStrategy;
+
+    private final SourceRateLimiter rateLimiter;
+
+    private final TransferListener transferListener;
+
+    public LobStreamTransfer(DataSourceProvider sourceProvider, Connection connection, DdlProvider ddlProvider, ExecuteStrategy executeStrategy, SourceRateLimiter rateLimiter,
+                             TransferListener transferListener) {
+        this.sourceProvider = sourceProvider;
+        this.connection = connection;
+        this.ddlProvider = ddlProvider;
+        this.executeStrategy = executeStrategy;
+        this.rateLimiter = rateLimiter;
+        this.transferListener = transferListener;
+    }
+
+    /**
+     * 是否包含大字段
+     *
+     * @param table 表对象
+     * @return 是否包含大字段
+     */
+    public static boolean hasLobColumn(@NonNull Table table) {
+        return ObjectUtil.isNotEmpty(table.getColumns()) && table.getColumns().stream().anyMatch(LobStreamTransfer::isLobColumn);
+    }
+
+    /**
+     * 是否为大字段
+     *
+     * @param column 列对象
+     * @return 是否为大字段
+     */
+    public static boolean isLobColumn(@NonNull Column column) {
+        return isBinaryLob(column) || isCharacterLob(column);
+    }
+
+    private static boolean isBinaryLob(Column column) {
+        switch (column.getTypeEnum()) {
+            case BLOB:
+            case LONGVARBINARY:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static boolean isCharacterLob(Column column) {
+        switch (column.getTypeEnum()) {
+            case CLOB:
+            case NCLOB:
+            case LONGVARCHAR:
+            case LONGNVARCHAR:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * 流式同步数据，写入失败的批次按{@link BisectingBatchWriter}重试、二分定位问题行并写入死信文件
+     *
+     * @param tableName 来源表名，用于同步指标
+     * @param querySql  来源查询语句
+     * @param plan      行转换计划
+     * @return 同步的记录数
+     */
+    public long transfer(String tableName, String querySql, @NonNull RowTransferPlan plan) throws SQLException, InterruptedException {
+        String insertSql = CharSequenceUtil.format(INSERT, plan.getToTableName(), String.join(",", plan.getToNames()),
+                CharSequenceUtil.repeatAndJoin("?", plan.getToNames().length, ","));
+        BisectingBatchWriter writer = new BisectingBatchWriter(this.connection, this.ddlProvider, this.executeStrategy, tableName, this.transferListener);
+        long maxBatchBytes = Math.max(1L, this.executeStrategy.getLobBatchBytes());
+        long total = 0;
+        long totalBytes = 0;
+        try (Connection sourceConn = this.sourceProvider.getDataSource().getConnection();
+             PreparedStatement query = sourceConn.prepareStatement(querySql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+             PreparedStatement insert = this.connection.prepareStatement(insertSql)) {
+            query.setFetchSize(getStreamingFetchSize(this.sourceProvider.getConfig()));
+            BisectingBatchWriter.BatchInsert batchInsert = rows -> this.insert(insert, plan, rows);
+            long batchStart = System.nanoTime();
+            TransferEvent readEvent = TransferEvents.begin(TransferEvents.Phase.READ, tableName);
+            try (ResultSet rs = query.executeQuery()) {
+                List<Entity> rows = new ArrayList<>(16);
+                long batchBytes = 0;
+                while (rs.next()) {
+                    Entity row = new Entity(plan.getToTableName());
+                    long rowBytes = this.read(rs, plan, row);
+                    rows.add(row);
+                    this.rateLimiter.acquire(1L, rowBytes);
+                    batchBytes += rowBytes;
+                    total++;
+                    //根据已读取记录的平均大小自适应调整批次行数
+                    totalBytes += rowBytes;
+                    long batchLimit = Math.max(1L, Math.min(this.executeStrategy.getDataPageSize(), maxBatchBytes / Math.max(1L, totalBytes / total)));
+                    if (batchBytes >= maxBatchBytes || rows.size() >= batchLimit) {
+                        readEvent.end(rows.size(), batchBytes);
+                        this.executeBatch(writer, batchInsert, rows, tableName, batchBytes, batchStart);
+                        log.info("Table {} lob data transfer batch processing, rows:{} bytes:{} total:{}", plan.getToTableName(), rows.size(), batchBytes, total);
+                        rows = new ArrayList<>(16);
+                        batchBytes = 0;
+                        batchStart = System.nanoTime();
+                        readEvent = TransferEvents.begin(TransferEvents.Phase.READ, tableName);
+                    }
+                }
+                if (!rows.isEmpty()) {
+                    readEvent.end(rows.size(), batchBytes);
+                    this.executeBatch(writer, batchInsert, rows, tableName, batchBytes, batchStart);
+                }
+            }
+        }
+        if (writer.getRejectedCount() > 0) {
+            log.warn("Table {} lob data transfer rejected records:{}", plan.getToTableName(), writer.getRejectedCount());
+        }
+        return total;
+    }
+
+    /**
+     * 读取一行，未配置值转换器的大字段保留为{@link Blob}、{@link Clob}，写入时以流绑定，不再复制为字节数组或字符串
+     *
+     * @return 行占用的字节数（估算）
+     */
+    private long read(ResultSet rs, RowTransferPlan plan, Entity row) throws SQLException {
+        Column[] fromColumns = plan.getFromColumns();
+        String[] toNames = plan.getToNames();
+        long rowBytes = 0;
+        for (int i = 0; i < fromColumns.length; i++) {
+            Column fromColumn = fromColumns[i];
+            Object value;
+            if (isBinaryLob(fromColumn) && !plan.hasConverter(i)) {
+                Blob blob = rs.getBlob(fromColumn.getName());
+                value = blob;
+                rowBytes += ObjectUtil.isNull(blob) ? 0 : blob.length();
+            } else if (isCharacterLob(fromColumn) && !plan.hasConverter(i)) {
+                Clob clob = rs.getClob(fromColumn.getName());
+                value = clob;
+                rowBytes += ObjectUtil.isNull(clob) ? 0 : clob.length() * 2L;
+            } else {
+                value = plan.convertValue(i, rs.getObject(fromColumn.getName()));
+                rowBytes += value instanceof CharSequence ? ((CharSequence) value).length() * 2L : value instanceof byte[] ? ((byte[]) value).length : 8L;
+            }
+            row.set(toNames[i], value);
+        }
+        return rowBytes;
+    }
+
+    /**
+     * 绑定并写入一批数据，大字段使用带长度的流绑定
+     */
+    private void insert(PreparedStatement insert, RowTransferPlan plan, List<Entity> rows) throws SQLException {
+        Column[] toColumns = plan.getToColumns();
+        String[] toNames = plan.getToNames();
+        try {
+            for (Entity row : rows) {
+                for (int i = 0; i < toNames.length; i++) {
+                    this.bind(insert, i + 1, toColumns[i], row.get(toNames[i]));
+                }
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        } finally {
+            insert.clearBatch();
+        }
+    }
+
+    private void bind(PreparedStatement insert, int parameterIndex, Column toColumn, Object value) throws SQLException {
+        if (ObjectUtil.isNull(value)) {
+            insert.setNull(parameterIndex, toColumn.getType());
+        } else if (value instanceof Blob) {
+            insert.setBinaryStream(parameterIndex, ((Blob) value).getBinaryStream(), ((Blob) value).length());
+        } else if (value instanceof Clob) {
+            insert.setCharacterStream(parameterIndex, ((Clob) value).getCharacterStream(), ((Clob) value).length());
+        } else {
+            insert.setObject(parameterIndex, value);
+        }
+    }
+
+    private void executeBatch(BisectingBatchWriter writer, BisectingBatchWriter.BatchInsert batchInsert, List<Entity> rows, String tableName, long bytes, long batchStart)
+            throws SQLException {
+        long writeStart = System.nanoTime();
+        TransferEvent writeEvent = TransferEvents.begin(TransferEvents.Phase.WRITE, tableName);
+        writer.write(rows, batchInsert);
+        writeEvent.end(rows.size(), bytes);
+        this.transferListener.onBatch(tableName, rows.size(), bytes, writeStart - batchStart, System.nanoTime() - writeStart);
+    }
+
+    /**
+     * 获取逐行读取的fetchSize，MySQL驱动仅在fetchSize为{@link Integer#MIN_VALUE}时逐行读取，否则一次性加载全部结果
+     *
+     * @param config 来源库配置
+     * @return fetchSize
+     */
+    public static int getStreamingFetchSize(@NonNull DbConfig config) {
+        if (ObjectUtil.equals(DbType.MYSQL, config.getDbType())
+                && CharSequenceUtil.startWith(config.getDbUrl(), MYSQL_URL_PREFIX)) {
+            return Integer.MIN_VALUE;
+        }
+        return 16;
+    }
+}
@@ -0,0 +1,76 @@
+package com.haosmart.mysqltoall.transfer;
+
+import lombok.Getter;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * 全局内存预算，所有Worker在读取一个批次前按估算字节数申请，写入完成后释放
+ *
+ * @author fujunhao
+ */
+public class MemoryBudget {
+
+    private static final int UNIT = 1024;
+
+    /**
+     * 预算总字节数
+     */
+    @Getter
+    private final long totalBytes;
+
+    private final int totalPermits;
+
+    private final Semaphore semaphore;
+
+    public MemoryBudget(long totalBytes) {
+        this.totalPermits = (int) Math.max(1L, Math.min(Integer.MAX_VALUE, totalBytes / UNIT));
+        this.totalBytes = (long) this.totalPermits * UNIT;
+        this.semaphore = new Semaphore(this.totalPermits, true);
+    }
+
+    /**
+     * 申请内存，预算不足时阻塞；单次申请超过总预算时按总预算申请
+     *
+     * @param bytes 申请的字节数
+     * @return 实际占用的字节数，用于释放
+     */
+    public long acquire(long bytes) throws InterruptedException {
+        int permits = this.toPermits(bytes);
+        this.semaphore.acquire(permits);
+        return (long) permits * UNIT;
+    }
+
+    /**
+     * 尝试申请内存，预算不足时不等待
+     *
+     * @param bytes 申请的字节数
+     * @return 实际占用的字节数，用于释放；预算不足时返回0
+     */
+    public long tryAcquire(long bytes) {
+        int permits = this.toPermits(bytes);
+        return this.semaphore.tryAcquire(permits) ? (long) permits * UNIT : 0L;
+    }
+
+    /**
+     * 释放内存
+     *
+     * @param bytes {@link #acquire(long)}或{@link #tryAcquire(long)}返回的字节数
+     */
+    public void release(long bytes) {
+        this.semaphore.release((int) (bytes / UNIT));
+    }
+
+    /**
+     * 获取当前可用的字节数
+     *
+     * @return 可用的字节数
+     */
+    public long getAvailableBytes() {
+        return (long) this.semaphore.availablePermits() * UNIT;
+    }
+
+    private int toPermits(long bytes) {
+        return (int) Math.max(1L, Math.min(this.totalPermits, (bytes + UNIT - 1) / UNIT));
+    }
+}
@@ -0,0 +1,354 @@
+package com.haosmart.mysqltoall.transfer;
+
+import cn.hutool.db.meta.Column;
+import lombok.NonNull;
+
+import java.io.DataOutput;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+
+/**
+ * 紧凑二进制行编解码器，按hutool {@link Column}的JDBC类型确定每列的编码：整数、浮点、布尔及日期时间按原始字节定长写入，
+ * 字符串为带长度前缀的UTF-8，二进制及定点数带长度前缀。每行以null位图及类型标记位图开头，
+ * 值的实际类型与列类型不符时（如无符号BIGINT返回{@link BigInteger}、列值转换器改变了类型）按实际类型写入并带一个字节的类型标记。
+ * 日期时间按本地时间编码（时间为当天的纳秒数，时间戳为按UTC计算的秒数加纳秒），与JVM默认时区无关。
+ * <p>
+ * 编码写入{@link DataOutput}，解码读取{@link ByteBuffer}（可直接使用内存映射的缓冲区），均为大端序；实例无状态，可在多线程间共享
+ *
+ * @author fujunhao
+ */
+public class RowCodec {
+
+    /**
+     * 列编码
+     */
+    enum Kind {
+        LONG, DOUBLE, DECIMAL, BOOLEAN, DATE, TIME, TIMESTAMP, BYTES, STRING
+    }
+
+    private final static Kind[] KINDS = Kind.values();
+
+    private final String[] columnNames;
+
+    private final Kind[] kinds;
+
+    /**
+     * 单个位图的字节数
+     */
+    private final int bitmapBytes;
+
+    public RowCodec(@NonNull Column[] columns) {
+        this.columnNames = new String[columns.length];
+        this.kinds = new Kind[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            this.columnNames[i] = columns[i].getName();
+            this.kinds[i] = kindOf(columns[i]);
+        }
+        this.bitmapBytes = (columns.length + 7) / 8;
+    }
+
+    /**
+     * 获取列名，与编解码的列值顺序一致
+     *
+     * @return 列名
+     */
+    public String[] getColumnNames() {
+        return this.columnNames;
+    }
+
+    /**
+     * 编码一行
+     *
+     * @param values 列值，与构造时的列顺序一致
+     * @param out    输出
+     */
+    public void encode(@NonNull Object[] values, @NonNull DataOutput out) throws IOException, SQLException {
+        if (values.length != this.kinds.length) {
+            throw new IllegalArgumentException("Field count mismatched, expected " + this.kinds.length + " but " + values.length);
+        }
+        byte[] nulls = new byte[this.bitmapBytes];
+        byte[] tagged = new byte[this.bitmapBytes];
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == null) {
+                nulls[i >>> 3] |= (byte) (1 << (i & 7));
+            } else if (kindOf(values[i]) != this.kinds[i]) {
+                tagged[i >>> 3] |= (byte) (1 << (i & 7));
+            }
+        }
+        out.write(nulls);
+        out.write(tagged);
+        for (int i = 0; i < values.length; i++) {
+            Object value = values[i];
+            if (value == null) {
+                continue;
+            }
+            Kind kind = this.kinds[i];
+            if ((tagged[i >>> 3] & (1 << (i & 7))) != 0) {
+                kind = kindOf(value);
+                out.writeByte(kind.ordinal());
+            }
+            writeValue(kind, value, out);
+        }
+    }
+
+    /**
+     * 从缓冲区当前位置解码一行，完成后位置移动到行尾
+     *
+     * @param in 缓冲区
+     * @return 列值
+     */
+    public Object[] decode(@NonNull ByteBuffer in) {
+        int nullsPosition = in.position();
+        int taggedPosition = nullsPosition + this.bitmapBytes;
+        in.position(taggedPosition + this.bitmapBytes);
+        Object[] values = new Object[this.kinds.length];
+        for (int i = 0; i < values.length; i++) {
+            if ((in.get(nullsPosition + (i >>> 3)) & (1 << (i & 7))) != 0) {
+                continue;
+            }
+            Kind kind = this.kinds[i];
+            if ((in.get(taggedPosition + (i >>> 3)) & (1 << (i & 7))) != 0) {
+                kind = KINDS[in.get()];
+            }
+            values[i] = readValue(kind, in);
+        }
+        return values;
+    }
+
+    private static Kind kindOf(Column column) {
+        switch (column.getTypeEnum()) {
+            case TINYINT:
+            case SMALLINT:
+            case INTEGER:
+            case BIGINT:
+                return Kind.LONG;
+            case REAL:
+            case FLOAT:
+            case DOUBLE:
+                return Kind.DOUBLE;
+            case DECIMAL:
+            case NUMERIC:
+                return Kind.DECIMAL;
+            case BIT:
+            case BOOLEAN:
+                return Kind.BOOLEAN;
+            case DATE:
+                return Kind.DATE;
+            case TIME:
+                return Kind.TIME;
+            case TIMESTAMP:
+            case TIMESTAMP_WITH_TIMEZONE:
+                return Kind.TIMESTAMP;
+            case BINARY:
+            case VARBINARY:
+            case LONGVARBINARY:
+            case BLOB:
+                return Kind.BYTES;
+            default:
+                return Kind.STRING;
+        }
+    }
+
+    private static Kind kindOf(Object value) {
+        if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return Kind.LONG;
+        }
+        if (value instanceof BigInteger) {
+            return ((BigInteger) value).bitLength() < Long.SIZE ? Kind.LONG : Kind.DECIMAL;
+        }
+        if (value instanceof Double || value instanceof Float) {
+            return Kind.DOUBLE;
+        }
+        if (value instanceof BigDecimal) {
+            return Kind.DECIMAL;
+        }
+        if (value instanceof Boolean) {
+            return Kind.BOOLEAN;
+        }
+        if (value instanceof java.sql.Date || value instanceof LocalDate) {
+            return Kind.DATE;
+        }
+        if (value instanceof Time || value instanceof LocalTime) {
+            return Kind.TIME;
+        }
+        if (value instanceof java.util.Date || value instanceof LocalDateTime) {
+            return Kind.TIMESTAMP;
+        }
+        if (value instanceof byte[] || value instanceof Blob) {
+            return Kind.BYTES;
+        }
+        return Kind.STRING;
+    }
+
+    private static void writeValue(Kind kind, Object value, DataOutput out) throws IOException, SQLException {
+        switch (kind) {
+            case LONG:
+                out.writeLong(((Number) value).longValue());
+                break;
+            case DOUBLE:
+                out.writeDouble(((Number) value).doubleValue());
+                break;
+            case DECIMAL:
+                BigDecimal decimal = value instanceof BigInteger ? new BigDecimal((BigInteger) value) : (BigDecimal) value;
+                out.writeInt(decimal.scale());
+                writeBytes(decimal.unscaledValue().toByteArray(), out);
+                break;
+            case BOOLEAN:
+                out.writeBoolean((Boolean) value);
+                break;
+            case DATE:
+                LocalDate date = value instanceof LocalDate ? (LocalDate) value : ((java.sql.Date) value).toLocalDate();
+                out.writeInt((int) date.toEpochDay());
+                break;
+            case TIME:
+                LocalTime time;
+                if (value instanceof LocalTime) {
+                    time = (LocalTime) value;
+                } else {
+                    //Time.toLocalTime()不含毫秒
+                    time = ((Time) value).toLocalTime().withNano((int) Math.floorMod(((Time) value).getTime(), 1000L) * 1000000);
+                }
+                out.writeLong(time.toNanoOfDay());
+                break;
+            case TIMESTAMP:
+                LocalDateTime dateTime;
+                if (value instanceof Timestamp) {
+                    dateTime = ((Timestamp) value).toLocalDateTime();
+                } else if (value instanceof LocalDateTime) {
+                    dateTime = (LocalDateTime) value;
+                } else {
+                    dateTime = new Timestamp(((java.util.Date) value).getTime()).toLocalDateTime();
+                }
+                out.writeLong(dateTime.toEpochSecond(ZoneOffset.UTC));
+                out.writeInt(dateTime.getNano());
+                break;
+            case BYTES:
+                if (value instanceof Blob) {
+                    Blob blob = (Blob) value;
+                    writeBytes(blob.getBytes(1, (int) blob.length()), out);
+                } else {
+                    writeBytes((byte[]) value, out);
+                }
+                break;
+            default:
+                String text = value instanceof Clob ? ((Clob) value).getSubString(1, (int) ((Clob) value).length()) : value.toString();
+                writeBytes(text.getBytes(StandardCharsets.UTF_8), out);
+                break;
+        }
+    }
+
+    private static Object readValue(Kind kind, ByteBuffer in) {
+        switch (kind) {
+            case LONG:
+                return in.getLong();
+            case DOUBLE:
+                return in.getDouble();
+            case DECIMAL:
+                int scale = in.getInt();
+                return new BigDecimal(new BigInteger(readBytes(in)), scale);
+            case BOOLEAN:
+                return in.get() != 0;
+            case DATE:
+                return java.sql.Date.valueOf(LocalDate.ofEpochDay(in.getInt()));
+            case TIME:
+                LocalTime localTime = LocalTime.ofNanoOfDay(in.getLong());
+                Time time = Time.valueOf(localTime);
+                time.setTime(time.getTime() + localTime.getNano() / 1000000);
+                return time;
+            case TIMESTAMP:
+                long seconds = in.getLong();
+                return Timestamp.valueOf(LocalDateTime.ofEpochSecond(seconds, in.getInt(), ZoneOffset.UTC));
+            case BYTES:
+                return readBytes(in);
+            default:
+                int length = readVarInt(in);
+                if (in.hasArray()) {
+                    String text = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+                    in.position(in.position() + length);
+                    return text;
+                }
+                byte[] bytes = new byte[length];
+                in.get(bytes);
+                return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static void writeBytes(byte[] bytes, DataOutput out) throws IOException {
+        writeVarInt(bytes.length, out);
+        out.write(bytes);
+    }
+
+    private static byte[] readBytes(ByteBuffer in) {
+        byte[] bytes = new byte[readVarInt(in)];
+        in.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * 写入变长整数，每字节7位，小于128时仅占一个字节
+     *
+     * @param value 非负整数
+     * @param out   输出
+     */
+    public static void writeVarInt(int value, DataOutput out) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    /**
+     * 从缓冲区读取变长整数
+     *
+     * @param in 缓冲区
+     * @return 整数
+     */
+    public static int readVarInt(ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = in.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+
+    /**
+     * 从输入流读取变长整数
+     *
+     * @param in 输入流
+     * @return 整数，第一个字节即到达流末尾时返回{@code -1}
+     */
+    public static int readVarInt(InputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = in.read();
+            if (b == -1) {
+                if (shift == 0) {
+                    return -1;
+                }
+                throw new EOFException("Unexpected end of stream in varint");
+            }
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+    }
+}
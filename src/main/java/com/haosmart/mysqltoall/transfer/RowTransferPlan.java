@@ -0,0 +1,178 @@
+package com.haosmart.mysqltoall.transfer;
+
+import cn.hutool.core.text.CharSequenceUtil;
+import cn.hutool.core.util.ObjectUtil;
+import cn.hutool.db.Entity;
+import cn.hutool.db.meta.Column;
+import cn.hutool.db.meta.Table;
+import com.haosmart.mysqltoall.config.TableRule;
+import com.haosmart.mysqltoall.ddl.DdlProvider;
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 行转换计划，每张表同步前根据来源表与目标表的列元信息解析一次，逐行转换时不再查找映射
+ *
+ * @author fujunhao
+ */
+public class RowTransferPlan {
+
+    /**
+     * 目标表名
+     */
+    @Getter
+    private final String toTableName;
+
+    /**
+     * 来源列，与目标列一一对应
+     */
+    @Getter
+    private final Column[] fromColumns;
+
+    /**
+     * 目标列，与来源列一一对应
+     */
+    @Getter
+    private final Column[] toColumns;
+
+    /**
+     * 包装后的目标列名
+     */
+    @Getter
+    private final String[] toNames;
+
+    /**
+     * 列值转换器，无需转换时为{@code null}
+     */
+    private final ValueConverter[] converters;
+
+    /**
+     * 来源列名（原样及小写）到下标的映射
+     */
+    private final Map<String, Integer> indexMapping;
+
+    private RowTransferPlan(String toTableName, List<Column> fromColumns, List<Column> toColumns, List<String> toNames, List<ValueConverter> converters) {
+        this.toTableName = toTableName;
+        this.fromColumns = fromColumns.toArray(new Column[0]);
+        this.toColumns = toColumns.toArray(new Column[0]);
+        this.toNames = toNames.toArray(new String[0]);
+        this.converters = converters.toArray(new ValueConverter[0]);
+        this.indexMapping = new HashMap<>(fromColumns.size() * 4);
+        for (int i = 0; i < this.fromColumns.length; i++) {
+            this.indexMapping.put(this.fromColumns[i].getName(), i);
+            this.indexMapping.put(this.fromColumns[i].getName().toLowerCase(), i);
+        }
+    }
+
+    /**
+     * 创建行转换计划
+     *
+     * @param fromTable   来源表对象
+     * @param toTable     目标表对象
+     * @param ddlProvider 目标库ddl提供者
+     * @return 行转换计划
+     */
+    public static RowTransferPlan build(@NonNull Table fromTable, @NonNull Table toTable, @NonNull DdlProvider ddlProvider) {
+        return build(fromTable, toTable, ddlProvider, null);
+    }
+
+    /**
+     * 创建行转换计划，同步规则中的列值转换器先于目标方言转换器执行
+     *
+     * @param fromTable   来源表对象（已按规则裁剪）
+     * @param toTable     目标表对象
+     * @param ddlProvider 目标库ddl提供者
+     * @param tableRule   单表同步规则，可为{@code null}
+     * @return 行转换计划
+     */
+    public static RowTransferPlan build(@NonNull Table fromTable, @NonNull Table toTable, @NonNull DdlProvider ddlProvider, TableRule tableRule) {
+        List<Column> fromColumns = new ArrayList<>(16);
+        List<Column> toColumns = new ArrayList<>(16);
+        List<String> toNames = new ArrayList<>(16);
+        List<ValueConverter> converters = new ArrayList<>(16);
+        for (Column fromColumn : fromTable.getColumns()) {
+            toTable.getColumns().stream()
+                    .filter(t -> CharSequenceUtil.equalsIgnoreCase(t.getName(), fromColumn.getName()))
+                    .findFirst()
+                    .ifPresent(t -> {
+                        fromColumns.add(fromColumn);
+                        toColumns.add(t);
+                        toNames.add(ddlProvider.wrapName(t.getName()));
+                        converters.add(buildConverter(fromColumn, t, ddlProvider, tableRule));
+                    });
+        }
+        return new RowTransferPlan(toTable.getTableName(), fromColumns, toColumns, toNames, converters);
+    }
+
+    private static ValueConverter buildConverter(Column fromColumn, Column toColumn, DdlProvider ddlProvider, TableRule tableRule) {
+        ValueConverter converter = ddlProvider.getValueConverter(fromColumn, toColumn);
+        ValueConverter ruleConverter = ObjectUtil.isNull(tableRule) ? null : tableRule.getColumnConverter(fromColumn.getName());
+        if (ObjectUtil.isNull(ruleConverter)) {
+            return converter;
+        }
+        return ObjectUtil.isNull(converter) ? ruleConverter : ruleConverter.andThen(converter);
+    }
+
+    /**
+     * 获取来源列对应的包装后目标列名
+     *
+     * @param fromName 来源列名
+     * @return 目标列名，不存在时返回{@code null}
+     */
+    public String getToName(String fromName) {
+        Integer index = this.indexOf(fromName);
+        return ObjectUtil.isNull(index) ? null : this.toNames[index];
+    }
+
+    /**
+     * 列是否配置了值转换器
+     *
+     * @param index 列下标
+     * @return 是否配置了值转换器
+     */
+    public boolean hasConverter(int index) {
+        return ObjectUtil.isNotNull(this.converters[index]);
+    }
+
+    /**
+     * 转换单个列值
+     *
+     * @param index 列下标
+     * @param value 来源值
+     * @return 转换后的值
+     */
+    public Object convertValue(int index, Object value) {
+        ValueConverter converter = this.converters[index];
+        return ObjectUtil.isNull(converter) ? value : converter.convert(value);
+    }
+
+    /**
+     * 将来源行转换为目标行
+     *
+     * @param fromEntity 来源行
+     * @return 目标行
+     */
+    public Entity convert(Entity fromEntity) {
+        Entity entity = new Entity(this.toTableName);
+        for (Map.Entry<String, Object> field : fromEntity.entrySet()) {
+            Integer index = this.indexOf(field.getKey());
+            if (ObjectUtil.isNotNull(index)) {
+                entity.set(this.toNames[index], this.convertValue(index, field.getValue()));
+            }
+        }
+        return entity;
+    }
+
+    private Integer indexOf(String fromName) {
+        Integer index = this.indexMapping.get(fromName);
+        if (ObjectUtil.isNull(index) && ObjectUtil.isNotNull(fromName)) {
+            index = this.indexMapping.get(fromName.toLowerCase());
+        }
+        return index;
+    }
+}
@@ -0,0 +1,51 @@
+package com.haosmart.mysqltoall.transfer;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+
+/**
+ * 保存点执行器，在共享事务连接上执行写入，失败时仅回滚本次写入
+ *
+ * @author fujunhao
+ */
+public class SavepointExecutor {
+
+    /**
+     * 写入动作
+     */
+    @FunctionalInterface
+    public interface SqlAction {
+
+        /**
+         * 执行写入
+         */
+        void run() throws SQLException;
+    }
+
+    private SavepointExecutor() {
+    }
+
+    /**
+     * 在保存点内执行写入，多个Worker共享同一连接，执行期间独占该连接
+     *
+     * @param connection 共享事务连接
+     * @param action     写入动作
+     */
+    public static void execute(Connection connection, SqlAction action) throws SQLException {
+        synchronized (connection) {
+            Savepoint savepoint = connection.setSavepoint();
+            try {
+                action.run();
+            } catch (SQLException e) {
+                connection.rollback(savepoint);
+                throw e;
+            }
+            try {
+                connection.releaseSavepoint(savepoint);
+            } catch (SQLException ignored) {
+                //oracle不支持释放保存点
+            }
+        }
+    }
+}
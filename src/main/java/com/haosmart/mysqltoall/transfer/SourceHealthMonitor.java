@@ -0,0 +1,129 @@
+package com.haosmart.mysqltoall.transfer;
+
+import cn.hutool.core.thread.NamedThreadFactory;
+import cn.hutool.core.util.ObjectUtil;
+import cn.hutool.db.Db;
+import cn.hutool.db.Entity;
+import com.haosmart.mysqltoall.ExecuteStrategy;
+import lombok.extern.slf4j.Slf4j;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 来源库负载监控，同步期间定期读取MySQL的{@code Threads_running}及复制延迟，超过阈值时将限流比例减半，恢复后逐步提高
+ *
+ * @author fujunhao
+ */
+@Slf4j
+public class SourceHealthMonitor implements TransferListener {
+
+    private final static String QUERY_THREADS_RUNNING = "SHOW GLOBAL STATUS LIKE 'Threads_running'";
+
+    private final static String[] QUERY_REPLICA_STATUS = {"SHOW REPLICA STATUS", "SHOW SLAVE STATUS"};
+
+    private final static String[] REPLICA_LAG_COLUMNS = {"Seconds_Behind_Source", "Seconds_Behind_Master"};
+
+    private final static double DECREASE = 0.5D;
+
+    private final static double INCREASE = 0.1D;
+
+    private final Supplier<Db> db;
+
+    private final ExecuteStrategy executeStrategy;
+
+    private final SourceRateLimiter rateLimiter;
+
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * 是否可以查询复制状态，无权限或非副本时不再查询
+     */
+    private boolean replicaStatusAvailable = true;
+
+    public SourceHealthMonitor(Supplier<Db> db, ExecuteStrategy executeStrategy, SourceRateLimiter rateLimiter) {
+        this.db = db;
+        this.executeStrategy = executeStrategy;
+        this.rateLimiter = rateLimiter;
+    }
+
+    @Override
+    public synchronized void onRunStart(int tableCount, long recordCount) {
+        if (this.scheduler == null) {
+            long interval = Math.max(1L, this.executeStrategy.getSourceHealthCheckSeconds());
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("source-health-", true));
+            this.scheduler.scheduleWithFixedDelay(this::check, interval, interval, TimeUnit.SECONDS);
+        }
+    }
+
+    @Override
+    public synchronized void onRunFinish(boolean success) {
+        if (this.scheduler != null) {
+            this.scheduler.shutdownNow();
+            this.scheduler = null;
+        }
+    }
+
+    /**
+     * 检查来源库负载并调整限流比例
+     */
+    public void check() {
+        try {
+            long threadsRunning = this.getThreadsRunning();
+            long replicaLag = this.getReplicaLag();
+            long maxThreadsRunning = this.executeStrategy.getSourceMaxThreadsRunning();
+            long maxReplicaLag = this.executeStrategy.getSourceMaxReplicaLagSeconds();
+            boolean overloaded = (maxThreadsRunning > 0 && threadsRunning > maxThreadsRunning)
+                    || (maxReplicaLag > 0 && replicaLag > maxReplicaLag);
+            double factor = this.rateLimiter.getFactor();
+            this.rateLimiter.setFactor(overloaded ? factor * DECREASE : factor + INCREASE);
+            if (factor != this.rateLimiter.getFactor()) {
+                log.warn("Source threads running:{} replica lag:{}s, read rate adjusted to {}%", threadsRunning, replicaLag, Math.round(this.rateLimiter.getFactor() * 100));
+            }
+        } catch (Exception e) {
+            log.warn("Check source health failed: {}", e.getMessage());
+        }
+    }
+
+    private long getThreadsRunning() throws SQLException {
+        List<Entity> list = this.db.get().query(QUERY_THREADS_RUNNING);
+        if (ObjectUtil.isEmpty(list)) {
+            return -1L;
+        }
+        return ObjectUtil.defaultIfNull(list.get(0).getLong("Value"), -1L);
+    }
+
+    /**
+     * 获取复制延迟，来源库不是副本或无权限时返回{@code -1}
+     */
+    private long getReplicaLag() {
+        if (!this.replicaStatusAvailable || this.executeStrategy.getSourceMaxReplicaLagSeconds() <= 0) {
+            return -1L;
+        }
+        for (String sql : QUERY_REPLICA_STATUS) {
+            try {
+                List<Entity> list = this.db.get().query(sql);
+                if (ObjectUtil.isEmpty(list)) {
+                    this.replicaStatusAvailable = false;
+                    return -1L;
+                }
+                for (String column : REPLICA_LAG_COLUMNS) {
+                    Long lag = list.get(0).getLong(column);
+                    if (ObjectUtil.isNotNull(lag)) {
+                        return lag;
+                    }
+                }
+                //复制中断时延迟为NULL，按超过阈值处理
+                return Long.MAX_VALUE;
+            } catch (SQLException e) {
+                log.debug("Query replica status with [{}] failed: {}", sql, e.getMessage());
+            }
+        }
+        this.replicaStatusAvailable = false;
+        return -1L;
+    }
+}
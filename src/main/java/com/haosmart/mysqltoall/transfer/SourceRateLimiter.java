@@ -0,0 +1,112 @@
+package com.haosmart.mysqltoall.transfer;
+
+import lombok.Getter;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 来源读取限流器，所有Worker共享，按行/秒及字节/秒两个令牌桶限制读取速率；令牌不足时允许预支，由后续读取等待偿还，
+ * 实际速率可由{@link SourceHealthMonitor}根据来源库负载按比例下调
+ *
+ * @author fujunhao
+ */
+public class SourceRateLimiter {
+
+    private static final double MIN_FACTOR = 0.05D;
+
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * 令牌桶，容量为1秒的令牌数
+     */
+    private static class Bucket {
+
+        private final double rate;
+
+        private double tokens;
+
+        private long lastNanos;
+
+        Bucket(long rate, long now) {
+            this.rate = rate;
+            this.tokens = rate;
+            this.lastNanos = now;
+        }
+
+        /**
+         * 预支令牌
+         *
+         * @return 需要等待的纳秒数
+         */
+        long reserve(long permits, double factor, long now) {
+            double currentRate = this.rate * factor;
+            this.tokens = Math.min(currentRate, this.tokens + (now - this.lastNanos) * currentRate / NANOS_PER_SECOND);
+            this.lastNanos = now;
+            this.tokens -= permits;
+            return this.tokens >= 0 ? 0L : (long) (-this.tokens / currentRate * NANOS_PER_SECOND);
+        }
+    }
+
+    private final Bucket rowBucket;
+
+    private final Bucket byteBucket;
+
+    /**
+     * 当前速率占配置速率的比例
+     */
+    @Getter
+    private volatile double factor = 1D;
+
+    /**
+     * @param rowsPerSecond  每秒最大读取行数，小于等于0表示不限制
+     * @param bytesPerSecond 每秒最大读取字节数，小于等于0表示不限制
+     */
+    public SourceRateLimiter(long rowsPerSecond, long bytesPerSecond) {
+        long now = System.nanoTime();
+        this.rowBucket = rowsPerSecond > 0 ? new Bucket(rowsPerSecond, now) : null;
+        this.byteBucket = bytesPerSecond > 0 ? new Bucket(bytesPerSecond, now) : null;
+    }
+
+    /**
+     * 是否配置了速率上限
+     *
+     * @return 是否限流
+     */
+    public boolean isLimited() {
+        return this.rowBucket != null || this.byteBucket != null;
+    }
+
+    /**
+     * 调整速率比例
+     *
+     * @param factor 当前速率占配置速率的比例，范围0.05~1
+     */
+    public void setFactor(double factor) {
+        this.factor = Math.max(MIN_FACTOR, Math.min(1D, factor));
+    }
+
+    /**
+     * 申请读取配额，配额不足时阻塞
+     *
+     * @param rows  读取的行数
+     * @param bytes 读取的字节数（估算）
+     * @return 等待的纳秒数
+     */
+    public long acquire(long rows, long bytes) throws InterruptedException {
+        if (!this.isLimited()) {
+            return 0L;
+        }
+        long waitNanos;
+        synchronized (this) {
+            long now = System.nanoTime();
+            double currentFactor = this.factor;
+            long rowWait = this.rowBucket != null ? this.rowBucket.reserve(rows, currentFactor, now) : 0L;
+            long byteWait = this.byteBucket != null ? this.byteBucket.reserve(bytes, currentFactor, now) : 0L;
+            waitNanos = Math.max(rowWait, byteWait);
+        }
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+        return waitNanos;
+    }
+}
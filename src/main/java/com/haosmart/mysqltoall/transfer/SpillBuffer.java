@@ -0,0 +1,348 @@
+package com.haosmart.mysqltoall.transfer;
+
+import cn.hutool.core.text.CharSequenceUtil;
+import cn.hutool.core.util.ObjectUtil;
+import cn.hutool.db.Entity;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * 可溢写到磁盘的批次缓冲，读取端写入批次后立即返回，写入端按顺序取出。
+ * 批次以{@link RowCodec}紧凑编码保存在内存中，超过内存上限或无法从{@link MemoryBudget}申请到内存时追加写入本地临时文件，取出时以内存映射方式解码；
+ * 目标库写入慢于来源库读取时，来源读取不再等待目标写入，可尽快释放来源连接
+ *
+ * @author fujunhao
+ */
+@Slf4j
+public class SpillBuffer implements Closeable {
+
+    private final static String FILE_PREFIX = "spill-{}-";
+
+    private final static String FILE_SUFFIX = ".bin";
+
+    private final RowCodec codec;
+
+    private final File directory;
+
+    private final String name;
+
+    private final long memoryBytes;
+
+    /**
+     * 内存中的批次占用的全局内存预算，为{@code null}时仅受{@link #memoryBytes}限制
+     */
+    private final MemoryBudget memoryBudget;
+
+    /**
+     * 待取出的批次，内存及磁盘中的批次按写入顺序排列
+     */
+    private final Deque<Batch> batches = new ArrayDeque<>();
+
+    /**
+     * 来源行中与编码列对应的键，首个批次写入时解析
+     */
+    private volatile String[] keys;
+
+    private File file;
+
+    private FileChannel channel;
+
+    private long writePosition;
+
+    private long bufferedBytes;
+
+    private int spilledInQueue;
+
+    private boolean finished;
+
+    private boolean closed;
+
+    private Throwable failure;
+
+    /**
+     * 已溢写的批次数
+     */
+    @Getter
+    private long spilledBatches;
+
+    /**
+     * 已溢写的字节数
+     */
+    @Getter
+    private long spilledBytes;
+
+    /**
+     * 单个批次
+     */
+    private static class Batch {
+
+        private final int rows;
+
+        /**
+         * 内存中的编码数据，已溢写时为{@code null}
+         */
+        private final byte[] bytes;
+
+        private final long position;
+
+        private final int length;
+
+        /**
+         * 从内存预算中占用的字节数，已溢写或未使用内存预算时为0
+         */
+        private final long reserved;
+
+        private Batch(int rows, byte[] bytes, long position, int length, long reserved) {
+            this.rows = rows;
+            this.bytes = bytes;
+            this.position = position;
+            this.length = length;
+            this.reserved = reserved;
+        }
+    }
+
+    /**
+     * @param codec       行编解码器，列顺序即缓冲的列
+     * @param directory   溢写目录
+     * @param name        名称，用于临时文件名及日志
+     * @param memoryBytes 内存中保存的最大编码字节数，超过后溢写
+     */
+    public SpillBuffer(@NonNull RowCodec codec, @NonNull File directory, @NonNull String name, long memoryBytes) {
+        this(codec, directory, name, memoryBytes, null);
+    }
+
+    /**
+     * @param codec        行编解码器，列顺序即缓冲的列
+     * @param directory    溢写目录
+     * @param name         名称，用于临时文件名及日志
+     * @param memoryBytes  内存中保存的最大编码字节数，超过后溢写
+     * @param memoryBudget 全局内存预算，内存中的批次从中占用，取出或关闭时释放，可为{@code null}
+     */
+    public SpillBuffer(@NonNull RowCodec codec, @NonNull File directory, @NonNull String name, long memoryBytes, MemoryBudget memoryBudget) {
+        this.codec = codec;
+        this.directory = directory;
+        this.name = name;
+        this.memoryBytes = memoryBytes;
+        this.memoryBudget = memoryBudget;
+    }
+
+    /**
+     * 写入一个批次，不等待写入端
+     *
+     * @param rows 来源行，不会被修改
+     * @return 是否已接收，缓冲已关闭（写入端已停止）时返回{@code false}
+     */
+    public boolean put(@NonNull List<Entity> rows) throws IOException, SQLException {
+        if (rows.isEmpty()) {
+            return !this.isClosed();
+        }
+        byte[] bytes = this.encode(rows);
+        synchronized (this) {
+            if (this.closed) {
+                return false;
+            }
+            long reserved = 0L;
+            boolean inMemory = this.bufferedBytes == 0 || this.bufferedBytes + bytes.length <= this.memoryBytes;
+            //内存预算不足时同样溢写，不等待其他表释放
+            if (inMemory && ObjectUtil.isNotNull(this.memoryBudget)) {
+                reserved = this.memoryBudget.tryAcquire(bytes.length);
+                inMemory = reserved > 0;
+            }
+            if (inMemory) {
+                this.batches.addLast(new Batch(rows.size(), bytes, 0L, bytes.length, reserved));
+                this.bufferedBytes += bytes.length;
+            } else {
+                this.batches.addLast(this.spill(rows.size(), bytes));
+            }
+            this.notifyAll();
+        }
+        return true;
+    }
+
+    /**
+     * 读取端已写入全部批次
+     */
+    public synchronized void finish() {
+        this.finished = true;
+        this.notifyAll();
+    }
+
+    /**
+     * 读取端失败，写入端取出剩余批次前抛出异常
+     *
+     * @param e 失败原因
+     */
+    public synchronized void fail(@NonNull Throwable e) {
+        this.failure = e;
+        this.notifyAll();
+    }
+
+    /**
+     * 按写入顺序取出一个批次，缓冲为空时等待
+     *
+     * @return 来源行，全部取出后返回{@code null}
+     */
+    public List<Entity> take() throws IOException, InterruptedException {
+        Batch batch;
+        ByteBuffer buffer;
+        synchronized (this) {
+            //上一个批次已解码完成，磁盘中没有待取出的批次时从文件头重新写入
+            if (this.spilledInQueue == 0) {
+                this.writePosition = 0L;
+            }
+            while (this.batches.isEmpty() && !this.finished && this.failure == null && !this.closed) {
+                this.wait();
+            }
+            if (ObjectUtil.isNotNull(this.failure)) {
+                throw new IOException("Spill buffer " + this.name + " producer failed", this.failure);
+            }
+            batch = this.batches.pollFirst();
+            if (ObjectUtil.isNull(batch)) {
+                return null;
+            }
+            if (ObjectUtil.isNotNull(batch.bytes)) {
+                this.bufferedBytes -= batch.length;
+                buffer = ByteBuffer.wrap(batch.bytes);
+            } else {
+                this.spilledInQueue--;
+                buffer = this.channel.map(FileChannel.MapMode.READ_ONLY, batch.position, batch.length);
+            }
+        }
+        try {
+            return this.decode(batch.rows, buffer);
+        } finally {
+            this.release(batch);
+        }
+    }
+
+    private synchronized boolean isClosed() {
+        return this.closed;
+    }
+
+    /**
+     * 关闭并删除临时文件，未取出的批次被丢弃
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (this.closed) {
+                return;
+            }
+            this.closed = true;
+            this.batches.forEach(this::release);
+            this.batches.clear();
+            this.notifyAll();
+        }
+        if (ObjectUtil.isNotNull(this.channel)) {
+            try {
+                this.channel.close();
+            } catch (IOException e) {
+                log.warn("Close spill file {} failed: {}", this.file, e.getMessage());
+            }
+            if (!this.file.delete()) {
+                this.file.deleteOnExit();
+            }
+        }
+        if (this.spilledBatches > 0) {
+            log.info("Spill buffer {} closed, spilled batches:{} bytes:{}", this.name, this.spilledBatches, this.spilledBytes);
+        }
+    }
+
+    private void release(Batch batch) {
+        if (batch.reserved > 0) {
+            this.memoryBudget.release(batch.reserved);
+        }
+    }
+
+    /**
+     * 将批次追加写入临时文件，调用方持有锁
+     */
+    private Batch spill(int rows, byte[] bytes) throws IOException {
+        if (ObjectUtil.isNull(this.channel)) {
+            if (!this.directory.exists() && !this.directory.mkdirs()) {
+                throw new IOException("无法创建溢写目录:" + this.directory.getAbsolutePath());
+            }
+            this.file = File.createTempFile(CharSequenceUtil.format(FILE_PREFIX, CharSequenceUtil.cleanBlank(this.name)), FILE_SUFFIX, this.directory);
+            this.channel = FileChannel.open(this.file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+            log.warn("Target is slower than source, spilling batches of {} to {}", this.name, this.file.getAbsolutePath());
+        }
+        long position = this.writePosition;
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            this.channel.write(buffer, position + buffer.position());
+        }
+        this.writePosition += bytes.length;
+        this.spilledInQueue++;
+        this.spilledBatches++;
+        this.spilledBytes += bytes.length;
+        return new Batch(rows, null, position, bytes.length, 0L);
+    }
+
+    private byte[] encode(List<Entity> rows) throws IOException, SQLException {
+        String[] rowKeys = this.resolveKeys(rows.get(0));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(rows.size() * 64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        Object[] values = new Object[rowKeys.length];
+        for (Entity row : rows) {
+            for (int i = 0; i < rowKeys.length; i++) {
+                values[i] = row.get(rowKeys[i]);
+            }
+            this.codec.encode(values, out);
+        }
+        return bytes.toByteArray();
+    }
+
+    private List<Entity> decode(int rows, ByteBuffer buffer) {
+        String[] columnNames = this.codec.getColumnNames();
+        List<Entity> result = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            Object[] values = this.codec.decode(buffer);
+            Entity entity = new Entity();
+            for (int j = 0; j < columnNames.length; j++) {
+                entity.set(columnNames[j], values[j]);
+            }
+            result.add(entity);
+        }
+        return result;
+    }
+
+    /**
+     * 查询结果的列标签大小写可能与表元数据不同，按首行解析每列对应的键
+     */
+    private String[] resolveKeys(Entity row) {
+        String[] rowKeys = this.keys;
+        if (ObjectUtil.isNotNull(rowKeys)) {
+            return rowKeys;
+        }
+        String[] columnNames = this.codec.getColumnNames();
+        rowKeys = new String[columnNames.length];
+        for (int i = 0; i < columnNames.length; i++) {
+            rowKeys[i] = columnNames[i];
+            if (!row.containsKey(columnNames[i])) {
+                for (String key : row.keySet()) {
+                    if (CharSequenceUtil.equalsIgnoreCase(key, columnNames[i])) {
+                        rowKeys[i] = key;
+                        break;
+                    }
+                }
+            }
+        }
+        this.keys = rowKeys;
+        return rowKeys;
+    }
+}
@@ -0,0 +1,212 @@
+package com.haosmart.mysqltoall.transfer;
+
+import cn.hutool.core.thread.NamedThreadFactory;
+import com.haosmart.mysqltoall.entity.ForeignKey;
+import com.haosmart.mysqltoall.entity.TableMeta;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * 按外键依赖调度表同步：被引用的表先于引用它的表执行，互不依赖的表并行执行，就绪的表按记录数从大到小优先；
+ * 存在循环依赖时，优先放行剩余表中记录数最大的表
+ *
+ * @author fujunhao
+ */
+@Slf4j
+public class TableDependencyScheduler {
+
+    /**
+     * 表同步任务
+     */
+    @FunctionalInterface
+    public interface TableTask {
+
+        /**
+         * 同步单张表
+         *
+         * @param tableMeta 表对象
+         * @param index     调度序号，从1开始
+         * @param total     表总数
+         */
+        void run(TableMeta tableMeta, int index, int total) throws Throwable;
+    }
+
+    private final List<TableMeta> tables;
+
+    /**
+     * 表名（小写）到其引用的表（小写）
+     */
+    private final Map<String, Set<String>> parents = new HashMap<>(16);
+
+    /**
+     * 表名（小写）到引用它的表（小写）
+     */
+    private final Map<String, Set<String>> children = new HashMap<>(16);
+
+    /**
+     * @param tables      待同步的表
+     * @param foreignKeys 外键，两端不都在待同步表中的外键及自引用外键不参与调度
+     */
+    public TableDependencyScheduler(List<TableMeta> tables, Collection<ForeignKey> foreignKeys) {
+        this.tables = tables;
+        Set<String> tableNames = new LinkedHashSet<>(tables.size());
+        tables.forEach(t -> tableNames.add(t.getTableName().toLowerCase()));
+        for (ForeignKey foreignKey : foreignKeys) {
+            String child = foreignKey.getTableName().toLowerCase();
+            String parent = foreignKey.getReferencedTableName().toLowerCase();
+            if (foreignKey.isSelfReference() || !tableNames.contains(child) || !tableNames.contains(parent)) {
+                continue;
+            }
+            this.parents.computeIfAbsent(child, k -> new LinkedHashSet<>()).add(parent);
+            this.children.computeIfAbsent(parent, k -> new LinkedHashSet<>()).add(child);
+        }
+    }
+
+    /**
+     * 获取表引用的其他待同步表
+     *
+     * @param tableName 表名
+     * @return 被引用的表（小写）
+     */
+    public Set<String> getDependencies(String tableName) {
+        return this.parents.getOrDefault(tableName.toLowerCase(), new LinkedHashSet<>());
+    }
+
+    /**
+     * 使用固定数量的线程按依赖顺序执行，任一任务失败后不再调度新的表，等待已开始的表结束后抛出首个异常；
+     * 失败的表仍视为已结束，引用它的表照常调度（外键在全部表同步完成后才创建）
+     *
+     * @param workerCount 并行线程数
+     * @param task        表同步任务
+     */
+    public void execute(int workerCount, TableTask task) throws Throwable {
+        int total = this.tables.size();
+        Map<String, Set<String>> pendingParents = new HashMap<>(this.parents.size());
+        this.parents.forEach((k, v) -> pendingParents.put(k, new LinkedHashSet<>(v)));
+        PriorityQueue<TableMeta> ready = new PriorityQueue<>(Math.max(1, total), Comparator.reverseOrder());
+        Map<String, TableMeta> waiting = new LinkedHashMap<>(16);
+        for (TableMeta tableMeta : this.tables) {
+            String tableName = tableMeta.getTableName().toLowerCase();
+            if (pendingParents.containsKey(tableName)) {
+                waiting.put(tableName, tableMeta);
+            } else {
+                ready.add(tableMeta);
+            }
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, workerCount), new NamedThreadFactory("transfer-worker-", false));
+        ExecutorCompletionService<TableMeta> completionService = new ExecutorCompletionService<>(executor);
+        int running = 0;
+        int submitted = 0;
+        Throwable error = null;
+        try {
+            while (true) {
+                while (error == null && running < workerCount && !ready.isEmpty()) {
+                    TableMeta tableMeta = ready.poll();
+                    int index = ++submitted;
+                    completionService.submit(() -> {
+                        try {
+                            task.run(tableMeta, index, total);
+                        } catch (Exception e) {
+                            throw e;
+                        } catch (Throwable e) {
+                            throw new ExecutionException(e);
+                        }
+                        return tableMeta;
+                    });
+                    running++;
+                }
+                if (running == 0) {
+                    if (error != null || waiting.isEmpty()) {
+                        break;
+                    }
+                    //循环依赖，放行剩余表中记录数最大的表
+                    TableMeta forced = waiting.values().stream().max(Comparator.naturalOrder()).get();
+                    String tableName = forced.getTableName().toLowerCase();
+                    log.warn("Circular foreign key dependency detected, table {} scheduled before referenced tables {}", forced.getTableName(), pendingParents.get(tableName));
+                    waiting.remove(tableName);
+                    pendingParents.remove(tableName);
+                    ready.add(forced);
+                    continue;
+                }
+                Future<TableMeta> future = completionService.take();
+                running--;
+                TableMeta finished;
+                try {
+                    finished = future.get();
+                } catch (ExecutionException e) {
+                    if (error == null) {
+                        error = e.getCause() instanceof ExecutionException ? e.getCause().getCause() : e.getCause();
+                    }
+                    continue;
+                }
+                this.release(finished, pendingParents, waiting, ready);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    /**
+     * 表结束后解除引用它的表的依赖
+     */
+    private void release(TableMeta finished, Map<String, Set<String>> pendingParents, Map<String, TableMeta> waiting, PriorityQueue<TableMeta> ready) {
+        String tableName = finished.getTableName().toLowerCase();
+        for (String child : this.children.getOrDefault(tableName, new LinkedHashSet<>())) {
+            Set<String> remaining = pendingParents.get(child);
+            if (remaining == null) {
+                continue;
+            }
+            remaining.remove(tableName);
+            if (remaining.isEmpty()) {
+                pendingParents.remove(child);
+                TableMeta tableMeta = waiting.remove(child);
+                if (tableMeta != null) {
+                    ready.add(tableMeta);
+                }
+            }
+        }
+    }
+
+    /**
+     * 按依赖分层，同一层内的表互不依赖，用于日志及预览执行计划
+     *
+     * @return 分层结果，循环依赖的表放在最后一层
+     */
+    public List<List<TableMeta>> getLevels() {
+        List<List<TableMeta>> result = new ArrayList<>(4);
+        Map<String, TableMeta> remaining = new LinkedHashMap<>(16);
+        this.tables.forEach(t -> remaining.put(t.getTableName().toLowerCase(), t));
+        while (!remaining.isEmpty()) {
+            List<TableMeta> level = new ArrayList<>(16);
+            for (Map.Entry<String, TableMeta> entry : remaining.entrySet()) {
+                if (this.getDependencies(entry.getKey()).stream().noneMatch(remaining::containsKey)) {
+                    level.add(entry.getValue());
+                }
+            }
+            if (level.isEmpty()) {
+                level.addAll(remaining.values());
+            }
+            level.forEach(t -> remaining.remove(t.getTableName().toLowerCase()));
+            result.add(level);
+        }
+        return result;
+    }
+}
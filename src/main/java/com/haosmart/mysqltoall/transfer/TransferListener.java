@@ -0,0 +1,95 @@
+package com.haosmart.mysqltoall.transfer;
+
+import com.haosmart.mysqltoall.enumration.ActionType;
+
+/**
+ * 同步过程监听器，执行器及Worker在同步开始结束、表开始结束、批次完成、DDL及元数据查询、重试及拒绝记录时回调，实现需保证线程安全
+ *
+ * @author fujunhao
+ */
+public interface TransferListener {
+
+    /**
+     * 同步开始
+     *
+     * @param tableCount  待同步表数量
+     * @param recordCount 待同步记录数
+     */
+    default void onRunStart(int tableCount, long recordCount) {
+    }
+
+    /**
+     * 同步结束
+     *
+     * @param success 是否成功
+     */
+    default void onRunFinish(boolean success) {
+    }
+
+    /**
+     * 表开始同步
+     *
+     * @param tableName   表名
+     * @param recordCount 预计记录数
+     */
+    default void onTableStart(String tableName, long recordCount) {
+    }
+
+    /**
+     * 批次写入完成
+     *
+     * @param tableName  表名
+     * @param rows       批次行数
+     * @param bytes      批次字节数（估算）
+     * @param readNanos  来源读取耗时（纳秒）
+     * @param writeNanos 目标写入耗时（纳秒）
+     */
+    default void onBatch(String tableName, int rows, long bytes, long readNanos, long writeNanos) {
+    }
+
+    /**
+     * 表同步结束
+     *
+     * @param tableName 表名
+     * @param success   是否成功
+     */
+    default void onTableFinish(String tableName, boolean success) {
+    }
+
+    /**
+     * DDL执行完成
+     *
+     * @param tableName  表名
+     * @param actionType 操作类型
+     * @param nanos      耗时（纳秒）
+     */
+    default void onDdl(String tableName, ActionType actionType, long nanos) {
+    }
+
+    /**
+     * 元数据查询完成
+     *
+     * @param tableName 表名，查询表清单时为{@code null}
+     * @param nanos     耗时（纳秒）
+     */
+    default void onMetadata(String tableName, long nanos) {
+    }
+
+    /**
+     * 批次写入失败并重试
+     *
+     * @param tableName 表名
+     * @param cause     失败原因
+     */
+    default void onRetry(String tableName, Throwable cause) {
+    }
+
+    /**
+     * 记录被拒绝并写入死信文件
+     *
+     * @param tableName 表名
+     * @param rows      拒绝的记录数
+     */
+    default void onReject(String tableName, int rows) {
+    }
+}
@@ -0,0 +1,45 @@
+package com.haosmart.mysqltoall.transfer;
+
+import cn.hutool.core.util.ObjectUtil;
+
+import java.util.List;
+
+/**
+ * 列值转换器
+ *
+ * @author fujunhao
+ */
+@FunctionalInterface
+public interface ValueConverter {
+
+    /**
+     * 转换列值
+     *
+     * @param value 来源值
+     * @return 写入目标库的值
+     */
+    Object convert(Object value);
+
+    /**
+     * 串联另一个转换器
+     *
+     * @param next 后续转换器
+     * @return 串联后的转换器
+     */
+    default ValueConverter andThen(ValueConverter next) {
+        return value -> next.convert(this.convert(value));
+    }
+
+    /**
+     * 将转换器列表串联为一个转换器
+     *
+     * @param converters 转换器列表
+     * @return 串联后的转换器，列表为空时返回{@code null}
+     */
+    static ValueConverter chain(List<ValueConverter> converters) {
+        if (ObjectUtil.isEmpty(converters)) {
+            return null;
+        }
+        return converters.stream().reduce(ValueConverter::andThen).orElse(null);
+    }
+}
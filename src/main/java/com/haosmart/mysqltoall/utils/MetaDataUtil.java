@@ -0,0 +1,118 @@
+package com.haosmart.mysqltoall.utils;
+
+import cn.hutool.core.collection.ListUtil;
+import cn.hutool.core.text.CharSequenceUtil;
+import cn.hutool.core.util.ObjectUtil;
+import com.haosmart.mysqltoall.entity.ForeignKey;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 元数据工具，补充hutool {@code MetaUtil}未提供的外键信息
+ *
+ * @author fujunhao
+ */
+@Slf4j
+public class MetaDataUtil {
+
+    private final static String SOURCE_QUOTE = "`";
+
+    private MetaDataUtil() {
+    }
+
+    /**
+     * 来源库（MySQL）标识符加反引号，列名为保留字（如order、key）时语句仍可执行
+     *
+     * @param name 标识符
+     * @return 加反引号后的标识符
+     */
+    public static String wrapSourceName(String name) {
+        return SOURCE_QUOTE + CharSequenceUtil.replace(name, SOURCE_QUOTE, SOURCE_QUOTE + SOURCE_QUOTE) + SOURCE_QUOTE;
+    }
+
+    /**
+     * 获取与指定表相关的外键，包括这些表上的外键以及引用这些表的外键，表名找不到时再按大写查找
+     *
+     * @param dataSource 数据源
+     * @param schema     模式名，为空时使用连接的默认模式
+     * @param tableNames 表名
+     * @return 外键列表，按约束去重
+     */
+    public static List<ForeignKey> getForeignKeys(DataSource dataSource, String schema, Collection<String> tableNames) {
+        if (ObjectUtil.isEmpty(tableNames)) {
+            return ListUtil.empty();
+        }
+        Map<String, ForeignKey> result = new LinkedHashMap<>(16);
+        try (Connection conn = dataSource.getConnection()) {
+            DatabaseMetaData metaData = conn.getMetaData();
+            String catalog = conn.getCatalog();
+            String schemaName = CharSequenceUtil.isNotBlank(schema) ? schema : getSchema(conn);
+            for (String tableName : tableNames) {
+                int count = readForeignKeys(metaData, catalog, schemaName, tableName, result);
+                if (count == 0 && !tableName.equals(tableName.toUpperCase())) {
+                    readForeignKeys(metaData, catalog, schemaName == null ? null : schemaName.toUpperCase(), tableName.toUpperCase(), result);
+                }
+            }
+        } catch (SQLException e) {
+            log.warn("Read foreign keys failed: {}", e.getMessage());
+        }
+        return ListUtil.toList(result.values());
+    }
+
+    private static int readForeignKeys(DatabaseMetaData metaData, String catalog, String schema, String tableName, Map<String, ForeignKey> result) throws SQLException {
+        int count;
+        try (ResultSet rs = metaData.getImportedKeys(catalog, schema, tableName)) {
+            count = readForeignKeys(rs, result);
+        }
+        try (ResultSet rs = metaData.getExportedKeys(catalog, schema, tableName)) {
+            count += readForeignKeys(rs, result);
+        }
+        return count;
+    }
+
+    /**
+     * 读取外键结果集，复合外键按KEY_SEQ顺序逐行返回
+     */
+    private static int readForeignKeys(ResultSet rs, Map<String, ForeignKey> result) throws SQLException {
+        int count = 0;
+        Map<String, ForeignKey> current = new LinkedHashMap<>(4);
+        while (rs.next()) {
+            count++;
+            String tableName = rs.getString("FKTABLE_NAME");
+            String referencedTableName = rs.getString("PKTABLE_NAME");
+            String name = CharSequenceUtil.blankToDefault(rs.getString("FK_NAME"),
+                    CharSequenceUtil.join("_", "FK", tableName, referencedTableName));
+            String key = CharSequenceUtil.join(".", tableName, name).toLowerCase();
+            ForeignKey foreignKey = current.get(key);
+            if (ObjectUtil.isNull(foreignKey)) {
+                foreignKey = new ForeignKey();
+                foreignKey.setName(name);
+                foreignKey.setTableName(tableName);
+                foreignKey.setReferencedTableName(referencedTableName);
+                foreignKey.setDeleteRule(rs.getInt("DELETE_RULE"));
+                current.put(key, foreignKey);
+            }
+            foreignKey.getColumns().add(rs.getString("FKCOLUMN_NAME"));
+            foreignKey.getReferencedColumns().add(rs.getString("PKCOLUMN_NAME"));
+        }
+        current.forEach(result::putIfAbsent);
+        return count;
+    }
+
+    private static String getSchema(Connection conn) {
+        try {
+            return conn.getSchema();
+        } catch (Throwable ignored) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.haosmart.mysqltoall.verify;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.text.CharSequenceUtil;
+import cn.hutool.core.util.ObjectUtil;
+import cn.hutool.crypto.digest.DigestUtil;
+import cn.hutool.db.meta.Column;
+import cn.hutool.db.meta.IndexInfo;
+import cn.hutool.db.meta.Table;
+import com.haosmart.mysqltoall.transfer.TransferListener;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * 表指纹存储，记录上次成功同步时来源表的结构及内容指纹；仅在事务提交后写入文件，
+ * 失败、回滚或存在拒绝记录的表会移除指纹，下次同步时重新处理
+ *
+ * @author fujunhao
+ */
+@Slf4j
+public class FingerprintStore implements TransferListener {
+
+    private final static String FIELD_SEPARATOR = "|";
+
+    private final File file;
+
+    /**
+     * 上次成功同步的指纹
+     */
+    private final Map<String, String> fingerprints = new ConcurrentHashMap<>(16);
+
+    /**
+     * 本次同步前计算的指纹，表同步成功后生效
+     */
+    private final Map<String, String> pending = new ConcurrentHashMap<>(16);
+
+    private final Map<String, String> completed = new ConcurrentHashMap<>(16);
+
+    private final Set<String> started = ConcurrentHashMap.newKeySet();
+
+    private final Set<String> rejected = ConcurrentHashMap.newKeySet();
+
+    public FingerprintStore(String path) {
+        this.file = FileUtil.file(path);
+        this.load();
+    }
+
+    /**
+     * 计算表指纹：列及索引元数据、记录数、内容版本（如CHECKSUM TABLE或UPDATE_TIME）以及影响同步结果的配置
+     *
+     * @param table          来源表对象
+     * @param recordCount    记录数
+     * @param contentVersion 内容版本
+     * @param context        目标库及同步配置
+     * @return 指纹
+     */
+    public static String fingerprint(@NonNull Table table, long recordCount, @NonNull Object contentVersion, String context) {
+        StringBuilder builder = new StringBuilder(1024);
+        builder.append(context).append('\n')
+                .append(table.getTableName()).append(FIELD_SEPARATOR).append(table.getComment()).append(FIELD_SEPARATOR)
+                .append(recordCount).append(FIELD_SEPARATOR).append(contentVersion).append('\n');
+        for (Column column : table.getColumns()) {
+            builder.append(CharSequenceUtil.join(FIELD_SEPARATOR, column.getName(), column.getTypeName(), column.getSize(), column.getDigit(),
+                    column.isNullable(), column.getColumnDef(), column.isAutoIncrement(), column.isPk(), column.getComment())).append('\n');
+        }
+        if (CollUtil.isNotEmpty(table.getIndexInfoList())) {
+            table.getIndexInfoList().stream()
+                    .sorted(Comparator.comparing(IndexInfo::getIndexName, Comparator.nullsFirst(Comparator.naturalOrder())))
+                    .forEach(t -> builder.append(CharSequenceUtil.join(FIELD_SEPARATOR, t.getIndexName(), t.isNonUnique(),
+                            t.getColumnIndexInfoList().stream().map(c -> c.getColumnName()).collect(Collectors.joining(",")))).append('\n'));
+        }
+        return DigestUtil.sha256Hex(builder.toString());
+    }
+
+    /**
+     * 登记本次同步前的指纹，并判断与上次成功同步时是否一致
+     *
+     * @param tableName   表名
+     * @param fingerprint 指纹
+     * @return 是否未变化
+     */
+    public boolean checkUnchanged(String tableName, String fingerprint) {
+        this.pending.put(tableName, fingerprint);
+        return ObjectUtil.equals(this.fingerprints.get(tableName), fingerprint);
+    }
+
+    @Override
+    public void onTableStart(String tableName, long recordCount) {
+        this.started.add(tableName);
+    }
+
+    @Override
+    public void onReject(String tableName, int rows) {
+        this.rejected.add(tableName);
+    }
+
+    @Override
+    public void onTableFinish(String tableName, boolean success) {
+        String fingerprint = this.pending.get(tableName);
+        if (success && ObjectUtil.isNotNull(fingerprint) && !this.rejected.contains(tableName)) {
+            this.completed.put(tableName, fingerprint);
+        }
+    }
+
+    @Override
+    public synchronized void onRunFinish(boolean success) {
+        //目标表可能已被删除重建（DDL不随事务回滚），本次处理过但未成功提交的表均需重新同步
+        for (String tableName : this.started) {
+            String fingerprint = this.completed.get(tableName);
+            if (success && ObjectUtil.isNotNull(fingerprint)) {
+                this.fingerprints.put(tableName, fingerprint);
+            } else {
+                this.fingerprints.remove(tableName);
+            }
+        }
+        if (CollUtil.isNotEmpty(this.started)) {
+            this.write();
+        }
+        this.pending.clear();
+        this.completed.clear();
+        this.started.clear();
+        this.rejected.clear();
+    }
+
+    private void load() {
+        if (!this.file.exists()) {
+            return;
+        }
+        Properties properties = new Properties();
+        try (Reader reader = FileUtil.getReader(this.file, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+            properties.stringPropertyNames().forEach(t -> this.fingerprints.put(t, properties.getProperty(t)));
+            log.info("Fingerprint file {} loaded, tables:{}", this.file, this.fingerprints.size());
+        } catch (Exception e) {
+            log.warn("Read fingerprint file {} failed, all tables will be transferred: {}", this.file, e.getMessage());
+        }
+    }
+
+    private void write() {
+        try {
+            File temp = FileUtil.file(this.file.getAbsoluteFile().getParentFile(), this.file.getName() + ".tmp");
+            FileUtil.mkParentDirs(temp);
+            Properties properties = new Properties();
+            properties.putAll(new TreeMap<>(this.fingerprints));
+            try (Writer writer = FileUtil.getWriter(temp, StandardCharsets.UTF_8, false)) {
+                properties.store(writer, null);
+            }
+            Files.move(temp.toPath(), this.file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (Exception e) {
+            log.warn("Write fingerprint file {} failed: {}", this.file, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,310 @@
+package com.haosmart.mysqltoall.verify;
+
+import cn.hutool.core.collection.ListUtil;
+import cn.hutool.core.text.CharSequenceUtil;
+import cn.hutool.core.util.ObjectUtil;
+import cn.hutool.db.Db;
+import cn.hutool.db.meta.Column;
+import cn.hutool.db.meta.Table;
+import cn.hutool.db.sql.SqlUtil;
+import com.haosmart.mysqltoall.DataSourceProvider;
+import com.haosmart.mysqltoall.config.TableRule;
+import com.haosmart.mysqltoall.ddl.DdlProvider;
+import com.haosmart.mysqltoall.entity.KeyRange;
+import com.haosmart.mysqltoall.transfer.ValueConverter;
+import com.haosmart.mysqltoall.utils.MetaDataUtil;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.zip.CRC32;
+
+/**
+ * 主键区间校验器，按单列数值主键切分区间，分别计算来源表与目标表每个区间的校验值，找出不一致的区间
+ *
+ * @author fujunhao
+ */
+@Slf4j
+public class RangeChecksumVerifier {
+
+    private final static String QUERY_MIN_MAX = "select min({}), max({}) from {}";
+
+    private final static String QUERY_RANGE = "select {} from {} where {} >= ? and {} <= ? order by {}";
+
+    private final static String QUERY_RANGE_WITH_FILTER = "select {} from {} where {} >= ? and {} <= ? and ({}) order by {}";
+
+    private final static byte[] NULL_MARK = {0};
+
+    private final static byte[] FIELD_SEPARATOR = {31};
+
+    private final static byte[] ROW_SEPARATOR = {30};
+
+    private final DataSourceProvider sourceProvider;
+
+    private final DataSourceProvider targetProvider;
+
+    private final DdlProvider ddlProvider;
+
+    public RangeChecksumVerifier(DataSourceProvider sourceProvider, DataSourceProvider targetProvider, DdlProvider ddlProvider) {
+        this.sourceProvider = sourceProvider;
+        this.targetProvider = targetProvider;
+        this.ddlProvider = ddlProvider;
+    }
+
+    /**
+     * 获取可用于区间切分的主键，仅支持单列整数主键
+     *
+     * @param table 来源表对象
+     * @return 主键列，不支持时返回{@code null}
+     */
+    public static Column getRangeKey(@NonNull Table table) {
+        if (ObjectUtil.isEmpty(table.getPkNames()) || table.getPkNames().size() != 1) {
+            return null;
+        }
+        Column column = table.getColumn(table.getPkNames().iterator().next());
+        if (ObjectUtil.isNull(column)) {
+            return null;
+        }
+        switch (column.getTypeEnum()) {
+            case TINYINT:
+            case SMALLINT:
+            case INTEGER:
+            case BIGINT:
+                return column;
+            case DECIMAL:
+            case NUMERIC:
+                return ObjectUtil.defaultIfNull(column.getDigit(), 0) == 0 ? column : null;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * 查找来源表与目标表校验值不一致的主键区间
+     *
+     * @param fromTable   来源表对象
+     * @param toTable     目标表对象
+     * @param recordCount 来源表记录数
+     * @param rangeRows   每个区间的期望记录数
+     * @return 不一致的主键区间
+     */
+    public List<KeyRange> findMismatchedRanges(@NonNull Table fromTable, @NonNull Table toTable, long recordCount, int rangeRows) throws SQLException {
+        return this.findMismatchedRanges(fromTable, toTable, recordCount, rangeRows, null);
+    }
+
+    /**
+     * 按单表同步规则查找不一致的主键区间，来源端使用规则中的列表达式及过滤条件；配置了列值转换器的列在Java端转换，不参与校验
+     *
+     * @param fromTable   来源表对象（已按规则裁剪）
+     * @param toTable     目标表对象
+     * @param recordCount 来源表记录数
+     * @param rangeRows   每个区间的期望记录数
+     * @param tableRule   单表同步规则，可为{@code null}
+     * @return 不一致的主键区间
+     */
+    public List<KeyRange> findMismatchedRanges(@NonNull Table fromTable, @NonNull Table toTable, long recordCount, int rangeRows, TableRule tableRule) throws SQLException {
+        return this.findMismatchedRanges(fromTable, toTable, recordCount, rangeRows, tableRule, ObjectUtil.isNull(tableRule) ? null : tableRule.getFilter());
+    }
+
+    /**
+     * 按单表同步规则及过滤条件查找不一致的主键区间，过滤条件仅在来源端生效，目标表应只包含满足条件的数据
+     *
+     * @param fromTable   来源表对象（已按规则裁剪）
+     * @param toTable     目标表对象
+     * @param recordCount 来源表记录数
+     * @param rangeRows   每个区间的期望记录数
+     * @param tableRule   单表同步规则，可为{@code null}
+     * @param condition   来源数据过滤条件（已合并规则中的过滤条件），可为{@code null}
+     * @return 不一致的主键区间
+     */
+    public List<KeyRange> findMismatchedRanges(@NonNull Table fromTable, @NonNull Table toTable, long recordCount, int rangeRows, TableRule tableRule,
+                                               String condition) throws SQLException {
+        Column fromKey = getRangeKey(fromTable);
+        Column toKey = this.findColumn(toTable, fromKey);
+        if (ObjectUtil.isNull(fromKey) || ObjectUtil.isNull(toKey)) {
+            throw new IllegalArgumentException(CharSequenceUtil.format("Table:{} has no single numeric primary key", fromTable.getTableName()));
+        }
+        List<String> fromColumns = new ArrayList<>(16);
+        List<String> toColumns = new ArrayList<>(16);
+        List<ValueConverter> fromConverters = new ArrayList<>(16);
+        for (Column fromColumn : fromTable.getColumns()) {
+            Column toColumn = this.findColumn(toTable, fromColumn);
+            if (ObjectUtil.isNull(toColumn)) {
+                continue;
+            }
+            if (ObjectUtil.isNull(tableRule)) {
+                fromColumns.add(MetaDataUtil.wrapSourceName(fromColumn.getName()));
+            } else if (ObjectUtil.isNull(tableRule.getColumnConverter(fromColumn.getName()))) {
+                fromColumns.add(tableRule.getSelectColumn(fromColumn.getName()));
+            } else {
+                continue;
+            }
+            toColumns.add(this.ddlProvider.wrapName(toColumn.getName()));
+            fromConverters.add(this.ddlProvider.getValueConverter(fromColumn, toColumn));
+        }
+        String fromKeyName = MetaDataUtil.wrapSourceName(fromKey.getName());
+        String toKeyName = this.ddlProvider.wrapName(toKey.getName());
+        long[] fromBound = this.queryBound(this.sourceProvider.getDb(), fromTable.getTableName(), fromKeyName);
+        long[] toBound = this.queryBound(this.targetProvider.getDb(), toTable.getTableName(), toKeyName);
+        List<KeyRange> ranges = splitRanges(fromBound, toBound, recordCount, rangeRows);
+
+        String fromSql = CharSequenceUtil.isBlank(condition)
+                ? CharSequenceUtil.format(QUERY_RANGE, String.join(",", fromColumns), fromTable.getTableName(), fromKeyName, fromKeyName, fromKeyName)
+                : CharSequenceUtil.format(QUERY_RANGE_WITH_FILTER, String.join(",", fromColumns), fromTable.getTableName(), fromKeyName, fromKeyName, condition, fromKeyName);
+        String toSql = CharSequenceUtil.format(QUERY_RANGE, String.join(",", toColumns), toTable.getTableName(), toKeyName, toKeyName, toKeyName);
+        List<KeyRange> mismatched = new ArrayList<>(16);
+        for (KeyRange range : ranges) {
+            long[] fromDigest = this.digest(this.sourceProvider.getDb(), fromSql, range, fromConverters);
+            long[] toDigest = this.digest(this.targetProvider.getDb(), toSql, range, null);
+            if (fromDigest[0] != toDigest[0] || fromDigest[1] != toDigest[1]) {
+                log.debug("Table {} range [{}, {}] mismatched, source rows:{} target rows:{}", fromTable.getTableName(), range.getLower(), range.getUpper(), fromDigest[0], toDigest[0]);
+                mismatched.add(range);
+            }
+        }
+        log.info("Table {} checksum finished, {} of {} ranges mismatched", fromTable.getTableName(), mismatched.size(), ranges.size());
+        return mismatched;
+    }
+
+
+    /**
+     * 按来源表与目标表的主键边界切分区间，主键接近{@link Long#MIN_VALUE}或{@link Long#MAX_VALUE}时区间宽度按{@link BigInteger}计算，避免溢出
+     *
+     * @param fromBound   来源表主键边界
+     * @param toBound     目标表主键边界
+     * @param recordCount 来源表记录数
+     * @param rangeRows   每个区间的期望记录数
+     * @return 区间列表
+     */
+    static List<KeyRange> splitRanges(long[] fromBound, long[] toBound, long recordCount, int rangeRows) {
+        if (ObjectUtil.isNull(fromBound) && ObjectUtil.isNull(toBound)) {
+            return ListUtil.empty();
+        }
+        long lower = ObjectUtil.isNull(fromBound) ? toBound[0] : ObjectUtil.isNull(toBound) ? fromBound[0] : Math.min(fromBound[0], toBound[0]);
+        long upper = ObjectUtil.isNull(fromBound) ? toBound[1] : ObjectUtil.isNull(toBound) ? fromBound[1] : Math.max(fromBound[1], toBound[1]);
+        long rangeCount = Math.max(1L, (recordCount + rangeRows - 1) / Math.max(1, rangeRows));
+        BigInteger upperValue = BigInteger.valueOf(upper);
+        BigInteger width = upperValue.subtract(BigInteger.valueOf(lower)).divide(BigInteger.valueOf(rangeCount)).add(BigInteger.ONE);
+        List<KeyRange> ranges = new ArrayList<>(16);
+        BigInteger start = BigInteger.valueOf(lower);
+        while (true) {
+            BigInteger end = start.add(width).subtract(BigInteger.ONE).min(upperValue);
+            ranges.add(new KeyRange(start.longValue(), end.longValue()));
+            if (end.equals(upperValue)) {
+                break;
+            }
+            start = end.add(BigInteger.ONE);
+        }
+        return ranges;
+    }
+
+    private long[] queryBound(Db db, String tableName, String keyName) throws SQLException {
+        return db.query(CharSequenceUtil.format(QUERY_MIN_MAX, keyName, keyName, tableName), (ResultSet rs) -> {
+            if (!rs.next() || ObjectUtil.isNull(rs.getObject(1))) {
+                return null;
+            }
+            return new long[]{rs.getLong(1), rs.getLong(2)};
+        });
+    }
+
+    /**
+     * 计算区间内的记录数与校验值，来源端的值先经过与写入时相同的列值转换器（如Oracle非空字符列的空字符串转为空格）
+     *
+     * @param converters 各列的列值转换器，目标端为{@code null}
+     * @return [记录数, 校验值]
+     */
+    private long[] digest(Db db, String sql, KeyRange range, List<ValueConverter> converters) throws SQLException {
+        return db.query(sql, (ResultSet rs) -> {
+            CRC32 crc = new CRC32();
+            ResultSetMetaData metaData = rs.getMetaData();
+            int columnCount = metaData.getColumnCount();
+            long count = 0;
+            while (rs.next()) {
+                for (int i = 1; i <= columnCount; i++) {
+                    Object value = this.getValue(rs, metaData.getColumnType(i), i);
+                    ValueConverter converter = ObjectUtil.isNull(converters) ? null : converters.get(i - 1);
+                    crc.update(normalize(ObjectUtil.isNull(converter) ? value : converter.convert(value)));
+                    crc.update(FIELD_SEPARATOR);
+                }
+                crc.update(ROW_SEPARATOR);
+                count++;
+            }
+            return new long[]{count, crc.getValue()};
+        }, range.getLower(), range.getUpper());
+    }
+
+    /**
+     * 读取列值，大对象及日期时间类型统一为JDBC类型
+     */
+    private Object getValue(ResultSet rs, int sqlType, int index) throws SQLException {
+        Object value;
+        switch (sqlType) {
+            case Types.DATE:
+            case Types.TIME:
+            case Types.TIMESTAMP:
+            case Types.TIMESTAMP_WITH_TIMEZONE:
+                value = rs.getTimestamp(index);
+                break;
+            default:
+                value = rs.getObject(index);
+                break;
+        }
+        if (value instanceof Clob) {
+            value = SqlUtil.clobToStr((Clob) value);
+        } else if (value instanceof Blob) {
+            Blob blob = (Blob) value;
+            value = blob.getBytes(1, (int) blob.length());
+        } else if (value instanceof LocalDateTime) {
+            value = Timestamp.valueOf((LocalDateTime) value);
+        } else if (value instanceof LocalDate) {
+            value = java.sql.Date.valueOf((LocalDate) value);
+        }
+        return value;
+    }
+
+    /**
+     * 将不同方言返回的值统一为可比较的字节，空字符串视为null（Oracle）
+     */
+    private static byte[] normalize(Object value) {
+        if (ObjectUtil.isNull(value) || "".equals(value)) {
+            return NULL_MARK;
+        }
+        if (value instanceof byte[]) {
+            return (byte[]) value;
+        }
+        if (value instanceof Boolean) {
+            return ((Boolean) value) ? new byte[]{'1'} : new byte[]{'0'};
+        }
+        if (value instanceof Number) {
+            return new BigDecimal(value.toString()).stripTrailingZeros().toPlainString().getBytes(StandardCharsets.UTF_8);
+        }
+        if (value instanceof java.util.Date) {
+            return String.valueOf(((java.util.Date) value).getTime()).getBytes(StandardCharsets.UTF_8);
+        }
+        return Objects.toString(value).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private Column findColumn(Table table, Column column) {
+        if (ObjectUtil.isNull(column)) {
+            return null;
+        }
+        return table.getColumns().stream()
+                .filter(t -> CharSequenceUtil.equalsIgnoreCase(t.getName(), column.getName()))
+                .findFirst()
+                .orElse(null);
+    }
+
+}
@@ -0,0 +1,60 @@
+package com.haosmart.mysqltoall;
+
+import cn.hutool.core.map.MapUtil;
+import com.haosmart.mysqltoall.config.DbConfig;
+import com.haosmart.mysqltoall.enumration.DbType;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class DataSourceProviderTest {
+
+    private static DbConfig config(DbType dbType, String url, Map<String, String> urlProperties) {
+        DbConfig config = TestSupport.config(dbType, null);
+        config.setDbUrl(url);
+        config.setUrlProperties(urlProperties);
+        return config;
+    }
+
+    @Test
+    public void mysqlUrlTest() {
+        Map<String, String> properties = new LinkedHashMap<>();
+        properties.put("zeroDateTimeBehavior", "CONVERT_TO_NULL");
+        properties.put("rewritebatchedstatements", "false");
+        properties.put("useSSL", "true");
+        String url = DataSourceProvider.buildUrl(config(DbType.MYSQL, "jdbc:mysql://localhost:3306/test?useSSL=false&CachePrepStmts=false", properties));
+        //URL中已有的参数及自定义参数优先，参数名忽略大小写，不重复追加
+        Assert.assertEquals("jdbc:mysql://localhost:3306/test?useSSL=false&CachePrepStmts=false&useServerPrepStmts=true&prepStmtCacheSize=250"
+                + "&prepStmtCacheSqlLimit=2048&zeroDateTimeBehavior=CONVERT_TO_NULL&rewritebatchedstatements=false", url);
+        //默认不追加改变读取语义的参数
+        Assert.assertEquals("jdbc:mysql://localhost:3306/test?rewriteBatchedStatements=true&useServerPrepStmts=true&cachePrepStmts=true"
+                + "&prepStmtCacheSize=250&prepStmtCacheSqlLimit=2048", DataSourceProvider.buildUrl(config(DbType.MYSQL, "jdbc:mysql://localhost:3306/test", null)));
+    }
+
+    @Test
+    public void postgresqlUrlTest() {
+        Assert.assertEquals("jdbc:postgresql://localhost:5432/test?reWriteBatchedInserts=true",
+                DataSourceProvider.buildUrl(config(DbType.POSTGRESQL, "jdbc:postgresql://localhost:5432/test", null)));
+        Assert.assertEquals("jdbc:postgresql://localhost:5432/test?reWriteBatchedInserts=false&stringtype=unspecified",
+                DataSourceProvider.buildUrl(config(DbType.POSTGRESQL, "jdbc:postgresql://localhost:5432/test?reWriteBatchedInserts=false",
+                        MapUtil.of("stringtype", "unspecified"))));
+    }
+
+    @Test
+    public void sqlServerUrlTest() {
+        Assert.assertEquals("jdbc:sqlserver://localhost:1433;databaseName=test;useBulkCopyForBatchInsert=false;encrypt=false",
+                DataSourceProvider.buildUrl(config(DbType.SQLSERVER, "jdbc:sqlserver://localhost:1433;databaseName=test;useBulkCopyForBatchInsert=false",
+                        MapUtil.of("encrypt", "false"))));
+    }
+
+    @Test
+    public void disabledUrlTest() {
+        //驱动与数据库类型不一致（H2模拟）或关闭自动参数时只追加自定义参数
+        Assert.assertEquals("jdbc:h2:mem:test;MODE=MySQL", DataSourceProvider.buildUrl(config(DbType.MYSQL, "jdbc:h2:mem:test;MODE=MySQL", null)));
+        DbConfig config = config(DbType.MYSQL, "jdbc:mysql://localhost:3306/test", MapUtil.of("useSSL", "false"));
+        config.setAutoUrlProperties(false);
+        Assert.assertEquals("jdbc:mysql://localhost:3306/test?useSSL=false", DataSourceProvider.buildUrl(config));
+    }
+}
@@ -0,0 +1,40 @@
+package com.haosmart.mysqltoall;
+
+import cn.hutool.core.collection.ListUtil;
+import com.haosmart.mysqltoall.config.DbConfig;
+import com.haosmart.mysqltoall.enumration.DbType;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class DdlExecutorTest {
+
+    private static DbConfig config(String id, DbType dbType, String url) {
+        DbConfig config = TestSupport.config(dbType, null);
+        config.setId(id);
+        config.setDbUrl(url);
+        return config;
+    }
+
+    @Test
+    public void lazyPoolTest() {
+        //连接池在首次使用时创建，数据库不可达时仍可创建执行器
+        DbConfig target = config("oracle", DbType.ORACLE, "jdbc:oracle:thin:@127.0.0.1:1:none");
+        DdlExecutor executor = new DdlExecutor(ListUtil.of(config("shard-a", DbType.MYSQL, "jdbc:mysql://127.0.0.1:1/none"),
+                config("shard-b", DbType.MYSQL, "jdbc:mysql://127.0.0.1:1/none")), target, new ExecuteStrategy() {
+        });
+        Assert.assertEquals(ListUtil.of("shard-a", "shard-b"), ListUtil.toList(executor.getShardMetrics().keySet()));
+        Assert.assertNotNull(new DdlExecutor(config("mysql", DbType.MYSQL, "jdbc:mysql://127.0.0.1:1/none"), target).getTransferMetrics());
+    }
+
+    @Test
+    public void duplicateShardTest() {
+        DbConfig source = config("shard", DbType.MYSQL, "jdbc:mysql://127.0.0.1:1/none");
+        try {
+            new DdlExecutor(ListUtil.of(source, source), config("oracle", DbType.ORACLE, "jdbc:oracle:thin:@127.0.0.1:1:none"), new ExecuteStrategy() {
+            });
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("shard"));
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.haosmart.mysqltoall;
+
+import cn.hutool.db.meta.Column;
+import cn.hutool.db.meta.JdbcType;
+import cn.hutool.db.meta.Table;
+import com.haosmart.mysqltoall.config.DbConfig;
+import com.haosmart.mysqltoall.ddl.DatabaseVersionProfile;
+import com.haosmart.mysqltoall.ddl.DdlProvider;
+import com.haosmart.mysqltoall.ddl.DdlProviderFactory;
+import com.haosmart.mysqltoall.enumration.DbType;
+import com.haosmart.mysqltoall.file.ChunkFormat;
+import com.haosmart.mysqltoall.file.ChunkReader;
+import com.haosmart.mysqltoall.file.ChunkWriter;
+import com.haosmart.mysqltoall.transfer.RowCodec;
+import org.junit.Assert;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 单元测试共用的配置、列、表构造方法及数据块、行编码读写
+ */
+public final class TestSupport {
+
+    private TestSupport() {
+    }
+
+    public static DbConfig config(DbType dbType, String schemaName) {
+        DbConfig config = new DbConfig();
+        config.setId(dbType.getName());
+        config.setDbType(dbType);
+        config.setSchemaName(schemaName);
+        return config;
+    }
+
+    /**
+     * 按指定版本创建方言提供者，无需连接数据库
+     */
+    public static DdlProvider provider(DbConfig config, int majorVersion) throws Exception {
+        return DdlProviderFactory.build(config, DatabaseVersionProfile.of(majorVersion, 0).toMetaData());
+    }
+
+    public static Column column(String name, JdbcType type) {
+        return new Column().setName(name).setType(type.typeCode);
+    }
+
+    public static Column column(String name, JdbcType type, String typeName, int size, int digit) {
+        return column(name, type).setTypeName(typeName).setSize(size).setDigit(digit).setNullable(true);
+    }
+
+    public static Table table(String tableName, Column... columns) {
+        Table table = Table.create(tableName);
+        for (Column column : columns) {
+            table.setColumn(column.setTableName(tableName));
+        }
+        return table;
+    }
+
+    /**
+     * 按指定格式写入数据块文件后读回
+     */
+    public static List<Object[]> roundTrip(ChunkFormat format, Column[] columns, Object[]... rows) throws Exception {
+        File file = File.createTempFile("chunk-test-", format.getSuffix());
+        try {
+            Path path = file.toPath();
+            try (ChunkWriter writer = format.openWriter(path, columns)) {
+                for (Object[] row : rows) {
+                    writer.write(row);
+                }
+                Assert.assertEquals(rows.length, writer.getRows());
+            }
+            List<Object[]> result = new ArrayList<>();
+            try (ChunkReader reader = format.openReader(path, columns)) {
+                Object[] values;
+                while ((values = reader.read()) != null) {
+                    result.add(values);
+                }
+            }
+            return result;
+        } finally {
+            Assert.assertTrue(file.delete());
+        }
+    }
+
+    /**
+     * 编码单行数据后解码，解码后缓冲区应无剩余字节
+     */
+    public static Object[] roundTrip(RowCodec codec, Object[] values) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        codec.encode(values, new DataOutputStream(bytes));
+        ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+        Object[] result = codec.decode(buffer);
+        Assert.assertFalse(buffer.hasRemaining());
+        return result;
+    }
+}
@@ -0,0 +1,75 @@
+package com.haosmart.mysqltoall.config;
+
+import cn.hutool.core.collection.ListUtil;
+import cn.hutool.db.meta.Column;
+import cn.hutool.db.meta.ColumnIndexInfo;
+import cn.hutool.db.meta.IndexInfo;
+import cn.hutool.db.meta.JdbcType;
+import cn.hutool.db.meta.Table;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.LinkedHashSet;
+import java.util.stream.Collectors;
+
+public class TableRuleTest {
+
+    private static Table table() {
+        Table table = Table.create("t_user");
+        for (String name : new String[]{"id", "name", "phone", "order", "remark"}) {
+            table.setColumn(new Column().setName(name).setType(JdbcType.VARCHAR.typeCode));
+        }
+        table.setPkNames(new LinkedHashSet<>(ListUtil.of("id")));
+        IndexInfo nameIndex = new IndexInfo(true, "idx_name", "t_user", null, null);
+        nameIndex.setColumnIndexInfoList(ListUtil.of(new ColumnIndexInfo("name", "A")));
+        IndexInfo remarkIndex = new IndexInfo(true, "idx_remark", "t_user", null, null);
+        remarkIndex.setColumnIndexInfoList(ListUtil.of(new ColumnIndexInfo("name", "A"), new ColumnIndexInfo("remark", "A")));
+        table.setIndexInfoList(ListUtil.of(nameIndex, remarkIndex));
+        return table;
+    }
+
+    @Test
+    public void projectTest() {
+        TableRule rule = new TableRule();
+        Table table = table();
+        Assert.assertSame(table, rule.project(table));
+
+        rule.setExcludeColumns(ListUtil.of("REMARK"));
+        Table projected = rule.project(table);
+        Assert.assertEquals(ListUtil.of("id", "name", "phone", "order"),
+                projected.getColumns().stream().map(Column::getName).collect(Collectors.toList()));
+        Assert.assertEquals(new LinkedHashSet<>(ListUtil.of("id")), projected.getPkNames());
+        Assert.assertEquals(ListUtil.of("idx_name"), projected.getIndexInfoList().stream().map(IndexInfo::getIndexName).collect(Collectors.toList()));
+
+        //排除列优先于同步列，主键列未同步时不保留主键
+        rule.setIncludeColumns(ListUtil.of("name", "Remark"));
+        projected = rule.project(table);
+        Assert.assertEquals(ListUtil.of("name"), projected.getColumns().stream().map(Column::getName).collect(Collectors.toList()));
+        Assert.assertTrue(projected.getPkNames().isEmpty());
+        Assert.assertEquals(1, projected.getIndexInfoList().size());
+    }
+
+    @Test
+    public void selectListTest() {
+        TableRule rule = new TableRule();
+        rule.setExcludeColumns(ListUtil.of("remark"));
+        rule.getColumnExpressions().put("PHONE", "CONCAT(LEFT(phone, 3), '****')");
+        Table projected = rule.project(table());
+        Assert.assertEquals("`id`,`name`,CONCAT(LEFT(phone, 3), '****') as `phone`,`order`", rule.getSelectList(projected));
+        Assert.assertEquals("`na``me`", rule.getSelectColumn("na`me"));
+
+        TableRule copy = rule.withColumnExpression("name", "UPPER(name)");
+        Assert.assertEquals("UPPER(name) as `name`", copy.getSelectColumn("name"));
+        Assert.assertEquals("`name`", rule.getSelectColumn("name"));
+    }
+
+    @Test
+    public void mergeConditionTest() {
+        TableRule rule = new TableRule();
+        Assert.assertNull(rule.mergeCondition(null));
+        Assert.assertEquals("id > 1", rule.mergeCondition("id > 1"));
+        rule.setFilter("status = 1");
+        Assert.assertEquals("status = 1", rule.mergeCondition(""));
+        Assert.assertEquals("(id > 1) and (status = 1)", rule.mergeCondition("id > 1"));
+    }
+}
@@ -0,0 +1,74 @@
+package com.haosmart.mysqltoall.ddl;
+
+import cn.hutool.core.collection.ListUtil;
+import cn.hutool.core.text.CharSequenceUtil;
+import cn.hutool.db.meta.JdbcType;
+import cn.hutool.db.meta.Table;
+import com.haosmart.mysqltoall.TestSupport;
+import com.haosmart.mysqltoall.config.DbConfig;
+import com.haosmart.mysqltoall.enumration.DbType;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+
+import static com.haosmart.mysqltoall.TestSupport.column;
+import static com.haosmart.mysqltoall.TestSupport.table;
+
+public class OracleDdlProviderTest {
+
+    private static DbConfig config() {
+        return TestSupport.config(DbType.ORACLE, "TEST");
+    }
+
+    private static DdlProvider provider() throws Exception {
+        return TestSupport.provider(config(), 19);
+    }
+
+    @Test
+    public void buildAlterDdlUnchangedTest() throws Exception {
+        Table fromTable = table("T", column("ID", JdbcType.INTEGER, "INT", 10, 0), column("NAME", JdbcType.VARCHAR, "VARCHAR", 100, 0),
+                column("AMOUNT", JdbcType.DECIMAL, "DECIMAL", 10, 2), column("BODY", JdbcType.LONGVARCHAR, "TEXT", 65535, 0),
+                column("CREATED", JdbcType.TIMESTAMP, "DATETIME", 19, 0));
+        //目标列的元数据：VARCHAR2按字节放大后的长度、INTEGER存储为NUMBER(38,0)、DECIMAL存储为NUMBER、TEXT映射为CLOB
+        Table toTable = table("T", column("ID", JdbcType.NUMERIC, "NUMBER", 38, 0), column("NAME", JdbcType.VARCHAR, "VARCHAR2", 300, 0),
+                column("AMOUNT", JdbcType.NUMERIC, "NUMBER", 10, 2), column("BODY", JdbcType.CLOB, "CLOB", -1, 0),
+                column("CREATED", JdbcType.TIMESTAMP, "TIMESTAMP(6)", 11, 6));
+        List<String> ddlList = provider().buildAlterDdl(config(), config(), fromTable, toTable, false);
+        Assert.assertTrue(ddlList.toString(), ddlList.isEmpty());
+    }
+
+    @Test
+    public void buildAlterDdlChangedTest() throws Exception {
+        Table fromTable = table("T", column("ID", JdbcType.INTEGER, "INT", 10, 0), column("NAME", JdbcType.VARCHAR, "VARCHAR", 200, 0),
+                column("AMOUNT", JdbcType.DECIMAL, "DECIMAL", 12, 2), column("CODE", JdbcType.VARCHAR, "VARCHAR", 10, 0).setComment("编码"));
+        Table toTable = table("T", column("ID", JdbcType.NUMERIC, "NUMBER", 38, 0), column("NAME", JdbcType.VARCHAR, "VARCHAR2", 300, 0),
+                column("AMOUNT", JdbcType.NUMERIC, "NUMBER", 10, 2), column("OLD", JdbcType.VARCHAR, "VARCHAR2", 30, 0));
+        List<String> ddlList = provider().buildAlterDdl(config(), config(), fromTable, toTable, true);
+        Assert.assertEquals(ddlList.toString(), 5, ddlList.size());
+        Assert.assertEquals("ALTER TABLE \"TEST\".\"T\" MODIFY (\"NAME\" VARCHAR2(600))", ddlList.get(0));
+        Assert.assertEquals("ALTER TABLE \"TEST\".\"T\" MODIFY (\"AMOUNT\" DECIMAL(12,2))", ddlList.get(1));
+        Assert.assertTrue(ddlList.get(2), ddlList.get(2).contains("ADD") && ddlList.get(2).contains("\"CODE\""));
+        Assert.assertEquals("COMMENT ON COLUMN \"TEST\".\"T\".\"CODE\" IS '编码'", ddlList.get(3));
+        Assert.assertEquals("ALTER TABLE \"TEST\".\"T\" DROP COLUMN \"OLD\"", ddlList.get(4));
+    }
+
+    @Test
+    public void bundleDdlTest() throws Exception {
+        List<String> result = provider().bundleDdl(ListUtil.toList("CREATE TABLE T (ID NUMBER)", "CREATE INDEX IDX_T ON T (ID)"));
+        Assert.assertEquals(1, result.size());
+        Assert.assertTrue(result.get(0).startsWith("BEGIN\n"));
+        Assert.assertTrue(result.get(0).contains("EXECUTE IMMEDIATE 'CREATE INDEX IDX_T ON T (ID)'"));
+    }
+
+    @Test
+    public void bundleOversizedDdlTest() throws Exception {
+        String comment = "COMMENT ON TABLE T IS '" + CharSequenceUtil.repeat('x', 33000) + "'";
+        List<String> result = provider().bundleDdl(ListUtil.toList("CREATE TABLE T (ID NUMBER)", comment, "CREATE INDEX IDX_T ON T (ID)"));
+        Assert.assertEquals(3, result.size());
+        Assert.assertTrue(result.get(0).contains("EXECUTE IMMEDIATE 'CREATE TABLE T (ID NUMBER)'"));
+        //超长语句不包装为EXECUTE IMMEDIATE，避免字符串常量超过PL/SQL长度限制
+        Assert.assertSame(comment, result.get(1));
+        Assert.assertTrue(result.get(2).contains("EXECUTE IMMEDIATE 'CREATE INDEX IDX_T ON T (ID)'"));
+    }
+}
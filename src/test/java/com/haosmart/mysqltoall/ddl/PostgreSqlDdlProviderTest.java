@@ -0,0 +1,48 @@
+package com.haosmart.mysqltoall.ddl;
+
+import cn.hutool.db.meta.JdbcType;
+import cn.hutool.db.meta.Table;
+import com.haosmart.mysqltoall.TestSupport;
+import com.haosmart.mysqltoall.config.DbConfig;
+import com.haosmart.mysqltoall.enumration.DbType;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+
+import static com.haosmart.mysqltoall.TestSupport.column;
+import static com.haosmart.mysqltoall.TestSupport.table;
+
+public class PostgreSqlDdlProviderTest {
+
+    private static DbConfig config() {
+        return TestSupport.config(DbType.POSTGRESQL, "public");
+    }
+
+    private static DdlProvider provider() throws Exception {
+        return TestSupport.provider(config(), 14);
+    }
+
+    @Test
+    public void buildAlterDdlUnchangedTest() throws Exception {
+        Table fromTable = table("t", column("id", JdbcType.INTEGER, "INT", 10, 0), column("name", JdbcType.VARCHAR, "VARCHAR", 100, 0),
+                column("amount", JdbcType.DECIMAL, "DECIMAL", 10, 2), column("body", JdbcType.LONGVARCHAR, "TEXT", 65535, 0),
+                column("created", JdbcType.TIMESTAMP, "DATETIME", 19, 0));
+        //目标列的元数据：int4、numeric带精度、text及timestamp的长度为元数据默认值
+        Table toTable = table("t", column("id", JdbcType.INTEGER, "int4", 10, 0), column("name", JdbcType.VARCHAR, "varchar", 100, 0),
+                column("amount", JdbcType.NUMERIC, "numeric", 10, 2), column("body", JdbcType.VARCHAR, "text", Integer.MAX_VALUE, 0),
+                column("created", JdbcType.TIMESTAMP, "timestamp", 29, 6));
+        List<String> ddlList = provider().buildAlterDdl(config(), config(), fromTable, toTable, false);
+        Assert.assertTrue(ddlList.toString(), ddlList.isEmpty());
+    }
+
+    @Test
+    public void buildAlterDdlChangedTest() throws Exception {
+        Table fromTable = table("t", column("name", JdbcType.VARCHAR, "VARCHAR", 50, 0), column("flag", JdbcType.BIT, "BIT", 1, 0).setNullable(false));
+        Table toTable = table("t", column("name", JdbcType.VARCHAR, "varchar", 20, 0), column("flag", JdbcType.BIT, "bit", 1, 0));
+        List<String> ddlList = provider().buildAlterDdl(config(), config(), fromTable, toTable, false);
+        Assert.assertEquals(ddlList.toString(), 2, ddlList.size());
+        Assert.assertTrue(ddlList.get(0), ddlList.get(0).contains("\"name\"") && ddlList.get(0).contains("VARCHAR(50)"));
+        Assert.assertTrue(ddlList.get(1), ddlList.get(1).contains("\"flag\"") && ddlList.get(1).contains("SET NOT NULL"));
+    }
+}
@@ -0,0 +1,38 @@
+package com.haosmart.mysqltoall.ddl;
+
+import cn.hutool.core.collection.ListUtil;
+import cn.hutool.core.text.CharSequenceUtil;
+import com.haosmart.mysqltoall.TestSupport;
+import com.haosmart.mysqltoall.enumration.DbType;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+
+public class SqlServerDdlProviderTest {
+
+    private static DdlProvider provider() throws Exception {
+        return TestSupport.provider(TestSupport.config(DbType.SQLSERVER, "dbo"), 15);
+    }
+
+    @Test
+    public void bundleDdlTest() throws Exception {
+        List<String> result = provider().bundleDdl(ListUtil.toList("ALTER TABLE [dbo].[t] ADD [code] NVARCHAR(10)",
+                "EXEC SP_ADDEXTENDEDPROPERTY 'MS_Description', N'编码', 'SCHEMA', 'dbo', 'TABLE', 't', 'COLUMN', 'code'"));
+        Assert.assertEquals(1, result.size());
+        //每条语句单独动态执行，出错时中止批处理
+        Assert.assertEquals("BEGIN TRY EXEC(N'ALTER TABLE [dbo].[t] ADD [code] NVARCHAR(10)') END TRY BEGIN CATCH THROW; END CATCH;\n"
+                + "BEGIN TRY EXEC(N'EXEC SP_ADDEXTENDEDPROPERTY ''MS_Description'', N''编码'', ''SCHEMA'', ''dbo'', ''TABLE'', ''t'', ''COLUMN'', ''code''') "
+                + "END TRY BEGIN CATCH THROW; END CATCH;\n", result.get(0));
+        Assert.assertEquals(ListUtil.toList("CREATE TABLE t (id INT)"), provider().bundleDdl(ListUtil.toList("CREATE TABLE t (id INT)")));
+    }
+
+    @Test
+    public void bundleOversizedDdlTest() throws Exception {
+        String comment = "EXEC SP_ADDEXTENDEDPROPERTY 'MS_Description', N'" + CharSequenceUtil.repeat('x', 70000) + "', 'SCHEMA', 'dbo', 'TABLE', 't'";
+        List<String> result = provider().bundleDdl(ListUtil.toList("CREATE TABLE t (id INT)", comment, "CREATE INDEX idx_t ON t (id)"));
+        Assert.assertEquals(3, result.size());
+        Assert.assertSame(comment, result.get(1));
+        Assert.assertTrue(result.get(2).startsWith("BEGIN TRY EXEC(N'CREATE INDEX"));
+    }
+}
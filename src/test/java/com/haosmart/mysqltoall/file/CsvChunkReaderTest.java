@@ -0,0 +1,81 @@
+package com.haosmart.mysqltoall.file;
+
+import cn.hutool.db.meta.Column;
+import cn.hutool.db.meta.JdbcType;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+
+import static com.haosmart.mysqltoall.TestSupport.column;
+import static com.haosmart.mysqltoall.TestSupport.roundTrip;
+
+public class CsvChunkReaderTest {
+
+    @Test
+    public void nullAndEmptyTest() throws Exception {
+        Column[] columns = new Column[]{column("a", JdbcType.VARCHAR), column("b", JdbcType.VARCHAR), column("c", JdbcType.VARCHAR)};
+        for (ChunkFormat format : ChunkFormat.values()) {
+            List<Object[]> rows = roundTrip(format, columns,
+                    new Object[]{null, "\\N", ""},
+                    new Object[]{"a,b", "say \"hi\"", "line1\nline2\r\n"},
+                    new Object[]{"", null, "中文"});
+            Assert.assertEquals(3, rows.size());
+            Assert.assertArrayEquals(new Object[]{null, "\\N", ""}, rows.get(0));
+            Assert.assertArrayEquals(new Object[]{"a,b", "say \"hi\"", "line1\nline2\r\n"}, rows.get(1));
+            Assert.assertArrayEquals(new Object[]{"", null, "中文"}, rows.get(2));
+        }
+    }
+
+    @Test
+    public void typedTest() throws Exception {
+        Column[] columns = new Column[]{column("id", JdbcType.BIGINT), column("amount", JdbcType.DECIMAL), column("rate", JdbcType.DOUBLE),
+                column("flag", JdbcType.BIT), column("d", JdbcType.DATE), column("t", JdbcType.TIME), column("created", JdbcType.TIMESTAMP),
+                column("data", JdbcType.VARBINARY)};
+        Time time = Time.valueOf("03:04:05");
+        time.setTime(time.getTime() + 123);
+        Timestamp created = Timestamp.valueOf("2024-01-02 03:04:05.123456789");
+        for (ChunkFormat format : ChunkFormat.values()) {
+            List<Object[]> rows = roundTrip(format, columns,
+                    new Object[]{42L, new BigDecimal("-12.3400"), 1.5D, true, java.sql.Date.valueOf("2024-01-02"), time, created, new byte[]{0, 1, -1}});
+            Object[] values = rows.get(0);
+            Assert.assertEquals(42L, values[0]);
+            Assert.assertEquals(new BigDecimal("-12.3400"), values[1]);
+            Assert.assertEquals(1.5D, values[2]);
+            Assert.assertEquals(true, values[3]);
+            Assert.assertEquals(java.sql.Date.valueOf("2024-01-02"), values[4]);
+            Assert.assertEquals(time, values[5]);
+            Assert.assertEquals(created, values[6]);
+            Assert.assertArrayEquals(new byte[]{0, 1, -1}, (byte[]) values[7]);
+        }
+    }
+
+    @Test
+    public void formatTest() throws Exception {
+        Time time = Time.valueOf("03:04:00");
+        Assert.assertEquals("03:04:00", CsvChunkWriter.format(time));
+        time.setTime(time.getTime() + 50);
+        Assert.assertEquals("03:04:00.05", CsvChunkWriter.format(time));
+        Assert.assertEquals("23:59:59.999999", CsvChunkWriter.format(LocalTime.of(23, 59, 59, 999999000)));
+        Assert.assertEquals("2024-01-02 03:04:05.0", CsvChunkWriter.format(LocalDateTime.of(2024, 1, 2, 3, 4, 5)));
+        Assert.assertEquals("1000", CsvChunkWriter.format(new BigDecimal("1E+3")));
+        Assert.assertNull(CsvChunkWriter.format(null));
+    }
+
+    @Test
+    public void parseTest() {
+        Assert.assertEquals(7L, CsvChunkReader.parse("7", column("c", JdbcType.INTEGER)));
+        Assert.assertEquals(new BigDecimal("18446744073709551615"), CsvChunkReader.parse("18446744073709551615", column("c", JdbcType.BIGINT)));
+        Assert.assertEquals(false, CsvChunkReader.parse("0", column("c", JdbcType.BIT)));
+        Assert.assertArrayEquals(new byte[]{1, 2}, (byte[]) CsvChunkReader.parse("AQI=", column("c", JdbcType.BIT)));
+        Assert.assertEquals(Timestamp.valueOf("2024-01-02 03:04:05"), CsvChunkReader.parse("2024-01-02 03:04:05.0", column("c", JdbcType.DATE)));
+        Assert.assertEquals(Time.valueOf("03:04:05"), CsvChunkReader.parse("03:04:05", column("c", JdbcType.TIME)));
+        Assert.assertEquals("838:59:59", CsvChunkReader.parse("838:59:59", column("c", JdbcType.TIME)));
+        Assert.assertEquals("text", CsvChunkReader.parse("text", column("c", JdbcType.VARCHAR)));
+    }
+}
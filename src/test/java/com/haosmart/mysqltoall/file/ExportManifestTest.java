@@ -0,0 +1,74 @@
+package com.haosmart.mysqltoall.file;
+
+import cn.hutool.core.collection.ListUtil;
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.db.meta.Column;
+import cn.hutool.db.meta.ColumnIndexInfo;
+import cn.hutool.db.meta.IndexInfo;
+import cn.hutool.db.meta.JdbcType;
+import cn.hutool.db.meta.Table;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.LinkedHashSet;
+
+public class ExportManifestTest {
+
+    @Test
+    public void tableRoundTripTest() throws Exception {
+        Table table = Table.create("t_order").setComment("订单");
+        table.setColumn(new Column().setName("id").setType(JdbcType.BIGINT.typeCode).setTypeName("BIGINT").setSize(20).setNullable(false)
+                .setAutoIncrement(true).setPk(true));
+        table.setColumn(new Column().setName("amount").setType(JdbcType.DECIMAL.typeCode).setTypeName("DECIMAL").setSize(12).setDigit(2)
+                .setNullable(true).setColumnDef("0.00").setComment("金额"));
+        table.setPkNames(new LinkedHashSet<>(ListUtil.of("id")));
+        IndexInfo index = new IndexInfo(false, "uk_amount", "t_order", null, null);
+        index.setColumnIndexInfoList(ListUtil.of(new ColumnIndexInfo("amount", "A")));
+        table.setIndexInfoList(ListUtil.of(index));
+
+        ExportManifest manifest = new ExportManifest();
+        manifest.setFormat(ChunkFormat.BINARY);
+        manifest.setSourceDbType("MYSQL");
+        ExportManifest.TableEntry entry = ExportManifest.TableEntry.of(table);
+        entry.setRecordCount(3L);
+        entry.getChunks().add("t_order.00000.bin.gz");
+        manifest.getTables().add(entry);
+
+        File directory = FileUtil.mkdir(FileUtil.file(System.getProperty("java.io.tmpdir"), "manifest-test-" + System.nanoTime()));
+        ExportManifest read;
+        try {
+            manifest.write(directory);
+            read = ExportManifest.read(directory);
+        } finally {
+            FileUtil.del(directory);
+        }
+        Assert.assertEquals(ChunkFormat.BINARY, read.getFormat());
+        Assert.assertEquals("MYSQL", read.getSourceDbType());
+        Assert.assertEquals(1, read.getTables().size());
+        ExportManifest.TableEntry readEntry = read.getTables().get(0);
+        Assert.assertEquals(3L, readEntry.getRecordCount());
+        Assert.assertEquals(ListUtil.of("t_order.00000.bin.gz"), readEntry.getChunks());
+
+        Table restored = readEntry.toTable();
+        Assert.assertEquals("t_order", restored.getTableName());
+        Assert.assertEquals("订单", restored.getComment());
+        Assert.assertEquals(table.getPkNames(), restored.getPkNames());
+        Column id = restored.getColumn("id");
+        Assert.assertEquals(JdbcType.BIGINT.typeCode, id.getType());
+        Assert.assertFalse(id.isNullable());
+        Assert.assertTrue(id.isAutoIncrement());
+        Assert.assertTrue(id.isPk());
+        Column amount = restored.getColumn("amount");
+        Assert.assertEquals("DECIMAL", amount.getTypeName());
+        Assert.assertEquals(12L, amount.getSize());
+        Assert.assertEquals(2, (int) amount.getDigit());
+        Assert.assertEquals("0.00", amount.getColumnDef());
+        Assert.assertEquals("金额", amount.getComment());
+        Assert.assertEquals(1, restored.getIndexInfoList().size());
+        IndexInfo restoredIndex = restored.getIndexInfoList().get(0);
+        Assert.assertEquals("uk_amount", restoredIndex.getIndexName());
+        Assert.assertFalse(restoredIndex.isNonUnique());
+        Assert.assertEquals("amount", restoredIndex.getColumnIndexInfoList().get(0).getColumnName());
+    }
+}
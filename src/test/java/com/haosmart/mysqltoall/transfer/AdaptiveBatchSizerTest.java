@@ -0,0 +1,39 @@
+package com.haosmart.mysqltoall.transfer;
+
+import com.haosmart.mysqltoall.ExecuteStrategy;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class AdaptiveBatchSizerTest {
+
+    private final static ExecuteStrategy STRATEGY = new ExecuteStrategy() {
+    };
+
+    @Test
+    public void adaptTest() {
+        AdaptiveBatchSizer sizer = new AdaptiveBatchSizer(STRATEGY, 100L, new MemoryBudget(Long.MAX_VALUE));
+        Assert.assertEquals(5000, sizer.nextBatchSize());
+        //写入耗时为目标的一半时加倍，不足请求行数的末批次不参与调整
+        sizer.record(5000, 5000, TimeUnit.MILLISECONDS.toNanos(1000L));
+        Assert.assertEquals(10000, sizer.nextBatchSize());
+        sizer.record(10000, 3000, TimeUnit.MILLISECONDS.toNanos(100000L));
+        Assert.assertEquals(10000, sizer.nextBatchSize());
+        sizer.record(10000, 10000, TimeUnit.MILLISECONDS.toNanos(100000L));
+        Assert.assertEquals(5000, sizer.nextBatchSize());
+    }
+
+    @Test
+    public void budgetCappedTest() {
+        //内存预算限制每批次最多1024行
+        AdaptiveBatchSizer sizer = new AdaptiveBatchSizer(STRATEGY, 100L, new MemoryBudget(400 * 1024L));
+        int requested = sizer.nextBatchSize();
+        Assert.assertEquals(1024, requested);
+        //按受限后的请求行数调整，写入过慢时继续缩小
+        sizer.record(requested, requested, TimeUnit.MILLISECONDS.toNanos(8000L));
+        Assert.assertEquals(512, sizer.nextBatchSize());
+        sizer.record(512, 512, TimeUnit.MILLISECONDS.toNanos(8000L));
+        Assert.assertEquals(256, sizer.nextBatchSize());
+    }
+}
@@ -0,0 +1,173 @@
+package com.haosmart.mysqltoall.transfer;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.db.Entity;
+import com.haosmart.mysqltoall.ExecuteStrategy;
+import com.haosmart.mysqltoall.TestSupport;
+import com.haosmart.mysqltoall.ddl.DdlProvider;
+import com.haosmart.mysqltoall.enumration.DbType;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.List;
+
+public class BisectingBatchWriterTest {
+
+    /**
+     * 仅支持保存点操作的连接
+     */
+    private static Connection connection() {
+        Savepoint savepoint = (Savepoint) Proxy.newProxyInstance(Savepoint.class.getClassLoader(), new Class[]{Savepoint.class}, (proxy, method, args) -> null);
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class[]{Connection.class},
+                (proxy, method, args) -> "setSavepoint".equals(method.getName()) ? savepoint : null);
+    }
+
+    private static DdlProvider provider() throws Exception {
+        return TestSupport.provider(TestSupport.config(DbType.ORACLE, "TEST"), 19);
+    }
+
+    private static ExecuteStrategy strategy(int maxRetryCount, int maxRejectedRows, String deadLetterPath) {
+        return new ExecuteStrategy() {
+            @Override
+            public int getMaxRetryCount() {
+                return maxRetryCount;
+            }
+
+            @Override
+            public int getMaxRejectedRows() {
+                return maxRejectedRows;
+            }
+
+            @Override
+            public String getDeadLetterPath() {
+                return deadLetterPath;
+            }
+        };
+    }
+
+    private static List<Entity> rows(int count) {
+        List<Entity> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            rows.add(Entity.create("T").set("ID", i));
+        }
+        return rows;
+    }
+
+    /**
+     * 包含指定行时抛出异常，否则记录写入的行
+     */
+    private static BisectingBatchWriter.BatchInsert insert(List<Entity> written, int badId, SQLException error) {
+        return rows -> {
+            if (rows.stream().anyMatch(t -> t.getInt("ID") == badId)) {
+                throw error;
+            }
+            written.addAll(rows);
+        };
+    }
+
+    @Test
+    public void bisectDataErrorTest() throws Exception {
+        File directory = FileUtil.file(System.getProperty("java.io.tmpdir"), "dead-letter-test-" + System.nanoTime());
+        try {
+            BisectingBatchWriter writer = new BisectingBatchWriter(connection(), provider(), strategy(3, 1, directory.getPath()), "T", new TransferListener() {
+            });
+            List<Entity> written = new ArrayList<>();
+            //ORA-12899的SQLState为72000，按方言错误码识别为数据错误
+            writer.write(rows(10), insert(written, 6, new SQLException("ORA-12899: value too large", "72000", 12899)));
+            Assert.assertEquals(9, written.size());
+            Assert.assertEquals(1, writer.getRejectedCount());
+            Assert.assertEquals(0, writer.getRetryCount());
+            List<String> lines = FileUtil.readUtf8Lines(FileUtil.file(directory, "T.jsonl"));
+            Assert.assertEquals(1, lines.size());
+            Assert.assertTrue(lines.get(0), lines.get(0).contains("ORA-12899"));
+
+            //超过最大拒绝数后抛出
+            try {
+                writer.write(rows(4), insert(new ArrayList<>(), 2, new SQLException("unique constraint violated", "23000", 1)));
+                Assert.fail();
+            } catch (SQLException e) {
+                Assert.assertEquals("23000", ((SQLException) e.getCause()).getSQLState());
+            }
+        } finally {
+            FileUtil.del(directory);
+        }
+    }
+
+    @Test
+    public void targetDeadLetterTest() throws Exception {
+        File directory = FileUtil.file(System.getProperty("java.io.tmpdir"), "dead-letter-test-" + System.nanoTime());
+        try {
+            //多目标写入同一死信目录时按目标库区分文件
+            for (String targetId : new String[]{"oracle", "pg"}) {
+                BisectingBatchWriter writer = new BisectingBatchWriter(targetId, connection(), provider(), strategy(0, -1, directory.getPath()), "T",
+                        new TransferListener() {
+                        });
+                writer.write(rows(4), insert(new ArrayList<>(), 1, new SQLException("value too large", "22001")));
+            }
+            Assert.assertEquals(1, FileUtil.readUtf8Lines(FileUtil.file(directory, "oracle-T.jsonl")).size());
+            Assert.assertEquals(1, FileUtil.readUtf8Lines(FileUtil.file(directory, "pg-T.jsonl")).size());
+            Assert.assertFalse(FileUtil.exist(FileUtil.file(directory, "T.jsonl")));
+        } finally {
+            FileUtil.del(directory);
+        }
+    }
+
+    @Test
+    public void defaultStrategyTest() throws Exception {
+        BisectingBatchWriter writer = new BisectingBatchWriter(connection(), provider(), new ExecuteStrategy() {
+        }, "T", new TransferListener() {
+        });
+        SQLException error = new SQLException("value too large", "22001");
+        List<Entity> written = new ArrayList<>();
+        //默认不接受拒绝记录，原样抛出且不写入死信文件
+        try {
+            writer.write(rows(10), insert(written, 6, error));
+            Assert.fail();
+        } catch (SQLException e) {
+            Assert.assertSame(error, e);
+        }
+        Assert.assertTrue(written.isEmpty());
+        Assert.assertEquals(0, writer.getRejectedCount());
+        Assert.assertEquals(0, writer.getRetryCount());
+    }
+
+    @Test
+    public void nonDataErrorTest() throws Exception {
+        BisectingBatchWriter writer = new BisectingBatchWriter(connection(), provider(), strategy(2, -1, null), "T", new TransferListener() {
+        });
+        SQLException error = new SQLException("connection reset", "08006");
+        List<Entity> written = new ArrayList<>();
+        //连接错误重试后抛出，不二分定位
+        try {
+            writer.write(rows(10), insert(written, 6, error));
+            Assert.fail();
+        } catch (SQLException e) {
+            Assert.assertSame(error, e);
+        }
+        Assert.assertEquals(2, writer.getRetryCount());
+        Assert.assertEquals(0, writer.getRejectedCount());
+
+        //二分过程中出现的非数据错误立即抛出
+        int[] calls = new int[1];
+        SQLException syntax = new SQLException("ORA-00942: table or view does not exist", "42000", 942);
+        try {
+            writer.write(rows(4), rows -> {
+                if (calls[0]++ == 0) {
+                    throw new SQLException("check constraint violated", "23000", 2290);
+                }
+                throw syntax;
+            });
+            Assert.fail();
+        } catch (SQLException e) {
+            Assert.assertSame(syntax, e);
+        }
+        Assert.assertEquals(2, calls[0]);
+        Assert.assertEquals(0, writer.getRejectedCount());
+    }
+}
@@ -0,0 +1,87 @@
+package com.haosmart.mysqltoall.transfer;
+
+import cn.hutool.db.meta.Column;
+import cn.hutool.db.meta.JdbcType;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.TimeZone;
+
+import static com.haosmart.mysqltoall.TestSupport.column;
+import static com.haosmart.mysqltoall.TestSupport.roundTrip;
+
+public class RowCodecTest {
+
+    @Test
+    public void typedTest() throws Exception {
+        RowCodec codec = new RowCodec(new Column[]{column("id", JdbcType.BIGINT), column("amount", JdbcType.DECIMAL),
+                column("rate", JdbcType.DOUBLE), column("flag", JdbcType.BIT), column("d", JdbcType.DATE), column("t", JdbcType.TIME),
+                column("created", JdbcType.TIMESTAMP), column("data", JdbcType.VARBINARY), column("name", JdbcType.VARCHAR)});
+        Timestamp created = Timestamp.valueOf("2024-01-02 03:04:05.123456789");
+        Object[] result = roundTrip(codec, new Object[]{42L, new BigDecimal("-12.3400"), 1.5D, true, java.sql.Date.valueOf("2024-01-02"),
+                Time.valueOf("03:04:05"), created, new byte[]{1, 2, 3}, "中文,\"quoted\"\n"});
+        Assert.assertEquals(42L, result[0]);
+        Assert.assertEquals(new BigDecimal("-12.3400"), result[1]);
+        Assert.assertEquals(1.5D, result[2]);
+        Assert.assertEquals(true, result[3]);
+        Assert.assertEquals(java.sql.Date.valueOf("2024-01-02"), result[4]);
+        Assert.assertEquals(Time.valueOf("03:04:05"), result[5]);
+        Assert.assertEquals(created, result[6]);
+        Assert.assertArrayEquals(new byte[]{1, 2, 3}, (byte[]) result[7]);
+        Assert.assertEquals("中文,\"quoted\"\n", result[8]);
+    }
+
+    @Test
+    public void nullAndMismatchedTest() throws Exception {
+        Column[] columns = new Column[10];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = column("c" + i, JdbcType.BIGINT);
+        }
+        RowCodec codec = new RowCodec(columns);
+        BigInteger unsigned = new BigInteger("18446744073709551615");
+        Object[] values = new Object[]{null, 1, unsigned, "text", null, null, null, null, null, 7L};
+        Object[] result = roundTrip(codec, values);
+        Assert.assertNull(result[0]);
+        Assert.assertEquals(1L, result[1]);
+        Assert.assertEquals(new BigDecimal(unsigned), result[2]);
+        Assert.assertEquals("text", result[3]);
+        Assert.assertNull(result[8]);
+        Assert.assertEquals(7L, result[9]);
+    }
+
+    @Test
+    public void timeZoneTest() throws Exception {
+        RowCodec codec = new RowCodec(new Column[]{column("t", JdbcType.TIME), column("created", JdbcType.TIMESTAMP),
+                column("local_t", JdbcType.TIME), column("local_created", JdbcType.TIMESTAMP)});
+        TimeZone timeZone = TimeZone.getDefault();
+        try {
+            TimeZone.setDefault(TimeZone.getTimeZone("Asia/Shanghai"));
+            Time time = Time.valueOf("23:30:05");
+            time.setTime(time.getTime() + 250);
+            Timestamp created = Timestamp.valueOf("2024-01-02 03:04:05.123456789");
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            codec.encode(new Object[]{time, created, LocalTime.of(1, 2, 3, 456789000), LocalDateTime.of(2024, 1, 2, 3, 4, 5, 6)},
+                    new DataOutputStream(bytes));
+
+            //按毫秒数编码时，切换时区后解码的本地时间会偏移
+            TimeZone.setDefault(TimeZone.getTimeZone("America/New_York"));
+            Object[] result = codec.decode(ByteBuffer.wrap(bytes.toByteArray()));
+            Assert.assertEquals("23:30:05", result[0].toString());
+            Assert.assertEquals(250L, Math.floorMod(((Time) result[0]).getTime(), 1000L));
+            Assert.assertEquals(LocalDateTime.of(2024, 1, 2, 3, 4, 5, 123456789), ((Timestamp) result[1]).toLocalDateTime());
+            Assert.assertEquals("01:02:03", result[2].toString());
+            Assert.assertEquals(LocalDateTime.of(2024, 1, 2, 3, 4, 5, 6), ((Timestamp) result[3]).toLocalDateTime());
+        } finally {
+            TimeZone.setDefault(timeZone);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.haosmart.mysqltoall.transfer;
+
+import cn.hutool.db.Entity;
+import cn.hutool.db.meta.Column;
+import cn.hutool.db.meta.JdbcType;
+import cn.hutool.db.meta.Table;
+import com.haosmart.mysqltoall.config.TableRule;
+import com.haosmart.mysqltoall.ddl.DdlProvider;
+import com.haosmart.mysqltoall.enumration.DbType;
+import org.junit.Assert;
+import org.junit.Test;
+import org.postgresql.util.PGobject;
+
+import java.math.BigInteger;
+
+import static com.haosmart.mysqltoall.TestSupport.column;
+import static com.haosmart.mysqltoall.TestSupport.config;
+import static com.haosmart.mysqltoall.TestSupport.provider;
+import static com.haosmart.mysqltoall.TestSupport.table;
+
+public class RowTransferPlanTest {
+
+    private static DdlProvider oracle() throws Exception {
+        return provider(config(DbType.ORACLE, "TEST"), 19);
+    }
+
+    private static DdlProvider postgresql() throws Exception {
+        return provider(config(DbType.POSTGRESQL, "public"), 14);
+    }
+
+    @Test
+    public void oracleEmptyStringTest() throws Exception {
+        Table fromTable = table("t", column("code", JdbcType.VARCHAR, "VARCHAR", 10, 0).setNullable(false),
+                column("remark", JdbcType.VARCHAR, "VARCHAR", 10, 0));
+        Table toTable = table("T", column("CODE", JdbcType.VARCHAR, "VARCHAR2", 30, 0).setNullable(false),
+                column("REMARK", JdbcType.VARCHAR, "VARCHAR2", 30, 0));
+        RowTransferPlan plan = RowTransferPlan.build(fromTable, toTable, oracle());
+        //非空列的空字符串替换为空格，可空列保持原值由oracle存为null
+        Assert.assertEquals(" ", plan.convertValue(0, ""));
+        Assert.assertEquals("a", plan.convertValue(0, "a"));
+        Assert.assertFalse(plan.hasConverter(1));
+        Assert.assertEquals("", plan.convertValue(1, ""));
+    }
+
+    @Test
+    public void booleanToNumberTest() throws Exception {
+        Table fromTable = table("t", column("flag", JdbcType.BIT, "BIT", 1, 0), column("enabled", JdbcType.TINYINT, "TINYINT", 1, 0),
+                column("active", JdbcType.BIT, "BIT", 1, 0));
+        Table toTable = table("T", column("FLAG", JdbcType.NUMERIC, "NUMBER", 1, 0), column("ENABLED", JdbcType.NUMERIC, "NUMBER", 3, 0),
+                column("ACTIVE", JdbcType.BIT, "BIT", 1, 0));
+        RowTransferPlan plan = RowTransferPlan.build(fromTable, toTable, oracle());
+        Entity entity = plan.convert(Entity.create("t").set("FLAG", true).set("enabled", false).set("active", true));
+        Assert.assertEquals(1, entity.get("\"FLAG\""));
+        Assert.assertEquals(0, entity.get("\"ENABLED\""));
+        Assert.assertEquals(5, plan.convertValue(1, 5));
+        //目标列仍为BIT时不转换
+        Assert.assertFalse(plan.hasConverter(2));
+        Assert.assertEquals(true, entity.get("\"ACTIVE\""));
+    }
+
+    @Test
+    public void unsignedBigintTest() throws Exception {
+        Table fromTable = table("t", column("id", JdbcType.BIGINT, "BIGINT UNSIGNED", 20, 0));
+        Table toTable = table("T", column("ID", JdbcType.NUMERIC, "NUMBER", 20, 0));
+        RowTransferPlan plan = RowTransferPlan.build(fromTable, toTable, oracle());
+        BigInteger max = new BigInteger("18446744073709551615");
+        Assert.assertFalse(plan.hasConverter(0));
+        Assert.assertSame(max, plan.convertValue(0, max));
+    }
+
+    @Test
+    public void removeNulCharTest() throws Exception {
+        Table fromTable = table("t", column("name", JdbcType.VARCHAR, "VARCHAR", 10, 0), column("body", JdbcType.LONGVARCHAR, "TEXT", 65535, 0),
+                column("id", JdbcType.BIGINT, "BIGINT", 20, 0));
+        Table toTable = table("t", column("name", JdbcType.VARCHAR, "varchar", 10, 0), column("body", JdbcType.VARCHAR, "text", Integer.MAX_VALUE, 0),
+                column("id", JdbcType.BIGINT, "int8", 19, 0));
+        RowTransferPlan plan = RowTransferPlan.build(fromTable, toTable, postgresql());
+        Assert.assertEquals("ab", plan.convertValue(0, "a\0b"));
+        Assert.assertEquals("text", plan.convertValue(1, "text"));
+        Assert.assertNull(plan.convertValue(1, null));
+        Assert.assertFalse(plan.hasConverter(2));
+        //oracle接受NUL字符
+        plan = RowTransferPlan.build(table("t", column("name", JdbcType.VARCHAR, "VARCHAR", 10, 0)),
+                table("T", column("NAME", JdbcType.VARCHAR, "VARCHAR2", 30, 0)), oracle());
+        Assert.assertEquals("a\0b", plan.convertValue(0, "a\0b"));
+    }
+
+    @Test
+    public void postgresqlJsonTest() throws Exception {
+        Table fromTable = table("t", column("doc", JdbcType.LONGVARCHAR, "JSON", 0, 0), column("tags", JdbcType.LONGVARCHAR, "JSON", 0, 0),
+                column("remark", JdbcType.VARCHAR, "VARCHAR", 10, 0));
+        Table toTable = table("t", column("doc", JdbcType.OTHER, "json", Integer.MAX_VALUE, 0), column("tags", JdbcType.OTHER, "jsonb", Integer.MAX_VALUE, 0),
+                column("remark", JdbcType.VARCHAR, "varchar", 10, 0));
+        RowTransferPlan plan = RowTransferPlan.build(fromTable, toTable, postgresql());
+        //JSON文本按列类型写入，无需stringtype=unspecified
+        PGobject doc = (PGobject) plan.convertValue(0, "{\"a\":1}");
+        Assert.assertEquals("json", doc.getType());
+        Assert.assertEquals("{\"a\":1}", doc.getValue());
+        Assert.assertEquals("jsonb", ((PGobject) plan.convertValue(1, "[]")).getType());
+        Assert.assertNull(plan.convertValue(1, null));
+        Assert.assertEquals("text", plan.convertValue(2, "text"));
+    }
+
+    @Test
+    public void vendorTypeTest() throws Exception {
+        //oracle BINARY_DOUBLE(101)、TIMESTAMP WITH TIME ZONE(-101)没有对应的JdbcType
+        Column binaryDouble = new Column().setName("RATE").setType(101).setTypeName("BINARY_DOUBLE").setNullable(false);
+        Column timestamp = new Column().setName("CREATED").setType(-101).setTypeName("TIMESTAMP(6) WITH TIME ZONE").setNullable(false);
+        Assert.assertNull(binaryDouble.getTypeEnum());
+        Assert.assertNull(timestamp.getTypeEnum());
+        Table fromTable = table("t", column("rate", JdbcType.DOUBLE, "DOUBLE", 22, 0), new Column().setName("created").setType(-101));
+        RowTransferPlan plan = RowTransferPlan.build(fromTable, table("T", binaryDouble, timestamp), oracle());
+        Assert.assertFalse(plan.hasConverter(0));
+        Assert.assertFalse(plan.hasConverter(1));
+        Assert.assertEquals("", plan.convertValue(1, ""));
+        plan = RowTransferPlan.build(fromTable, table("t", column("rate", JdbcType.DOUBLE, "float8", 17, 17), new Column().setName("created").setType(-101)),
+                postgresql());
+        Assert.assertFalse(plan.hasConverter(1));
+    }
+
+    @Test
+    public void ruleConverterTest() throws Exception {
+        TableRule rule = new TableRule();
+        rule.getColumnConverters().put("code", value -> value == null ? null : value.toString().trim());
+        Table fromTable = table("t", column("code", JdbcType.VARCHAR, "VARCHAR", 10, 0));
+        Table toTable = table("T", column("CODE", JdbcType.VARCHAR, "VARCHAR2", 30, 0).setNullable(false));
+        RowTransferPlan plan = RowTransferPlan.build(fromTable, toTable, oracle(), rule);
+        //规则转换器先执行，转换后的空字符串仍会被替换为空格
+        Assert.assertEquals(" ", plan.convertValue(0, "  "));
+        Assert.assertEquals("a", plan.convertValue(0, " a "));
+    }
+}
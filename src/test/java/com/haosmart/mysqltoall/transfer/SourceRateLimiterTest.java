@@ -0,0 +1,36 @@
+package com.haosmart.mysqltoall.transfer;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class SourceRateLimiterTest {
+
+    @Test
+    public void unlimitedTest() throws Exception {
+        SourceRateLimiter limiter = new SourceRateLimiter(-1L, 0L);
+        Assert.assertFalse(limiter.isLimited());
+        Assert.assertEquals(0L, limiter.acquire(Long.MAX_VALUE, Long.MAX_VALUE));
+    }
+
+    @Test
+    public void rowLimitTest() throws Exception {
+        SourceRateLimiter limiter = new SourceRateLimiter(100L, -1L);
+        //初始令牌为1秒的配额
+        Assert.assertEquals(0L, limiter.acquire(100L, 0L));
+        long waitMillis = TimeUnit.NANOSECONDS.toMillis(limiter.acquire(50L, 0L));
+        Assert.assertTrue(String.valueOf(waitMillis), waitMillis > 300 && waitMillis <= 500);
+    }
+
+    @Test
+    public void factorTest() throws Exception {
+        SourceRateLimiter limiter = new SourceRateLimiter(-1L, 1000L);
+        limiter.acquire(0L, 1000L);
+        limiter.setFactor(0.5D);
+        long waitMillis = TimeUnit.NANOSECONDS.toMillis(limiter.acquire(0L, 100L));
+        Assert.assertTrue(String.valueOf(waitMillis), waitMillis > 100 && waitMillis <= 200);
+        limiter.setFactor(0D);
+        Assert.assertEquals(0.05D, limiter.getFactor(), 0.0001D);
+    }
+}
@@ -0,0 +1,161 @@
+package com.haosmart.mysqltoall.transfer;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.db.Entity;
+import cn.hutool.db.meta.Column;
+import cn.hutool.db.meta.JdbcType;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class SpillBufferTest {
+
+    private final static RowCodec CODEC = new RowCodec(new Column[]{new Column().setName("id").setType(JdbcType.BIGINT.typeCode),
+            new Column().setName("name").setType(JdbcType.VARCHAR.typeCode)});
+
+    private static List<Entity> batch(long start, int rows) {
+        List<Entity> result = new ArrayList<>(rows);
+        for (long i = start; i < start + rows; i++) {
+            //列标签大小写与编码列不同
+            result.add(Entity.create().set("ID", i).set("NAME", "name-" + i));
+        }
+        return result;
+    }
+
+    private static File directory() {
+        return FileUtil.mkdir(FileUtil.file(System.getProperty("java.io.tmpdir"), "spill-test-" + System.nanoTime()));
+    }
+
+    private static long spillFileLength(File directory) {
+        File[] files = directory.listFiles();
+        Assert.assertNotNull(files);
+        Assert.assertEquals(1, files.length);
+        return files[0].length();
+    }
+
+    private static void assertBatch(long start, int rows, List<Entity> batch) {
+        Assert.assertEquals(rows, batch.size());
+        for (int i = 0; i < rows; i++) {
+            Assert.assertEquals(start + i, batch.get(i).getLong("id").longValue());
+            Assert.assertEquals("name-" + (start + i), batch.get(i).getStr("name"));
+        }
+    }
+
+    @Test
+    public void orderTest() throws Exception {
+        File directory = directory();
+        try (SpillBuffer buffer = new SpillBuffer(CODEC, directory, "order test", 1L)) {
+            //首个批次保存在内存中，之后的批次超过内存上限后溢写
+            for (int i = 0; i < 5; i++) {
+                Assert.assertTrue(buffer.put(batch(i * 10L, 10)));
+            }
+            buffer.finish();
+            Assert.assertEquals(4L, buffer.getSpilledBatches());
+            for (int i = 0; i < 5; i++) {
+                assertBatch(i * 10L, 10, buffer.take());
+            }
+            Assert.assertNull(buffer.take());
+        } finally {
+            FileUtil.del(directory);
+        }
+    }
+
+    @Test
+    public void offsetReuseTest() throws Exception {
+        File directory = directory();
+        try (SpillBuffer buffer = new SpillBuffer(CODEC, directory, "reuse", 1L)) {
+            for (int i = 0; i < 3; i++) {
+                buffer.put(batch(i * 10L, 10));
+            }
+            long length = spillFileLength(directory);
+            for (int i = 0; i < 3; i++) {
+                assertBatch(i * 10L, 10, buffer.take());
+            }
+            //磁盘中的批次已全部取出且已解码完成，下一次取出后的批次从文件头重新写入
+            buffer.put(batch(30L, 10));
+            assertBatch(30L, 10, buffer.take());
+            for (int i = 4; i < 7; i++) {
+                buffer.put(batch(i * 10L, 10));
+            }
+            buffer.finish();
+            for (int i = 4; i < 7; i++) {
+                assertBatch(i * 10L, 10, buffer.take());
+            }
+            Assert.assertNull(buffer.take());
+            Assert.assertEquals(4L, buffer.getSpilledBatches());
+            Assert.assertEquals(length, spillFileLength(directory));
+        } finally {
+            FileUtil.del(directory);
+        }
+        Assert.assertFalse(directory.exists());
+    }
+
+    @Test
+    public void memoryBudgetTest() throws Exception {
+        File directory = directory();
+        MemoryBudget memoryBudget = new MemoryBudget(4096L);
+        try (SpillBuffer buffer = new SpillBuffer(CODEC, directory, "budget", Long.MAX_VALUE, memoryBudget)) {
+            buffer.put(batch(0L, 10));
+            Assert.assertEquals(3072L, memoryBudget.getAvailableBytes());
+            long reserved = memoryBudget.acquire(3072L);
+            //内存预算不足时溢写
+            buffer.put(batch(10L, 10));
+            Assert.assertEquals(1L, buffer.getSpilledBatches());
+            memoryBudget.release(reserved);
+            buffer.put(batch(20L, 10));
+            Assert.assertEquals(1L, buffer.getSpilledBatches());
+            Assert.assertEquals(2048L, memoryBudget.getAvailableBytes());
+
+            assertBatch(0L, 10, buffer.take());
+            Assert.assertEquals(3072L, memoryBudget.getAvailableBytes());
+            assertBatch(10L, 10, buffer.take());
+            Assert.assertEquals(3072L, memoryBudget.getAvailableBytes());
+        } finally {
+            FileUtil.del(directory);
+        }
+        //关闭时释放未取出的批次
+        Assert.assertEquals(4096L, memoryBudget.getAvailableBytes());
+    }
+
+    @Test
+    public void failAndCloseTest() throws Exception {
+        File directory = directory();
+        MemoryBudget memoryBudget = new MemoryBudget(4096L);
+        try {
+            SpillBuffer buffer = new SpillBuffer(CODEC, directory, "fail", 1L, memoryBudget);
+            buffer.put(batch(0L, 10));
+            buffer.put(batch(10L, 10));
+            buffer.fail(new IllegalStateException("source failed"));
+            try {
+                buffer.take();
+                Assert.fail();
+            } catch (IOException e) {
+                Assert.assertEquals("source failed", e.getCause().getMessage());
+            }
+            buffer.close();
+            Assert.assertEquals(4096L, memoryBudget.getAvailableBytes());
+            Assert.assertFalse(buffer.put(batch(20L, 10)));
+            Assert.assertEquals(0, directory.list().length);
+
+            //写入端关闭后，等待中的读取端被唤醒
+            SpillBuffer waiting = new SpillBuffer(CODEC, directory, "close", 1L);
+            Thread closer = new Thread(() -> {
+                try {
+                    Thread.sleep(50L);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                waiting.close();
+            });
+            closer.start();
+            Assert.assertNull(waiting.take());
+            closer.join();
+        } finally {
+            FileUtil.del(directory);
+        }
+    }
+}
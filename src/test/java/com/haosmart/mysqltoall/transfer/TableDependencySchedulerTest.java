@@ -0,0 +1,74 @@
+package com.haosmart.mysqltoall.transfer;
+
+import com.haosmart.mysqltoall.entity.ForeignKey;
+import com.haosmart.mysqltoall.entity.TableMeta;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class TableDependencySchedulerTest {
+
+    private static ForeignKey foreignKey(String tableName, String referencedTableName) {
+        ForeignKey foreignKey = new ForeignKey();
+        foreignKey.setName("fk_" + tableName + "_" + referencedTableName);
+        foreignKey.setTableName(tableName);
+        foreignKey.setReferencedTableName(referencedTableName);
+        return foreignKey;
+    }
+
+    @Test
+    public void dependencyOrderTest() throws Throwable {
+        List<TableMeta> tables = Arrays.asList(new TableMeta(10, "item"), new TableMeta(1, "user"), new TableMeta(5, "order"), new TableMeta(3, "other"));
+        List<ForeignKey> foreignKeys = Arrays.asList(foreignKey("item", "order"), foreignKey("order", "user"), foreignKey("item", "user"),
+                foreignKey("item", "item"), foreignKey("item", "missing"));
+        TableDependencyScheduler scheduler = new TableDependencyScheduler(tables, foreignKeys);
+        Assert.assertEquals(3, scheduler.getLevels().size());
+
+        AtomicLong clock = new AtomicLong();
+        Map<String, Long> started = new ConcurrentHashMap<>(8);
+        Map<String, Long> finished = new ConcurrentHashMap<>(8);
+        scheduler.execute(4, (tableMeta, index, total) -> {
+            started.put(tableMeta.getTableName(), clock.incrementAndGet());
+            Thread.sleep(20);
+            finished.put(tableMeta.getTableName(), clock.incrementAndGet());
+        });
+        Assert.assertEquals(4, finished.size());
+        Assert.assertTrue(finished.get("user") < started.get("order"));
+        Assert.assertTrue(finished.get("order") < started.get("item"));
+        //互不依赖的表并行执行
+        Assert.assertTrue(started.get("other") < finished.get("user"));
+    }
+
+    @Test
+    public void circularDependencyTest() throws Throwable {
+        List<TableMeta> tables = Arrays.asList(new TableMeta(1, "a"), new TableMeta(2, "b"));
+        TableDependencyScheduler scheduler = new TableDependencyScheduler(tables, Arrays.asList(foreignKey("a", "b"), foreignKey("b", "a")));
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        scheduler.execute(2, (tableMeta, index, total) -> order.add(tableMeta.getTableName()));
+        Assert.assertEquals(Arrays.asList("b", "a"), order);
+    }
+
+    @Test
+    public void failureTest() {
+        List<TableMeta> tables = Arrays.asList(new TableMeta(2, "a"), new TableMeta(1, "b"));
+        TableDependencyScheduler scheduler = new TableDependencyScheduler(tables, Collections.singletonList(foreignKey("b", "a")));
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        try {
+            scheduler.execute(2, (tableMeta, index, total) -> {
+                order.add(tableMeta.getTableName());
+                throw new IllegalStateException(tableMeta.getTableName());
+            });
+            Assert.fail();
+        } catch (Throwable e) {
+            Assert.assertEquals("a", e.getMessage());
+        }
+        Assert.assertEquals(Collections.singletonList("a"), order);
+    }
+}
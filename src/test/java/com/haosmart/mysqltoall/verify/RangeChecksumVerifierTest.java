@@ -0,0 +1,41 @@
+package com.haosmart.mysqltoall.verify;
+
+import com.haosmart.mysqltoall.entity.KeyRange;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+
+public class RangeChecksumVerifierTest {
+
+    private static void assertContiguous(List<KeyRange> ranges, long lower, long upper) {
+        Assert.assertEquals(lower, ranges.get(0).getLower());
+        Assert.assertEquals(upper, ranges.get(ranges.size() - 1).getUpper());
+        for (int i = 0; i < ranges.size(); i++) {
+            Assert.assertTrue(ranges.get(i).getLower() <= ranges.get(i).getUpper());
+            if (i > 0) {
+                Assert.assertEquals(ranges.get(i - 1).getUpper() + 1, ranges.get(i).getLower());
+            }
+        }
+    }
+
+    @Test
+    public void splitRangesTest() {
+        List<KeyRange> ranges = RangeChecksumVerifier.splitRanges(new long[]{1, 100}, new long[]{5, 120}, 100, 10);
+        Assert.assertEquals(10, ranges.size());
+        assertContiguous(ranges, 1, 120);
+        Assert.assertTrue(RangeChecksumVerifier.splitRanges(null, null, 0, 10).isEmpty());
+        assertContiguous(RangeChecksumVerifier.splitRanges(null, new long[]{7, 7}, 0, 10), 7, 7);
+    }
+
+    @Test
+    public void splitRangesOverflowTest() {
+        List<KeyRange> ranges = RangeChecksumVerifier.splitRanges(new long[]{Long.MIN_VALUE, Long.MAX_VALUE}, null, 4, 1);
+        Assert.assertEquals(4, ranges.size());
+        assertContiguous(ranges, Long.MIN_VALUE, Long.MAX_VALUE);
+        ranges = RangeChecksumVerifier.splitRanges(new long[]{Long.MIN_VALUE, Long.MAX_VALUE}, null, 1, 10);
+        Assert.assertEquals(1, ranges.size());
+        assertContiguous(ranges, Long.MIN_VALUE, Long.MAX_VALUE);
+        assertContiguous(RangeChecksumVerifier.splitRanges(new long[]{Long.MAX_VALUE - 5, Long.MAX_VALUE}, null, 6, 4), Long.MAX_VALUE - 5, Long.MAX_VALUE);
+    }
+}